@@ -38,10 +38,10 @@ import java.util.List;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
@@ -65,6 +65,8 @@ import org.geant.sat.api.dto.RoleDetails;
 import org.geant.sat.api.dto.RoleResponse;
 import org.geant.sat.api.dto.SurveyDetails;
 import org.geant.sat.api.dto.SurveyResponse;
+import org.geant.sat.api.dto.SurveyScoresResponse;
+import org.geant.sat.api.dto.SurveyStatisticsResponse;
 import org.geant.sat.api.dto.ListAllSurveysResponse;
 import org.geant.sat.api.dto.ListAssessorsResponse;
 import org.geant.sat.api.dto.ListEntitiesResponse;
@@ -154,6 +156,40 @@ public class SatApiClient {
         return getResponseWithGet(url, AnswersResponse.class);
     }
     
+    /**
+     * Get the answers for the given tokens in one survey from the Survey Manager API.
+     * @param sid The survey identifier.
+     * @param tokens The tokens whose answers are fetched.
+     * @return The answers for the given tokens in one survey from the Survey Manager API.
+     */
+    public AnswersResponse getAnswers(final String sid, final List<String> tokens) {
+        final StringBuilder url = new StringBuilder(apiBaseUrl + "/answers?sid=" + sid);
+        for (final String token : tokens) {
+            url.append("&token=").append(encodeUrlParam(token));
+        }
+        return getResponseWithGet(url.toString(), AnswersResponse.class);
+    }
+    
+    /**
+     * Get the aggregated answer statistics for one survey from the Survey Manager API.
+     * @param sid The survey identifier.
+     * @return The aggregated answer statistics for one survey from the Survey Manager API.
+     */
+    public SurveyStatisticsResponse getStatistics(final String sid) {
+        final String url = apiBaseUrl + "/surveys/" + encodeUrlParam(sid) + "/statistics";
+        return getResponseWithGet(url, SurveyStatisticsResponse.class);
+    }
+
+    /**
+     * Get the scores for the responses of one survey from the Survey Manager API.
+     * @param sid The survey identifier.
+     * @return The scores for the responses of one survey, per response and per entity.
+     */
+    public SurveyScoresResponse getScores(final String sid) {
+        final String url = apiBaseUrl + "/surveys/" + encodeUrlParam(sid) + "/scores";
+        return getResponseWithGet(url, SurveyScoresResponse.class);
+    }
+
     /**
      * Get all the tokens for one survey from the Survey Manager API.
      * @param sid The survey identifier.
@@ -174,6 +210,17 @@ public class SatApiClient {
         return getResponseWithGet(url, ListSurveyStatusResponse.class);
     }
 
+    /**
+     * Get the instantiated statuses for one survey and one entity from the Survey Manager API.
+     * @param sid The survey identifier.
+     * @param entityId The entity identifier.
+     * @return The instantiated statuses for one survey and one entity from the Survey Manager API.
+     */
+    public ListSurveyStatusResponse getSurveyStatus(final String sid, final String entityId) {
+        final String url = apiBaseUrl + "/surveyStatus?sid=" + sid + "&entityId=" + encodeUrlParam(entityId);
+        return getResponseWithGet(url, ListSurveyStatusResponse.class);
+    }
+
     /**
      * Get all the users from the Survey Manager API.
      * @return All the users from the Survey Manager API.
@@ -497,9 +544,30 @@ public class SatApiClient {
                 return null;
             }
         }
-        try (final CloseableHttpClient httpClient = HttpClientBuilder.buildClient()) {
-            method.addHeader(API_TOKEN_HEADER, token);
-            final HttpResponse response = httpClient.execute(method);
+        try {
+            final CloseableHttpClient httpClient = HttpClientBuilder.getSharedClient();
+            method.setHeader(API_TOKEN_HEADER, token);
+            return handleResponse(httpClient.execute(method), method, clazz, retry);
+        } catch (IOException | KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
+            log.error("Error during the API call", e);
+            return buildNewInstance(clazz, "Internal server error during the API call");
+        }
+    }
+
+    /**
+     * Handles the response from the Survey Manager API. The response is always closed, so that the underlying
+     * connection is released back to the shared pool.
+     * @param response The response from the Survey Manager API.
+     * @param method The method used for the request.
+     * @param clazz The class for the expected response.
+     * @param retry Whether or not to try again if fails.
+     * @param <T> The expected response type.
+     * @return The response from the Survey Manager API.
+     * @throws IOException If the response cannot be read.
+     */
+    protected <T extends AbstractConnectorResponse> T handleResponse(final CloseableHttpResponse response,
+            final HttpUriRequest method, Class<T> clazz, boolean retry) throws IOException {
+        try {
             final int statusCode = response.getStatusLine().getStatusCode();
             log.debug("Response code {} from {}", statusCode, method.getURI());
             if (statusCode >= HttpStatus.SC_OK && statusCode < 300) {
@@ -509,6 +577,7 @@ public class SatApiClient {
                 Gson gson = new Gson();
                 return gson.fromJson(contents, clazz);
             }
+            final String contents = EntityUtils.toString(response.getEntity());
             if (statusCode == 401 && retry) {
                 log.debug("Unauthorized status code, trying to authenticate");
                 if (authenticate()) {
@@ -518,16 +587,13 @@ public class SatApiClient {
                 log.warn("Authentication fails with username {}", username);
             }
             log.error("Unexpected response code from the API: {}", statusCode);
-            final String contents = EntityUtils.toString(response.getEntity());
             log.debug("The contents {}", contents);
             final String errorMessage = getErrorMessage(clazz, contents, "Unexpected response code from the API: " 
                     + statusCode);
             return buildNewInstance(clazz, errorMessage);
-        } catch (IOException | KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
-            log.error("Error during the API call", e);
-            return buildNewInstance(clazz, "Internal server error during the API call");
+        } finally {
+            response.close();
         }
-
     }
     
     /**
@@ -584,30 +650,32 @@ public class SatApiClient {
             log.error("Username and password must be configured for authentication");
             return false;
         }
-        try (final CloseableHttpClient httpClient = HttpClientBuilder.buildClient()) {
+        try {
+            final CloseableHttpClient httpClient = HttpClientBuilder.getSharedClient();
             final String url = apiBaseUrl + "/login";
             final HttpPost method = new HttpPost(url);
             final List<NameValuePair> parameters = new ArrayList<NameValuePair>();
             parameters.add(new BasicNameValuePair("username", username));
             parameters.add(new BasicNameValuePair("password", password));
             method.setEntity(new UrlEncodedFormEntity(parameters));
-            final HttpResponse response = httpClient.execute(method);
-            final int statusCode = response.getStatusLine().getStatusCode();
-            log.debug("Response code {} from {}", statusCode, url);
-            if (statusCode == 200) {
+            try (final CloseableHttpResponse response = httpClient.execute(method)) {
+                final int statusCode = response.getStatusLine().getStatusCode();
+                log.debug("Response code {} from {}", statusCode, url);
                 final HttpEntity entity = response.getEntity();
                 final String contents = EntityUtils.toString(entity);
-                log.trace("Got the following response contents from {}: {}", url, contents);
-                final Header header = response.getFirstHeader(API_TOKEN_HEADER);
-                if (header == null || header.getValue() == null) {
-                    log.error("Header {} not found", API_TOKEN_HEADER);
-                    return false;
+                if (statusCode == 200) {
+                    log.trace("Got the following response contents from {}: {}", url, contents);
+                    final Header header = response.getFirstHeader(API_TOKEN_HEADER);
+                    if (header == null || header.getValue() == null) {
+                        log.error("Header {} not found", API_TOKEN_HEADER);
+                        return false;
+                    }
+                    token = header.getValue();
+                    log.info("Token successfully updated: {}", token);
+                    return true;
+                } else {
+                    log.error("Unexpected response code from the API: {}", statusCode);
                 }
-                token = header.getValue();
-                log.info("Token successfully updated: {}", token);
-                return true;
-            } else {
-                log.error("Unexpected response code from the API: {}", statusCode);
             }
         } catch (IOException | KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
             log.error("Error during the API call", e);
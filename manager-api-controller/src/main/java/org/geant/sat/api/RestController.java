@@ -31,11 +31,16 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.geant.sat.api.answers.SurveyStatisticsService;
+import org.geant.sat.api.dto.AbstractConnectorResponse;
 import org.geant.sat.api.dto.AnswerDetails;
 import org.geant.sat.api.dto.AnswersResponse;
 import org.geant.sat.api.dto.AssessorDetails;
@@ -53,6 +58,8 @@ import org.geant.sat.api.dto.RoleDetails;
 import org.geant.sat.api.dto.RoleResponse;
 import org.geant.sat.api.dto.SurveyDetails;
 import org.geant.sat.api.dto.SurveyResponse;
+import org.geant.sat.api.dto.SurveyScoresResponse;
+import org.geant.sat.api.dto.SurveyStatisticsResponse;
 import org.geant.sat.api.dto.SurveyStatusDetails;
 import org.geant.sat.api.dto.SurveyTokenDetails;
 import org.geant.sat.api.dto.TokenDetails;
@@ -62,10 +69,13 @@ import org.geant.sat.api.dto.ListEntitiesResponse;
 import org.geant.sat.api.dto.ListEntityImportersResponse;
 import org.geant.sat.api.dto.UserDetails;
 import org.geant.sat.api.dto.UserResponse;
+import org.geant.sat.api.impl.AsyncSurveySystemConnectorAdapter;
+import org.geant.sat.api.scoring.ScoringService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -82,6 +92,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 public class RestController {
 
+    /** The warning header value for the stale responses served from a cache. */
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     /** The survey system connector. */
     @Autowired
     @Qualifier("surveyManager.api.surveyConnector")
@@ -101,6 +114,26 @@ public class RestController {
     @Resource(name="surveyManager.api.entityImporters")
     private List<EntityImporter> entityImporters;
 
+    /** The answer statistics service, built on the first use with the survey connector if not configured. */
+    @Autowired(required = false)
+    @Qualifier("surveyManager.api.statisticsService")
+    private SurveyStatisticsService statisticsService;
+
+    /** The scoring service, scoring is disabled if not configured. */
+    @Autowired(required = false)
+    @Qualifier("surveyManager.api.scoringService")
+    private ScoringService scoringService;
+
+    /** The asynchronous survey system connector, adapted from the survey system connector if not configured. */
+    @Autowired(required = false)
+    @Qualifier("surveyManager.api.asyncSurveyConnector")
+    private AsyncSurveySystemConnector asyncConnector;
+
+    /** The executor for adapting the survey system connector, shut down by the container. */
+    @Autowired
+    @Qualifier("surveyManager.api.asyncExecutor")
+    private Executor asyncExecutor;
+
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(RestController.class);
 
@@ -123,7 +156,7 @@ public class RestController {
                 if (response.getErrorMessage() != null) {
                     return new ResponseEntity<ListAllSurveysResponse>(response, HttpStatus.BAD_GATEWAY);
                 }
-                return new ResponseEntity<ListAllSurveysResponse>(response, HttpStatus.OK);
+                return buildOkResponse(response);
             }
         } catch (SurveySystemConnectorException e) {
             emptyResponse.setErrorMessage(e.getMessage());
@@ -152,7 +185,7 @@ public class RestController {
                 if (response.getErrorMessage() != null) {
                     return new ResponseEntity<QuestionsResponse>(response, HttpStatus.BAD_GATEWAY);
                 }
-                return new ResponseEntity<QuestionsResponse>(response, HttpStatus.OK);
+                return buildOkResponse(response);
             }
         } catch (SurveySystemConnectorException e) {
             emptyResponse.setErrorMessage(e.getMessage());
@@ -163,20 +196,23 @@ public class RestController {
     }
 
     /**
-     * Lists all answers for a given survey identifier.
+     * Lists all answers for a given survey identifier, optionally only for the given tokens.
      * @param sid The survey identifier.
+     * @param tokens The tokens whose answers are listed, or null for all the answers.
      * @param httpRequest The HTTP servlet request.
      * @param httpResponse The HTTP servlet response.
      * @return The list of all answers for the given survey identifier.
      */
     @RequestMapping(value = "/answers", method = RequestMethod.GET)
     public @ResponseBody ResponseEntity<AnswersResponse> listAnswers(
-            @RequestParam(value = "sid", required = true) String sid, HttpServletRequest httpRequest,
+            @RequestParam(value = "sid", required = true) String sid,
+            @RequestParam(value = "token", required = false) List<String> tokens, HttpServletRequest httpRequest,
             HttpServletResponse httpResponse) {
-        log.debug("Starting /answers endpoint with parameter sid={}", sid);
+        log.debug("Starting /answers endpoint with parameters sid={}, token={}", sid, tokens);
         final AnswersResponse emptyResponse = new AnswersResponse();
         try {
-            final AnswersResponse response = surveyConnector.listAnswers(sid);
+            final AnswersResponse response = tokens == null ? surveyConnector.listAnswers(sid)
+                    : surveyConnector.listAnswers(sid, tokens);
             if (response != null) {
                 if (response.getErrorMessage() != null) {
                     return new ResponseEntity<AnswersResponse>(response, HttpStatus.BAD_GATEWAY);
@@ -191,6 +227,82 @@ public class RestController {
         return new ResponseEntity<AnswersResponse>(emptyResponse, HttpStatus.OK);
     }
 
+    /**
+     * Get the aggregated answer statistics for a given survey identifier.
+     * @param sid The survey identifier.
+     * @param httpRequest The HTTP servlet request.
+     * @param httpResponse The HTTP servlet response.
+     * @return The aggregated answer statistics for the given survey identifier.
+     */
+    @RequestMapping(value = "/surveys/{sid}/statistics", method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<SurveyStatisticsResponse> getStatistics(@PathVariable String sid,
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        log.debug("Starting /surveys/{}/statistics endpoint", sid);
+        try {
+            return new ResponseEntity<SurveyStatisticsResponse>(getStatisticsService().getStatistics(sid),
+                    HttpStatus.OK);
+        } catch (SurveySystemConnectorException e) {
+            log.error("Could not compute the statistics for survey {}", sid, e);
+            final SurveyStatisticsResponse emptyResponse = new SurveyStatisticsResponse();
+            emptyResponse.setErrorMessage(e.getMessage());
+            return new ResponseEntity<SurveyStatisticsResponse>(emptyResponse, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    /**
+     * Get the scores for the responses of a given survey identifier, per response and per entity.
+     * @param sid The survey identifier.
+     * @param httpRequest The HTTP servlet request.
+     * @param httpResponse The HTTP servlet response.
+     * @return The scores for the responses of the given survey identifier.
+     */
+    @RequestMapping(value = "/surveys/{sid}/scores", method = RequestMethod.GET)
+    public @ResponseBody ResponseEntity<SurveyScoresResponse> getScores(@PathVariable String sid,
+            HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        log.debug("Starting /surveys/{}/scores endpoint", sid);
+        if (scoringService == null) {
+            final SurveyScoresResponse emptyResponse = new SurveyScoresResponse();
+            emptyResponse.setErrorMessage("Scoring has not been configured");
+            return new ResponseEntity<SurveyScoresResponse>(emptyResponse, HttpStatus.NOT_FOUND);
+        }
+        if (scoringService.getModel(sid) == null) {
+            final SurveyScoresResponse emptyResponse = new SurveyScoresResponse();
+            emptyResponse.setErrorMessage("No scoring model for survey " + sid);
+            return new ResponseEntity<SurveyScoresResponse>(emptyResponse, HttpStatus.NOT_FOUND);
+        }
+        try {
+            return new ResponseEntity<SurveyScoresResponse>(scoringService.getScores(sid), HttpStatus.OK);
+        } catch (SurveySystemConnectorException e) {
+            log.error("Could not compute the scores for survey {}", sid, e);
+            final SurveyScoresResponse emptyResponse = new SurveyScoresResponse();
+            emptyResponse.setErrorMessage(e.getMessage());
+            return new ResponseEntity<SurveyScoresResponse>(emptyResponse, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    /**
+     * Get the answer statistics service, building it with the survey connector if it has not been configured.
+     * @return The answer statistics service.
+     */
+    protected synchronized SurveyStatisticsService getStatisticsService() {
+        if (statisticsService == null) {
+            statisticsService = new SurveyStatisticsService(surveyConnector);
+        }
+        return statisticsService;
+    }
+
+    /**
+     * Get the asynchronous survey system connector, adapting the survey connector with the container-managed
+     * executor if it has not been configured.
+     * @return The asynchronous survey system connector.
+     */
+    protected synchronized AsyncSurveySystemConnector getAsyncConnector() {
+        if (asyncConnector == null) {
+            asyncConnector = AsyncSurveySystemConnectorAdapter.adapt(surveyConnector, asyncExecutor);
+        }
+        return asyncConnector;
+    }
+
     /**
      * Lists all users.
      * @param httpRequest The HTTP servlet request.
@@ -213,7 +325,8 @@ public class RestController {
         final ListUsersResponse response = new ListUsersResponse();
         final List<UserDetails> users = smResponse.getUsers();
         response.setUsers(combineDetails(users, surveyResponse.getUsers()));
-        return new ResponseEntity<ListUsersResponse>(response, HttpStatus.OK);
+        response.setStale(surveyResponse.isStale());
+        return buildOkResponse(response);
     }
 
     /**
@@ -369,41 +482,91 @@ public class RestController {
                 }
             }
         }
-        return new ResponseEntity<ListTokensResponse>(response, HttpStatus.OK);
+        response.setStale(surveyResponse.isStale());
+        return buildOkResponse(response);
+    }
+
+    /**
+     * Builds a successful response entity, with a warning header if the response is stale.
+     * @param response The response.
+     * @param <T> The response type.
+     * @return The response entity.
+     */
+    protected <T extends AbstractConnectorResponse> ResponseEntity<T> buildOkResponse(final T response) {
+        if (response.isStale()) {
+            final HttpHeaders headers = new HttpHeaders();
+            headers.add(HttpHeaders.WARNING, STALE_WARNING);
+            return new ResponseEntity<T>(response, headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<T>(response, HttpStatus.OK);
     }
     
     /**
-     * Lists status for all instantiated surveys.
+     * Lists status for all instantiated surveys, optionally only for one entity. Only the answers for the
+     * instantiated tokens are fetched from the survey system.
      * @param sid The survey identifier.
+     * @param entityId The entity identifier, or null for all the entities.
      * @param httpRequest The HTTP servlet request.
      * @param httpResponse The HTTP servlet response.
      * @return All the statuses for instantiated surveys.
      */
     @RequestMapping(value = "/surveyStatus", method = RequestMethod.GET)
     public @ResponseBody ResponseEntity<ListSurveyStatusResponse> listInstantiatedSurves(
-            @RequestParam(value = "sid", required = true) String sid, HttpServletRequest httpRequest,
+            @RequestParam(value = "sid", required = true) String sid,
+            @RequestParam(value = "entityId", required = false) String entityId, HttpServletRequest httpRequest,
             HttpServletResponse httpResponse) {
-        log.debug("Starting /surveyStatus endpoint");
-        final ResponseEntity<ListTokensResponse> tokensResponse = listTokens(sid, httpRequest, httpResponse);
-        final ResponseEntity<AnswersResponse> answersResponse = listAnswers(sid, httpRequest, httpResponse);
-        final ResponseEntity<QuestionsResponse> questionsResponse = listQuestions(sid, httpRequest, httpResponse);
+        log.debug("Starting /surveyStatus endpoint with parameters sid={}, entityId={}", sid, entityId);
         final ListSurveyStatusResponse response = new ListSurveyStatusResponse();
-        if (tokensResponse.getStatusCode() != HttpStatus.OK || answersResponse.getStatusCode() != HttpStatus.OK
-                || questionsResponse.getStatusCode() != HttpStatus.OK) {
-            //TODO check error messages
-            log.error("The source responses were not all OK: tokens: {}, questions: {}, answers: {}", 
-                    tokensResponse.getStatusCode(), questionsResponse.getStatusCode(), answersResponse.getStatusCode());
+        // the questions do not depend on the tokens, fetch them while the tokens are read from the user database
+        final CompletableFuture<QuestionsResponse> questionsFuture = getAsyncConnector().listQuestionsAsync(sid);
+        ListTokensResponse tokensResponse;
+        try {
+            tokensResponse = userDbConnector.listSurveyTokens(sid);
+        } catch (SurveySystemConnectorException e) {
+            log.error("Exception while reading the tokens", e);
+            tokensResponse = new ListTokensResponse();
+            tokensResponse.setErrorMessage(e.getMessage());
+        }
+        if (tokensResponse.getErrorMessage() != null) {
+            log.error("Could not read the tokens: {}", tokensResponse.getErrorMessage());
+            questionsFuture.cancel(false);
             response.setErrorMessage("Could not fetch the source information");
             return new ResponseEntity<ListSurveyStatusResponse>(response, HttpStatus.BAD_GATEWAY);
         }
-        response.setQuestions(questionsResponse.getBody().getQuestions());
+        final List<TokenDetails> instantiated = new ArrayList<>();
+        final List<String> tokens = new ArrayList<>();
+        for (final TokenDetails tokenDetails : tokensResponse.getTokens()) {
+            if (entityId == null || entityId.equals(tokenDetails.getEntityId())) {
+                instantiated.add(tokenDetails);
+                tokens.add(tokenDetails.getToken());
+            }
+        }
+        final CompletableFuture<AnswersResponse> answersFuture = getAsyncConnector().listAnswersAsync(sid, tokens);
+        final QuestionsResponse questionsResponse;
+        final AnswersResponse answersResponse;
+        try {
+            questionsResponse = questionsFuture.join();
+            answersResponse = answersFuture.join();
+        } catch (CompletionException e) {
+            log.error("Exception while reading the source information", e.getCause());
+            answersFuture.cancel(false);
+            response.setErrorMessage("Could not fetch the source information");
+            return new ResponseEntity<ListSurveyStatusResponse>(response, HttpStatus.BAD_GATEWAY);
+        }
+        if (questionsResponse.getErrorMessage() != null || answersResponse.getErrorMessage() != null) {
+            log.error("The source responses were not all OK: questions: {}, answers: {}",
+                    questionsResponse.getErrorMessage(), answersResponse.getErrorMessage());
+            response.setErrorMessage("Could not fetch the source information");
+            return new ResponseEntity<ListSurveyStatusResponse>(response, HttpStatus.BAD_GATEWAY);
+        }
+        response.setQuestions(questionsResponse.getQuestions());
         final List<SurveyStatusDetails> statuses = new ArrayList<>();
-        for (final TokenDetails tokenDetails : tokensResponse.getBody().getTokens()) {
+        for (final TokenDetails tokenDetails : instantiated) {
             final SurveyStatusDetails details = new SurveyStatusDetails();
             details.setAssessor(userDbConnector.getAssessorDetails(tokenDetails.getAssessorId()));
             details.setEntity(userDbConnector.getEntityDetails(tokenDetails.getEntityId()));
             final String token = tokenDetails.getToken();
-            details.setAnswers(getAnswerDetails(token, answersResponse.getBody().getAnswers()));
+            details.setAnswers(getAnswerDetails(token, answersResponse.getAnswers()));
             statuses.add(details);
         }
         response.setStatuses(statuses);
@@ -451,7 +614,8 @@ public class RestController {
         final List<UserDetails> users = new ArrayList<>();
         users.add(details);
         response.setUser(combineDetails(users, surveyResponse.getUsers(), false).get(0));
-        return new ResponseEntity<UserResponse>(response, HttpStatus.OK);
+        response.setStale(surveyResponse.isStale());
+        return buildOkResponse(response);
     }
 
     /**
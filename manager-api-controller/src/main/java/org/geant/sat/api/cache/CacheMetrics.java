@@ -0,0 +1,185 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The hit, miss and eviction counters for one cached operation.
+ */
+public class CacheMetrics {
+
+    /** The amount of calls served from the cache. */
+    private final LongAdder hits = new LongAdder();
+
+    /** The amount of calls served from the cache with a stale response. */
+    private final LongAdder staleHits = new LongAdder();
+
+    /** The amount of calls passed to the underlying connector. */
+    private final LongAdder misses = new LongAdder();
+
+    /** The amount of successful background refreshes. */
+    private final LongAdder refreshes = new LongAdder();
+
+    /** The amount of failed background refreshes. */
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /** The amount of entries evicted because of the size bound. */
+    private final LongAdder evictions = new LongAdder();
+
+    /** The amount of entries expired because of the time-to-live. */
+    private final LongAdder expirations = new LongAdder();
+
+    /** The amount of entries removed because of a write to the underlying connector. */
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Get the amount of calls served from the cache.
+     * @return The amount of calls served from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the amount of calls served from the cache with a stale response.
+     * @return The amount of calls served from the cache with a stale response.
+     */
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * Get the amount of successful background refreshes.
+     * @return The amount of successful background refreshes.
+     */
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Get the amount of failed background refreshes.
+     * @return The amount of failed background refreshes.
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+
+    /**
+     * Get the amount of calls passed to the underlying connector.
+     * @return The amount of calls passed to the underlying connector.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the amount of entries evicted because of the size bound.
+     * @return The amount of entries evicted because of the size bound.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the amount of entries expired because of the time-to-live.
+     * @return The amount of entries expired because of the time-to-live.
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Get the amount of entries removed because of a write to the underlying connector.
+     * @return The amount of entries removed because of a write to the underlying connector.
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Get the ratio of the calls served from the cache, including the stale responses.
+     * @return The ratio of the calls served from the cache, 0 if there has not been any calls.
+     */
+    public double getHitRatio() {
+        final long hitCount = getHits() + getStaleHits();
+        final long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /** Records a call served from the cache. */
+    protected void recordHit() {
+        hits.increment();
+    }
+
+    /** Records a call served from the cache with a stale response. */
+    protected void recordStaleHit() {
+        staleHits.increment();
+    }
+
+    /** Records a successful background refresh. */
+    protected void recordRefresh() {
+        refreshes.increment();
+    }
+
+    /** Records a failed background refresh. */
+    protected void recordRefreshFailure() {
+        refreshFailures.increment();
+    }
+
+    /** Records a call passed to the underlying connector. */
+    protected void recordMiss() {
+        misses.increment();
+    }
+
+    /** Records an entry evicted because of the size bound. */
+    protected void recordEviction() {
+        evictions.increment();
+    }
+
+    /** Records an entry expired because of the time-to-live. */
+    protected void recordExpiration() {
+        expirations.increment();
+    }
+
+    /**
+     * Records entries removed because of a write to the underlying connector.
+     * @param count The amount of removed entries.
+     */
+    protected void recordInvalidations(final long count) {
+        invalidations.add(count);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", staleHits=" + getStaleHits() + ", misses=" + getMisses() + ", refreshes="
+                + getRefreshes() + ", refreshFailures=" + getRefreshFailures() + ", evictions=" + getEvictions()
+                + ", expirations=" + getExpirations() + ", invalidations=" + getInvalidations();
+    }
+}
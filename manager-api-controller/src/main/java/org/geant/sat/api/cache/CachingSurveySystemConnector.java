@@ -0,0 +1,611 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.geant.sat.api.CallPriority;
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.AbstractConnectorResponse;
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.ListUsersResponse;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SurveySystemConnector} decorator caching the rarely changing data of the underlying connector in Ehcache.
+ * Each cached operation has its own time-to-live (in seconds) and maximum amount of entries, configured with the
+ * operation names ({@link #OPERATION_LIST_SURVEYS} etc.) as keys. An operation with a non-positive time-to-live is
+ * passed through without caching. The responses with an error message are never cached.
+ * 
+ * The cached entries are invalidated on the writes done through this connector: updating the survey details removes
+ * the survey list and generating tokens removes the token list of the survey.
+ * 
+ * An entry older than its time-to-live but younger than the time-to-live plus the maximum staleness is served
+ * immediately as a copy marked as stale with {@link AbstractConnectorResponse#toStale()}, while a refresh is run in
+ * the background with the {@link CallPriority#BACKGROUND} priority, so that the interactive calls overtake it. A
+ * successful refresh replaces the entry for the next callers, a failed one keeps the stale entry until the next
+ * attempt. Setting the maximum staleness to zero disables the stale responses.
+ */
+public class CachingSurveySystemConnector implements SurveySystemConnector {
+
+    /** The operation name for {@link #listSurveys()}. */
+    public static final String OPERATION_LIST_SURVEYS = "listSurveys";
+
+    /** The operation name for {@link #listQuestions(String)}. */
+    public static final String OPERATION_LIST_QUESTIONS = "listQuestions";
+
+    /** The operation name for {@link #listAnswers(String)}. */
+    public static final String OPERATION_LIST_ANSWERS = "listAnswers";
+
+    /** The operation name for {@link #listUsers()}. */
+    public static final String OPERATION_LIST_USERS = "listUsers";
+
+    /** The operation name for {@link #listSurveyTokens(String)}. */
+    public static final String OPERATION_LIST_SURVEY_TOKENS = "listSurveyTokens";
+
+    /** The cache key for the operations without parameters. */
+    public static final String KEY_ALL = "all";
+
+    /** The default maximum staleness in seconds. */
+    public static final long DEFAULT_MAX_STALENESS = TimeUnit.HOURS.toSeconds(1);
+
+    /** The default amount of threads for the background refreshes. */
+    public static final int DEFAULT_REFRESH_THREADS = 2;
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(CachingSurveySystemConnector.class);
+
+    /** The underlying connector. */
+    private final SurveySystemConnector connector;
+
+    /** The cache manager owning the caches of this connector. */
+    private final CacheManager cacheManager;
+
+    /** The time-to-live in seconds, keyed by operation name. */
+    private final Map<String, Long> timeToLives = new HashMap<>();
+
+    /** The maximum amount of entries, keyed by operation name. */
+    private final Map<String, Long> maxEntries = new HashMap<>();
+
+    /** The created caches, keyed by operation name. */
+    private final Map<String, Cache<String, CachedResponse>> caches = new ConcurrentHashMap<>();
+
+    /** The metrics, keyed by operation name. */
+    private final Map<String, CacheMetrics> metrics = new ConcurrentHashMap<>();
+
+    /** The counters for invalidating all the entries, keyed by operation name. */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /** The counters for invalidating one entry, keyed by the operation and key pairs. */
+    private final Map<String, AtomicLong> keyGenerations = new ConcurrentHashMap<>();
+
+    /** The operation and key pairs with a background refresh in progress. */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /** The maximum time in seconds a response is served stale after its time-to-live. */
+    private long maxStaleness = DEFAULT_MAX_STALENESS;
+
+    /** The executor for the background refreshes. */
+    private ExecutorService refreshExecutor;
+
+    /** Whether the executor for the background refreshes was built by this connector. */
+    private boolean ownRefreshExecutor;
+
+    /**
+     * Constructor.
+     * @param surveyConnector The underlying connector.
+     */
+    public CachingSurveySystemConnector(final SurveySystemConnector surveyConnector) {
+        connector = surveyConnector;
+        cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true);
+        timeToLives.put(OPERATION_LIST_SURVEYS, TimeUnit.MINUTES.toSeconds(5));
+        timeToLives.put(OPERATION_LIST_QUESTIONS, TimeUnit.HOURS.toSeconds(1));
+        timeToLives.put(OPERATION_LIST_ANSWERS, 0L);
+        timeToLives.put(OPERATION_LIST_USERS, TimeUnit.MINUTES.toSeconds(5));
+        timeToLives.put(OPERATION_LIST_SURVEY_TOKENS, TimeUnit.MINUTES.toSeconds(1));
+        maxEntries.put(OPERATION_LIST_SURVEYS, 1L);
+        maxEntries.put(OPERATION_LIST_QUESTIONS, 100L);
+        maxEntries.put(OPERATION_LIST_ANSWERS, 10L);
+        maxEntries.put(OPERATION_LIST_USERS, 1L);
+        maxEntries.put(OPERATION_LIST_SURVEY_TOKENS, 100L);
+        for (final String operation : timeToLives.keySet()) {
+            metrics.put(operation, new CacheMetrics());
+            generations.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Set the time-to-live in seconds for the operations, keyed by operation name. The operations not included keep
+     * their existing time-to-live.
+     * @param ttls What to set.
+     */
+    public synchronized void setTimeToLives(final Map<String, Long> ttls) {
+        checkOperations(ttls);
+        timeToLives.putAll(ttls);
+        removeCaches();
+    }
+
+    /**
+     * Set the maximum amount of entries for the operations, keyed by operation name. The operations not included keep
+     * their existing maximum.
+     * @param entries What to set.
+     */
+    public synchronized void setMaxEntries(final Map<String, Long> entries) {
+        checkOperations(entries);
+        maxEntries.putAll(entries);
+        removeCaches();
+    }
+
+    /**
+     * Set the maximum time in seconds a response is served stale after its time-to-live.
+     * @param seconds What to set, zero to disable the stale responses.
+     */
+    public synchronized void setMaxStaleness(final long seconds) {
+        maxStaleness = Math.max(0, seconds);
+        removeCaches();
+    }
+
+    /**
+     * Set the executor for the background refreshes. By default a pool of {@link #DEFAULT_REFRESH_THREADS} daemon
+     * threads is built on the first refresh.
+     * @param executor What to set.
+     */
+    public synchronized void setRefreshExecutor(final ExecutorService executor) {
+        refreshExecutor = executor;
+        ownRefreshExecutor = false;
+    }
+
+    /**
+     * Get the metrics, keyed by operation name.
+     * @return The metrics, keyed by operation name.
+     */
+    public Map<String, CacheMetrics> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void invalidateAll() {
+        for (final String operation : caches.keySet()) {
+            invalidate(operation, null);
+        }
+    }
+
+    /**
+     * Closes the cache manager and the built refresh executor. This connector cannot be used after closing.
+     */
+    public synchronized void close() {
+        if (ownRefreshExecutor) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+        cacheManager.close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListAllSurveysResponse listSurveys() throws SurveySystemConnectorException {
+        return cached(OPERATION_LIST_SURVEYS, KEY_ALL, ListAllSurveysResponse.class, () -> connector.listSurveys());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public QuestionsResponse listQuestions(final String sid) throws SurveySystemConnectorException {
+        return cached(OPERATION_LIST_QUESTIONS, sid, QuestionsResponse.class, () -> connector.listQuestions(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AnswersResponse listAnswers(final String sid) throws SurveySystemConnectorException {
+        return cached(OPERATION_LIST_ANSWERS, sid, AnswersResponse.class, () -> connector.listAnswers(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AnswersResponse listAnswers(final String sid, final Collection<String> tokens)
+            throws SurveySystemConnectorException {
+        return connector.listAnswers(sid, tokens);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void exportAnswers(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        connector.exportAnswers(sid, consumer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void exportAnswers(final String sid, final long fromId, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        connector.exportAnswers(sid, fromId, consumer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getAnswersRevision(final String sid) throws SurveySystemConnectorException {
+        return connector.getAnswersRevision(sid);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListUsersResponse listUsers() {
+        return cached(OPERATION_LIST_USERS, KEY_ALL, ListUsersResponse.class, () -> connector.listUsers());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateSurveyDetails(final SurveyDetails survey) throws SurveySystemConnectorException {
+        try {
+            connector.updateSurveyDetails(survey);
+        } finally {
+            invalidate(OPERATION_LIST_SURVEYS, null);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListSurveyTokensResponse listSurveyTokens(final String sid) throws SurveySystemConnectorException {
+        return cached(OPERATION_LIST_SURVEY_TOKENS, sid, ListSurveyTokensResponse.class,
+                () -> connector.listSurveyTokens(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String generateToken(final String sid) throws SurveySystemConnectorException {
+        try {
+            return connector.generateToken(sid);
+        } finally {
+            invalidate(OPERATION_LIST_SURVEY_TOKENS, sid);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<String> generateTokens(final String sid, final int count) throws SurveySystemConnectorException {
+        try {
+            return connector.generateTokens(sid, count);
+        } finally {
+            invalidate(OPERATION_LIST_SURVEY_TOKENS, sid);
+        }
+    }
+
+    /**
+     * Get the response for the given operation and key from the cache, or from the loader if it is not cached. A
+     * stale response is returned as such and refreshed in the background.
+     * @param operation The operation name.
+     * @param key The cache key.
+     * @param type The response type.
+     * @param loader The loader calling the underlying connector.
+     * @param <T> The response type.
+     * @param <E> The exception type thrown by the loader.
+     * @return The response.
+     * @throws E If the loader fails.
+     */
+    protected <T extends AbstractConnectorResponse, E extends Exception> T cached(final String operation,
+            final String key, final Class<T> type, final Loader<T, E> loader) throws E {
+        final Cache<String, CachedResponse> cache = getCache(operation);
+        if (cache == null || key == null) {
+            return loader.load();
+        }
+        final CacheMetrics operationMetrics = metrics.get(operation);
+        final CachedResponse entry = cache.get(key);
+        if (entry != null) {
+            final long age = currentTimeMillis() - entry.getLoadedAt();
+            if (age < TimeUnit.SECONDS.toMillis(timeToLives.get(operation))) {
+                operationMetrics.recordHit();
+                return type.cast(entry.getResponse());
+            }
+            if (maxStaleness > 0) {
+                operationMetrics.recordStaleHit();
+                refreshInBackground(operation, key, loader);
+                // the cached response is shared by the concurrent callers, only a copy is marked as stale
+                return type.cast(entry.getResponse().toStale());
+            }
+        }
+        operationMetrics.recordMiss();
+        final T response = load(operation, key, loader, cache);
+        log.debug("Cache miss for {}({}), {}", operation, key, operationMetrics);
+        return response;
+    }
+
+    /**
+     * Loads the response with the given loader and caches it if it has no error message and neither the entry nor
+     * all the entries of the operation were invalidated during the load.
+     * @param operation The operation name.
+     * @param key The cache key.
+     * @param loader The loader calling the underlying connector.
+     * @param cache The cache for the operation.
+     * @param <T> The response type.
+     * @param <E> The exception type thrown by the loader.
+     * @return The response.
+     * @throws E If the loader fails.
+     */
+    protected <T extends AbstractConnectorResponse, E extends Exception> T load(final String operation,
+            final String key, final Loader<T, E> loader, final Cache<String, CachedResponse> cache) throws E {
+        final AtomicLong generation = generations.get(operation);
+        final AtomicLong keyGeneration = getKeyGeneration(operation, key);
+        final long startGeneration = generation.get();
+        final long startKeyGeneration = keyGeneration.get();
+        final long loadedAt = currentTimeMillis();
+        final T response = loader.load();
+        if (response != null && response.getErrorMessage() == null && generation.get() == startGeneration
+                && keyGeneration.get() == startKeyGeneration) {
+            cache.put(key, new CachedResponse(response, loadedAt));
+        }
+        return response;
+    }
+
+    /**
+     * Get the invalidation counter for the given entry, creating it on the first use.
+     * @param operation The operation name.
+     * @param key The cache key.
+     * @return The invalidation counter for the entry.
+     */
+    protected AtomicLong getKeyGeneration(final String operation, final String key) {
+        return keyGenerations.computeIfAbsent(operation + "/" + key, pair -> new AtomicLong());
+    }
+
+    /**
+     * Refreshes the given entry in the background, unless a refresh for it is already in progress.
+     * @param operation The operation name.
+     * @param key The cache key.
+     * @param loader The loader calling the underlying connector.
+     * @param <T> The response type.
+     * @param <E> The exception type thrown by the loader.
+     */
+    protected <T extends AbstractConnectorResponse, E extends Exception> void refreshInBackground(
+            final String operation, final String key, final Loader<T, E> loader) {
+        final String refreshKey = operation + "/" + key;
+        if (!refreshing.add(refreshKey)) {
+            return;
+        }
+        final CacheMetrics operationMetrics = metrics.get(operation);
+        try {
+            getRefreshExecutor().execute(() -> {
+                // the refresh is not waited for by any caller, let the interactive calls overtake it
+                final CallPriority previous = CallPriority.enter(CallPriority.BACKGROUND);
+                try {
+                    final Cache<String, CachedResponse> cache = getCache(operation);
+                    final T response = cache == null ? null : load(operation, key, loader, cache);
+                    if (response != null && response.getErrorMessage() == null) {
+                        operationMetrics.recordRefresh();
+                    } else {
+                        operationMetrics.recordRefreshFailure();
+                        log.warn("Could not refresh {}({}), serving the stale response", operation, key);
+                    }
+                } catch (Exception e) {
+                    operationMetrics.recordRefreshFailure();
+                    log.warn("Could not refresh {}({}), serving the stale response", operation, key, e);
+                } finally {
+                    refreshing.remove(refreshKey);
+                    CallPriority.restore(previous);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(refreshKey);
+            operationMetrics.recordRefreshFailure();
+            log.warn("Could not schedule the refresh for {}({})", operation, key, e);
+        }
+    }
+
+    /**
+     * Get the cache for the given operation, creating it on the first use. The entries expire from the cache after
+     * the time-to-live plus the maximum staleness.
+     * @param operation The operation name.
+     * @return The cache, or null if the operation is not cached.
+     */
+    protected synchronized Cache<String, CachedResponse> getCache(final String operation) {
+        final Cache<String, CachedResponse> existing = caches.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+        final long ttl = timeToLives.get(operation);
+        if (ttl <= 0) {
+            return null;
+        }
+        final CacheMetrics operationMetrics = metrics.get(operation);
+        final Cache<String, CachedResponse> cache = cacheManager.createCache(operation, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(String.class, CachedResponse.class,
+                        ResourcePoolsBuilder.heap(maxEntries.get(operation)))
+                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(ttl + maxStaleness, TimeUnit.SECONDS)))
+                .add(CacheEventListenerConfigurationBuilder.newEventListenerConfiguration(event -> {
+                    if (event.getType() == EventType.EVICTED) {
+                        operationMetrics.recordEviction();
+                    } else {
+                        operationMetrics.recordExpiration();
+                    }
+                }, EventType.EVICTED, EventType.EXPIRED).unordered().synchronous()));
+        caches.put(operation, cache);
+        log.debug("Created cache for {} with time-to-live {} seconds, maximum staleness {} seconds and {} entries",
+                operation, ttl, maxStaleness, maxEntries.get(operation));
+        return cache;
+    }
+
+    /**
+     * Get the executor for the background refreshes. The executor is built on the first call if not set.
+     * @return The executor for the background refreshes.
+     */
+    protected synchronized ExecutorService getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            final AtomicInteger counter = new AtomicInteger();
+            refreshExecutor = Executors.newFixedThreadPool(DEFAULT_REFRESH_THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "cache-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ownRefreshExecutor = true;
+        }
+        return refreshExecutor;
+    }
+
+    /**
+     * Get the current time in milliseconds, used for the time-to-live of the cached responses.
+     * @return The current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Removes the cached entries for the given operation.
+     * @param operation The operation name.
+     * @param key The cache key, or null for all the entries.
+     */
+    protected void invalidate(final String operation, final String key) {
+        if (key == null) {
+            generations.get(operation).incrementAndGet();
+        } else {
+            getKeyGeneration(operation, key).incrementAndGet();
+        }
+        final Cache<String, CachedResponse> cache = caches.get(operation);
+        if (cache == null) {
+            return;
+        }
+        long count = 0;
+        if (key == null) {
+            for (final Cache.Entry<String, ?> entry : cache) {
+                cache.remove(entry.getKey());
+                count++;
+            }
+        } else if (cache.containsKey(key)) {
+            cache.remove(key);
+            count++;
+        }
+        metrics.get(operation).recordInvalidations(count);
+    }
+
+    /**
+     * Removes all the created caches, so that they are created again with the current configuration.
+     */
+    protected void removeCaches() {
+        for (final String operation : caches.keySet()) {
+            cacheManager.removeCache(operation);
+        }
+        caches.clear();
+    }
+
+    /**
+     * Checks that the given configuration contains only the known operation names.
+     * @param configuration The configuration, keyed by operation name.
+     */
+    protected void checkOperations(final Map<String, Long> configuration) {
+        for (final String operation : configuration.keySet()) {
+            if (!metrics.containsKey(operation)) {
+                throw new IllegalArgumentException("Unknown cached operation " + operation);
+            }
+        }
+    }
+
+    /**
+     * A cached response with the time it was loaded.
+     */
+    protected static final class CachedResponse {
+
+        /** The response. */
+        private final AbstractConnectorResponse response;
+
+        /** The time in milliseconds the response was loaded. */
+        private final long loadedAt;
+
+        /**
+         * Constructor.
+         * @param cachedResponse The response.
+         * @param time The time in milliseconds the response was loaded.
+         */
+        protected CachedResponse(final AbstractConnectorResponse cachedResponse, final long time) {
+            response = cachedResponse;
+            loadedAt = time;
+        }
+
+        /**
+         * Get the response.
+         * @return The response.
+         */
+        protected AbstractConnectorResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Get the time in milliseconds the response was loaded.
+         * @return The time in milliseconds the response was loaded.
+         */
+        protected long getLoadedAt() {
+            return loadedAt;
+        }
+    }
+
+    /**
+     * Loads a response from the underlying connector.
+     * @param <T> The response type.
+     * @param <E> The exception type.
+     */
+    @FunctionalInterface
+    protected interface Loader<T, E extends Exception> {
+
+        /**
+         * Loads the response.
+         * @return The response.
+         * @throws E If the response cannot be loaded.
+         */
+        T load() throws E;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.geant.sat.api.CallPriority;
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyDetails;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link CachingSurveySystemConnector}.
+ */
+public class CachingSurveySystemConnectorTest {
+
+    /** The mocked underlying connector. */
+    private SurveySystemConnector delegate;
+
+    /** The connector to be tested. */
+    private CachingSurveySystemConnector connector;
+
+    /** The current time for the connector to be tested. */
+    private AtomicLong now;
+
+    @BeforeMethod
+    public void initTests() throws Exception {
+        delegate = Mockito.mock(SurveySystemConnector.class);
+        Mockito.when(delegate.listSurveys()).thenReturn(new ListAllSurveysResponse());
+        Mockito.when(delegate.listQuestions(Mockito.anyString())).thenReturn(new QuestionsResponse());
+        Mockito.when(delegate.listAnswers("s1")).thenReturn(new AnswersResponse());
+        Mockito.when(delegate.listSurveyTokens("s1")).thenReturn(new ListSurveyTokensResponse());
+        now = new AtomicLong(System.currentTimeMillis());
+        connector = new CachingSurveySystemConnector(delegate) {
+            @Override
+            protected long currentTimeMillis() {
+                return now.get();
+            }
+        };
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        connector.close();
+    }
+
+    @Test
+    public void testCachedUntilUpdate() throws Exception {
+        final ListAllSurveysResponse response = connector.listSurveys();
+        Assert.assertSame(connector.listSurveys(), response);
+        Mockito.verify(delegate, Mockito.times(1)).listSurveys();
+        connector.updateSurveyDetails(new SurveyDetails());
+        connector.listSurveys();
+        Mockito.verify(delegate, Mockito.times(2)).listSurveys();
+        final CacheMetrics metrics = connector.getMetrics().get(CachingSurveySystemConnector.OPERATION_LIST_SURVEYS);
+        Assert.assertEquals(metrics.getHits(), 1);
+        Assert.assertEquals(metrics.getMisses(), 2);
+        Assert.assertEquals(metrics.getInvalidations(), 1);
+    }
+
+    @Test
+    public void testTokensInvalidatedOnGenerate() throws Exception {
+        connector.listSurveyTokens("s1");
+        connector.listSurveyTokens("s1");
+        connector.generateToken("s1");
+        connector.listSurveyTokens("s1");
+        Mockito.verify(delegate, Mockito.times(2)).listSurveyTokens("s1");
+    }
+
+    @Test
+    public void testInvalidationDuringLoadPerKey() throws Exception {
+        Mockito.when(delegate.listSurveyTokens("s2")).then(invocation -> {
+            connector.generateToken("s1");
+            return new ListSurveyTokensResponse();
+        });
+        Mockito.when(delegate.listSurveyTokens("s3")).then(invocation -> {
+            connector.generateToken("s3");
+            return new ListSurveyTokensResponse();
+        });
+        connector.listSurveyTokens("s2");
+        connector.listSurveyTokens("s2");
+        Mockito.verify(delegate, Mockito.times(1)).listSurveyTokens("s2");
+        connector.listSurveyTokens("s3");
+        connector.listSurveyTokens("s3");
+        Mockito.verify(delegate, Mockito.times(2)).listSurveyTokens("s3");
+    }
+
+    @Test
+    public void testErrorsNotCached() throws Exception {
+        final ListSurveyTokensResponse error = new ListSurveyTokensResponse();
+        error.setErrorMessage("error");
+        Mockito.when(delegate.listSurveyTokens("s2")).thenReturn(error);
+        connector.listSurveyTokens("s2");
+        connector.listSurveyTokens("s2");
+        Mockito.verify(delegate, Mockito.times(2)).listSurveyTokens("s2");
+    }
+
+    @Test
+    public void testPassThroughAndEviction() throws Exception {
+        connector.setMaxEntries(Collections.singletonMap(CachingSurveySystemConnector.OPERATION_LIST_QUESTIONS, 1L));
+        connector.listAnswers("s1");
+        connector.listAnswers("s1");
+        Mockito.verify(delegate, Mockito.times(2)).listAnswers("s1");
+        connector.listQuestions("s1");
+        connector.listQuestions("s2");
+        final CacheMetrics metrics = connector.getMetrics().get(CachingSurveySystemConnector.OPERATION_LIST_QUESTIONS);
+        Assert.assertEquals(metrics.getMisses(), 2);
+        Assert.assertEquals(metrics.getEvictions(), 1);
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        final ListAllSurveysResponse first = new ListAllSurveysResponse();
+        final ListAllSurveysResponse second = new ListAllSurveysResponse();
+        Mockito.when(delegate.listSurveys()).thenReturn(first, second);
+        Assert.assertSame(connector.listSurveys(), first);
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        connector.setRefreshExecutor(executor);
+        final ListAllSurveysResponse stale = connector.listSurveys();
+        Assert.assertNotSame(stale, first);
+        Assert.assertSame(stale.getSurveys(), first.getSurveys());
+        Assert.assertTrue(stale.isStale());
+        Assert.assertFalse(first.isStale());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        final ListAllSurveysResponse refreshed = connector.listSurveys();
+        Assert.assertSame(refreshed, second);
+        Assert.assertFalse(refreshed.isStale());
+        final CacheMetrics metrics = connector.getMetrics().get(CachingSurveySystemConnector.OPERATION_LIST_SURVEYS);
+        Assert.assertEquals(metrics.getStaleHits(), 1);
+        Assert.assertEquals(metrics.getRefreshes(), 1);
+    }
+
+    @Test
+    public void testRefreshInBackgroundLane() throws Exception {
+        final List<CallPriority> priorities = new CopyOnWriteArrayList<>();
+        Mockito.when(delegate.listSurveys()).thenAnswer(invocation -> {
+            priorities.add(CallPriority.current());
+            return new ListAllSurveysResponse();
+        });
+        connector.listSurveys();
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        connector.setRefreshExecutor(executor);
+        connector.listSurveys();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(priorities, Arrays.asList(CallPriority.INTERACTIVE, CallPriority.BACKGROUND));
+    }
+
+    @Test
+    public void testStaleKeptOnRefreshFailure() throws Exception {
+        final QuestionsResponse first = new QuestionsResponse();
+        Mockito.when(delegate.listQuestions("s1")).thenReturn(first)
+                .thenThrow(new SurveySystemConnectorException("mock"));
+        connector.listQuestions("s1");
+        now.addAndGet(TimeUnit.HOURS.toMillis(1) + 1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        connector.setRefreshExecutor(executor);
+        Assert.assertSame(connector.listQuestions("s1").getQuestions(), first.getQuestions());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        final CacheMetrics metrics = connector.getMetrics().get(CachingSurveySystemConnector.OPERATION_LIST_QUESTIONS);
+        Assert.assertEquals(metrics.getRefreshFailures(), 1);
+        connector.setRefreshExecutor(Executors.newSingleThreadExecutor());
+        Assert.assertTrue(connector.listQuestions("s1").isStale());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownOperation() {
+        connector.setTimeToLives(Collections.singletonMap("unknown", 1L));
+    }
+}
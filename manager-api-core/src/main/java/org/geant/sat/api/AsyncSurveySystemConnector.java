@@ -0,0 +1,103 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.ListUsersResponse;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyDetails;
+
+/**
+ * The asynchronous counterpart of {@link SurveySystemConnector}, for fanning out independent calls to the survey
+ * system and composing their results. The methods return immediately, and the returned futures are completed
+ * exceptionally with a {@link SurveySystemConnectorException} in the case of any errors.
+ */
+public interface AsyncSurveySystemConnector {
+
+    /**
+     * List all surveys in the survey system.
+     * @return The future for all surveys in the survey system.
+     */
+    public CompletableFuture<ListAllSurveysResponse> listSurveysAsync();
+
+    /**
+     * List all the questions in the survey system for one survey.
+     * @param sid The survey identifier.
+     * @return The future for all the questions in the survey system for one survey.
+     */
+    public CompletableFuture<QuestionsResponse> listQuestionsAsync(final String sid);
+
+    /**
+     * List all the answers in the survey system for one survey.
+     * @param sid The survey identifier.
+     * @return The future for all the answers in the survey system for one survey.
+     */
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid);
+
+    /**
+     * List the answers in the survey system for one survey and the given tokens.
+     * @param sid The survey identifier.
+     * @param tokens The tokens whose answers are listed.
+     * @return The future for the answers for the given tokens.
+     */
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid, final Collection<String> tokens);
+
+    /**
+     * List all the users in the survey system.
+     * @return The future for all the users in the survey system.
+     */
+    public CompletableFuture<ListUsersResponse> listUsersAsync();
+
+    /**
+     * Updates an existing survey details.
+     * @param survey The existing survey details.
+     * @return The future completed when the survey details have been updated.
+     */
+    public CompletableFuture<Void> updateSurveyDetailsAsync(final SurveyDetails survey);
+
+    /**
+     * List all the survey tokens in the survey system for one survey.
+     * @param sid The survey identifier.
+     * @return The future for all the survey tokens in the survey system for one survey.
+     */
+    public CompletableFuture<ListSurveyTokensResponse> listSurveyTokensAsync(final String sid);
+
+    /**
+     * Creates new tokens in the survey system for one survey.
+     * @param sid The survey identifier.
+     * @param count The amount of tokens to be created.
+     * @return The future for the created tokens.
+     */
+    public CompletableFuture<List<String>> generateTokensAsync(final String sid, final int count);
+}
@@ -0,0 +1,86 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+/**
+ * The priority lanes for the calls made by the {@link SurveySystemConnector}s. A connector limiting its concurrent
+ * calls lets the interactive calls overtake its queued background calls. The priority is held per thread: the
+ * background jobs enter the background lane and restore the previous priority when they are done.
+ * 
+ * <pre>
+ * final CallPriority previous = CallPriority.enter(CallPriority.BACKGROUND);
+ * try {
+ *     ...
+ * } finally {
+ *     CallPriority.restore(previous);
+ * }
+ * </pre>
+ */
+public enum CallPriority {
+
+    /** The calls for interactive requests, e.g. the UI. */
+    INTERACTIVE,
+
+    /** The calls for background jobs, e.g. the refreshes of the cached responses. */
+    BACKGROUND;
+
+    /** The priority of the current thread. */
+    private static final ThreadLocal<CallPriority> CURRENT = new ThreadLocal<CallPriority>() {
+        @Override
+        protected CallPriority initialValue() {
+            return INTERACTIVE;
+        }
+    };
+
+    /**
+     * Get the priority of the current thread.
+     * @return The priority of the current thread, {@link #INTERACTIVE} by default.
+     */
+    public static CallPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the priority of the current thread.
+     * @param priority The priority.
+     * @return The previous priority of the current thread, to be restored with {@link #restore(CallPriority)}.
+     */
+    public static CallPriority enter(final CallPriority priority) {
+        final CallPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        return previous;
+    }
+
+    /**
+     * Restores the given priority for the current thread.
+     * @param previous The priority returned by {@link #enter(CallPriority)}.
+     */
+    public static void restore(final CallPriority previous) {
+        CURRENT.set(previous);
+    }
+}
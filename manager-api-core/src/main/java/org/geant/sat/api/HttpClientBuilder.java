@@ -27,26 +27,60 @@
  */
 package org.geant.sat.api;
 
+import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A HTTP client builder tool.
  * 
+ * <p>
+ * Besides building standalone clients, this class maintains one long-lived pooled client that is meant to be shared
+ * by all the outbound calls. The shared client keeps the connections alive and reuses the TLS sessions, so that the
+ * callers don't need to pay a TCP and TLS handshake on every request. The callers must not close the shared client,
+ * only the responses they get from it.
+ * </p>
+ * 
  * TODO: Configurable TLS options. Currently trusts all servers.
  */
 public class HttpClientBuilder {
     
+    /** Class logger. */
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientBuilder.class);
+
+    /** The configuration for the shared client. */
+    private static HttpClientConfiguration sharedConfiguration = new HttpClientConfiguration();
+
+    /** The connection manager for the shared client. */
+    private static PoolingHttpClientConnectionManager sharedConnectionManager;
+
+    /** The shared client, built on the first use. */
+    private static volatile CloseableHttpClient sharedClient;
+
     /**
      * Constructor hidden.
      */
@@ -68,6 +102,131 @@ public class HttpClientBuilder {
 
     }
 
+    /**
+     * Get the shared pooled {@link HttpClient}. It is built with the current shared configuration on the first call.
+     * The returned client must not be closed by the caller.
+     * @return The shared pooled {@link HttpClient}.
+     * @throws NoSuchAlgorithmException The algorithm is not supported by the platform.
+     * @throws KeyStoreException The trust store cannot be loaded.
+     * @throws KeyManagementException The trust store cannot be loaded.
+     */
+    public static CloseableHttpClient getSharedClient()
+            throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        CloseableHttpClient client = sharedClient;
+        if (client == null) {
+            synchronized (HttpClientBuilder.class) {
+                if (sharedClient == null) {
+                    final PoolingHttpClientConnectionManager manager = buildConnectionManager(sharedConfiguration);
+                    sharedClient = buildPooledClient(manager, sharedConfiguration);
+                    sharedConnectionManager = manager;
+                    LOG.debug("Built the shared HTTP client with {} total and {} per route connections",
+                            sharedConfiguration.getMaxConnectionsTotal(), 
+                            sharedConfiguration.getMaxConnectionsPerRoute());
+                }
+                client = sharedClient;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Sets the configuration for the shared client. If the shared client has already been built, it is closed and
+     * a new one will be built with the given configuration on the next call to {@link #getSharedClient()}.
+     * @param configuration What to set.
+     */
+    public static synchronized void configureSharedClient(final HttpClientConfiguration configuration) {
+        sharedConfiguration = configuration == null ? new HttpClientConfiguration() : configuration;
+        closeSharedClient();
+    }
+
+    /**
+     * Get the current statistics of the shared client's connection pool.
+     * @return The current statistics, or null if the shared client has not been built.
+     */
+    public static synchronized PoolStats getSharedPoolStats() {
+        if (sharedConnectionManager == null) {
+            return null;
+        }
+        return sharedConnectionManager.getTotalStats();
+    }
+
+    /**
+     * Closes the shared client and its pooled connections. A new one will be built on the next call to
+     * {@link #getSharedClient()}.
+     */
+    public static synchronized void closeSharedClient() {
+        if (sharedClient != null) {
+            LOG.debug("Closing the shared HTTP client, pool statistics {}", getSharedPoolStats());
+            try {
+                sharedClient.close();
+            } catch (IOException e) {
+                LOG.warn("Could not close the shared HTTP client", e);
+            }
+            sharedClient = null;
+            sharedConnectionManager = null;
+        }
+    }
+
+    /**
+     * Builds a new pooled client using the given connection manager and configuration.
+     * @param manager The connection manager.
+     * @param configuration The configuration for the client.
+     * @return A new closeable pooled {@link HttpClient}.
+     */
+    protected static CloseableHttpClient buildPooledClient(final PoolingHttpClientConnectionManager manager,
+            final HttpClientConfiguration configuration) {
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(configuration.getConnectTimeout())
+                .setSocketTimeout(configuration.getSocketTimeout())
+                .setConnectionRequestTimeout(configuration.getConnectionRequestTimeout()).build();
+        return HttpClients.custom().setConnectionManager(manager).setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(createKeepAliveStrategy(configuration.getKeepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(configuration.getKeepAlive(), TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Builds a new pooling connection manager with the given configuration. One SSL/TLS context is shared by all the
+     * connections, which enables the TLS session reuse.
+     * @param configuration The configuration for the connection manager.
+     * @return A new pooling connection manager.
+     * @throws NoSuchAlgorithmException The algorithm is not supported by the platform.
+     * @throws KeyStoreException The trust store cannot be loaded.
+     * @throws KeyManagementException The trust store cannot be loaded.
+     */
+    protected static PoolingHttpClientConnectionManager buildConnectionManager(
+            final HttpClientConfiguration configuration) 
+                    throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        final Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", createTrustAll()).build();
+        final PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry);
+        manager.setMaxTotal(configuration.getMaxConnectionsTotal());
+        manager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+        manager.setValidateAfterInactivity(configuration.getValidateAfterInactivity());
+        return manager;
+    }
+
+    /**
+     * Creates a keep-alive strategy that respects the Keep-Alive header sent by the server, but never keeps the
+     * connection alive longer than the given maximum.
+     * @param maxKeepAlive The maximum time to keep the connections alive in milliseconds.
+     * @return The keep-alive strategy.
+     */
+    protected static ConnectionKeepAliveStrategy createKeepAliveStrategy(final long maxKeepAlive) {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+                final long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, 
+                        context);
+                if (advertised > 0 && advertised < maxKeepAlive) {
+                    return advertised;
+                }
+                return maxKeepAlive;
+            }
+        };
+    }
+
     /**
      * Builds a new SSL/TLS configuration trusting all the servers. Not to be used in production systems.
      * @return A new SSL/TLS configuration trusting all the servers.
@@ -0,0 +1,221 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import org.apache.http.pool.PoolStats;
+
+/**
+ * The configuration for the shared pooled HTTP client built by {@link HttpClientBuilder}. All the timeouts are in
+ * milliseconds.
+ * 
+ * <p>
+ * The configuration is meant to be declared as a bean with {@link #initialize()} as its init-method and
+ * {@link #destroy()} as its destroy-method. The supported properties are <code>maxConnectionsTotal</code>,
+ * <code>maxConnectionsPerRoute</code>, <code>connectTimeout</code>, <code>socketTimeout</code>,
+ * <code>connectionRequestTimeout</code>, <code>keepAlive</code> and <code>validateAfterInactivity</code>. The
+ * statistics of the shared client's connection pool are available from {@link #getPoolStats()}.
+ * </p>
+ */
+public class HttpClientConfiguration {
+
+    /** The default maximum amount of pooled connections in total. */
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 50;
+
+    /** The default maximum amount of pooled connections per route (host). */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    /** The default timeout for establishing a connection. */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    /** The default timeout for waiting data (SO_TIMEOUT). */
+    public static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+
+    /** The default timeout for leasing a connection from the pool. */
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+
+    /** The default time to keep idle connections alive, if not advertised by the server. */
+    public static final long DEFAULT_KEEP_ALIVE = 30000;
+
+    /** The default inactivity period after which a pooled connection is validated before reuse. */
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2000;
+
+    /** The maximum amount of pooled connections in total. */
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+
+    /** The maximum amount of pooled connections per route (host). */
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+    /** The timeout for establishing a connection. */
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+    /** The timeout for waiting data (SO_TIMEOUT). */
+    private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+
+    /** The timeout for leasing a connection from the pool. */
+    private int connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+
+    /** The maximum time to keep idle connections alive. */
+    private long keepAlive = DEFAULT_KEEP_ALIVE;
+
+    /** The inactivity period after which a pooled connection is validated before reuse. */
+    private int validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+
+    /**
+     * Get the maximum amount of pooled connections in total.
+     * @return The maximum amount of pooled connections in total.
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Set the maximum amount of pooled connections in total.
+     * @param max What to set.
+     */
+    public void setMaxConnectionsTotal(final int max) {
+        maxConnectionsTotal = max;
+    }
+
+    /**
+     * Get the maximum amount of pooled connections per route (host).
+     * @return The maximum amount of pooled connections per route (host).
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Set the maximum amount of pooled connections per route (host).
+     * @param max What to set.
+     */
+    public void setMaxConnectionsPerRoute(final int max) {
+        maxConnectionsPerRoute = max;
+    }
+
+    /**
+     * Get the timeout for establishing a connection.
+     * @return The timeout for establishing a connection.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Set the timeout for establishing a connection.
+     * @param timeout What to set.
+     */
+    public void setConnectTimeout(final int timeout) {
+        connectTimeout = timeout;
+    }
+
+    /**
+     * Get the timeout for waiting data (SO_TIMEOUT).
+     * @return The timeout for waiting data.
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * Set the timeout for waiting data (SO_TIMEOUT).
+     * @param timeout What to set.
+     */
+    public void setSocketTimeout(final int timeout) {
+        socketTimeout = timeout;
+    }
+
+    /**
+     * Get the timeout for leasing a connection from the pool.
+     * @return The timeout for leasing a connection from the pool.
+     */
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    /**
+     * Set the timeout for leasing a connection from the pool.
+     * @param timeout What to set.
+     */
+    public void setConnectionRequestTimeout(final int timeout) {
+        connectionRequestTimeout = timeout;
+    }
+
+    /**
+     * Get the maximum time to keep idle connections alive.
+     * @return The maximum time to keep idle connections alive.
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Set the maximum time to keep idle connections alive.
+     * @param time What to set.
+     */
+    public void setKeepAlive(final long time) {
+        keepAlive = time;
+    }
+
+    /**
+     * Get the inactivity period after which a pooled connection is validated before reuse.
+     * @return The inactivity period after which a pooled connection is validated before reuse.
+     */
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * Set the inactivity period after which a pooled connection is validated before reuse.
+     * @param period What to set.
+     */
+    public void setValidateAfterInactivity(final int period) {
+        validateAfterInactivity = period;
+    }
+
+    /**
+     * Applies this configuration to the shared client.
+     */
+    public void initialize() {
+        HttpClientBuilder.configureSharedClient(this);
+    }
+
+    /**
+     * Closes the shared client and its pooled connections.
+     */
+    public void destroy() {
+        HttpClientBuilder.closeSharedClient();
+    }
+
+    /**
+     * Get the current statistics of the shared client's connection pool.
+     * @return The current statistics, or null if the shared client has not been built.
+     */
+    public PoolStats getPoolStats() {
+        return HttpClientBuilder.getSharedPoolStats();
+    }
+}
@@ -27,6 +27,12 @@
  */
 package org.geant.sat.api;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.geant.sat.api.dto.AnswerDetails;
 import org.geant.sat.api.dto.AnswersResponse;
 import org.geant.sat.api.dto.ListUsersResponse;
 import org.geant.sat.api.dto.QuestionsResponse;
@@ -63,6 +69,101 @@ public interface SurveySystemConnector {
      */
     public AnswersResponse listAnswers(final String sid) throws SurveySystemConnectorException;
 
+    /**
+     * List the answers in the survey system for one survey and the given tokens. The default implementation
+     * filters the result of {@link #listAnswers(String)} into a new response, connectors should override it if they
+     * can look up the answers by token.
+     * @param sid The survey identifier.
+     * @param tokens The tokens whose answers are listed, or null for all the answers.
+     * @return The answers in the survey system for one survey and the given tokens.
+     * @throws SurveySystemConnectorException In the case of any errors.
+     */
+    public default AnswersResponse listAnswers(final String sid, final Collection<String> tokens)
+            throws SurveySystemConnectorException {
+        final AnswersResponse response = listAnswers(sid);
+        if (tokens == null || response == null || response.getAnswers() == null) {
+            return response;
+        }
+        final List<AnswerDetails> answers = new ArrayList<>();
+        for (final AnswerDetails answer : response.getAnswers()) {
+            if (tokens.contains(answer.getToken())) {
+                answers.add(answer);
+            }
+        }
+        final AnswersResponse filtered = new AnswersResponse();
+        filtered.setErrorMessage(response.getErrorMessage());
+        filtered.setStale(response.isStale());
+        filtered.setAnswers(answers);
+        return filtered;
+    }
+
+    /**
+     * Exports all the answers in the survey system for one survey to the given consumer, one answer at a time. The
+     * default implementation delegates to {@link #listAnswers(String)}, connectors should override it if they can
+     * stream the answers without keeping all of them in memory.
+     * @param sid The survey identifier.
+     * @param consumer The consumer for the answers.
+     * @throws SurveySystemConnectorException In the case of any errors.
+     */
+    public default void exportAnswers(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        final AnswersResponse response = listAnswers(sid);
+        if (response != null && response.getAnswers() != null) {
+            for (final AnswerDetails answer : response.getAnswers()) {
+                consumer.accept(answer);
+            }
+        }
+    }
+
+    /**
+     * Exports the answers from the given response identifier on for one survey to the given consumer, e.g. for
+     * fetching only the new and the still incomplete responses. The default implementation filters the answers from
+     * {@link #exportAnswers(String, Consumer)}, connectors should override it if they can fetch only the requested
+     * responses.
+     * @param sid The survey identifier.
+     * @param fromId The first response identifier to export, zero or negative for all the answers.
+     * @param consumer The consumer for the answers.
+     * @throws SurveySystemConnectorException In the case of any errors, e.g. a response identifier is not numeric.
+     */
+    public default void exportAnswers(final String sid, final long fromId, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        if (fromId <= 0) {
+            exportAnswers(sid, consumer);
+            return;
+        }
+        final String[] invalidId = new String[1];
+        exportAnswers(sid, answer -> {
+            if (invalidId[0] != null) {
+                return;
+            }
+            final long id;
+            try {
+                id = Long.parseLong(answer.getId());
+            } catch (NumberFormatException e) {
+                invalidId[0] = String.valueOf(answer.getId());
+                return;
+            }
+            if (id >= fromId) {
+                consumer.accept(answer);
+            }
+        });
+        if (invalidId[0] != null) {
+            throw new SurveySystemConnectorException("Unexpected response identifier " + invalidId[0] 
+                    + " for survey " + sid);
+        }
+    }
+
+    /**
+     * Get a cheap fingerprint of the answers for one survey, changing when new responses arrive or responses are
+     * completed. The default implementation returns null, i.e. the revision is unknown.
+     * @param sid The survey identifier.
+     * @return The revision of the answers, or null if unknown.
+     * @throws SurveySystemConnectorException In the case of any errors.
+     */
+    public default String getAnswersRevision(final String sid) throws SurveySystemConnectorException {
+        return null;
+    }
+
     /**
      * List all the users in the survey system.
      * @return All the users in the survey system.
@@ -91,5 +192,23 @@ public interface SurveySystemConnector {
      * @throws SurveySystemConnectorException
      */
     public String generateToken(final String sid) throws SurveySystemConnectorException;
+
+    /**
+     * Creates new tokens in the survey system for one survey. The default implementation calls
+     * {@link #generateToken(String)} for each token, connectors should override it if they can create several
+     * tokens at once.
+     * @param sid The survey identifier.
+     * @param count The amount of tokens to be created.
+     * @return The created tokens.
+     * @throws SurveySystemConnectorException In the case of any errors.
+     */
+    public default List<String> generateTokens(final String sid, final int count) 
+            throws SurveySystemConnectorException {
+        final List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tokens.add(generateToken(sid));
+        }
+        return tokens;
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A growable column of string values. The values are dictionary-encoded into primitive codes as long as the column
+ * has few distinct values compared to its length; after that the column switches to storing the values as such, so
+ * that unique values (e.g. identifiers or free-text answers) do not pay for the dictionary.
+ */
+class AnswerColumn {
+
+    /** The dictionary size up to which the column is always dictionary-encoded. */
+    public static final int MIN_DICTIONARY_LIMIT = 256;
+
+    /** The initial capacity for the column. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The dictionary codes for the rows, shifted by one so that 0 stands for null. Null if not encoded. */
+    private int[] codes;
+
+    /** The distinct values, indexed by their codes. Null if not encoded. */
+    private List<String> dictionary;
+
+    /** The codes for the distinct values. Null if not encoded. */
+    private Map<String, Integer> dictionaryIndex;
+
+    /** The values for the rows, if the column is not dictionary-encoded. */
+    private String[] values;
+
+    /**
+     * Constructor.
+     * @param encoded Whether to start with dictionary encoding.
+     */
+    AnswerColumn(final boolean encoded) {
+        if (encoded) {
+            codes = new int[INITIAL_CAPACITY];
+            dictionary = new ArrayList<>();
+            dictionaryIndex = new HashMap<>();
+        } else {
+            values = new String[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Get the value for the given row.
+     * @param row The row index.
+     * @return The value, or null if it has not been set.
+     */
+    String get(final int row) {
+        if (values != null) {
+            return row < values.length ? values[row] : null;
+        }
+        final int code = row < codes.length ? codes[row] : 0;
+        return code == 0 ? null : dictionary.get(code - 1);
+    }
+
+    /**
+     * Set the value for the given row.
+     * @param row The row index.
+     * @param value What to set.
+     * @param rows The amount of rows in the store, used for deciding whether to keep the dictionary encoding.
+     */
+    void set(final int row, final String value, final int rows) {
+        if (values != null) {
+            values = ensureCapacity(values, row);
+            values[row] = value;
+            return;
+        }
+        codes = ensureCapacity(codes, row);
+        if (value == null) {
+            codes[row] = 0;
+            return;
+        }
+        Integer code = dictionaryIndex.get(value);
+        if (code == null) {
+            if (dictionary.size() >= MIN_DICTIONARY_LIMIT && dictionary.size() >= rows / 2) {
+                decode(rows);
+                set(row, value, rows);
+                return;
+            }
+            dictionary.add(value);
+            code = dictionary.size();
+            dictionaryIndex.put(value, code);
+        }
+        codes[row] = code;
+    }
+
+    /**
+     * Checks whether the column is dictionary-encoded.
+     * @return True if the column is dictionary-encoded, false otherwise.
+     */
+    boolean isEncoded() {
+        return values == null;
+    }
+
+    /**
+     * Get the amount of distinct values in the dictionary.
+     * @return The amount of distinct values in the dictionary, 0 if the column is not encoded.
+     */
+    int getDictionarySize() {
+        return dictionary == null ? 0 : dictionary.size();
+    }
+
+    /**
+     * Switches from the dictionary encoding to storing the values as such.
+     * @param rows The amount of rows in the store.
+     */
+    private void decode(final int rows) {
+        final String[] decoded = new String[Math.max(rows, codes.length)];
+        for (int i = 0; i < codes.length; i++) {
+            decoded[i] = codes[i] == 0 ? null : dictionary.get(codes[i] - 1);
+        }
+        values = decoded;
+        codes = null;
+        dictionary = null;
+        dictionaryIndex = null;
+    }
+
+    /**
+     * Grows the given array if needed to fit the given index.
+     * @param array The array.
+     * @param index The index to fit.
+     * @return The array, or its grown copy.
+     */
+    private static int[] ensureCapacity(final int[] array, final int index) {
+        return index < array.length ? array : Arrays.copyOf(array, newCapacity(array.length, index));
+    }
+
+    /**
+     * Grows the given array if needed to fit the given index.
+     * @param array The array.
+     * @param index The index to fit.
+     * @return The array, or its grown copy.
+     */
+    private static String[] ensureCapacity(final String[] array, final int index) {
+        return index < array.length ? array : Arrays.copyOf(array, newCapacity(array.length, index));
+    }
+
+    /**
+     * Calculates a new capacity fitting the given index.
+     * @param capacity The current capacity.
+     * @param index The index to fit.
+     * @return The new capacity.
+     */
+    private static int newCapacity(final int capacity, final int index) {
+        return Math.max(index + 1, capacity + (capacity >> 1));
+    }
+}
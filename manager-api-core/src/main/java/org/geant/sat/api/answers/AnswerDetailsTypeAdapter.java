@@ -0,0 +1,79 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.geant.sat.api.dto.AnswerDetails;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Gson type adapter writing {@link AnswerDetails} through its getters, so that the views over
+ * {@link ColumnarAnswerStore} are serialized exactly like the plain answer details. Reading produces plain answer
+ * details.
+ */
+public class AnswerDetailsTypeAdapter extends TypeAdapter<AnswerDetails> {
+
+    /** The Gson instance used for reading plain answer details. */
+    private static final Gson GSON = new Gson();
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final JsonWriter out, final AnswerDetails details) throws IOException {
+        if (details == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(details.getId());
+        out.name("submitDate").value(details.getSubmitDate());
+        out.name("startLanguage").value(details.getStartLanguage());
+        out.name("token").value(details.getToken());
+        out.name("startDate").value(details.getStartDate());
+        final Map<String, String> answers = details.getAnswers();
+        if (answers != null) {
+            out.name("answers").beginObject();
+            for (final Map.Entry<String, String> entry : answers.entrySet()) {
+                out.name(entry.getKey()).value(entry.getValue());
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AnswerDetails read(final JsonReader in) throws IOException {
+        return GSON.getAdapter(AnswerDetails.class).read(in);
+    }
+}
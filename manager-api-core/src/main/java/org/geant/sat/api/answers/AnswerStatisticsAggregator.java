@@ -0,0 +1,254 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.QuestionStatistics;
+import org.geant.sat.api.dto.SurveyStatisticsResponse;
+
+/**
+ * Aggregates the answers for one survey into per-question statistics in a single pass, without retaining the
+ * answers themselves. For each question it counts the answers per option (most common first, up to a limit of
+ * distinct options), the completion rate and, if all the non-empty answers are numeric, the minimum, maximum, mean
+ * and percentiles.
+ * 
+ * <p>The instances are not thread-safe.</p>
+ */
+public class AnswerStatisticsAggregator implements Consumer<AnswerDetails> {
+
+    /** The default maximum amount of distinct options counted per question. */
+    public static final int DEFAULT_MAX_OPTIONS = 50;
+
+    /** The percentiles computed for the numeric answers. */
+    private static final int[] PERCENTILES = { 25, 50, 75, 90 };
+
+    /** The maximum amount of distinct options counted per question. */
+    private final int maxOptions;
+
+    /** The accumulators per question title, in the order of appearance. */
+    private final Map<String, QuestionAccumulator> questions = new LinkedHashMap<>();
+
+    /** The amount of responses. */
+    private long responses;
+
+    /** The amount of completed responses. */
+    private long completedResponses;
+
+    /**
+     * Constructor.
+     */
+    public AnswerStatisticsAggregator() {
+        this(DEFAULT_MAX_OPTIONS);
+    }
+
+    /**
+     * Constructor.
+     * @param max The maximum amount of distinct options counted per question.
+     */
+    public AnswerStatisticsAggregator(final int max) {
+        maxOptions = max;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void accept(final AnswerDetails answer) {
+        responses++;
+        if (answer.getSubmitDate() != null && !answer.getSubmitDate().isEmpty()) {
+            completedResponses++;
+        }
+        if (answer.getAnswers() == null) {
+            return;
+        }
+        for (final Map.Entry<String, String> entry : answer.getAnswers().entrySet()) {
+            QuestionAccumulator accumulator = questions.get(entry.getKey());
+            if (accumulator == null) {
+                accumulator = new QuestionAccumulator();
+                questions.put(entry.getKey(), accumulator);
+            }
+            accumulator.add(entry.getValue());
+        }
+    }
+
+    /**
+     * Get the amount of responses aggregated so far.
+     * @return The amount of responses.
+     */
+    public long getResponses() {
+        return responses;
+    }
+
+    /**
+     * Builds the response with the statistics aggregated so far.
+     * @param sid The survey identifier.
+     * @return The response with the statistics.
+     */
+    public SurveyStatisticsResponse toResponse(final String sid) {
+        final SurveyStatisticsResponse response = new SurveyStatisticsResponse();
+        response.setSid(sid);
+        response.setResponses(responses);
+        response.setCompletedResponses(completedResponses);
+        final List<QuestionStatistics> statistics = new ArrayList<>();
+        for (final Map.Entry<String, QuestionAccumulator> entry : questions.entrySet()) {
+            statistics.add(entry.getValue().toStatistics(entry.getKey()));
+        }
+        response.setQuestions(statistics);
+        return response;
+    }
+
+    /**
+     * Calculates the given percentile from the sorted values with the nearest-rank method.
+     * @param sorted The sorted values.
+     * @param count The amount of values.
+     * @param percentile The percentile.
+     * @return The percentile value.
+     */
+    protected static double percentile(final double[] sorted, final int count, final int percentile) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * The accumulated state for one question.
+     */
+    private class QuestionAccumulator {
+
+        /** The amount of non-empty answers. */
+        private long answered;
+
+        /** The amounts of answers per option, or null after too many distinct options. */
+        private Map<String, long[]> options = new HashMap<>();
+
+        /** The numeric answers, or null after a non-numeric answer. */
+        private double[] numbers = new double[16];
+
+        /** The amount of numeric answers. */
+        private int numericCount;
+
+        /** The sum of the numeric answers. */
+        private double sum;
+
+        /**
+         * Adds an answer.
+         * @param value The answer.
+         */
+        void add(final String value) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            answered++;
+            countOption(value);
+            if (numbers != null) {
+                addNumber(value);
+            }
+        }
+
+        /**
+         * Counts the answer for its option.
+         * @param value The answer.
+         */
+        private void countOption(final String value) {
+            if (options == null) {
+                return;
+            }
+            final long[] count = options.get(value);
+            if (count != null) {
+                count[0]++;
+            } else if (options.size() < maxOptions) {
+                options.put(value, new long[] { 1 });
+            } else {
+                options = null;
+            }
+        }
+
+        /**
+         * Adds the answer as a number, or stops the numeric aggregation if it is not numeric.
+         * @param value The answer.
+         */
+        private void addNumber(final String value) {
+            final double number;
+            try {
+                number = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                numbers = null;
+                return;
+            }
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                numbers = null;
+                return;
+            }
+            if (numericCount == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
+            }
+            numbers[numericCount++] = number;
+            sum += number;
+        }
+
+        /**
+         * Builds the statistics for the question.
+         * @param title The question title.
+         * @return The statistics for the question.
+         */
+        QuestionStatistics toStatistics(final String title) {
+            final QuestionStatistics statistics = new QuestionStatistics();
+            statistics.setTitle(title);
+            statistics.setAnswered(answered);
+            statistics.setCompletionRate(responses == 0 ? 0 : (double) answered / responses);
+            if (options != null) {
+                final List<Map.Entry<String, long[]>> sortedOptions = new ArrayList<>(options.entrySet());
+                sortedOptions.sort((first, second) -> Long.compare(second.getValue()[0], first.getValue()[0]));
+                final Map<String, Long> counts = new LinkedHashMap<>();
+                for (final Map.Entry<String, long[]> entry : sortedOptions) {
+                    counts.put(entry.getKey(), entry.getValue()[0]);
+                }
+                statistics.setOptions(counts);
+            }
+            if (numbers != null && numericCount > 0) {
+                final double[] sorted = Arrays.copyOf(numbers, numericCount);
+                Arrays.sort(sorted);
+                statistics.setNumericCount((long) numericCount);
+                statistics.setMin(sorted[0]);
+                statistics.setMax(sorted[numericCount - 1]);
+                statistics.setMean(sum / numericCount);
+                final Map<String, Double> percentiles = new LinkedHashMap<>();
+                for (final int percentile : PERCENTILES) {
+                    percentiles.put("p" + percentile, percentile(sorted, numericCount, percentile));
+                }
+                statistics.setPercentiles(percentiles);
+            }
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.geant.sat.api.dto.AnswerDetails;
+
+import com.google.gson.annotations.JsonAdapter;
+
+/**
+ * A compact column-oriented store for the answers of one survey. The question titles are kept once in an interned
+ * dictionary, and each question is a column whose values are dictionary-encoded into primitive arrays as long as
+ * they repeat, which is typical for multiple-choice answers. The rows are exposed to the existing callers as
+ * read-only {@link AnswerDetails} views, see {@link #asList()}.
+ * 
+ * <p>The store is not thread-safe for writing. Once filled, it can be read concurrently.</p>
+ */
+public class ColumnarAnswerStore {
+
+    /** The response identifiers. */
+    private final AnswerColumn ids = new AnswerColumn(false);
+
+    /** The submission dates. */
+    private final AnswerColumn submitDates = new AnswerColumn(false);
+
+    /** The languages. */
+    private final AnswerColumn startLanguages = new AnswerColumn(true);
+
+    /** The tokens used for answering. */
+    private final AnswerColumn tokens = new AnswerColumn(false);
+
+    /** The starting dates of the answering process. */
+    private final AnswerColumn startDates = new AnswerColumn(false);
+
+    /** The interned question titles, indexed by their column numbers. */
+    private final List<String> questionTitles = new ArrayList<>();
+
+    /** The column numbers for the question titles. */
+    private final Map<String, Integer> titleIndex = new HashMap<>();
+
+    /** The answer columns, indexed by their column numbers. */
+    private final List<AnswerColumn> answerColumns = new ArrayList<>();
+
+    /** The amount of rows. */
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public ColumnarAnswerStore() {
+        // no op
+    }
+
+    /**
+     * Constructor.
+     * @param titles The question titles to start with.
+     */
+    public ColumnarAnswerStore(final List<String> titles) {
+        for (final String title : titles) {
+            getQuestionColumn(title);
+        }
+    }
+
+    /**
+     * Get the column number for the given question title, adding a new column if it does not exist yet.
+     * @param title The question title.
+     * @return The column number.
+     */
+    public int getQuestionColumn(final String title) {
+        final Integer column = titleIndex.get(title);
+        if (column != null) {
+            return column;
+        }
+        questionTitles.add(title.intern());
+        answerColumns.add(new AnswerColumn(true));
+        titleIndex.put(title, questionTitles.size() - 1);
+        return questionTitles.size() - 1;
+    }
+
+    /**
+     * Get the question titles in the order of their column numbers.
+     * @return The question titles.
+     */
+    public List<String> getQuestionTitles() {
+        return Collections.unmodifiableList(questionTitles);
+    }
+
+    /**
+     * Adds a new row without answers.
+     * @param id The response identifier.
+     * @param submitDate The submission date.
+     * @param startLanguage The language.
+     * @param token The token used for answering.
+     * @param startDate The starting date of the answering process.
+     * @return The row index.
+     */
+    public int addRow(final String id, final String submitDate, final String startLanguage, final String token,
+            final String startDate) {
+        final int row = size++;
+        ids.set(row, id, size);
+        submitDates.set(row, submitDate, size);
+        startLanguages.set(row, startLanguage, size);
+        tokens.set(row, token, size);
+        startDates.set(row, startDate, size);
+        return row;
+    }
+
+    /**
+     * Adds a new row with the contents of the given answer details.
+     * @param details The answer details.
+     * @return The row index.
+     */
+    public int addRow(final AnswerDetails details) {
+        final int row = addRow(details.getId(), details.getSubmitDate(), details.getStartLanguage(),
+                details.getToken(), details.getStartDate());
+        if (details.getAnswers() != null) {
+            for (final Map.Entry<String, String> entry : details.getAnswers().entrySet()) {
+                setAnswer(row, getQuestionColumn(entry.getKey()), entry.getValue());
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Set the answer for the given row and column.
+     * @param row The row index.
+     * @param column The column number.
+     * @param value What to set.
+     */
+    public void setAnswer(final int row, final int column, final String value) {
+        checkRow(row);
+        answerColumns.get(column).set(row, value, size);
+    }
+
+    /**
+     * Get the answer for the given row and column.
+     * @param row The row index.
+     * @param column The column number.
+     * @return The answer, or null if it has not been set.
+     */
+    public String getAnswer(final int row, final int column) {
+        checkRow(row);
+        return answerColumns.get(column).get(row);
+    }
+
+    /**
+     * Get the answer for the given row and question title.
+     * @param row The row index.
+     * @param title The question title.
+     * @return The answer, or null if it has not been set or the question does not exist.
+     */
+    public String getAnswer(final int row, final String title) {
+        final Integer column = titleIndex.get(title);
+        return column == null ? null : getAnswer(row, column);
+    }
+
+    /**
+     * Get the amount of rows.
+     * @return The amount of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the amount of answer columns that are dictionary-encoded.
+     * @return The amount of answer columns that are dictionary-encoded.
+     */
+    public int getEncodedColumnCount() {
+        int count = 0;
+        for (final AnswerColumn column : answerColumns) {
+            if (column.isEncoded()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get a read-only view of the given row.
+     * @param row The row index.
+     * @return The view of the row.
+     */
+    public AnswerDetails getAnswerDetails(final int row) {
+        checkRow(row);
+        return new AnswerView(row);
+    }
+
+    /**
+     * Get a read-only list view of all the rows. The list reflects the rows added after this call.
+     * @return The list view of the rows.
+     */
+    public List<AnswerDetails> asList() {
+        return new AnswerList();
+    }
+
+    /**
+     * Checks that the given row exists.
+     * @param row The row index.
+     */
+    private void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    /**
+     * A read-only list view of the rows.
+     */
+    private class AnswerList extends AbstractList<AnswerDetails> implements RandomAccess {
+
+        /** {@inheritDoc} */
+        @Override
+        public AnswerDetails get(final int index) {
+            return getAnswerDetails(index);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A read-only {@link AnswerDetails} view of one row.
+     */
+    @JsonAdapter(AnswerDetailsTypeAdapter.class)
+    public class AnswerView extends AnswerDetails {
+
+        /** The row index. */
+        private final int row;
+
+        /**
+         * Constructor.
+         * @param rowIndex The row index.
+         */
+        protected AnswerView(final int rowIndex) {
+            row = rowIndex;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getId() {
+            return ids.get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getSubmitDate() {
+            return submitDates.get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getStartLanguage() {
+            return startLanguages.get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getToken() {
+            return tokens.get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getStartDate() {
+            return startDates.get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<String, String> getAnswers() {
+            return new RowAnswers(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setId(final String newId) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setSubmitDate(final String newSubmitDate) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setStartLanguage(final String newStartLanguage) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setToken(final String newToken) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setStartDate(final String newStartDate) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setAnswers(final Map<String, String> newAnswers) {
+            throw new UnsupportedOperationException("The view is read-only");
+        }
+    }
+
+    /**
+     * A read-only map view of the answers in one row, keyed by the question titles.
+     */
+    private class RowAnswers extends AbstractMap<String, String> {
+
+        /** The row index. */
+        private final int row;
+
+        /**
+         * Constructor.
+         * @param rowIndex The row index.
+         */
+        RowAnswers(final int rowIndex) {
+            row = rowIndex;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String get(final Object key) {
+            final Integer column = titleIndex.get(key);
+            return column == null ? null : answerColumns.get(column).get(row);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean containsKey(final Object key) {
+            return titleIndex.containsKey(key);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return questionTitles.size();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<Map.Entry<String, String>>() {
+
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<Map.Entry<String, String>>() {
+
+                        /** The next column number. */
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < questionTitles.size();
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final int current = column++;
+                            return new SimpleImmutableEntry<>(questionTitles.get(current),
+                                    answerColumns.get(current).get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return questionTitles.size();
+                }
+            };
+        }
+    }
+}
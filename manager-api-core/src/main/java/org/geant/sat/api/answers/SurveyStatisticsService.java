@@ -0,0 +1,191 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.SurveyStatisticsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the answer statistics for the surveys with {@link AnswerStatisticsAggregator} while exporting the answers,
+ * and caches them per survey. A cached result is used as long as the survey system reports the same answers
+ * revision for the survey and the result is not older than the configured maximum age. Concurrent requests for the
+ * same survey share one computation.
+ */
+public class SurveyStatisticsService {
+
+    /** The default maximum age for the cached statistics in milliseconds. */
+    public static final long DEFAULT_MAX_AGE = 15 * 60 * 1000L;
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(SurveyStatisticsService.class);
+
+    /** The cached statistics, keyed by survey identifier. */
+    private final Map<String, CachedStatistics> cache = new ConcurrentHashMap<>();
+
+    /** The locks for the computations, keyed by survey identifier. */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /** The survey system connector. */
+    private SurveySystemConnector surveyConnector;
+
+    /** The maximum age for the cached statistics in milliseconds. */
+    private long maxAge = DEFAULT_MAX_AGE;
+
+    /** The maximum amount of distinct options counted per question. */
+    private int maxOptions = AnswerStatisticsAggregator.DEFAULT_MAX_OPTIONS;
+
+    /**
+     * Constructor.
+     */
+    public SurveyStatisticsService() {
+        // no op
+    }
+
+    /**
+     * Constructor.
+     * @param connector The survey system connector.
+     */
+    public SurveyStatisticsService(final SurveySystemConnector connector) {
+        surveyConnector = connector;
+    }
+
+    /**
+     * Set the survey system connector.
+     * @param connector What to set.
+     */
+    public void setSurveyConnector(final SurveySystemConnector connector) {
+        surveyConnector = connector;
+    }
+
+    /**
+     * Set the maximum age for the cached statistics in milliseconds.
+     * @param age What to set.
+     */
+    public void setMaxAge(final long age) {
+        maxAge = age;
+    }
+
+    /**
+     * Set the maximum amount of distinct options counted per question.
+     * @param max What to set.
+     */
+    public void setMaxOptions(final int max) {
+        maxOptions = max;
+    }
+
+    /**
+     * Get the statistics for the given survey, from the cache if still valid.
+     * @param sid The survey identifier.
+     * @return The statistics for the survey.
+     * @throws SurveySystemConnectorException If the answers cannot be exported.
+     */
+    public SurveyStatisticsResponse getStatistics(final String sid) throws SurveySystemConnectorException {
+        final String revision = surveyConnector.getAnswersRevision(sid);
+        CachedStatistics cached = cache.get(sid);
+        if (isValid(cached, revision)) {
+            return cached.statistics;
+        }
+        synchronized (locks.computeIfAbsent(sid, key -> new Object())) {
+            cached = cache.get(sid);
+            if (isValid(cached, revision)) {
+                return cached.statistics;
+            }
+            final long started = System.currentTimeMillis();
+            final AnswerStatisticsAggregator aggregator = new AnswerStatisticsAggregator(maxOptions);
+            surveyConnector.exportAnswers(sid, aggregator);
+            final SurveyStatisticsResponse statistics = aggregator.toResponse(sid);
+            statistics.setRevision(revision);
+            log.debug("Aggregated {} responses for survey {} in {} ms", aggregator.getResponses(), sid,
+                    System.currentTimeMillis() - started);
+            cache.put(sid, new CachedStatistics(statistics, revision, started));
+            return statistics;
+        }
+    }
+
+    /**
+     * Removes the cached statistics for the given survey.
+     * @param sid The survey identifier, or null for all the surveys.
+     */
+    public void invalidate(final String sid) {
+        if (sid == null) {
+            cache.clear();
+        } else {
+            cache.remove(sid);
+        }
+    }
+
+    /**
+     * Checks whether the given cached statistics are still valid.
+     * @param cached The cached statistics, may be null.
+     * @param revision The current answers revision, null if unknown.
+     * @return True if the cached statistics are valid, false otherwise.
+     */
+    protected boolean isValid(final CachedStatistics cached, final String revision) {
+        if (cached == null) {
+            return false;
+        }
+        if (maxAge > 0 && System.currentTimeMillis() - cached.computed >= maxAge) {
+            return false;
+        }
+        return revision == null || revision.equals(cached.revision);
+    }
+
+    /**
+     * The cached statistics for one survey.
+     */
+    protected static class CachedStatistics {
+
+        /** The statistics. */
+        private final SurveyStatisticsResponse statistics;
+
+        /** The answers revision the statistics were computed from. */
+        private final String revision;
+
+        /** The time when the computation was started. */
+        private final long computed;
+
+        /**
+         * Constructor.
+         * @param newStatistics The statistics.
+         * @param newRevision The answers revision the statistics were computed from.
+         * @param computedAt The time when the computation was started.
+         */
+        protected CachedStatistics(final SurveyStatisticsResponse newStatistics, final String newRevision,
+                final long computedAt) {
+            statistics = newStatistics;
+            revision = newRevision;
+            computed = computedAt;
+        }
+    }
+}
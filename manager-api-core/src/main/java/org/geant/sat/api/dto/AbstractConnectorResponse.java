@@ -32,12 +32,15 @@ import com.google.gson.annotations.SerializedName;
 /**
  * An abstract response containing common variables for all the responses.
  */
-public abstract class AbstractConnectorResponse {
+public abstract class AbstractConnectorResponse implements Cloneable {
 
     /** The error message, or null if success. */
     @SerializedName("error")
     private String errorMessage;
 
+    /** True if the response was served from a cache after its time-to-live, null otherwise. */
+    private Boolean stale;
+
     /**
      * Get the error message.
      * @return The error message, or null if success.
@@ -53,4 +56,36 @@ public abstract class AbstractConnectorResponse {
     public void setErrorMessage(String newErrorMessage) {
         this.errorMessage = newErrorMessage;
     }
+
+    /**
+     * Whether the response was served from a cache after its time-to-live, i.e. it may be out of date.
+     * @return True if the response is stale, false otherwise.
+     */
+    public boolean isStale() {
+        return Boolean.TRUE.equals(stale);
+    }
+
+    /**
+     * Set whether the response was served from a cache after its time-to-live.
+     * @param newStale What to set.
+     */
+    public void setStale(boolean newStale) {
+        this.stale = newStale ? Boolean.TRUE : null;
+    }
+
+    /**
+     * Builds a shallow copy of this response marked as stale, leaving this response unchanged. The copy shares the
+     * contents of this response, e.g. its lists.
+     * @return The stale copy of this response.
+     */
+    public AbstractConnectorResponse toStale() {
+        final AbstractConnectorResponse copy;
+        try {
+            copy = (AbstractConnectorResponse) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("The response could not be copied", e);
+        }
+        copy.setStale(true);
+        return copy;
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+/**
+ * The combined score for the responses of one entity.
+ */
+public class EntityScoreDetails {
+
+    /** The entity identifier. */
+    private String entityId;
+
+    /** The amount of scored responses. */
+    private int responses;
+
+    /** The sum of the scores. */
+    private double score;
+
+    /** The sum of the maximum scores. */
+    private double maxScore;
+
+    /**
+     * Get the entity identifier.
+     * @return The entity identifier.
+     */
+    public String getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Set the entity identifier.
+     * @param newEntityId What to set.
+     */
+    public void setEntityId(String newEntityId) {
+        entityId = newEntityId;
+    }
+
+    /**
+     * Get the amount of scored responses.
+     * @return The amount of scored responses.
+     */
+    public int getResponses() {
+        return responses;
+    }
+
+    /**
+     * Set the amount of scored responses.
+     * @param newResponses What to set.
+     */
+    public void setResponses(int newResponses) {
+        responses = newResponses;
+    }
+
+    /**
+     * Get the sum of the scores.
+     * @return The sum of the scores.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Set the sum of the scores.
+     * @param newScore What to set.
+     */
+    public void setScore(double newScore) {
+        score = newScore;
+    }
+
+    /**
+     * Get the sum of the maximum scores.
+     * @return The sum of the maximum scores.
+     */
+    public double getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Set the sum of the maximum scores.
+     * @param newMaxScore What to set.
+     */
+    public void setMaxScore(double newMaxScore) {
+        maxScore = newMaxScore;
+    }
+}
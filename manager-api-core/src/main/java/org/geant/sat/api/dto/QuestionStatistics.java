@@ -0,0 +1,207 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+import java.util.Map;
+
+/**
+ * The aggregated statistics for the answers to one question.
+ */
+public class QuestionStatistics {
+
+    /** The question title. */
+    private String title;
+
+    /** The amount of non-empty answers. */
+    private long answered;
+
+    /** The ratio of non-empty answers to all the responses. */
+    private double completionRate;
+
+    /** The amounts of answers per option, or null if the question has too many distinct answers. */
+    private Map<String, Long> options;
+
+    /** The amount of numeric answers, or null if the question has non-numeric answers. */
+    private Long numericCount;
+
+    /** The minimum numeric answer. */
+    private Double min;
+
+    /** The maximum numeric answer. */
+    private Double max;
+
+    /** The mean of the numeric answers. */
+    private Double mean;
+
+    /** The percentiles of the numeric answers, keyed by e.g. p50. */
+    private Map<String, Double> percentiles;
+
+    /**
+     * Get the question title.
+     * @return The question title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Set the question title.
+     * @param newTitle What to set.
+     */
+    public void setTitle(String newTitle) {
+        title = newTitle;
+    }
+
+    /**
+     * Get the amount of non-empty answers.
+     * @return The amount of non-empty answers.
+     */
+    public long getAnswered() {
+        return answered;
+    }
+
+    /**
+     * Set the amount of non-empty answers.
+     * @param newAnswered What to set.
+     */
+    public void setAnswered(long newAnswered) {
+        answered = newAnswered;
+    }
+
+    /**
+     * Get the ratio of non-empty answers to all the responses.
+     * @return The ratio of non-empty answers to all the responses.
+     */
+    public double getCompletionRate() {
+        return completionRate;
+    }
+
+    /**
+     * Set the ratio of non-empty answers to all the responses.
+     * @param rate What to set.
+     */
+    public void setCompletionRate(double rate) {
+        completionRate = rate;
+    }
+
+    /**
+     * Get the amounts of answers per option.
+     * @return The amounts of answers per option, or null if the question has too many distinct answers.
+     */
+    public Map<String, Long> getOptions() {
+        return options;
+    }
+
+    /**
+     * Set the amounts of answers per option.
+     * @param newOptions What to set.
+     */
+    public void setOptions(Map<String, Long> newOptions) {
+        options = newOptions;
+    }
+
+    /**
+     * Get the amount of numeric answers.
+     * @return The amount of numeric answers, or null if the question has non-numeric answers.
+     */
+    public Long getNumericCount() {
+        return numericCount;
+    }
+
+    /**
+     * Set the amount of numeric answers.
+     * @param count What to set.
+     */
+    public void setNumericCount(Long count) {
+        numericCount = count;
+    }
+
+    /**
+     * Get the minimum numeric answer.
+     * @return The minimum numeric answer.
+     */
+    public Double getMin() {
+        return min;
+    }
+
+    /**
+     * Set the minimum numeric answer.
+     * @param newMin What to set.
+     */
+    public void setMin(Double newMin) {
+        min = newMin;
+    }
+
+    /**
+     * Get the maximum numeric answer.
+     * @return The maximum numeric answer.
+     */
+    public Double getMax() {
+        return max;
+    }
+
+    /**
+     * Set the maximum numeric answer.
+     * @param newMax What to set.
+     */
+    public void setMax(Double newMax) {
+        max = newMax;
+    }
+
+    /**
+     * Get the mean of the numeric answers.
+     * @return The mean of the numeric answers.
+     */
+    public Double getMean() {
+        return mean;
+    }
+
+    /**
+     * Set the mean of the numeric answers.
+     * @param newMean What to set.
+     */
+    public void setMean(Double newMean) {
+        mean = newMean;
+    }
+
+    /**
+     * Get the percentiles of the numeric answers.
+     * @return The percentiles of the numeric answers, keyed by e.g. p50.
+     */
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * Set the percentiles of the numeric answers.
+     * @param newPercentiles What to set.
+     */
+    public void setPercentiles(Map<String, Double> newPercentiles) {
+        percentiles = newPercentiles;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+/**
+ * The score for one response in the survey system.
+ */
+public class ScoreDetails {
+
+    /** The response identifier. */
+    private String responseId;
+
+    /** The token used for answering. */
+    private String token;
+
+    /** The entity identifier for the token, or null if unknown. */
+    private String entityId;
+
+    /** The score. */
+    private double score;
+
+    /** The maximum score. */
+    private double maxScore;
+
+    /** The amount of answered scored questions. */
+    private int answered;
+
+    /**
+     * Get the response identifier.
+     * @return The response identifier.
+     */
+    public String getResponseId() {
+        return responseId;
+    }
+
+    /**
+     * Set the response identifier.
+     * @param newResponseId What to set.
+     */
+    public void setResponseId(String newResponseId) {
+        responseId = newResponseId;
+    }
+
+    /**
+     * Get the token used for answering.
+     * @return The token used for answering.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Set the token used for answering.
+     * @param newToken What to set.
+     */
+    public void setToken(String newToken) {
+        token = newToken;
+    }
+
+    /**
+     * Get the entity identifier for the token, or null if unknown.
+     * @return The entity identifier for the token, or null if unknown.
+     */
+    public String getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * Set the entity identifier for the token, or null if unknown.
+     * @param newEntityId What to set.
+     */
+    public void setEntityId(String newEntityId) {
+        entityId = newEntityId;
+    }
+
+    /**
+     * Get the score.
+     * @return The score.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Set the score.
+     * @param newScore What to set.
+     */
+    public void setScore(double newScore) {
+        score = newScore;
+    }
+
+    /**
+     * Get the maximum score.
+     * @return The maximum score.
+     */
+    public double getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Set the maximum score.
+     * @param newMaxScore What to set.
+     */
+    public void setMaxScore(double newMaxScore) {
+        maxScore = newMaxScore;
+    }
+
+    /**
+     * Get the amount of answered scored questions.
+     * @return The amount of answered scored questions.
+     */
+    public int getAnswered() {
+        return answered;
+    }
+
+    /**
+     * Set the amount of answered scored questions.
+     * @param newAnswered What to set.
+     */
+    public void setAnswered(int newAnswered) {
+        answered = newAnswered;
+    }
+}
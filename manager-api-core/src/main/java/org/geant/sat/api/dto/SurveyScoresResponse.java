@@ -0,0 +1,112 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+import java.util.List;
+
+/**
+ * A response containing the scores for one survey.
+ */
+public class SurveyScoresResponse extends AbstractConnectorResponse {
+
+    /** The survey identifier. */
+    private String sid;
+
+    /** The scores per response. */
+    private List<ScoreDetails> scores;
+
+    /** The combined scores per entity. */
+    private List<EntityScoreDetails> entities;
+
+    /** The amount of responses scored in this computation, the rest were taken from the cache. */
+    private int rescoredResponses;
+
+    /**
+     * Get the survey identifier.
+     * @return The survey identifier.
+     */
+    public String getSid() {
+        return sid;
+    }
+
+    /**
+     * Set the survey identifier.
+     * @param newSid What to set.
+     */
+    public void setSid(String newSid) {
+        sid = newSid;
+    }
+
+    /**
+     * Get the scores per response.
+     * @return The scores per response.
+     */
+    public List<ScoreDetails> getScores() {
+        return scores;
+    }
+
+    /**
+     * Set the scores per response.
+     * @param newScores What to set.
+     */
+    public void setScores(List<ScoreDetails> newScores) {
+        scores = newScores;
+    }
+
+    /**
+     * Get the combined scores per entity.
+     * @return The combined scores per entity.
+     */
+    public List<EntityScoreDetails> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Set the combined scores per entity.
+     * @param newEntities What to set.
+     */
+    public void setEntities(List<EntityScoreDetails> newEntities) {
+        entities = newEntities;
+    }
+
+    /**
+     * Get the amount of responses scored in this computation.
+     * @return The amount of responses scored in this computation, the rest were taken from the cache.
+     */
+    public int getRescoredResponses() {
+        return rescoredResponses;
+    }
+
+    /**
+     * Set the amount of responses scored in this computation.
+     * @param count What to set.
+     */
+    public void setRescoredResponses(int count) {
+        rescoredResponses = count;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+import java.util.List;
+
+/**
+ * A response containing the aggregated answer statistics for one survey.
+ */
+public class SurveyStatisticsResponse extends AbstractConnectorResponse {
+
+    /** The survey identifier. */
+    private String sid;
+
+    /** The revision of the answers the statistics were computed from, or null if unknown. */
+    private String revision;
+
+    /** The amount of responses. */
+    private long responses;
+
+    /** The amount of completed responses. */
+    private long completedResponses;
+
+    /** The statistics per question. */
+    private List<QuestionStatistics> questions;
+
+    /**
+     * Get the survey identifier.
+     * @return The survey identifier.
+     */
+    public String getSid() {
+        return sid;
+    }
+
+    /**
+     * Set the survey identifier.
+     * @param newSid What to set.
+     */
+    public void setSid(String newSid) {
+        sid = newSid;
+    }
+
+    /**
+     * Get the revision of the answers the statistics were computed from.
+     * @return The revision of the answers, or null if unknown.
+     */
+    public String getRevision() {
+        return revision;
+    }
+
+    /**
+     * Set the revision of the answers the statistics were computed from.
+     * @param newRevision What to set.
+     */
+    public void setRevision(String newRevision) {
+        revision = newRevision;
+    }
+
+    /**
+     * Get the amount of responses.
+     * @return The amount of responses.
+     */
+    public long getResponses() {
+        return responses;
+    }
+
+    /**
+     * Set the amount of responses.
+     * @param count What to set.
+     */
+    public void setResponses(long count) {
+        responses = count;
+    }
+
+    /**
+     * Get the amount of completed responses.
+     * @return The amount of completed responses.
+     */
+    public long getCompletedResponses() {
+        return completedResponses;
+    }
+
+    /**
+     * Set the amount of completed responses.
+     * @param count What to set.
+     */
+    public void setCompletedResponses(long count) {
+        completedResponses = count;
+    }
+
+    /**
+     * Get the statistics per question.
+     * @return The statistics per question.
+     */
+    public List<QuestionStatistics> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Set the statistics per question.
+     * @param newQuestions What to set.
+     */
+    public void setQuestions(List<QuestionStatistics> newQuestions) {
+        questions = newQuestions;
+    }
+}
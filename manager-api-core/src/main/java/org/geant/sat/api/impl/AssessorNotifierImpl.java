@@ -28,7 +28,13 @@
 
 package org.geant.sat.api.impl;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.geant.sat.api.AssessorNotifier;
@@ -73,12 +79,21 @@ public class AssessorNotifierImpl implements AssessorNotifier {
         surveyConnector = connector;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * The entities are instantiated one survey at a time. The tokens for all the email assessors of a survey are
+     * generated with one {@link SurveySystemConnector#generateTokens(String, int)} call just before they are stored,
+     * so a failure leaves at most the unused tokens of one survey in the survey system. They are logged.
+     * </p>
+     */
     @Override
     public ListEntitiesResponse notifyInstantantion(final List<EntityDetails> entities, final String principalId) 
             throws AssessorNotifierException {
         final ListEntitiesResponse response = new ListEntitiesResponse();
         final StringBuilder errorMessage = new StringBuilder();
+        final Map<String, List<EntityDetails>> surveys = new LinkedHashMap<>();
         for (final EntityDetails details : entities) {
             log.debug("Starting to instantiate entity {}", details.getId());
             final Set<String> sids = details.getSids();
@@ -91,33 +106,88 @@ public class AssessorNotifierImpl implements AssessorNotifier {
                 log.warn("Entity {} has no assessors defined", details.getId());
                 errorMessage.append("Entity " + details.getId() + " has no assessors defined! ");
             }
-            int eventId = 0;
-            for (final String sid : sids) {
-                log.debug("Starting to instantiate survey {} for entity {}", sid, details.getId());
-                for (final AssessorDetails assessor : assessors) {
-                    if ("email".equals(assessor.getType())) {
-                        log.debug("Sending invitation to {} with value {}", assessor.getId(), assessor.getValue());
-                        try {
-                            final String token = surveyConnector.generateToken(sid);
-                            log.trace("eventId before the database operation is set to {}", eventId);
-                            eventId = userDbConnector.addSurveyToken(token, details.getId(), assessor.getId(), 
-                                    principalId, sid, eventId);
-                            log.trace("eventId is now set to {}", eventId);
-                        } catch (SurveySystemConnectorException e) {
-                            log.error("Could not store a new token for survey {}", sid);
-                            throw new AssessorNotifierException("Could not store a new token for survey " + sid, e);
-                        }
-                    } else {
-                        log.warn("Could not send an invitation for type {}", assessor.getType());
-                        errorMessage.append("Could not send an invitation for type " + assessor.getType() + " ");
-                    }
+            if (sids != null && assessors != null) {
+                for (final String sid : sids) {
+                    surveys.computeIfAbsent(sid, key -> new ArrayList<>()).add(details);
                 }
             }
             response.getEntities().add(details);
         }
+        final Map<EntityDetails, Integer> eventIds = new IdentityHashMap<>();
+        for (final Map.Entry<String, List<EntityDetails>> survey : surveys.entrySet()) {
+            notifySurvey(survey.getKey(), survey.getValue(), principalId, eventIds, errorMessage);
+        }
         if (errorMessage.length() > 0) {
             response.setErrorMessage(errorMessage.toString().trim());
         }
         return response;
     }
+
+    /**
+     * Stores the tokens for the email assessors of the given entities for one survey. The tokens are generated
+     * with one call before they are stored. If storing a token fails, the tokens left unused are logged.
+     * 
+     * @param sid The survey identifier.
+     * @param entities The entities to be instantiated for the survey.
+     * @param principalId The principal identifier for the one instantiating the operation.
+     * @param eventIds The event identifiers for the entities, updated by this method.
+     * @param errorMessage The error message to be appended with the unsupported assessor types.
+     * @throws AssessorNotifierException If the tokens cannot be generated or stored.
+     */
+    protected void notifySurvey(final String sid, final List<EntityDetails> entities, final String principalId,
+            final Map<EntityDetails, Integer> eventIds, final StringBuilder errorMessage) 
+                    throws AssessorNotifierException {
+        int count = 0;
+        for (final EntityDetails details : entities) {
+            for (final AssessorDetails assessor : details.getAssessors()) {
+                if ("email".equals(assessor.getType())) {
+                    count++;
+                }
+            }
+        }
+        final Deque<String> tokens = count == 0 ? new ArrayDeque<>() : generateTokens(sid, count);
+        for (final EntityDetails details : entities) {
+            log.debug("Starting to instantiate survey {} for entity {}", sid, details.getId());
+            int eventId = eventIds.getOrDefault(details, 0);
+            for (final AssessorDetails assessor : details.getAssessors()) {
+                if ("email".equals(assessor.getType())) {
+                    log.debug("Sending invitation to {} with value {}", assessor.getId(), assessor.getValue());
+                    try {
+                        log.trace("eventId before the database operation is set to {}", eventId);
+                        eventId = userDbConnector.addSurveyToken(tokens.peek(), details.getId(), assessor.getId(), 
+                                principalId, sid, eventId);
+                        tokens.poll();
+                        log.trace("eventId is now set to {}", eventId);
+                    } catch (SurveySystemConnectorException e) {
+                        log.error("Could not store a new token for survey {}, {} generated tokens left unused: {}", 
+                                sid, tokens.size(), tokens);
+                        throw new AssessorNotifierException("Could not store a new token for survey " + sid, e);
+                    }
+                } else {
+                    log.warn("Could not send an invitation for type {}", assessor.getType());
+                    errorMessage.append("Could not send an invitation for type " + assessor.getType() + " ");
+                }
+            }
+            eventIds.put(details, eventId);
+        }
+    }
+
+    /**
+     * Generates the given amount of tokens for one survey with one
+     * {@link SurveySystemConnector#generateTokens(String, int)} call.
+     * 
+     * @param sid The survey identifier.
+     * @param count The amount of tokens to be generated.
+     * @return The generated tokens.
+     * @throws AssessorNotifierException If the tokens cannot be generated.
+     */
+    protected Deque<String> generateTokens(final String sid, final int count) throws AssessorNotifierException {
+        log.debug("Generating {} tokens for survey {}", count, sid);
+        try {
+            return new ArrayDeque<>(surveyConnector.generateTokens(sid, count));
+        } catch (SurveySystemConnectorException e) {
+            log.error("Could not generate new tokens for survey {}", sid);
+            throw new AssessorNotifierException("Could not generate new tokens for survey " + sid, e);
+        }
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geant.sat.api.AsyncSurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.ListUsersResponse;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyDetails;
+
+/**
+ * Adapts a blocking {@link SurveySystemConnector} to {@link AsyncSurveySystemConnector} by running its methods on
+ * an executor. The executor should be dedicated to the blocking calls, e.g. not the common fork-join pool.
+ */
+public class AsyncSurveySystemConnectorAdapter implements AsyncSurveySystemConnector {
+
+    /** The default amount of threads in the executor built by the adapter. */
+    public static final int DEFAULT_THREADS = 8;
+
+    /** The blocking connector. */
+    private final SurveySystemConnector connector;
+
+    /** The executor for the blocking calls. */
+    private final Executor executor;
+
+    /**
+     * Constructor with an executor of {@link #DEFAULT_THREADS} daemon threads. The executor is never shut down, so
+     * the applications with a managed lifecycle should pass their own executor.
+     * @param surveyConnector The blocking connector.
+     */
+    public AsyncSurveySystemConnectorAdapter(final SurveySystemConnector surveyConnector) {
+        this(surveyConnector, buildExecutor(DEFAULT_THREADS, "survey-async-"));
+    }
+
+    /**
+     * Constructor.
+     * @param surveyConnector The blocking connector.
+     * @param asyncExecutor The executor for the blocking calls.
+     */
+    public AsyncSurveySystemConnectorAdapter(final SurveySystemConnector surveyConnector,
+            final Executor asyncExecutor) {
+        connector = surveyConnector;
+        executor = asyncExecutor;
+    }
+
+    /**
+     * Get the asynchronous view of the given connector: the connector itself if it is asynchronous, otherwise an
+     * adapter running it on the given executor.
+     * @param surveyConnector The connector.
+     * @param asyncExecutor The executor for the adapter.
+     * @return The asynchronous view of the connector.
+     */
+    public static AsyncSurveySystemConnector adapt(final SurveySystemConnector surveyConnector,
+            final Executor asyncExecutor) {
+        if (surveyConnector instanceof AsyncSurveySystemConnector) {
+            return (AsyncSurveySystemConnector) surveyConnector;
+        }
+        return new AsyncSurveySystemConnectorAdapter(surveyConnector, asyncExecutor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListAllSurveysResponse> listSurveysAsync() {
+        return supply(executor, () -> connector.listSurveys());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<QuestionsResponse> listQuestionsAsync(final String sid) {
+        return supply(executor, () -> connector.listQuestions(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid) {
+        return supply(executor, () -> connector.listAnswers(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid, final Collection<String> tokens) {
+        return supply(executor, () -> connector.listAnswers(sid, tokens));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListUsersResponse> listUsersAsync() {
+        return supply(executor, () -> connector.listUsers());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Void> updateSurveyDetailsAsync(final SurveyDetails survey) {
+        return supply(executor, () -> {
+            connector.updateSurveyDetails(survey);
+            return null;
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListSurveyTokensResponse> listSurveyTokensAsync(final String sid) {
+        return supply(executor, () -> connector.listSurveyTokens(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<String>> generateTokensAsync(final String sid, final int count) {
+        return supply(executor, () -> connector.generateTokens(sid, count));
+    }
+
+    /**
+     * Runs the given blocking call on the given executor. The returned future is completed exceptionally with the
+     * exception thrown by the call, or with a {@link SurveySystemConnectorException} if the executor rejects the
+     * call.
+     * @param asyncExecutor The executor.
+     * @param call The blocking call.
+     * @param <T> The type of the result.
+     * @return The future for the result.
+     */
+    public static <T> CompletableFuture<T> supply(final Executor asyncExecutor, final Callable<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            asyncExecutor.execute(() -> {
+                if (future.isDone()) {
+                    // cancelled while queued
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SurveySystemConnectorException("The call was rejected", e));
+        }
+        return future;
+    }
+
+    /**
+     * Builds an executor with the given amount of daemon threads.
+     * @param threads The amount of threads.
+     * @param namePrefix The prefix for the thread names.
+     * @return The executor.
+     */
+    public static ExecutorService buildExecutor(final int threads, final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -109,7 +109,7 @@ public class Saml2EntityImporter implements EntityImporter {
         final String metadataUrl = (String)importInput;
         final HTTPMetadataResolver resolver;
         try {
-            resolver = new HTTPMetadataResolver(HttpClientBuilder.buildClient(), metadataUrl);
+            resolver = new HTTPMetadataResolver(HttpClientBuilder.getSharedClient(), metadataUrl);
             resolver.setId("satMetadataResolver");
             resolver.setParserPool(parserPool);
             resolver.initialize();
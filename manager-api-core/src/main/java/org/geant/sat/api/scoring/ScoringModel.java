@@ -0,0 +1,205 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.scoring;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The weights and the score tables for the questions of a survey, keyed by question title. An answer is scored by
+ * looking it up from the score table of its question, or by parsing it as a number if the question has no score
+ * table, and multiplying the result by the weight of the question (1 if not set). The maximum score of a question
+ * is its weight multiplied by the highest value in its score table, or by its configured maximum value.
+ * 
+ * <p>The model can be configured with the setters, or from properties of the following form:</p>
+ * <pre>
+ * Q1.weight=2
+ * Q1.score.A1=0
+ * Q1.score.A2=5
+ * Q2.max=10
+ * </pre>
+ */
+public class ScoringModel {
+
+    /** The property name suffix for the weights. */
+    public static final String PROPERTY_WEIGHT = ".weight";
+
+    /** The property name suffix for the maximum values. */
+    public static final String PROPERTY_MAX = ".max";
+
+    /** The property name infix for the score tables. */
+    public static final String PROPERTY_SCORE = ".score.";
+
+    /** The weights, keyed by question title. */
+    private Map<String, Double> weights = new HashMap<>();
+
+    /** The score tables, keyed by question title and answer. */
+    private Map<String, Map<String, Double>> scoreTables = new HashMap<>();
+
+    /** The maximum values for the questions without score tables, keyed by question title. */
+    private Map<String, Double> maxValues = new HashMap<>();
+
+    /**
+     * Set the weights, keyed by question title.
+     * @param newWeights What to set.
+     */
+    public void setWeights(final Map<String, Double> newWeights) {
+        weights = new HashMap<>(newWeights);
+    }
+
+    /**
+     * Get the weights, keyed by question title.
+     * @return The weights.
+     */
+    public Map<String, Double> getWeights() {
+        return Collections.unmodifiableMap(weights);
+    }
+
+    /**
+     * Set the score tables, keyed by question title and answer.
+     * @param newScoreTables What to set.
+     */
+    public void setScoreTables(final Map<String, Map<String, Double>> newScoreTables) {
+        scoreTables = new HashMap<>(newScoreTables);
+    }
+
+    /**
+     * Get the score tables, keyed by question title and answer.
+     * @return The score tables.
+     */
+    public Map<String, Map<String, Double>> getScoreTables() {
+        return Collections.unmodifiableMap(scoreTables);
+    }
+
+    /**
+     * Set the maximum values for the questions without score tables, keyed by question title.
+     * @param newMaxValues What to set.
+     */
+    public void setMaxValues(final Map<String, Double> newMaxValues) {
+        maxValues = new HashMap<>(newMaxValues);
+    }
+
+    /**
+     * Set the weights, score tables and maximum values from the given properties, replacing the existing ones.
+     * @param properties The properties.
+     */
+    public void setProperties(final Properties properties) {
+        final Map<String, Double> newWeights = new HashMap<>();
+        final Map<String, Map<String, Double>> newScoreTables = new HashMap<>();
+        final Map<String, Double> newMaxValues = new HashMap<>();
+        for (final String name : properties.stringPropertyNames()) {
+            final double value = Double.parseDouble(properties.getProperty(name).trim());
+            final int scoreIndex = name.indexOf(PROPERTY_SCORE);
+            if (scoreIndex > 0) {
+                newScoreTables.computeIfAbsent(name.substring(0, scoreIndex), key -> new HashMap<>())
+                        .put(name.substring(scoreIndex + PROPERTY_SCORE.length()), value);
+            } else if (name.endsWith(PROPERTY_WEIGHT)) {
+                newWeights.put(name.substring(0, name.length() - PROPERTY_WEIGHT.length()), value);
+            } else if (name.endsWith(PROPERTY_MAX)) {
+                newMaxValues.put(name.substring(0, name.length() - PROPERTY_MAX.length()), value);
+            } else {
+                throw new IllegalArgumentException("Unexpected scoring property " + name);
+            }
+        }
+        weights = newWeights;
+        scoreTables = newScoreTables;
+        maxValues = newMaxValues;
+    }
+
+    /**
+     * Checks whether the given question is scored.
+     * @param title The question title.
+     * @return True if the question has a weight, a score table or a maximum value, false otherwise.
+     */
+    public boolean isScored(final String title) {
+        return weights.containsKey(title) || scoreTables.containsKey(title) || maxValues.containsKey(title);
+    }
+
+    /**
+     * Scores the given answer.
+     * @param title The question title.
+     * @param answer The answer.
+     * @return The weighted score, or null if the answer is empty or cannot be scored.
+     */
+    public Double score(final String title, final String answer) {
+        if (answer == null || answer.isEmpty()) {
+            return null;
+        }
+        final Map<String, Double> table = scoreTables.get(title);
+        final Double value;
+        if (table != null) {
+            value = table.get(answer);
+        } else {
+            value = parseNumber(answer);
+        }
+        return value == null ? null : value * getWeight(title);
+    }
+
+    /**
+     * Get the weighted maximum score for the given question.
+     * @param title The question title.
+     * @return The weighted maximum score, 0 if it is unknown.
+     */
+    public double getMaxScore(final String title) {
+        final Map<String, Double> table = scoreTables.get(title);
+        double max = 0;
+        if (table != null) {
+            for (final Double value : table.values()) {
+                max = Math.max(max, value);
+            }
+        } else if (maxValues.containsKey(title)) {
+            max = maxValues.get(title);
+        }
+        return max * getWeight(title);
+    }
+
+    /**
+     * Get the weight for the given question.
+     * @param title The question title.
+     * @return The weight, 1 if not set.
+     */
+    protected double getWeight(final String title) {
+        final Double weight = weights.get(title);
+        return weight == null ? 1 : weight;
+    }
+
+    /**
+     * Parses the given answer as a number.
+     * @param answer The answer.
+     * @return The number, or null if the answer is not numeric.
+     */
+    protected static Double parseNumber(final String answer) {
+        try {
+            return Double.valueOf(answer);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.scoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.UserDatabaseConnector;
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.EntityScoreDetails;
+import org.geant.sat.api.dto.ListTokensResponse;
+import org.geant.sat.api.dto.QuestionDetails;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.ScoreDetails;
+import org.geant.sat.api.dto.SurveyScoresResponse;
+import org.geant.sat.api.dto.TokenDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the scores for the responses of a survey with the configured {@link ScoringModel}. The answer columns are
+ * resolved from the question titles of the survey: a subquestion column <i>parent[sub]</i> is scored with its own
+ * title if the model has it, otherwise with its parent title. The scores are cached per survey and response
+ * identifier. After the first full export only a delta is exported, starting from the lowest response identifier
+ * without a final score, or after the highest known one, so only the new, incomplete or since completed responses are
+ * fetched and scored again. The incomplete responses first seen longer than the resynchronization interval ago are
+ * not waited for by the delta, so that an abandoned response does not keep the delta at the start of the survey: they
+ * are picked up by the next full export instead. The per-response scores are combined per entity using the tokens in
+ * the user database.
+ * 
+ * <p>A delta does not reveal deleted or edited completed responses, so a full export is done again after the
+ * configured resynchronization interval, or after {@link #invalidate(String)}. The scored columns are resolved again
+ * on each full export, and whenever the answer columns in a delta differ from the known ones, i.e. the questions
+ * have changed.</p>
+ */
+public class ScoringService {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(ScoringService.class);
+
+    /** The default interval between the full exports of the answers, in milliseconds. */
+    public static final long DEFAULT_RESYNC_INTERVAL = 60 * 60 * 1000L;
+
+    /** The cached scores, keyed by survey identifier. */
+    private final Map<String, SurveyScoreCache> cache = new ConcurrentHashMap<>();
+
+    /** The survey system connector. */
+    private SurveySystemConnector surveyConnector;
+
+    /** The user database connector. */
+    private UserDatabaseConnector userDbConnector;
+
+    /** The scoring models, keyed by survey identifier. */
+    private Map<String, ScoringModel> models = new HashMap<>();
+
+    /** The scoring model for the surveys without their own model. */
+    private ScoringModel defaultModel;
+
+    /** The interval between the full exports of the answers, in milliseconds. */
+    private long resyncInterval = DEFAULT_RESYNC_INTERVAL;
+
+    /**
+     * Set the survey system connector.
+     * @param connector What to set.
+     */
+    public void setSurveyConnector(final SurveySystemConnector connector) {
+        surveyConnector = connector;
+    }
+
+    /**
+     * Set the user database connector.
+     * @param connector What to set.
+     */
+    public void setUserDbConnector(final UserDatabaseConnector connector) {
+        userDbConnector = connector;
+    }
+
+    /**
+     * Set the scoring models, keyed by survey identifier.
+     * @param newModels What to set.
+     */
+    public void setModels(final Map<String, ScoringModel> newModels) {
+        models = new HashMap<>(newModels);
+        cache.clear();
+    }
+
+    /**
+     * Set the scoring model for the surveys without their own model.
+     * @param model What to set.
+     */
+    public void setDefaultModel(final ScoringModel model) {
+        defaultModel = model;
+        cache.clear();
+    }
+
+    /**
+     * Set the interval between the full exports of the answers, detecting the deleted and edited responses.
+     * @param interval What to set, in milliseconds. Zero or negative for only the first export.
+     */
+    public void setResyncInterval(final long interval) {
+        resyncInterval = interval;
+    }
+
+    /**
+     * Get the scoring model for the given survey.
+     * @param sid The survey identifier.
+     * @return The scoring model, or null if the survey is not scored.
+     */
+    public ScoringModel getModel(final String sid) {
+        final ScoringModel model = models.get(sid);
+        return model == null ? defaultModel : model;
+    }
+
+    /**
+     * Computes the scores for the given survey.
+     * @param sid The survey identifier.
+     * @return The scores per response and per entity.
+     * @throws SurveySystemConnectorException If the survey has no scoring model, or the answers or tokens cannot be
+     * fetched.
+     */
+    public SurveyScoresResponse getScores(final String sid) throws SurveySystemConnectorException {
+        final ScoringModel model = getModel(sid);
+        if (model == null) {
+            throw new SurveySystemConnectorException("No scoring model for survey " + sid);
+        }
+        final SurveyScoreCache surveyCache = cache.computeIfAbsent(sid, key -> new SurveyScoreCache());
+        synchronized (surveyCache) {
+            final long now = System.currentTimeMillis();
+            int rescored;
+            if (surveyCache.isFullSyncNeeded(now, resyncInterval)) {
+                rescored = synchronizeAll(sid, model, surveyCache, now);
+            } else {
+                final long fromId = surveyCache.getNextFromId(now, resyncInterval);
+                final int[] deltaRescored = new int[1];
+                final boolean[] columnsChanged = new boolean[1];
+                surveyConnector.exportAnswers(sid, fromId, answer -> {
+                    if (columnsChanged[0] || !surveyCache.hasAnswerColumns(answer)) {
+                        columnsChanged[0] = true;
+                    } else if (update(surveyCache, surveyCache.scores, answer, model, now)) {
+                        deltaRescored[0]++;
+                    }
+                });
+                rescored = deltaRescored[0];
+                if (columnsChanged[0]) {
+                    log.debug("The answer columns changed for survey {}, exporting all the answers", sid);
+                    rescored = synchronizeAll(sid, model, surveyCache, now);
+                } else {
+                    log.debug("Exported the answers from response {} for survey {}", fromId, sid);
+                }
+            }
+            final Map<String, String> tokenEntities = getTokenEntities(sid);
+            final List<ScoreDetails> scores = new ArrayList<>();
+            for (final CachedScore score : surveyCache.scores.values()) {
+                scores.add(score.toDetails(tokenEntities.get(score.token)));
+            }
+            log.debug("Scored {} of {} responses for survey {}", rescored, scores.size(), sid);
+            final SurveyScoresResponse response = new SurveyScoresResponse();
+            response.setSid(sid);
+            response.setScores(scores);
+            response.setEntities(combineEntities(scores));
+            response.setRescoredResponses(rescored);
+            return response;
+        }
+    }
+
+    /**
+     * Exports all the answers for the given survey and replaces the cached scores, reusing the final ones if the
+     * scored columns have not changed. The responses deleted since the previous export are dropped.
+     * @param sid The survey identifier.
+     * @param model The scoring model.
+     * @param surveyCache The cached state for the survey.
+     * @param now The current time in milliseconds.
+     * @return The amount of scored responses.
+     * @throws SurveySystemConnectorException If the questions or the answers cannot be fetched.
+     */
+    protected int synchronizeAll(final String sid, final ScoringModel model, final SurveyScoreCache surveyCache,
+            final long now) throws SurveySystemConnectorException {
+        final Map<String, String> columns = resolveColumns(sid, model);
+        if (!columns.equals(surveyCache.columns)) {
+            surveyCache.columns = columns;
+            surveyCache.scores.clear();
+        }
+        surveyCache.answerColumns = null;
+        final TreeMap<Long, CachedScore> scored = new TreeMap<>();
+        final int[] rescored = new int[1];
+        surveyConnector.exportAnswers(sid, answer -> {
+            if (surveyCache.answerColumns == null) {
+                surveyCache.answerColumns = getAnswerColumns(answer);
+            }
+            if (update(surveyCache, scored, answer, model, now)) {
+                rescored[0]++;
+            }
+        });
+        surveyCache.scores = scored;
+        surveyCache.lastFullSync = now;
+        return rescored[0];
+    }
+
+    /**
+     * Puts the score for the given answer to the given scores, reusing the cached score if it is final.
+     * @param surveyCache The cached state for the survey.
+     * @param target The scores to be updated, keyed by response identifier.
+     * @param answer The answer.
+     * @param model The scoring model.
+     * @param now The current time in milliseconds.
+     * @return True if the answer was scored again, false if the cached score was reused.
+     * @throws NumberFormatException If the response identifier is not numeric.
+     */
+    protected boolean update(final SurveyScoreCache surveyCache, final Map<Long, CachedScore> target,
+            final AnswerDetails answer, final ScoringModel model, final long now) {
+        final Long id = Long.valueOf(answer.getId());
+        final CachedScore cached = surveyCache.scores.get(id);
+        if (cached != null && cached.isFinalFor(answer.getSubmitDate())) {
+            target.put(id, cached);
+            return false;
+        }
+        target.put(id, score(answer, surveyCache.columns, model, cached == null ? now : cached.firstSeen));
+        return true;
+    }
+
+    /**
+     * Removes the cached scores for the given survey.
+     * @param sid The survey identifier, or null for all the surveys.
+     */
+    public void invalidate(final String sid) {
+        if (sid == null) {
+            cache.clear();
+        } else {
+            cache.remove(sid);
+        }
+    }
+
+    /**
+     * Resolves the scored answer columns for the given survey from its questions.
+     * @param sid The survey identifier.
+     * @param model The scoring model.
+     * @return The scored model titles, keyed by answer column title.
+     * @throws SurveySystemConnectorException If the questions cannot be fetched.
+     */
+    protected Map<String, String> resolveColumns(final String sid, final ScoringModel model)
+            throws SurveySystemConnectorException {
+        final QuestionsResponse questions = surveyConnector.listQuestions(sid);
+        if (questions == null || questions.getErrorMessage() != null || questions.getQuestions() == null) {
+            throw new SurveySystemConnectorException("Could not fetch the questions for survey " + sid);
+        }
+        final Map<String, String> titles = new HashMap<>();
+        for (final QuestionDetails question : questions.getQuestions()) {
+            titles.put(question.getQid(), question.getTitle());
+        }
+        final Set<String> parents = new HashSet<>();
+        for (final QuestionDetails question : questions.getQuestions()) {
+            if (titles.containsKey(question.getParentQid())) {
+                parents.add(question.getParentQid());
+            }
+        }
+        final Map<String, String> columns = new LinkedHashMap<>();
+        for (final QuestionDetails question : questions.getQuestions()) {
+            final String parentTitle = titles.get(question.getParentQid());
+            if (parentTitle == null) {
+                // the questions with subquestions have no answer column of their own
+                if (!parents.contains(question.getQid()) && model.isScored(question.getTitle())) {
+                    columns.put(question.getTitle(), question.getTitle());
+                }
+            } else {
+                final String column = parentTitle + "[" + question.getTitle() + "]";
+                if (model.isScored(column)) {
+                    columns.put(column, column);
+                } else if (model.isScored(parentTitle)) {
+                    columns.put(column, parentTitle);
+                }
+            }
+        }
+        log.debug("Resolved {} scored columns for survey {}", columns.size(), sid);
+        return columns;
+    }
+
+    /**
+     * Get the entity identifiers for the tokens of the given survey from the user database.
+     * @param sid The survey identifier.
+     * @return The entity identifiers, keyed by token.
+     * @throws SurveySystemConnectorException If the tokens cannot be fetched.
+     */
+    protected Map<String, String> getTokenEntities(final String sid) throws SurveySystemConnectorException {
+        final Map<String, String> tokenEntities = new HashMap<>();
+        if (userDbConnector == null) {
+            return tokenEntities;
+        }
+        final ListTokensResponse tokens = userDbConnector.listSurveyTokens(sid);
+        if (tokens != null && tokens.getTokens() != null) {
+            for (final TokenDetails token : tokens.getTokens()) {
+                tokenEntities.put(token.getToken(), token.getEntityId());
+            }
+        }
+        return tokenEntities;
+    }
+
+    /**
+     * Scores one response.
+     * @param answer The response.
+     * @param columns The scored model titles, keyed by answer column title.
+     * @param model The scoring model.
+     * @param firstSeen The time when the response was first seen in milliseconds.
+     * @return The score.
+     */
+    protected CachedScore score(final AnswerDetails answer, final Map<String, String> columns,
+            final ScoringModel model, final long firstSeen) {
+        double score = 0;
+        double maxScore = 0;
+        int answered = 0;
+        for (final Map.Entry<String, String> column : columns.entrySet()) {
+            maxScore += model.getMaxScore(column.getValue());
+            final String value = answer.getAnswers() == null ? null : answer.getAnswers().get(column.getKey());
+            final Double questionScore = model.score(column.getValue(), value);
+            if (questionScore != null) {
+                score += questionScore;
+                answered++;
+            }
+        }
+        return new CachedScore(answer, score, maxScore, answered, firstSeen);
+    }
+
+    /**
+     * Combines the given scores per entity.
+     * @param scores The scores per response.
+     * @return The combined scores per entity, for the responses with a known entity.
+     */
+    protected List<EntityScoreDetails> combineEntities(final List<ScoreDetails> scores) {
+        final Map<String, EntityScoreDetails> entities = new LinkedHashMap<>();
+        for (final ScoreDetails score : scores) {
+            if (score.getEntityId() == null) {
+                continue;
+            }
+            EntityScoreDetails entity = entities.get(score.getEntityId());
+            if (entity == null) {
+                entity = new EntityScoreDetails();
+                entity.setEntityId(score.getEntityId());
+                entities.put(score.getEntityId(), entity);
+            }
+            entity.setResponses(entity.getResponses() + 1);
+            entity.setScore(entity.getScore() + score.getScore());
+            entity.setMaxScore(entity.getMaxScore() + score.getMaxScore());
+        }
+        return new ArrayList<>(entities.values());
+    }
+
+    /**
+     * Get the answer columns of the given answer.
+     * @param answer The answer.
+     * @return The answer column titles.
+     */
+    protected static Set<String> getAnswerColumns(final AnswerDetails answer) {
+        if (answer.getAnswers() == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(answer.getAnswers().keySet());
+    }
+
+    /**
+     * The cached state for one survey.
+     */
+    protected static class SurveyScoreCache {
+
+        /** The scored model titles, keyed by answer column title. Null until resolved. */
+        private Map<String, String> columns;
+
+        /** The answer columns in the exported answers. Null until the first answer is exported. */
+        private Set<String> answerColumns;
+
+        /** The scores, keyed by response identifier. */
+        private TreeMap<Long, CachedScore> scores = new TreeMap<>();
+
+        /** The time of the latest full export, in milliseconds. Zero if it has never been done. */
+        private long lastFullSync;
+
+        /**
+         * Checks whether a full export is needed, i.e. it has never been done or the latest one is older than the
+         * given interval.
+         * @param now The current time in milliseconds.
+         * @param interval The interval between full exports in milliseconds, zero or negative for never.
+         * @return True if a full export is needed, false otherwise.
+         */
+        protected boolean isFullSyncNeeded(final long now, final long interval) {
+            return lastFullSync == 0 || (interval > 0 && now - lastFullSync >= interval);
+        }
+
+        /**
+         * Get the response identifier from which the next delta should be exported: the lowest one without a final
+         * score, or the one after the highest known one. The responses without a final score that were first seen
+         * longer than the given interval ago are treated as final, they are left for the next full export.
+         * @param now The current time in milliseconds.
+         * @param interval The interval between full exports in milliseconds, zero or negative for never.
+         * @return The response identifier from which the next delta should be exported.
+         */
+        protected long getNextFromId(final long now, final long interval) {
+            for (final Map.Entry<Long, CachedScore> entry : scores.entrySet()) {
+                final CachedScore score = entry.getValue();
+                if (!score.isFinal() && (interval <= 0 || now - score.firstSeen < interval)) {
+                    return entry.getKey();
+                }
+            }
+            return scores.isEmpty() ? 1 : scores.lastKey() + 1;
+        }
+
+        /**
+         * Checks whether the given answer has the known answer columns. The columns of the first checked answer
+         * become the known ones.
+         * @param answer The answer.
+         * @return True if the answer has the known columns, false otherwise.
+         */
+        protected boolean hasAnswerColumns(final AnswerDetails answer) {
+            if (answerColumns == null) {
+                answerColumns = getAnswerColumns(answer);
+                return true;
+            }
+            return answerColumns.equals(getAnswerColumns(answer));
+        }
+    }
+
+    /**
+     * The cached score for one response.
+     */
+    protected static class CachedScore {
+
+        /** The response identifier. */
+        private final String responseId;
+
+        /** The token of the response. */
+        private final String token;
+
+        /** The submission date of the scored response. */
+        private final String submitDate;
+
+        /** The score. */
+        private final double score;
+
+        /** The maximum score. */
+        private final double maxScore;
+
+        /** The amount of answered scored questions. */
+        private final int answered;
+
+        /** The time when the response was first seen in milliseconds. */
+        private final long firstSeen;
+
+        /**
+         * Constructor.
+         * @param answer The scored response.
+         * @param newScore The score.
+         * @param newMaxScore The maximum score.
+         * @param newAnswered The amount of answered scored questions.
+         * @param newFirstSeen The time when the response was first seen in milliseconds.
+         */
+        protected CachedScore(final AnswerDetails answer, final double newScore, final double newMaxScore,
+                final int newAnswered, final long newFirstSeen) {
+            responseId = answer.getId();
+            token = answer.getToken();
+            submitDate = answer.getSubmitDate();
+            score = newScore;
+            maxScore = newMaxScore;
+            answered = newAnswered;
+            firstSeen = newFirstSeen;
+        }
+
+        /**
+         * Checks whether this score is final for a response with the given submission date, i.e. the response was
+         * already completed with the same submission date when it was scored.
+         * @param date The current submission date of the response.
+         * @return True if the score can be reused, false otherwise.
+         */
+        protected boolean isFinalFor(final String date) {
+            return isFinal() && submitDate.equals(date);
+        }
+
+        /**
+         * Checks whether the scored response was completed, i.e. it had a submission date.
+         * @return True if the scored response was completed, false otherwise.
+         */
+        protected boolean isFinal() {
+            return submitDate != null && !submitDate.isEmpty();
+        }
+
+        /**
+         * Builds the score details for the scored response.
+         * @param entityId The entity identifier for the token, or null if unknown.
+         * @return The score details.
+         */
+        protected ScoreDetails toDetails(final String entityId) {
+            final ScoreDetails details = new ScoreDetails();
+            details.setResponseId(responseId);
+            details.setToken(token);
+            details.setEntityId(entityId);
+            details.setScore(score);
+            details.setMaxScore(maxScore);
+            details.setAnswered(answered);
+            return details;
+        }
+    }
+}
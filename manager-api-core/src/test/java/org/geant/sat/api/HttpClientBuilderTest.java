@@ -0,0 +1,86 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.pool.PoolStats;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link HttpClientBuilder}.
+ */
+public class HttpClientBuilderTest {
+
+    @AfterMethod
+    public void tearDown() {
+        HttpClientBuilder.configureSharedClient(null);
+    }
+
+    @Test
+    public void testSharedClientReused() throws Exception {
+        final CloseableHttpClient client = HttpClientBuilder.getSharedClient();
+        Assert.assertNotNull(client);
+        Assert.assertSame(HttpClientBuilder.getSharedClient(), client);
+    }
+
+    @Test
+    public void testPoolStats() throws Exception {
+        HttpClientBuilder.closeSharedClient();
+        Assert.assertNull(HttpClientBuilder.getSharedPoolStats());
+        final HttpClientConfiguration configuration = new HttpClientConfiguration();
+        configuration.setMaxConnectionsTotal(7);
+        HttpClientBuilder.configureSharedClient(configuration);
+        HttpClientBuilder.getSharedClient();
+        final PoolStats stats = HttpClientBuilder.getSharedPoolStats();
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(stats.getMax(), 7);
+        Assert.assertEquals(stats.getLeased(), 0);
+    }
+
+    @Test
+    public void testReconfigureRebuilds() throws Exception {
+        final CloseableHttpClient client = HttpClientBuilder.getSharedClient();
+        HttpClientBuilder.configureSharedClient(new HttpClientConfiguration());
+        Assert.assertNotSame(HttpClientBuilder.getSharedClient(), client);
+    }
+
+    @Test
+    public void testConfigurationBean() throws Exception {
+        final HttpClientConfiguration configuration = new HttpClientConfiguration();
+        configuration.setMaxConnectionsTotal(9);
+        configuration.initialize();
+        Assert.assertNull(configuration.getPoolStats());
+        final CloseableHttpClient client = HttpClientBuilder.getSharedClient();
+        Assert.assertEquals(configuration.getPoolStats().getMax(), 9);
+        configuration.destroy();
+        Assert.assertNull(configuration.getPoolStats());
+        Assert.assertNotSame(HttpClientBuilder.getSharedClient(), client);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the default methods in {@link SurveySystemConnector}.
+ */
+public class SurveySystemConnectorTest {
+
+    private SurveySystemConnector connector;
+
+    private AnswersResponse answers;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        connector = Mockito.mock(SurveySystemConnector.class, Mockito.CALLS_REAL_METHODS);
+        answers = new AnswersResponse();
+        answers.setAnswers(new ArrayList<>(Arrays.asList(buildAnswer("1", "t1"), buildAnswer("2", "t2"),
+                buildAnswer("3", "t3"))));
+        Mockito.doReturn(answers).when(connector).listAnswers("mock");
+    }
+
+    @Test
+    public void testListAnswersByTokenLeavesResponse() throws Exception {
+        final AnswersResponse response = connector.listAnswers("mock", Arrays.asList("t2"));
+        Assert.assertNotSame(response, answers);
+        Assert.assertEquals(response.getAnswers().size(), 1);
+        Assert.assertEquals(response.getAnswers().get(0).getId(), "2");
+        Assert.assertEquals(answers.getAnswers().size(), 3);
+        Assert.assertEquals(connector.listAnswers("mock", Arrays.asList("t1", "t3")).getAnswers().size(), 2);
+    }
+
+    @Test
+    public void testExportAnswersFromId() throws Exception {
+        final List<AnswerDetails> exported = new ArrayList<>();
+        connector.exportAnswers("mock", 2, exported::add);
+        Assert.assertEquals(exported.size(), 2);
+        Assert.assertEquals(exported.get(0).getId(), "2");
+    }
+
+    @Test(expectedExceptions = SurveySystemConnectorException.class)
+    public void testExportAnswersFromIdInvalidId() throws Exception {
+        answers.getAnswers().add(buildAnswer(null, "t4"));
+        connector.exportAnswers("mock", 2, answer -> { });
+    }
+
+    protected static AnswerDetails buildAnswer(final String id, final String token) {
+        final AnswerDetails answer = new AnswerDetails();
+        answer.setId(id);
+        answer.setToken(token);
+        return answer;
+    }
+}
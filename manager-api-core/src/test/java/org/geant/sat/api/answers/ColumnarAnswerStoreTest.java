@@ -0,0 +1,136 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Unit tests for {@link ColumnarAnswerStore}.
+ */
+public class ColumnarAnswerStoreTest {
+
+    @Test
+    public void testRows() {
+        final ColumnarAnswerStore store = new ColumnarAnswerStore(Arrays.asList("Q1", "Q2"));
+        final int row = store.addRow("1", "2017-05-02 10:00:00", "en", "tokenA", "2017-05-02 09:50:00");
+        store.setAnswer(row, 0, "A1");
+        store.setAnswer(row, store.getQuestionColumn("Q2"), "A2");
+        store.addRow(buildDetails("2", "tokenB", "Q1", "A1", "Q3", "A3"));
+        Assert.assertEquals(store.size(), 2);
+        Assert.assertEquals(store.getQuestionTitles(), Arrays.asList("Q1", "Q2", "Q3"));
+        final List<AnswerDetails> answers = store.asList();
+        Assert.assertEquals(answers.size(), 2);
+        Assert.assertEquals(answers.get(0).getId(), "1");
+        Assert.assertEquals(answers.get(0).getToken(), "tokenA");
+        Assert.assertEquals(answers.get(0).getStartLanguage(), "en");
+        Assert.assertEquals(answers.get(0).getAnswers().get("Q2"), "A2");
+        Assert.assertNull(answers.get(0).getAnswers().get("Q3"));
+        Assert.assertEquals(answers.get(1).getToken(), "tokenB");
+        Assert.assertEquals(answers.get(1).getAnswers().get("Q1"), "A1");
+        Assert.assertEquals(answers.get(1).getAnswers().get("Q3"), "A3");
+        Assert.assertNull(answers.get(1).getAnswers().get("Q2"));
+        Assert.assertEquals(answers.get(1).getAnswers().size(), 3);
+        Assert.assertEquals(store.getAnswer(1, "Q3"), "A3");
+    }
+
+    @Test
+    public void testDictionaryEncoding() {
+        final ColumnarAnswerStore store = new ColumnarAnswerStore(Arrays.asList("choice", "text"));
+        final int rows = AnswerColumn.MIN_DICTIONARY_LIMIT * 4;
+        for (int i = 0; i < rows; i++) {
+            final int row = store.addRow(String.valueOf(i), null, "en", "token" + i, null);
+            store.setAnswer(row, 0, "A" + (i % 5));
+            store.setAnswer(row, 1, "Free text " + i);
+        }
+        Assert.assertEquals(store.getEncodedColumnCount(), 1);
+        for (int i = 0; i < rows; i++) {
+            Assert.assertEquals(store.getAnswer(i, 0), "A" + (i % 5));
+            Assert.assertEquals(store.getAnswer(i, 1), "Free text " + i);
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testReadOnlyView() {
+        final ColumnarAnswerStore store = new ColumnarAnswerStore();
+        store.addRow(buildDetails("1", "tokenA", "Q1", "A1"));
+        store.getAnswerDetails(0).setToken("tokenB");
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testMissingRow() {
+        new ColumnarAnswerStore().getAnswerDetails(0);
+    }
+
+    @Test
+    public void testSerialization() {
+        final AnswerDetails details = buildDetails("1", "tokenA", "Q1", "A1", "Q2", "A2");
+        final ColumnarAnswerStore store = new ColumnarAnswerStore();
+        store.addRow(details);
+        final AnswersResponse columnar = new AnswersResponse();
+        columnar.setAnswers(store.asList());
+        final Gson gson = new Gson();
+        final AnswersResponse parsed = gson.fromJson(gson.toJson(columnar), AnswersResponse.class);
+        Assert.assertFalse(gson.toJson(columnar).contains("row"));
+        final AnswerDetails parsedDetails = parsed.getAnswers().get(0);
+        Assert.assertEquals(parsedDetails.getId(), "1");
+        Assert.assertEquals(parsedDetails.getToken(), "tokenA");
+        Assert.assertEquals(parsedDetails.getStartLanguage(), "en");
+        Assert.assertNull(parsedDetails.getSubmitDate());
+        Assert.assertEquals(parsedDetails.getAnswers(), details.getAnswers());
+    }
+
+    /**
+     * Builds answer details with the given answers.
+     * @param id The response identifier.
+     * @param token The token.
+     * @param titlesAndValues The question titles and the answers, alternating.
+     * @return The answer details.
+     */
+    protected AnswerDetails buildDetails(final String id, final String token, final String... titlesAndValues) {
+        final AnswerDetails details = new AnswerDetails();
+        details.setId(id);
+        details.setToken(token);
+        details.setStartLanguage("en");
+        final Map<String, String> answers = new HashMap<>();
+        for (int i = 0; i < titlesAndValues.length; i += 2) {
+            answers.put(titlesAndValues[i], titlesAndValues[i + 1]);
+        }
+        details.setAnswers(answers);
+        return details;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.QuestionStatistics;
+import org.geant.sat.api.dto.SurveyStatisticsResponse;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link SurveyStatisticsService} and {@link AnswerStatisticsAggregator}.
+ */
+public class SurveyStatisticsServiceTest {
+
+    @Test
+    public void testAggregation() {
+        final AnswerStatisticsAggregator aggregator = new AnswerStatisticsAggregator(3);
+        aggregator.accept(buildDetails("2017-05-02 10:00:00", "A1", "1", "x"));
+        aggregator.accept(buildDetails("2017-05-02 10:00:00", "A2", "2", "y"));
+        aggregator.accept(buildDetails("", "A1", "3", "z"));
+        aggregator.accept(buildDetails("2017-05-02 10:00:00", "", "10", "w"));
+        final SurveyStatisticsResponse response = aggregator.toResponse("mock");
+        Assert.assertEquals(response.getSid(), "mock");
+        Assert.assertEquals(response.getResponses(), 4);
+        Assert.assertEquals(response.getCompletedResponses(), 3);
+        Assert.assertEquals(response.getQuestions().size(), 3);
+
+        final QuestionStatistics choice = response.getQuestions().get(0);
+        Assert.assertEquals(choice.getTitle(), "choice");
+        Assert.assertEquals(choice.getAnswered(), 3);
+        Assert.assertEquals(choice.getCompletionRate(), 0.75, 0.0001);
+        Assert.assertEquals(choice.getOptions().keySet().iterator().next(), "A1");
+        Assert.assertEquals(choice.getOptions().get("A1").longValue(), 2);
+        Assert.assertNull(choice.getNumericCount());
+
+        final QuestionStatistics number = response.getQuestions().get(1);
+        Assert.assertEquals(number.getNumericCount().longValue(), 4);
+        Assert.assertEquals(number.getMin(), 1.0, 0.0001);
+        Assert.assertEquals(number.getMax(), 10.0, 0.0001);
+        Assert.assertEquals(number.getMean(), 4.0, 0.0001);
+        Assert.assertEquals(number.getPercentiles().get("p50"), 2.0, 0.0001);
+        Assert.assertEquals(number.getPercentiles().get("p90"), 10.0, 0.0001);
+
+        final QuestionStatistics text = response.getQuestions().get(2);
+        Assert.assertEquals(text.getAnswered(), 4);
+        Assert.assertNull(text.getOptions());
+    }
+
+    @Test
+    public void testCachedUntilRevisionChanges() throws Exception {
+        final SurveySystemConnector connector = Mockito.mock(SurveySystemConnector.class);
+        Mockito.when(connector.getAnswersRevision("mock")).thenReturn("1/1", "1/1", "2/1");
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final Consumer<AnswerDetails> consumer = invocation.getArgument(1);
+                consumer.accept(buildDetails("2017-05-02 10:00:00", "A1", "1", "x"));
+                return null;
+            }
+        }).when(connector).exportAnswers(Mockito.eq("mock"), Mockito.any());
+        final SurveyStatisticsService service = new SurveyStatisticsService(connector);
+        Assert.assertEquals(service.getStatistics("mock").getRevision(), "1/1");
+        Assert.assertEquals(service.getStatistics("mock").getResponses(), 1);
+        Mockito.verify(connector, Mockito.times(1)).exportAnswers(Mockito.eq("mock"), Mockito.any());
+        Assert.assertEquals(service.getStatistics("mock").getRevision(), "2/1");
+        Mockito.verify(connector, Mockito.times(2)).exportAnswers(Mockito.eq("mock"), Mockito.any());
+    }
+
+    /**
+     * Builds answer details for the test questions.
+     * @param submitDate The submission date.
+     * @param choice The answer for the multiple-choice question.
+     * @param number The answer for the numeric question.
+     * @param text The answer for the free-text question.
+     * @return The answer details.
+     */
+    protected static AnswerDetails buildDetails(final String submitDate, final String choice, final String number,
+            final String text) {
+        final AnswerDetails details = new AnswerDetails();
+        details.setSubmitDate(submitDate);
+        final Map<String, String> answers = new LinkedHashMap<>();
+        answers.put("choice", choice);
+        answers.put("number", number);
+        answers.put("text", text);
+        details.setAnswers(answers);
+        return details;
+    }
+}
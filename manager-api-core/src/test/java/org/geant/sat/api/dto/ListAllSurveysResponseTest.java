@@ -62,6 +62,16 @@ public class ListAllSurveysResponseTest extends SurveyResponseTest {
         super.testError(ListAllSurveysResponse.class);
     }
     
+    @Test
+    public void testToStale() {
+        response.getSurveys().add(initializeDetails());
+        final ListAllSurveysResponse stale = (ListAllSurveysResponse) response.toStale();
+        Assert.assertNotSame(stale, response);
+        Assert.assertTrue(stale.isStale());
+        Assert.assertFalse(response.isStale());
+        Assert.assertSame(stale.getSurveys(), response.getSurveys());
+    }
+    
     @Test
     public void testWithDetails() {
         final SurveyDetails details = initializeDetails();
@@ -0,0 +1,147 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.geant.sat.api.AssessorNotifierException;
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.UserDatabaseConnector;
+import org.geant.sat.api.dto.AssessorDetails;
+import org.geant.sat.api.dto.EntityDetails;
+import org.geant.sat.api.dto.ListEntitiesResponse;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link AssessorNotifierImpl}.
+ */
+public class AssessorNotifierImplTest {
+
+    private SurveySystemConnector surveyConnector;
+
+    private UserDatabaseConnector userDbConnector;
+
+    private AssessorNotifierImpl notifier;
+
+    @BeforeMethod
+    public void init() {
+        surveyConnector = Mockito.mock(SurveySystemConnector.class);
+        userDbConnector = Mockito.mock(UserDatabaseConnector.class);
+        notifier = new AssessorNotifierImpl();
+        notifier.setSurveySystemConnector(surveyConnector);
+        notifier.setUserDatabaseConnector(userDbConnector);
+    }
+
+    @Test
+    public void testTokensGeneratedPerSurvey() throws Exception {
+        Mockito.when(surveyConnector.generateTokens("s1", 4)).thenReturn(Arrays.asList("a", "b", "c", "d"));
+        Mockito.when(surveyConnector.generateTokens("s2", 2)).thenReturn(Arrays.asList("e", "f"));
+        Mockito.when(userDbConnector.addSurveyToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyInt())).thenReturn(7);
+        List<EntityDetails> entities = new ArrayList<>();
+        entities.add(buildEntity("e1", Arrays.asList("s1", "s2"), "email", "email"));
+        entities.add(buildEntity("e2", Arrays.asList("s1"), "email", "email", "phone"));
+        ListEntitiesResponse response = notifier.notifyInstantantion(entities, "principal");
+        Assert.assertEquals(response.getEntities().size(), 2);
+        Assert.assertTrue(response.getErrorMessage().contains("phone"));
+        Mockito.verify(surveyConnector, Mockito.never()).generateToken(Mockito.anyString());
+        verifyToken("a", "e1", "e1-0", "s1");
+        verifyToken("b", "e1", "e1-1", "s1");
+        verifyToken("e", "e1", "e1-0", "s2");
+        verifyToken("f", "e1", "e1-1", "s2");
+        verifyToken("c", "e2", "e2-0", "s1");
+        verifyToken("d", "e2", "e2-1", "s1");
+    }
+
+    @Test(expectedExceptions = AssessorNotifierException.class)
+    public void testTokenGenerationFails() throws Exception {
+        Mockito.when(surveyConnector.generateTokens("s1", 1))
+                .thenThrow(new SurveySystemConnectorException("mock"));
+        List<EntityDetails> entities = new ArrayList<>();
+        entities.add(buildEntity("e1", Arrays.asList("s1"), "email"));
+        notifier.notifyInstantantion(entities, "principal");
+    }
+
+    @Test
+    public void testLaterSurveyGeneratedAfterEarlierStored() throws Exception {
+        Mockito.when(surveyConnector.generateTokens("s1", 1)).thenReturn(Arrays.asList("a"));
+        Mockito.when(surveyConnector.generateTokens("s2", 1)).thenThrow(new SurveySystemConnectorException("mock"));
+        List<EntityDetails> entities = new ArrayList<>();
+        entities.add(buildEntity("e1", Arrays.asList("s1", "s2"), "email"));
+        try {
+            notifier.notifyInstantantion(entities, "principal");
+            Assert.fail("Generating the tokens for s2 should fail");
+        } catch (AssessorNotifierException e) {
+            Assert.assertEquals(e.getMessage(), "Could not generate new tokens for survey s2");
+        }
+        verifyToken("a", "e1", "e1-0", "s1");
+    }
+
+    @Test
+    public void testStoreFailureStopsGeneration() throws Exception {
+        Mockito.when(surveyConnector.generateTokens("s1", 2)).thenReturn(Arrays.asList("a", "b"));
+        Mockito.when(userDbConnector.addSurveyToken(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyInt()))
+                .thenThrow(new SurveySystemConnectorException("mock"));
+        List<EntityDetails> entities = new ArrayList<>();
+        entities.add(buildEntity("e1", Arrays.asList("s1", "s2"), "email"));
+        entities.add(buildEntity("e2", Arrays.asList("s1", "s2"), "email"));
+        try {
+            notifier.notifyInstantantion(entities, "principal");
+            Assert.fail("Storing the token should fail");
+        } catch (AssessorNotifierException e) {
+            Assert.assertEquals(e.getMessage(), "Could not store a new token for survey s1");
+        }
+        Mockito.verify(surveyConnector, Mockito.never()).generateTokens(Mockito.eq("s2"), Mockito.anyInt());
+    }
+
+    protected void verifyToken(String token, String entityId, String assessorId, String sid) throws Exception {
+        Mockito.verify(userDbConnector).addSurveyToken(Mockito.eq(token), Mockito.eq(entityId), 
+                Mockito.eq(assessorId), Mockito.eq("principal"), Mockito.eq(sid), Mockito.anyInt());
+    }
+
+    protected EntityDetails buildEntity(String id, List<String> sids, String... assessorTypes) {
+        EntityDetails entity = new EntityDetails();
+        entity.setId(id);
+        entity.getSids().addAll(sids);
+        for (int i = 0; i < assessorTypes.length; i++) {
+            AssessorDetails assessor = new AssessorDetails();
+            assessor.setId(id + "-" + i);
+            assessor.setType(assessorTypes[i]);
+            assessor.setValue("mock" + i);
+            entity.getAssessors().add(assessor);
+        }
+        return entity;
+    }
+}
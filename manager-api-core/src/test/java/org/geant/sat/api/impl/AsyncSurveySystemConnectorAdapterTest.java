@@ -0,0 +1,97 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.geant.sat.api.AsyncSurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link AsyncSurveySystemConnectorAdapter}.
+ */
+public class AsyncSurveySystemConnectorAdapterTest {
+
+    private SurveySystemConnector connector;
+
+    private ExecutorService executor;
+
+    private AsyncSurveySystemConnector adapter;
+
+    @BeforeMethod
+    public void init() {
+        connector = Mockito.mock(SurveySystemConnector.class);
+        executor = AsyncSurveySystemConnectorAdapter.buildExecutor(2, "test-async-");
+        adapter = AsyncSurveySystemConnectorAdapter.adapt(connector, executor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testComposed() throws Exception {
+        final QuestionsResponse questions = new QuestionsResponse();
+        Mockito.when(connector.listQuestions("1")).thenReturn(questions);
+        Mockito.when(connector.generateTokens("1", 2)).thenReturn(Arrays.asList("a", "b"));
+        final CompletableFuture<QuestionsResponse> questionsFuture = adapter.listQuestionsAsync("1");
+        final CompletableFuture<List<String>> tokensFuture = adapter.generateTokensAsync("1", 2);
+        Assert.assertSame(questionsFuture.get(), questions);
+        Assert.assertEquals(tokensFuture.thenApply(List::size).get(), Integer.valueOf(2));
+    }
+
+    @Test
+    public void testExceptional() throws Exception {
+        Mockito.when(connector.listQuestions("1")).thenThrow(new SurveySystemConnectorException("mock"));
+        try {
+            adapter.listQuestionsAsync("1").get();
+            Assert.fail("Exception expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SurveySystemConnectorException);
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        executor.shutdown();
+        Assert.assertTrue(adapter.listSurveysAsync().isCompletedExceptionally());
+        Mockito.verifyZeroInteractions(connector);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.scoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import org.geant.sat.api.SurveySystemConnector;
+import org.geant.sat.api.UserDatabaseConnector;
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.ListTokensResponse;
+import org.geant.sat.api.dto.QuestionDetails;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyScoresResponse;
+import org.geant.sat.api.dto.TokenDetails;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ScoringService} and {@link ScoringModel}.
+ */
+public class ScoringServiceTest {
+
+    /** The answers exported by the mocked survey connector. */
+    private List<AnswerDetails> answers;
+
+    /** The service to be tested. */
+    private ScoringService service;
+
+    /** The mocked survey connector. */
+    private SurveySystemConnector surveyConnector;
+
+    @BeforeMethod
+    public void initTests() throws Exception {
+        answers = new ArrayList<>();
+        surveyConnector = Mockito.mock(SurveySystemConnector.class);
+        final QuestionsResponse questions = new QuestionsResponse();
+        questions.setQuestions(Arrays.asList(buildQuestion("1", "0", "choice"), buildQuestion("2", "0", "multi"),
+                buildQuestion("3", "2", "SQ1"), buildQuestion("4", "2", "SQ2"), buildQuestion("5", "0", "text")));
+        Mockito.when(surveyConnector.listQuestions("mock")).thenReturn(questions);
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final Consumer<AnswerDetails> consumer = invocation.getArgument(1);
+                answers.forEach(consumer);
+                return null;
+            }
+        }).when(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.any());
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final long fromId = invocation.getArgument(1);
+                final Consumer<AnswerDetails> consumer = invocation.getArgument(2);
+                answers.stream().filter(answer -> Long.parseLong(answer.getId()) >= fromId).forEach(consumer);
+                return null;
+            }
+        }).when(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.anyLong(), Mockito.any());
+        final UserDatabaseConnector userDbConnector = Mockito.mock(UserDatabaseConnector.class);
+        final ListTokensResponse tokens = new ListTokensResponse();
+        tokens.setTokens(Arrays.asList(buildToken("t1", "e1"), buildToken("t2", "e1"), buildToken("t3", "e2")));
+        Mockito.when(userDbConnector.listSurveyTokens("mock")).thenReturn(tokens);
+        final Properties properties = new Properties();
+        properties.setProperty("choice.score.A1", "1");
+        properties.setProperty("choice.score.A2", "3");
+        properties.setProperty("choice.weight", "2");
+        properties.setProperty("multi.score.Y", "1");
+        service = new ScoringService();
+        service.setSurveyConnector(surveyConnector);
+        service.setUserDbConnector(userDbConnector);
+        final ScoringModel model = new ScoringModel();
+        model.setProperties(properties);
+        service.setDefaultModel(model);
+    }
+
+    @Test
+    public void testScores() throws Exception {
+        answers.add(buildAnswer("1", "t1", "2017-05-02 10:00:00", "A2", "Y", "Y"));
+        answers.add(buildAnswer("2", "t2", "2017-05-02 10:00:00", "A1", "", "Y"));
+        answers.add(buildAnswer("3", "t3", "", "", "", ""));
+        final SurveyScoresResponse response = service.getScores("mock");
+        Assert.assertEquals(response.getSid(), "mock");
+        Assert.assertEquals(response.getScores().size(), 3);
+        Assert.assertEquals(response.getScores().get(0).getScore(), 8.0, 0.0001);
+        Assert.assertEquals(response.getScores().get(0).getMaxScore(), 8.0, 0.0001);
+        Assert.assertEquals(response.getScores().get(0).getAnswered(), 3);
+        Assert.assertEquals(response.getScores().get(1).getScore(), 3.0, 0.0001);
+        Assert.assertEquals(response.getScores().get(2).getAnswered(), 0);
+        Assert.assertEquals(response.getEntities().size(), 2);
+        Assert.assertEquals(response.getEntities().get(0).getEntityId(), "e1");
+        Assert.assertEquals(response.getEntities().get(0).getResponses(), 2);
+        Assert.assertEquals(response.getEntities().get(0).getScore(), 11.0, 0.0001);
+        Assert.assertEquals(response.getEntities().get(0).getMaxScore(), 16.0, 0.0001);
+        Assert.assertEquals(response.getRescoredResponses(), 3);
+    }
+
+    @Test
+    public void testOnlyChangedResponsesRescored() throws Exception {
+        answers.add(buildAnswer("1", "t1", "2017-05-02 10:00:00", "A2", "Y", "Y"));
+        answers.add(buildAnswer("3", "t3", "", "A1", "", ""));
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 2);
+        answers.set(1, buildAnswer("3", "t3", "2017-05-03 10:00:00", "A2", "", ""));
+        answers.add(buildAnswer("4", "t3", "2017-05-03 11:00:00", "A1", "", ""));
+        final SurveyScoresResponse response = service.getScores("mock");
+        Assert.assertEquals(response.getRescoredResponses(), 2);
+        Assert.assertEquals(response.getScores().get(1).getScore(), 6.0, 0.0001);
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 0);
+        Mockito.verify(surveyConnector, Mockito.times(1)).listQuestions("mock");
+        Mockito.verify(surveyConnector, Mockito.times(1)).exportAnswers(Mockito.eq("mock"), Mockito.any());
+        Mockito.verify(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.eq(3L), Mockito.any());
+        Mockito.verify(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.eq(5L), Mockito.any());
+        service.invalidate("mock");
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 3);
+    }
+
+    @Test
+    public void testAbandonedResponseNotWaitedFor() throws Exception {
+        service.setResyncInterval(500);
+        answers.add(buildAnswer("1", "t1", "2017-05-02 10:00:00", "A2", "Y", "Y"));
+        answers.add(buildAnswer("2", "t2", "", "A1", "", ""));
+        answers.add(buildAnswer("3", "t3", "2017-05-02 11:00:00", "A1", "", ""));
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 3);
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 1);
+        Mockito.verify(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.eq(2L), Mockito.any());
+        Thread.sleep(600);
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 1);
+        Mockito.verify(surveyConnector, Mockito.times(2)).exportAnswers(Mockito.eq("mock"), Mockito.any());
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 0);
+        Mockito.verify(surveyConnector).exportAnswers(Mockito.eq("mock"), Mockito.eq(4L), Mockito.any());
+    }
+
+    @Test
+    public void testChangedQuestionsRescored() throws Exception {
+        answers.add(buildAnswer("1", "t1", "2017-05-02 10:00:00", "A2", "Y", "Y"));
+        Assert.assertEquals(service.getScores("mock").getScores().get(0).getScore(), 8.0, 0.0001);
+        final QuestionsResponse questions = new QuestionsResponse();
+        questions.setQuestions(Arrays.asList(buildQuestion("1", "0", "choice"), buildQuestion("6", "0", "rating")));
+        Mockito.when(surveyConnector.listQuestions("mock")).thenReturn(questions);
+        final Properties properties = new Properties();
+        properties.setProperty("choice.score.A2", "3");
+        properties.setProperty("rating.max", "5");
+        final ScoringModel model = new ScoringModel();
+        model.setProperties(properties);
+        Assert.assertTrue(model.isScored("rating"));
+        service.setDefaultModel(model);
+        Assert.assertEquals(service.getScores("mock").getRescoredResponses(), 1);
+        final AnswerDetails answer = buildAnswer("2", "t2", "2017-05-03 10:00:00", "A2", "", "");
+        answer.getAnswers().remove("multi[SQ1]");
+        answer.getAnswers().remove("multi[SQ2]");
+        answer.getAnswers().put("rating", "4");
+        answers.set(0, answer);
+        final SurveyScoresResponse response = service.getScores("mock");
+        Assert.assertEquals(response.getRescoredResponses(), 1);
+        Assert.assertEquals(response.getScores().size(), 1);
+        Assert.assertEquals(response.getScores().get(0).getScore(), 7.0, 0.0001);
+        Assert.assertEquals(response.getScores().get(0).getMaxScore(), 8.0, 0.0001);
+        Mockito.verify(surveyConnector, Mockito.times(3)).listQuestions("mock");
+    }
+
+    /**
+     * Builds question details.
+     * @param qid The question identifier.
+     * @param parentQid The parent question identifier.
+     * @param title The question title.
+     * @return The question details.
+     */
+    protected static QuestionDetails buildQuestion(final String qid, final String parentQid, final String title) {
+        final QuestionDetails question = new QuestionDetails();
+        question.setQid(qid);
+        question.setParentQid(parentQid);
+        question.setTitle(title);
+        return question;
+    }
+
+    /**
+     * Builds token details.
+     * @param token The token.
+     * @param entityId The entity identifier.
+     * @return The token details.
+     */
+    protected static TokenDetails buildToken(final String token, final String entityId) {
+        final TokenDetails details = new TokenDetails();
+        details.setToken(token);
+        details.setEntityId(entityId);
+        return details;
+    }
+
+    /**
+     * Builds answer details for the test questions.
+     * @param id The response identifier.
+     * @param token The token.
+     * @param submitDate The submission date.
+     * @param choice The answer for the single-choice question.
+     * @param sub1 The answer for the first subquestion.
+     * @param sub2 The answer for the second subquestion.
+     * @return The answer details.
+     */
+    protected static AnswerDetails buildAnswer(final String id, final String token, final String submitDate,
+            final String choice, final String sub1, final String sub2) {
+        final AnswerDetails details = new AnswerDetails();
+        details.setId(id);
+        details.setToken(token);
+        details.setSubmitDate(submitDate);
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("choice", choice);
+        values.put("multi[SQ1]", sub1);
+        values.put("multi[SQ2]", sub2);
+        values.put("text", "free text");
+        details.setAnswers(values);
+        return details;
+    }
+}
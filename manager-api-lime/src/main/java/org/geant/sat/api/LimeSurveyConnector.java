@@ -28,28 +28,54 @@
 package org.geant.sat.api;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
+import org.geant.sat.api.answers.ColumnarAnswerStore;
 import org.geant.sat.api.dto.AnswerDetails;
 import org.geant.sat.api.dto.AnswersResponse;
 import org.geant.sat.api.dto.ListUsersResponse;
@@ -61,9 +87,9 @@ import org.geant.sat.api.dto.ListAllSurveysResponse;
 import org.geant.sat.api.dto.ListSurveyTokensResponse;
 import org.geant.sat.api.dto.UserDetails;
 import org.geant.sat.api.dto.lime.LimeStatusResponse;
-import org.geant.sat.api.dto.lime.LimeStatusResponse.Status;
 import org.geant.sat.api.dto.lime.ListQuestionsResponse;
 import org.geant.sat.api.dto.lime.ListSurveysResponse;
+import org.geant.sat.api.dto.lime.ParticipantDetails;
 import org.geant.sat.api.dto.lime.ParticipantOverview;
 import org.geant.sat.api.dto.lime.ListLimeUsersResponse;
 import org.geant.sat.api.dto.lime.ListParticipantsResponse;
@@ -72,20 +98,43 @@ import org.geant.sat.api.dto.lime.AddParticipantsResponse;
 import org.geant.sat.api.dto.lime.LimePermission;
 import org.geant.sat.api.dto.lime.LimeQuestionDetails;
 import org.geant.sat.api.dto.lime.StringResultResponse;
+import org.geant.sat.api.dto.lime.SurveyAdminOverview;
 import org.geant.sat.api.dto.lime.SurveyOverview;
 import org.geant.sat.api.dto.lime.SurveyPropertiesResponse;
+import org.geant.sat.api.dto.lime.SurveySummary;
+import org.geant.sat.api.dto.lime.SurveySummaryResponse;
+import org.geant.sat.api.impl.AsyncSurveySystemConnectorAdapter;
+import org.geant.sat.api.lime.AnswerCsvReader;
+import org.geant.sat.api.lime.AnswerSnapshot;
+import org.geant.sat.api.lime.CallProgress;
+import org.geant.sat.api.lime.CallRejectedException;
+import org.geant.sat.api.lime.JsonRpcCall;
+import org.geant.sat.api.lime.JsonRpcResultReader;
+import org.geant.sat.api.lime.LimeCallGuard;
+import org.geant.sat.api.lime.LimeResponseHandler;
+import org.geant.sat.api.lime.LimeResponseTypeAdapterFactory;
+import org.geant.sat.api.lime.LimeSessionManager;
+import org.geant.sat.api.lime.LimeSessionManager.SessionKeyProvider;
+import org.geant.sat.api.lime.PagedIterator;
+import org.geant.sat.api.lime.PagedIterator.PageFetcher;
+import org.geant.sat.api.lime.UnexpectedStatusCodeException;
 import org.joda.time.DateTime;
 import org.geant.sat.api.dto.lime.LimeUserDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 
 /**
- * A {@link SurveySystemConnector} for using Limesurvey as the survey system.
+ * A {@link SurveySystemConnector} for using Limesurvey as the survey system. The asynchronous methods of
+ * {@link AsyncSurveySystemConnector} run the blocking methods on a dedicated executor, separate from the executor
+ * for the concurrent fetches.
  */
-public class LimeSurveyConnector implements SurveySystemConnector {
+public class LimeSurveyConnector implements SurveySystemConnector, AsyncSurveySystemConnector {
 
     /** The prefix for all the attributes stored in the Limesurvey database. */
     public static final String ATTRIBUTE_NAME_PREFIX = "lime_";
@@ -114,6 +163,39 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     /** The email address injected aside of the token. */
     public static final String PARTICIPANT_EMAIL = "noreply@invalid.org";
     
+    /** The default amount of threads used for concurrent fetches from Limesurvey. */
+    public static final int DEFAULT_FETCH_THREADS = 4;
+
+    /** The default amount of threads used for the asynchronous methods. */
+    public static final int DEFAULT_ASYNC_THREADS = 8;
+
+    /** The default amount of participants added per add_participants call. */
+    public static final int DEFAULT_TOKEN_CHUNK_SIZE = 100;
+
+    /** The default amount of entries requested per page from list_participants. */
+    public static final int DEFAULT_PARTICIPANT_PAGE_SIZE = 1000;
+
+    /** The status returned by list_participants when there are no participants after the given offset. */
+    public static final String STATUS_NO_PARTICIPANTS = "No survey participants found";
+
+    /** The status returned by export_responses when there are no responses in the requested range. */
+    public static final String STATUS_NO_RESPONSES = "No Response found";
+
+    /** The default interval between full answer synchronizations in the incremental mode, in milliseconds. */
+    public static final long DEFAULT_ANSWERS_RESYNC_INTERVAL = 60 * 60 * 1000L;
+
+    /** The default maximum ratio of tokens to responses for exporting the answers token by token. */
+    public static final double DEFAULT_TOKEN_LOOKUP_RATIO = 0.1;
+
+    /** The default time to reuse the amount of responses when choosing how to list the answers for tokens. */
+    public static final long DEFAULT_RESPONSE_COUNT_TTL = 60 * 1000L;
+
+    /** The default amount of consecutive empty response-id ranges after which a ranged export is finished. */
+    public static final int DEFAULT_MAX_EMPTY_ANSWER_RANGES = 10;
+    
+    /** The Gson instance used for parsing the Limesurvey responses. */
+    private static final Gson GSON = LimeResponseTypeAdapterFactory.buildGson();
+
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(LimeSurveyConnector.class);
 
@@ -126,17 +208,74 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     /** The endpoint URL to Limesurvey API. */
     private String apiEndpoint;
 
-    /** The session key (obtained after successful authentication). */
-    private String sessionKey;
+    /** The manager for the session key (obtained after successful authentication), built on the first use. */
+    private LimeSessionManager sessionManager;
+
+    /** The maximum age for a session key before it's proactively renewed, in milliseconds. */
+    private long maxSessionKeyAge = LimeSessionManager.DEFAULT_MAX_KEY_AGE;
     
-    /** The maximum amount of entries returned by list_participants. */
-    private int maxParticipants = 1000;
+    /** The amount of entries requested per page from list_participants. */
+    private int participantPageSize = DEFAULT_PARTICIPANT_PAGE_SIZE;
+
+    /** The amount of list_participants pages fetched concurrently ahead of the iteration. */
+    private int participantPrefetchPages;
+
+    /** The amount of participants added per add_participants call. */
+    private int tokenChunkSize = DEFAULT_TOKEN_CHUNK_SIZE;
+
+    /** The amount of threads used for concurrent fetches from Limesurvey. */
+    private int fetchThreads = DEFAULT_FETCH_THREADS;
+
+    /** The executor for concurrent fetches from Limesurvey, built on the first use. */
+    private ExecutorService fetchExecutor;
+
+    /** The amount of threads used for the asynchronous methods. */
+    private int asyncThreads = DEFAULT_ASYNC_THREADS;
+
+    /** The executor for the asynchronous methods, built on the first use. */
+    private ExecutorService asyncExecutor;
+
+    /** Whether to send several calls in one JSON-RPC batch request when possible. */
+    private boolean batchEnabled = true;
+
+    /** Whether the backend has rejected a batch request, in which case the calls are sent individually. */
+    private volatile boolean batchRejected;
+
+    /** The cached owner identifiers for the surveys, keyed by survey identifier. */
+    private final Map<String, String> ownerCache = new ConcurrentHashMap<>();
+
+    /** Whether to fetch only the new and incomplete responses from Limesurvey and merge them locally. */
+    private boolean incrementalAnswers;
+
+    /** The interval between full answer synchronizations in the incremental mode, in milliseconds. */
+    private long answersResyncInterval = DEFAULT_ANSWERS_RESYNC_INTERVAL;
+
+    /** The locally held answers in the incremental mode, keyed by survey identifier. */
+    private final Map<String, AnswerSnapshot> answerSnapshots = new ConcurrentHashMap<>();
+
+    /** The amount of response identifiers per export_responses call in a ranged export, 0 for a single call. */
+    private int answerRangeSize;
+
+    /** The amount of consecutive empty response-id ranges after which a ranged export is finished. */
+    private int maxEmptyAnswerRanges = DEFAULT_MAX_EMPTY_ANSWER_RANGES;
+
+    /** The maximum ratio of tokens to responses for exporting the answers token by token. */
+    private double tokenLookupRatio = DEFAULT_TOKEN_LOOKUP_RATIO;
+
+    /** The time to reuse the amount of responses when choosing how to list the answers for tokens, in milliseconds. */
+    private long responseCountTtl = DEFAULT_RESPONSE_COUNT_TTL;
+
+    /** The latest fetched amounts of responses and the times they were fetched, keyed by survey identifier. */
+    private final Map<String, long[]> responseCounts = new ConcurrentHashMap<>();
+
+    /** The guard for the calls to Limesurvey API, built with the defaults on the first use if not set. */
+    private LimeCallGuard callGuard;
 
     /**
      * Constructor.
      */
     public LimeSurveyConnector() {
-        sessionKey = null;
+        sessionManager = null;
     }
 
     /**
@@ -200,9 +339,303 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      * Set the maximum amount of entries returned by list_participants.
      * 
      * @param participants What to set.
+     * @deprecated The participants are fetched page-wise, use {@link #setParticipantPageSize(int)} instead.
      */
+    @Deprecated
     public void setMaxParticipants(int participants) {
-        maxParticipants = participants;
+        setParticipantPageSize(participants);
+    }
+
+    /**
+     * Set the maximum age for a session key before it's proactively renewed. It should be shorter than the session
+     * expiration time configured in Limesurvey.
+     * 
+     * @param maxAge What to set, in milliseconds. Zero or negative disables the proactive renewal.
+     */
+    public void setMaxSessionKeyAge(long maxAge) {
+        maxSessionKeyAge = maxAge;
+        if (sessionManager != null) {
+            sessionManager.setMaxKeyAge(maxAge);
+        }
+    }
+
+    /**
+     * Set the amount of entries requested per page from list_participants.
+     * 
+     * @param pageSize What to set.
+     */
+    public void setParticipantPageSize(int pageSize) {
+        participantPageSize = pageSize;
+    }
+
+    /**
+     * Set the amount of list_participants pages fetched concurrently ahead of the iteration. Zero (default) means
+     * that the pages are fetched sequentially.
+     * 
+     * @param prefetchPages What to set.
+     */
+    public void setParticipantPrefetchPages(int prefetchPages) {
+        participantPrefetchPages = prefetchPages;
+    }
+
+    /**
+     * Set the amount of participants added per add_participants call when generating several tokens.
+     * 
+     * @param chunkSize What to set.
+     */
+    public void setTokenChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        tokenChunkSize = chunkSize;
+    }
+
+    /**
+     * Set the amount of threads used for concurrent fetches from Limesurvey.
+     * 
+     * @param threads What to set.
+     */
+    public void setFetchThreads(int threads) {
+        fetchThreads = threads;
+    }
+
+    /**
+     * Set the amount of threads used for the asynchronous methods.
+     * 
+     * @param threads What to set.
+     */
+    public void setAsyncThreads(int threads) {
+        asyncThreads = threads;
+    }
+
+    /**
+     * Set whether to send several calls in one JSON-RPC batch request when possible. If the backend rejects batches,
+     * the calls are anyway sent as concurrent individual requests.
+     * 
+     * @param enabled What to set.
+     */
+    public void setBatchEnabled(boolean enabled) {
+        batchEnabled = enabled;
+        batchRejected = false;
+    }
+
+    /**
+     * Checks whether the backend has rejected a JSON-RPC batch request.
+     * 
+     * @return True if the backend has rejected a batch request, false otherwise.
+     */
+    public boolean isBatchRejected() {
+        return batchRejected;
+    }
+
+    /**
+     * Set whether to fetch only the new and incomplete responses from Limesurvey and merge them into locally held
+     * answers. The completed responses are assumed not to change between the full synchronizations.
+     * 
+     * @param incremental What to set.
+     */
+    public void setIncrementalAnswers(boolean incremental) {
+        incrementalAnswers = incremental;
+    }
+
+    /**
+     * Set the interval between full answer synchronizations in the incremental mode, in milliseconds. Zero or
+     * negative disables the periodic synchronization, leaving only {@link #invalidateAnswers(String)}.
+     * 
+     * @param interval What to set.
+     */
+    public void setAnswersResyncInterval(long interval) {
+        answersResyncInterval = interval;
+    }
+
+    /**
+     * Set the amount of response identifiers per export_responses call. If positive, the answers are exported in
+     * response-id ranges fetched concurrently with at most the amount of fetch threads in flight, otherwise with
+     * a single call.
+     * 
+     * @param rangeSize What to set.
+     */
+    public void setAnswerRangeSize(int rangeSize) {
+        answerRangeSize = rangeSize;
+    }
+
+    /**
+     * Set the amount of consecutive empty response-id ranges after which a ranged export fetches the rest of the
+     * responses with a single call, if fewer responses than announced by get_summary have been received, e.g. due
+     * to deleted responses.
+     * 
+     * @param maxEmptyRanges What to set.
+     */
+    public void setMaxEmptyAnswerRanges(int maxEmptyRanges) {
+        maxEmptyAnswerRanges = maxEmptyRanges;
+    }
+
+    /**
+     * Set the maximum ratio of tokens to responses for exporting the answers token by token with
+     * export_responses_by_token, zero or negative for always exporting the answers of the whole survey.
+     * 
+     * @param ratio What to set.
+     */
+    public void setTokenLookupRatio(double ratio) {
+        tokenLookupRatio = ratio;
+    }
+
+    /**
+     * Set the time to reuse the amount of responses fetched with get_summary when choosing whether to export the
+     * answers token by token, zero or negative for fetching it on every call.
+     * 
+     * @param ttl What to set, in milliseconds.
+     */
+    public void setResponseCountTtl(long ttl) {
+        responseCountTtl = ttl;
+    }
+
+    /**
+     * Set the guard for the calls to Limesurvey API, i.e. the circuit breakers, bulkhead and retries.
+     * 
+     * @param guard What to set.
+     */
+    public synchronized void setCallGuard(final LimeCallGuard guard) {
+        callGuard = guard;
+    }
+
+    /**
+     * Get the guard for the calls to Limesurvey API. The guard is built with the defaults on the first call if it
+     * has not been set.
+     * 
+     * @return The guard for the calls to Limesurvey API.
+     */
+    public synchronized LimeCallGuard getCallGuard() {
+        if (callGuard == null) {
+            callGuard = new LimeCallGuard();
+        }
+        return callGuard;
+    }
+
+    /**
+     * Triggers a full synchronization of the locally held answers on their next use, e.g. after completed responses
+     * have been edited in Limesurvey.
+     * 
+     * @param sid The survey identifier, or null for all the surveys.
+     */
+    public void invalidateAnswers(final String sid) {
+        if (sid == null) {
+            answerSnapshots.clear();
+            responseCounts.clear();
+        } else {
+            answerSnapshots.remove(sid);
+            responseCounts.remove(sid);
+        }
+    }
+
+    /**
+     * Clears the cached owner identifiers for the surveys.
+     */
+    public void clearOwnerCache() {
+        ownerCache.clear();
+    }
+
+    /**
+     * Releases the session key and shuts down the executors used for concurrent fetches and asynchronous methods.
+     * To be called when the connector is no longer used.
+     */
+    public synchronized void destroy() {
+        if (sessionManager != null) {
+            sessionManager.release();
+        }
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+            fetchExecutor = null;
+        }
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdownNow();
+            asyncExecutor = null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListAllSurveysResponse> listSurveysAsync() {
+        return supplyAsync(() -> listSurveys());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<QuestionsResponse> listQuestionsAsync(final String sid) {
+        return supplyAsync(() -> listQuestions(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid) {
+        return supplyAsync(() -> listAnswers(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<AnswersResponse> listAnswersAsync(final String sid, final Collection<String> tokens) {
+        return supplyAsync(() -> listAnswers(sid, tokens));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListUsersResponse> listUsersAsync() {
+        return supplyAsync(() -> listUsers());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Void> updateSurveyDetailsAsync(final SurveyDetails survey) {
+        return supplyAsync(() -> {
+            updateSurveyDetails(survey);
+            return null;
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ListSurveyTokensResponse> listSurveyTokensAsync(final String sid) {
+        return supplyAsync(() -> listSurveyTokens(sid));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<String>> generateTokensAsync(final String sid, final int count) {
+        return supplyAsync(() -> generateTokens(sid, count));
+    }
+
+    /**
+     * Runs the given blocking call on the executor for the asynchronous methods, with the call priority of the
+     * calling thread.
+     * 
+     * @param call
+     *            The blocking call.
+     * @param <T>
+     *            The type of the result.
+     * @return The future for the result.
+     */
+    protected <T> CompletableFuture<T> supplyAsync(final Callable<T> call) {
+        final CallPriority priority = CallPriority.current();
+        return AsyncSurveySystemConnectorAdapter.supply(getAsyncExecutor(), () -> {
+            final CallPriority previous = CallPriority.enter(priority);
+            try {
+                return call.call();
+            } finally {
+                CallPriority.restore(previous);
+            }
+        });
+    }
+
+    /**
+     * Get the executor for the asynchronous methods. The executor is built on the first call.
+     * 
+     * @return The executor for the asynchronous methods.
+     */
+    protected synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = AsyncSurveySystemConnectorAdapter.buildExecutor(asyncThreads, "lime-async-");
+        }
+        return asyncExecutor;
     }
 
     /** {@inheritDoc} */
@@ -217,7 +650,12 @@ public class LimeSurveyConnector implements SurveySystemConnector {
                 final List<SurveyDetails> details = new ArrayList<>();
                 final ListLimeUsersResponse usersResponse = fetchUsers();
                 if (usersResponse != null) {
-                    final LimeUserDetails[] users = usersResponse.getUsers();
+                    final Map<String, String> usernames = indexUsernames(usersResponse.getUsers());
+                    final List<String> sids = new ArrayList<>();
+                    for (final SurveyOverview overview : overviews) {
+                        sids.add(overview.getSid());
+                    }
+                    final Map<String, String> owners = resolveOwners(sids);
                     for (int i = 0; i < overviews.length; i++) {
                         final SurveyDetails newDetails = new SurveyDetails();
                         if ("Y".equalsIgnoreCase(overviews[i].getActive())) {
@@ -234,8 +672,12 @@ public class LimeSurveyConnector implements SurveySystemConnector {
                         }
                         newDetails.setSid(overviews[i].getSid());
                         newDetails.setTitle(overviews[i].getTitle());
-                        final String owner = getOwner(overviews[i].getSid());
-                        newDetails.setOwner(getUsername(users, owner));
+                        final String owner = owners.get(overviews[i].getSid());
+                        final String username = usernames.get(owner);
+                        if (username == null) {
+                            log.warn("Could not find a matching user details for uid {}", owner);
+                        }
+                        newDetails.setOwner(username);
                         details.add(newDetails);
                     }
                 }
@@ -253,26 +695,45 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     /** {@inheritDoc} */
     public ListSurveyTokensResponse listSurveyTokens(final String sid) {
         final ListSurveyTokensResponse response = new ListSurveyTokensResponse();
-        try {
-            final ListParticipantsResponse participants = fetchParticipants(sid);
-            if (participants.getErrorMessage() != null) {
-                log.warn("Error message {} while fetching participants, not returning any tokens", 
-                        participants.getErrorMessage());
-            }
-            for (final ParticipantOverview participant : participants.getParticipants()) {
+        try (final PagedIterator<ParticipantOverview> participants = iterateParticipants(sid)) {
+            while (participants.hasNext()) {
+                final ParticipantOverview participant = participants.next();
                 final SurveyTokenDetails details = new SurveyTokenDetails();
                 details.setSurveyId(sid);
                 details.setCompleted(participant.getCompleted());
                 details.setToken(participant.getToken());
                 response.getTokens().add(details);
             }
+            log.debug("Fetched {} tokens in {} pages", response.getTokens().size(), participants.getPagesFetched());
         } catch (SurveySystemConnectorException e) {
-            log.error("Could not fetch questions from Limesurvey", e);
+            log.error("Could not fetch participants from Limesurvey", e);
             response.setErrorMessage(e.getMessage());
         }   
         return response;
     }
 
+    /**
+     * Iterates over the participants of the given survey. The participants are fetched page-wise from
+     * list_participants, so that only the current page (and the pages fetched ahead) are kept in memory.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The iterator for the participants, to be closed after use.
+     */
+    public PagedIterator<ParticipantOverview> iterateParticipants(final String sid) {
+        final PageFetcher<ParticipantOverview> fetcher = new PageFetcher<ParticipantOverview>() {
+            @Override
+            public List<ParticipantOverview> fetchPage(final int start, final int limit)
+                    throws SurveySystemConnectorException {
+                return fetchParticipants(sid, start, limit);
+            }
+        };
+        if (participantPrefetchPages > 0) {
+            return new PagedIterator<>(fetcher, participantPageSize, participantPrefetchPages, getFetchExecutor());
+        }
+        return new PagedIterator<>(fetcher, participantPageSize);
+    }
+
     /** {@inheritDoc} */
     public QuestionsResponse listQuestions(final String sid) {
         final QuestionsResponse response = new QuestionsResponse();
@@ -280,7 +741,8 @@ public class LimeSurveyConnector implements SurveySystemConnector {
             final ListQuestionsResponse questions = fetchQuestions(sid);
             if (questions != null) {
                 response.setErrorMessage(questions.getErrorMessage());
-                final LimeQuestionDetails[] limeDetails = questions.getQuestions();
+                final LimeQuestionDetails[] limeDetails = questions.getQuestions() == null 
+                        ? new LimeQuestionDetails[0] : questions.getQuestions();
                 final List<QuestionDetails> responseDetails = new ArrayList<>();
                 for (int i = 0; i < limeDetails.length; i++) {
                     final QuestionDetails newDetails = new QuestionDetails();
@@ -314,34 +776,534 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     /** {@inheritDoc} */
     public AnswersResponse listAnswers(final String sid) throws SurveySystemConnectorException {
         final AnswersResponse response = new AnswersResponse();
-        final String csv = fetchAnswers(sid);
-        if (csv == null) {
-            throw new SurveySystemConnectorException("Could not find any answers");
-        }
-        final StringTokenizer lines = new StringTokenizer(csv, "\n");
-        final String headerLine = lines.nextToken();
-        // the CSV format is "value1","value2","value3",..
-        final StringTokenizer headerTokenizer = new StringTokenizer(headerLine.substring(1, headerLine.length() - 1),
-                "\",\"");
-        for (int i = 0; i < 9; i++) {
-            final String header = headerTokenizer.nextToken();
-            log.trace("Ignoring header token {}", header);
-        }
-        final List<String> questionTitles = new ArrayList<>();
-        while (headerTokenizer.hasMoreTokens()) {
-            final String header = headerTokenizer.nextToken();
-            log.trace("Parsed question title {}", header);
-            questionTitles.add(header);
-        }
-        log.debug("Parsed {} question titles", questionTitles.size());
+        final List<AnswerDetails> answers;
+        if (incrementalAnswers) {
+            answers = synchronizeAnswers(sid);
+        } else {
+            final ColumnarAnswerStore store = new ColumnarAnswerStore();
+            if (answerRangeSize > 0) {
+                exportAnswerRanges(sid, store::addRow);
+            } else {
+                exportAnswerRecords(sid, 0, 0, (reader, record) -> reader.addRecord(store, record), true);
+            }
+            answers = store.asList();
+        }
+        log.debug("Parsed {} answers for survey {}", answers.size(), sid);
+        response.setAnswers(answers);
+        return response;
+    }
+
+    /**
+     * Lists the answers for the given tokens. If the amount of tokens is small compared to the amount of responses,
+     * the answers are exported token by token with export_responses_by_token, otherwise the answers are exported
+     * for the whole survey and filtered.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param tokens
+     *            The tokens whose answers are listed, or null for all the answers.
+     * @return The answers for the given tokens.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    @Override
+    public AnswersResponse listAnswers(final String sid, final Collection<String> tokens)
+            throws SurveySystemConnectorException {
+        if (tokens == null) {
+            return listAnswers(sid);
+        }
+        final Set<String> wanted = new LinkedHashSet<>(tokens);
+        wanted.remove(null);
+        final AnswersResponse response = new AnswersResponse();
         final List<AnswerDetails> answers = new ArrayList<>();
-        while (lines.hasMoreTokens()) {
-            answers.add(parseAnswerLine(lines.nextToken(), questionTitles));
+        if (isTokenLookupPreferred(sid, wanted.size())) {
+            for (final String token : wanted) {
+                exportAnswersByToken(sid, token, answers::add, true);
+            }
+            log.debug("Exported {} answers for {} tokens in survey {}", answers.size(), wanted.size(), sid);
+        } else {
+            exportAnswers(sid, answer -> {
+                if (wanted.contains(answer.getToken())) {
+                    answers.add(answer);
+                }
+            });
         }
         response.setAnswers(answers);
         return response;
     }
 
+    /**
+     * Checks whether the answers for the given amount of tokens should be exported token by token, i.e. the
+     * amount is at most the configured ratio of the amount of responses. Locally held answers in the incremental
+     * mode are always preferred. The amount of responses is reused for the configured time, so that consecutive
+     * calls for the same survey don't each need a get_summary call.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param tokenCount
+     *            The amount of tokens.
+     * @return True if the answers should be exported token by token, false otherwise.
+     */
+    protected boolean isTokenLookupPreferred(final String sid, final int tokenCount) {
+        if (tokenCount == 0) {
+            return true;
+        }
+        if (incrementalAnswers || tokenLookupRatio <= 0) {
+            return false;
+        }
+        try {
+            final long responses = getResponseCount(sid);
+            log.debug("Survey {} has {} responses, looking up answers for {} tokens", sid, responses, tokenCount);
+            return tokenCount <= responses * tokenLookupRatio;
+        } catch (SurveySystemConnectorException e) {
+            log.warn("Could not get the amount of responses for survey {}, exporting all the answers", sid, e);
+            return false;
+        }
+    }
+
+    /**
+     * Exports the answers from Limesurvey to the given consumer. The base64-encoded CSV is decoded and parsed
+     * while it is read from the response, so only one answer is kept in memory at a time.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    @Override
+    public void exportAnswers(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        if (incrementalAnswers) {
+            synchronizeAnswers(sid).forEach(consumer);
+        } else {
+            exportAllAnswers(sid, consumer);
+        }
+    }
+
+    /**
+     * Exports the answers from the given response identifier on from Limesurvey to the given consumer, using the
+     * fromResponseID argument of export_responses. In the incremental mode the answers are taken from the
+     * synchronized snapshot instead.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param fromId
+     *            The first response identifier to export, zero or negative for all the answers.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    @Override
+    public void exportAnswers(final String sid, final long fromId, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        if (incrementalAnswers || fromId <= 0) {
+            SurveySystemConnector.super.exportAnswers(sid, fromId, consumer);
+        } else {
+            exportAnswers(sid, fromId, 0, consumer, true);
+        }
+    }
+
+    /**
+     * Exports all the answers from Limesurvey to the given consumer, either with one call or in response-id ranges
+     * depending on the configuration.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected void exportAllAnswers(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        if (answerRangeSize > 0) {
+            exportAnswerRanges(sid, consumer);
+        } else {
+            exportAnswers(sid, 0, 0, consumer, true);
+        }
+    }
+
+    /**
+     * Exports the answers in response-id ranges fetched concurrently. The ranges are consumed in order, so the
+     * answers are passed to the consumer in the order of the response identifiers, while the following ranges are
+     * being fetched. The export is finished when the amount of responses announced by get_summary has been received.
+     * After the configured amount of consecutive empty ranges, e.g. due to deleted responses, the rest of the
+     * responses is exported with one call without an upper limit, so the export always reaches the largest response
+     * identifier.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected void exportAnswerRanges(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        final long expected = fetchResponseCount(sid);
+        if (expected <= 0) {
+            exportAnswers(sid, 0, 0, consumer, true);
+            return;
+        }
+        final int window = Math.max(1, fetchThreads);
+        final Deque<Future<List<AnswerDetails>>> pending = new ArrayDeque<>();
+        long nextFromId = 1;
+        long consumedToId = 0;
+        long received = 0;
+        int emptyRanges = 0;
+        try {
+            while (pending.size() < window) {
+                pending.add(submitAnswerRange(sid, nextFromId));
+                nextFromId += answerRangeSize;
+            }
+            while (!pending.isEmpty()) {
+                final List<AnswerDetails> range = waitFor(pending.poll());
+                range.forEach(consumer);
+                consumedToId += answerRangeSize;
+                received += range.size();
+                emptyRanges = range.isEmpty() ? emptyRanges + 1 : 0;
+                if (received >= expected) {
+                    break;
+                }
+                if (emptyRanges >= maxEmptyAnswerRanges) {
+                    log.debug("Received {} of {} responses for survey {} before {} empty ranges, exporting the rest",
+                            received, expected, sid, emptyRanges);
+                    cancel(pending);
+                    final AtomicLong tail = new AtomicLong();
+                    exportAnswers(sid, consumedToId + 1, 0, answer -> {
+                        tail.incrementAndGet();
+                        consumer.accept(answer);
+                    }, true);
+                    received += tail.get();
+                    break;
+                }
+                pending.add(submitAnswerRange(sid, nextFromId));
+                nextFromId += answerRangeSize;
+            }
+        } finally {
+            cancel(pending);
+        }
+        if (received < expected) {
+            // the responses deleted after get_summary
+            log.warn("Received {} of {} responses for survey {}", received, expected, sid);
+        }
+        log.debug("Exported {} answers for survey {} in ranges of {}", received, sid, answerRangeSize);
+    }
+
+    /**
+     * Cancels and removes the given pending fetches.
+     * 
+     * @param pending
+     *            The pending fetches.
+     */
+    protected void cancel(final Deque<Future<List<AnswerDetails>>> pending) {
+        for (final Future<List<AnswerDetails>> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Submits the export of one response-id range to the executor for concurrent fetches.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param fromId
+     *            The first response identifier in the range.
+     * @return The future for the answers in the range.
+     */
+    protected Future<List<AnswerDetails>> submitAnswerRange(final String sid, final long fromId) {
+        final long toId = fromId + answerRangeSize - 1;
+        final CallPriority priority = CallPriority.current();
+        return getFetchExecutor().submit(new Callable<List<AnswerDetails>>() {
+            @Override
+            public List<AnswerDetails> call() throws SurveySystemConnectorException {
+                final CallPriority previous = CallPriority.enter(priority);
+                try {
+                    final ColumnarAnswerStore store = new ColumnarAnswerStore();
+                    exportAnswerRecords(sid, fromId, toId, (reader, record) -> reader.addRecord(store, record),
+                            true);
+                    return store.asList();
+                } finally {
+                    CallPriority.restore(previous);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches the summary for the given survey with get_summary.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The survey summary.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the summary cannot be parsed.
+     */
+    protected SurveySummary fetchSummary(final String sid) throws SurveySystemConnectorException {
+        final SurveySummaryResponse response = getContents("get_summary", "\"" + sid + "\", \"all\"",
+                new SurveySummaryResponse(), true);
+        if (response == null || response.getErrorMessage() != null || response.getSummary() == null) {
+            throw new SurveySystemConnectorException("Could not get the summary for survey " + sid);
+        }
+        return response.getSummary();
+    }
+
+    /**
+     * Get the answers revision from the amounts of all and completed responses in get_summary. Edits to the
+     * completed responses are not reflected in the revision.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The answers revision.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the summary cannot be parsed.
+     */
+    @Override
+    public String getAnswersRevision(final String sid) throws SurveySystemConnectorException {
+        final SurveySummary summary = fetchSummary(sid);
+        return summary.getFullResponses() + "/" + summary.getCompletedResponses();
+    }
+
+    /**
+     * Fetches the amount of all responses for the given survey with get_summary.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The amount of all responses.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the summary cannot be parsed.
+     */
+    protected long fetchResponseCount(final String sid) throws SurveySystemConnectorException {
+        final SurveySummary summary = fetchSummary(sid);
+        final long count;
+        try {
+            count = Long.parseLong(summary.getFullResponses());
+        } catch (NumberFormatException e) {
+            throw new SurveySystemConnectorException("Unexpected amount of responses", e);
+        }
+        responseCounts.put(sid, new long[] { count, System.currentTimeMillis() });
+        return count;
+    }
+
+    /**
+     * Get the amount of all responses for the given survey, reusing the latest fetched one if it is younger than
+     * the configured time.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The amount of all responses.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the summary cannot be parsed.
+     */
+    protected long getResponseCount(final String sid) throws SurveySystemConnectorException {
+        final long[] cached = responseCounts.get(sid);
+        if (cached != null && System.currentTimeMillis() - cached[1] < responseCountTtl) {
+            return cached[0];
+        }
+        return fetchResponseCount(sid);
+    }
+
+    /**
+     * Brings the locally held answers for the given survey up to date and returns them. A full export is done
+     * on the first use and after the resynchronization interval, otherwise only the responses starting from the
+     * lowest incomplete (or the next new) response identifier are exported and merged.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return A copy of the up-to-date answers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected List<AnswerDetails> synchronizeAnswers(final String sid) throws SurveySystemConnectorException {
+        final AnswerSnapshot snapshot = answerSnapshots.computeIfAbsent(sid, key -> new AnswerSnapshot());
+        synchronized (snapshot) {
+            final long now = System.currentTimeMillis();
+            final boolean fullSync = snapshot.isFullSyncNeeded(now, answersResyncInterval);
+            // the calls keep the priority of the caller, the synchronization is mostly run for interactive requests
+            try {
+                if (fullSync) {
+                    snapshot.clear();
+                    exportAllAnswers(sid, snapshot::upsert);
+                    snapshot.markFullSync(now);
+                } else {
+                    final long fromId = snapshot.getNextFromId();
+                    exportAnswers(sid, fromId, 0, snapshot::upsert, true);
+                    log.debug("Merged the answers from response {} for survey {}", fromId, sid);
+                }
+            } catch (SurveySystemConnectorException | RuntimeException e) {
+                snapshot.invalidate();
+                if (e instanceof SurveySystemConnectorException) {
+                    throw (SurveySystemConnectorException) e;
+                }
+                throw new SurveySystemConnectorException("Could not merge the answers", e);
+            }
+            log.debug("Holding {} answers ({} incomplete) for survey {}", snapshot.size(),
+                    snapshot.getIncompleteCount(), sid);
+            return snapshot.getAnswers();
+        }
+    }
+
+    /**
+     * Exports the answers from Limesurvey to the given consumer.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param fromId
+     *            The response identifier to start from, or zero or negative for all the responses.
+     * @param toId
+     *            The last response identifier if fromId is positive, or zero or negative for no upper limit.
+     * @param consumer
+     *            The consumer for the answers.
+     * @param retry
+     *            Whether to update the session key and retry if the current key is invalid.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected void exportAnswers(final String sid, final long fromId, final long toId,
+            final Consumer<AnswerDetails> consumer, final boolean retry) throws SurveySystemConnectorException {
+        exportAnswerRecords(sid, fromId, toId, toAnswerDetails(consumer), retry);
+    }
+
+    /**
+     * Exports the raw answer records from Limesurvey to the given consumer, together with the reader that parsed
+     * them, e.g. for adding them directly into a {@link ColumnarAnswerStore}.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param fromId
+     *            The response identifier to start from, or zero or negative for all the responses.
+     * @param toId
+     *            The last response identifier if fromId is positive, or zero or negative for no upper limit.
+     * @param consumer
+     *            The consumer for the parsing reader and the raw records.
+     * @param retry
+     *            Whether to update the session key and retry if the current key is invalid.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected void exportAnswerRecords(final String sid, final long fromId, final long toId,
+            final BiConsumer<AnswerCsvReader, List<String>> consumer, final boolean retry)
+            throws SurveySystemConnectorException {
+        final long started = System.nanoTime();
+        String params = "\"" + sid + "\", \"csv\"";
+        if (fromId > 0) {
+            params = params + ", null, \"all\", \"code\", \"short\", " + fromId + (toId > 0 ? ", " + toId : "");
+        }
+        final String status = readAnswerExport("export_responses", params, consumer);
+        if (status == null) {
+            return;
+        }
+        log.debug("Could not export answers, status {}", status);
+        if (retry && "Invalid session key".equals(status)) {
+            updateSessionKey(started);
+            exportAnswerRecords(sid, fromId, toId, consumer, false);
+            return;
+        }
+        if (fromId > 0 && status.startsWith(STATUS_NO_RESPONSES)) {
+            return;
+        }
+        throw new SurveySystemConnectorException("Could not find any answers");
+    }
+
+    /**
+     * Exports the answers for one token from Limesurvey with export_responses_by_token to the given consumer.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param token
+     *            The token whose answers are exported.
+     * @param consumer
+     *            The consumer for the answers.
+     * @param retry
+     *            Whether to update the session key and retry if the current key is invalid.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected void exportAnswersByToken(final String sid, final String token, final Consumer<AnswerDetails> consumer,
+            final boolean retry) throws SurveySystemConnectorException {
+        final long started = System.nanoTime();
+        final String status = readAnswerExport("export_responses_by_token",
+                "\"" + sid + "\", \"csv\", " + GSON.toJson(token), toAnswerDetails(consumer));
+        if (status == null) {
+            return;
+        }
+        if (retry && "Invalid session key".equals(status)) {
+            updateSessionKey(started);
+            exportAnswersByToken(sid, token, consumer, false);
+            return;
+        }
+        if (status.startsWith(STATUS_NO_RESPONSES)) {
+            log.trace("No answers for the token {}", token);
+            return;
+        }
+        throw new SurveySystemConnectorException("Could not export the answers by token: " + status);
+    }
+
+    /**
+     * Calls the given answer export method and passes the answers to the given consumer. The base64-encoded CSV is
+     * decoded and parsed while it is read from the response.
+     * 
+     * @param method
+     *            The export method.
+     * @param params
+     *            The parameters after the session key.
+     * @param consumer
+     *            The consumer for the parsing reader and the raw records.
+     * @return The status returned by Limesurvey instead of the answers, or null if the answers were exported.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails or the answers cannot be parsed.
+     */
+    protected String readAnswerExport(final String method, final String params,
+            final BiConsumer<AnswerCsvReader, List<String>> consumer) throws SurveySystemConnectorException {
+        return getContents(method, params, true, new LimeResponseHandler<String>() {
+
+            @Override
+            public String handle(final Reader contents) throws IOException {
+                final JsonRpcResultReader resultReader = new JsonRpcResultReader(contents);
+                if (!resultReader.locateStringResult()) {
+                    return resultReader.getResultStatus();
+                }
+                try (final AnswerCsvReader answerReader = new AnswerCsvReader(decodeBase64(resultReader))) {
+                    log.debug("Parsed {} question titles", answerReader.getQuestionTitles().size());
+                    List<String> record = answerReader.nextRecord();
+                    while (record != null) {
+                        consumer.accept(answerReader, record);
+                        record = answerReader.nextRecord();
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Adapts the given consumer for answer details into a consumer for raw answer records.
+     * 
+     * @param consumer
+     *            The consumer for the answer details.
+     * @return The consumer for the parsing reader and the raw records.
+     */
+    protected static BiConsumer<AnswerCsvReader, List<String>> toAnswerDetails(
+            final Consumer<AnswerDetails> consumer) {
+        return (reader, record) -> consumer.accept(reader.toAnswerDetails(record));
+    }
+
+    /**
+     * Wraps the given reader for base64-encoded contents into a reader decoding them as UTF-8 on the fly.
+     * 
+     * @param encoded
+     *            The reader for the base64-encoded contents.
+     * @return The reader for the decoded contents.
+     */
+    protected static Reader decodeBase64(final Reader encoded) {
+        final InputStream decoded = new Base64InputStream(new ReaderInputStream(encoded, StandardCharsets.US_ASCII));
+        return new InputStreamReader(decoded, StandardCharsets.UTF_8);
+    }
+
     /** {@inheritDoc} */
     public ListUsersResponse listUsers() {
         final ListUsersResponse response = new ListUsersResponse();
@@ -408,21 +1370,59 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      */
     public String generateToken(final String sid) throws SurveySystemConnectorException {
         log.debug("Adding a token for survey {}", sid);
-        final AddParticipantsResponse response = getContents("add_participants", "\"" + sid + "\", [{\"firstname\":\"" 
-                + PARTICIPANT_FIRST_NAME + "\",\"lastname\":\"" + PARTICIPANT_LAST_NAME + "\",\"email\":\""
-                + PARTICIPANT_EMAIL + "\",\"emailstatus\":\"OK\"}]", new AddParticipantsResponse(), true);
-/*        log.trace("Contents {}", contents);
-        Gson gson = new Gson();
-        final AddParticipantsResponse response = gson.fromJson(contents, AddParticipantsResponse.class);*/
+        return addParticipants(sid, 1).get(0);
+    }
+
+    /**
+     * Creates new tokens for the given survey to the survey management system. The participants are added in chunks
+     * of {@link #setTokenChunkSize(int)} participants per add_participants call.
+     * @param sid The survey identifier.
+     * @param count The amount of tokens to be created.
+     * @return The generated tokens, in the order they were created.
+     * @throws SurveySystemConnectorException If the tokens cannot be generated.
+     */
+    @Override
+    public List<String> generateTokens(final String sid, final int count) throws SurveySystemConnectorException {
+        log.debug("Adding {} tokens for survey {} in chunks of {}", count, sid, tokenChunkSize);
+        final List<String> tokens = new ArrayList<>(count);
+        while (tokens.size() < count) {
+            tokens.addAll(addParticipants(sid, Math.min(tokenChunkSize, count - tokens.size())));
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds the given amount of participants to the given survey with one add_participants call.
+     * @param sid The survey identifier.
+     * @param count The amount of participants.
+     * @return The tokens for the added participants.
+     * @throws SurveySystemConnectorException If the participants cannot be added.
+     */
+    protected List<String> addParticipants(final String sid, final int count) throws SurveySystemConnectorException {
+        final StringBuilder participants = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            participants.append(i == 0 ? "{" : ", {");
+            participants.append("\"firstname\":\"" + PARTICIPANT_FIRST_NAME + "\",\"lastname\":\"" 
+                    + PARTICIPANT_LAST_NAME + "\",\"email\":\"" + PARTICIPANT_EMAIL + "\",\"emailstatus\":\"OK\"}");
+        }
+        final AddParticipantsResponse response = getContents("add_participants",
+                "\"" + sid + "\", [" + participants + "]", new AddParticipantsResponse(), true);
+        if (response == null) {
+            throw new SurveySystemConnectorException("Could not parse the response from Limesurvey");
+        }
         if (response.getErrorMessage() != null) {
             log.error("Found error from Limesurvey API: {}", response.getErrorMessage());
             throw new SurveySystemConnectorException(response.getErrorMessage());
         }
-        if (response.getParticipantDetails() == null || response.getParticipantDetails().isEmpty()) {
-            log.error("No participant details found from the response");
+        if (response.getParticipantDetails() == null || response.getParticipantDetails().size() < count) {
+            log.error("Not enough participant details found from the response");
             throw new SurveySystemConnectorException("No participant details found from the response");
         }
-        return response.getParticipantDetails().get(0).getToken();
+        final List<String> tokens = new ArrayList<>(count);
+        for (final ParticipantDetails details : response.getParticipantDetails()) {
+            tokens.add(details.getToken());
+        }
+        return tokens;
     }
 
     /**
@@ -528,54 +1528,289 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     }
 
     /**
-     * Parses a CSV line separated by '\",' -strings.
+     * Indexes the usernames of the given users by their user identifiers.
      * 
-     * @param line
-     *            The line to be parsed.
-     * @param questionTitles
-     *            The list of question titles.
-     * @return The answer details, parsed from the given line.
+     * @param users
+     *            The list of Limesurvey users.
+     * @return The usernames keyed by user identifiers.
      */
-    protected AnswerDetails parseAnswerLine(final String line, final List<String> questionTitles) {
-        log.trace("Parsing line \n{}", line);
-        final AnswerDetails details = new AnswerDetails();
-        final String[] lineElements = line.substring(0, line.length() - 1).split("\",");
-        details.setId(lineElements[0].substring(1));
-        log.trace("id = {}", details.getId());
-        details.setSubmitDate(lineElements[1].substring(1));
-        // skip lastpage (2)
-        details.setStartLanguage(lineElements[3].substring(1));
-        details.setToken(lineElements[4].substring(1));
-        details.setStartDate(lineElements[5].substring(1));
-        // skip datestamp (6)
-        // skip ipaddrs (7)
-        // skip refurl (8)
-        final Map<String, String> answers = new HashMap<>();
-        for (int i = 0; i < questionTitles.size(); i++) {
-            log.trace("Successfully parsed value '{}' for {}", lineElements[i + 9].substring(1), questionTitles.get(i));
-            answers.put(questionTitles.get(i), lineElements[i + 9].substring(1));
+    protected Map<String, String> indexUsernames(final LimeUserDetails[] users) {
+        final Map<String, String> usernames = new HashMap<>();
+        if (users != null) {
+            for (final LimeUserDetails user : users) {
+                usernames.put(user.getUid(), user.getUsername());
+            }
         }
-        details.setAnswers(answers);
-        return details;
+        return usernames;
     }
 
     /**
-     * Get the username for the given user identifier.
+     * Resolves the owner identifiers for the given surveys. The owners are first looked from the cache, and the
+     * missing ones are fetched from Limesurvey with one batch request and stored to the cache.
+     * 
+     * @param sids
+     *            The survey identifiers.
+     * @return The owner identifiers keyed by survey identifiers.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails.
+     */
+    protected Map<String, String> resolveOwners(final List<String> sids) throws SurveySystemConnectorException {
+        final Map<String, String> owners = new HashMap<>();
+        final List<String> pending = new ArrayList<>();
+        for (final String sid : sids) {
+            final String cached = ownerCache.get(sid);
+            if (cached != null) {
+                owners.put(sid, cached);
+            } else if (!pending.contains(sid)) {
+                pending.add(sid);
+            }
+        }
+        log.debug("Found {} owners from the cache, fetching {} owners from Limesurvey", owners.size(), 
+                pending.size());
+        final List<JsonRpcCall> calls = new ArrayList<>();
+        for (final String sid : pending) {
+            calls.add(new JsonRpcCall("get_survey_properties", getOwnerParams(sid)));
+        }
+        final List<String> contents = getBatchContents(calls);
+        for (int i = 0; i < pending.size(); i++) {
+            final String owner = parseOwner(contents.get(i));
+            if (owner != null) {
+                ownerCache.put(pending.get(i), owner);
+            }
+            owners.put(pending.get(i), owner);
+        }
+        return owners;
+    }
+
+    /**
+     * Sends the given calls to Limesurvey, as one JSON-RPC batch request if it's enabled and supported by the
+     * backend. If the backend rejects the batch, it's remembered and the calls are sent as concurrent individual
+     * requests instead.
+     * 
+     * @param calls
+     *            The calls to be sent.
+     * @return The response contents as raw strings, in the same order as the calls.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails.
+     */
+    public List<String> getBatchContents(final List<JsonRpcCall> calls) throws SurveySystemConnectorException {
+        return getBatchContents(calls, true);
+    }
+
+    /**
+     * Sends the given calls to Limesurvey, as one JSON-RPC batch request if possible.
+     * 
+     * @param calls
+     *            The calls to be sent.
+     * @param retry
+     *            Whether to update the session key and retry if the current key is invalid.
+     * @return The response contents as raw strings, in the same order as the calls.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails.
+     */
+    protected List<String> getBatchContents(final List<JsonRpcCall> calls, final boolean retry)
+            throws SurveySystemConnectorException {
+        if (calls.size() < 2 || !batchEnabled || batchRejected) {
+            return getPipelinedContents(calls);
+        }
+        final long started = System.nanoTime();
+        final String key = getSessionManager().getSessionKey();
+        final StringBuilder query = new StringBuilder("[");
+        for (int i = 0; i < calls.size(); i++) {
+            query.append(i == 0 ? " " : ", ");
+            query.append(buildQuery(calls.get(i).getMethod(), calls.get(i).getParams(), key, i + 1));
+        }
+        query.append(" ]");
+        final List<String> results;
+        try {
+            results = postQuery("batch", query.toString(), new LimeResponseHandler<List<String>>() {
+                @Override
+                public List<String> handle(final Reader contents) throws SurveySystemConnectorException {
+                    return demultiplex(contents, calls.size());
+                }
+            });
+        } catch (SurveySystemConnectorException e) {
+            if (!isBatchRejection(e)) {
+                // communication or server failure, or a call rejected by the guard, not a rejected batch
+                throw e;
+            }
+            log.warn("Limesurvey rejected a batch request ({}), sending the calls individually", e.getMessage());
+            batchRejected = true;
+            return getPipelinedContents(calls);
+        }
+        if (results == null) {
+            log.warn("Limesurvey did not respond to a batch request with an array, sending the calls individually");
+            batchRejected = true;
+            return getPipelinedContents(calls);
+        }
+        if (retry) {
+            for (final String result : results) {
+                if ("Invalid session key".equals(getStatusIfExists(result))) {
+                    log.debug("Session key was expired, trying again after authentication");
+                    updateSessionKey(started);
+                    return getBatchContents(calls, false);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Checks whether the given exception from a batch request means that the backend does not support batches: it
+     * responded with a 4xx status code or an incomplete batch response. A 5xx status code or a communication
+     * failure may be transient and does not disable the batches.
+     * 
+     * @param e
+     *            The exception from the batch request.
+     * @return True if the batch was rejected, false otherwise.
+     */
+    protected boolean isBatchRejection(final SurveySystemConnectorException e) {
+        if (e instanceof UnexpectedStatusCodeException) {
+            return ((UnexpectedStatusCodeException) e).isClientError();
+        }
+        return e.getCause() == null && !(e instanceof CallRejectedException);
+    }
+
+    /**
+     * Parses the responses from a JSON-RPC batch response and orders them by their identifiers.
+     * 
+     * @param contents
+     *            The batch response contents.
+     * @param size
+     *            The amount of calls in the batch, identified from 1 to size.
+     * @return The individual responses as raw strings in the order of identifiers, or null if the contents was not
+     *         a batch response.
+     * @throws SurveySystemConnectorException
+     *             If some of the responses are missing.
+     */
+    protected List<String> demultiplex(final Reader contents, final int size) throws SurveySystemConnectorException {
+        final JsonElement element;
+        try {
+            element = new JsonParser().parse(contents);
+        } catch (JsonParseException e) {
+            log.debug("Could not parse the batch response", e);
+            return null;
+        }
+        if (!element.isJsonArray()) {
+            log.debug("Unexpected batch response {}", element);
+            return null;
+        }
+        final String[] results = new String[size];
+        for (final JsonElement response : element.getAsJsonArray()) {
+            final JsonElement id = response.isJsonObject() ? response.getAsJsonObject().get("id") : null;
+            final int index = id != null && id.isJsonPrimitive() ? parseId(id.getAsString()) - 1 : -1;
+            if (index < 0 || index >= size) {
+                throw new SurveySystemConnectorException("Unexpected response identifier " + id + " in the batch");
+            }
+            results[index] = response.toString();
+        }
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                throw new SurveySystemConnectorException("No response for the call " + (i + 1) + " in the batch");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Parses the JSON-RPC identifier into an integer.
      * 
-     * @param users
-     *            The list of Limesurvey users.
      * @param id
-     *            The identifier for the user to be returned.
-     * @return The username corresponding to the given identifier.
+     *            The identifier.
+     * @return The identifier as integer, -1 if it's not an integer.
+     */
+    protected static int parseId(final String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Sends the given calls to Limesurvey as individual requests. Several calls are sent concurrently with the
+     * executor for concurrent fetches.
+     * 
+     * @param calls
+     *            The calls to be sent.
+     * @return The response contents as raw strings, in the same order as the calls.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails.
+     */
+    protected List<String> getPipelinedContents(final List<JsonRpcCall> calls) throws SurveySystemConnectorException {
+        final List<String> results = new ArrayList<>();
+        if (calls.size() == 1) {
+            results.add(getContents(calls.get(0).getMethod(), calls.get(0).getParams(), true));
+            return results;
+        }
+        if (!calls.isEmpty()) {
+            // obtain the key once before sending the calls concurrently
+            getSessionManager().getSessionKey();
+        }
+        final List<Future<String>> pending = new ArrayList<>();
+        final CallPriority priority = CallPriority.current();
+        for (final JsonRpcCall call : calls) {
+            pending.add(getFetchExecutor().submit(new Callable<String>() {
+                @Override
+                public String call() throws SurveySystemConnectorException {
+                    final CallPriority previous = CallPriority.enter(priority);
+                    try {
+                        return getContents(call.getMethod(), call.getParams(), true);
+                    } finally {
+                        CallPriority.restore(previous);
+                    }
+                }
+            }));
+        }
+        for (final Future<String> future : pending) {
+            results.add(waitFor(future));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the given fetch to be completed and returns its result.
+     * 
+     * @param future
+     *            The pending fetch.
+     * @param <T>
+     *            The type of the result.
+     * @return The result of the fetch.
+     * @throws SurveySystemConnectorException
+     *             If the fetch failed or the thread was interrupted.
      */
-    protected String getUsername(final LimeUserDetails[] users, final String id) {
-        for (final LimeUserDetails user : users) {
-            if (id.equals(user.getUid())) {
-                return user.getUsername();
+    protected <T> T waitFor(final Future<T> future) throws SurveySystemConnectorException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SurveySystemConnectorException("Interrupted while waiting for Limesurvey", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SurveySystemConnectorException) {
+                throw (SurveySystemConnectorException) e.getCause();
             }
+            throw new SurveySystemConnectorException(e);
         }
-        log.warn("Could not find a matching user details for uid {}", id);
-        return null;
+    }
+
+    /**
+     * Get the executor for concurrent fetches from Limesurvey. The executor is built on the first call.
+     * 
+     * @return The executor for concurrent fetches.
+     */
+    protected synchronized ExecutorService getFetchExecutor() {
+        if (fetchExecutor == null) {
+            final AtomicInteger counter = new AtomicInteger();
+            fetchExecutor = Executors.newFixedThreadPool(fetchThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "lime-fetch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return fetchExecutor;
     }
 
     /**
@@ -598,34 +1833,29 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     protected <T extends AbstractLimeSurveyResponse> T getContents(final String method, final String params, T response,
             boolean retry) throws SurveySystemConnectorException {
         log.trace("Starting getContents for response type {}", response.getClass());
-        final String contents = getContents(method, params, true);
-        final Gson gson = new Gson();
+        final long started = System.nanoTime();
+        final T parsed;
         try {
-            return (T) gson.fromJson(contents, response.getClass());
-        } catch (JsonSyntaxException e) {
-            log.debug("Could not encode response {} from contents {}", response.getClass(), contents);
-            try {
-                final LimeStatusResponse statusResponse = gson.fromJson(contents, LimeStatusResponse.class);
-                final Status status = statusResponse.getStatus();
-                if (status != null) {
-                    final String errorMessage = status.getStatus();
-                    if (retry && "Invalid session key".equals(errorMessage)) {
-                        log.debug("Session key was expired, trying again after authentication");
-                        updateSessionKey();
-                        return getContents(method, params, response, false);
-                    } else {
-                        log.debug("Parsed error {} from the response", errorMessage);
-                        response.setErrorMessage(errorMessage);
-                        return response;
-                    }
-                } else {
-                    log.error("Could not parse status or {} from {}", response.getClass(), contents);
+            parsed = getContents(method, params, true, new LimeResponseHandler<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public T handle(final Reader contents) {
+                    return (T) GSON.fromJson(contents, response.getClass());
                 }
-            } catch (JsonSyntaxException jse) {
-                log.error("Could not parse the contents {}", contents);
+            });
+        } catch (JsonParseException e) {
+            log.error("Could not parse {} from the response to {}", response.getClass(), method, e);
+            return null;
+        }
+        if (parsed != null && parsed.getStatusMessage() != null) {
+            if (retry && "Invalid session key".equals(parsed.getStatusMessage())) {
+                log.debug("Session key was expired, trying again after authentication");
+                updateSessionKey(started);
+                return getContents(method, params, response, false);
             }
+            log.debug("Parsed error {} from the response", parsed.getStatusMessage());
         }
-        return null;
+        return parsed;
     }
 
     /**
@@ -651,34 +1881,29 @@ public class LimeSurveyConnector implements SurveySystemConnector {
     }
     
     /**
-     * Fetches the participants from Limesurvey for the given survey.
+     * Fetches one page of participants from Limesurvey for the given survey.
      * @param sid The survey identifier.
-     * @return The list of participants.
+     * @param start The offset of the first participant.
+     * @param limit The maximum amount of participants.
+     * @return The list of participants, empty if there are no participants after the offset.
      * @throws SurveySystemConnectorException If the operation fails.
      */
-    protected ListParticipantsResponse fetchParticipants(final String sid) throws SurveySystemConnectorException {
-        return getContents("list_participants", sid + ", 0, " + maxParticipants + ", false, [ \"completed\" ]", 
-                new ListParticipantsResponse(), true);
-    }
-
-    /**
-     * Fetches the answers from Limesurvey.
-     * 
-     * @param sid
-     *            The survey identifier.
-     * @return The answers in CSV.
-     * @throws SurveySystemConnectorException
-     *             If the communication fails.
-     */
-    protected String fetchAnswers(final String sid) throws SurveySystemConnectorException {
-        final StringResultResponse stringResponse = getContents("export_responses", "\"" + sid + "\", \"csv\"",
-                new StringResultResponse(), true);
-        if (stringResponse != null && stringResponse.getStringValue() != null) {
-            final String decoded = new String(Base64.decodeBase64(stringResponse.getStringValue()));
-            log.trace("Decoded: {}", decoded);
-            return decoded;
+    protected List<ParticipantOverview> fetchParticipants(final String sid, final int start, final int limit)
+            throws SurveySystemConnectorException {
+        final ListParticipantsResponse response = getContents("list_participants",
+                sid + ", " + start + ", " + limit + ", false, [ \"completed\" ]", new ListParticipantsResponse(), true);
+        if (response == null) {
+            throw new SurveySystemConnectorException("Could not parse the participants");
         }
-        return null;
+        if (response.getErrorMessage() != null) {
+            if (response.getErrorMessage().startsWith(STATUS_NO_PARTICIPANTS)) {
+                log.trace("No more participants after {}", start);
+                return Collections.emptyList();
+            }
+            throw new SurveySystemConnectorException(response.getErrorMessage());
+        }
+        return response.getParticipants() == null ? Collections.<ParticipantOverview>emptyList()
+                : response.getParticipants();
     }
 
     /**
@@ -690,8 +1915,7 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      */
     protected String getStatusIfExists(final String contents) {
         try {
-            Gson gson = new Gson();
-            LimeStatusResponse statusResponse = gson.fromJson(contents, LimeStatusResponse.class);
+            LimeStatusResponse statusResponse = GSON.fromJson(contents, LimeStatusResponse.class);
             if (statusResponse.getStatus() != null) {
                 return statusResponse.getStatus().getStatus();
             }
@@ -711,9 +1935,7 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      *             If the communication fails.
      */
     protected ListQuestionsResponse fetchQuestions(final String sid) throws SurveySystemConnectorException {
-        final String contents = getContents("list_questions", "\"" + sid + "\"", true);
-        Gson gson = new Gson();
-        return gson.fromJson(contents, ListQuestionsResponse.class);
+        return getContents("list_questions", "\"" + sid + "\"", new ListQuestionsResponse(), true);
     }
 
     /**
@@ -726,10 +1948,30 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      *             If the communication fails.
      */
     protected String getOwner(final String sid) throws SurveySystemConnectorException {
-        final String contents = getContents("get_survey_properties", "\"" + sid + "\", [\"owner_id\", \"admin\"]",
-                true);
-        Gson gson = new Gson();
-        return gson.fromJson(contents, SurveyPropertiesResponse.class).getOverview().getOwnerId();
+        return parseOwner(getContents("get_survey_properties", getOwnerParams(sid), true));
+    }
+
+    /**
+     * Get the parameters for fetching the owner identifier of a survey with get_survey_properties.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The parameters after the session key.
+     */
+    protected String getOwnerParams(final String sid) {
+        return "\"" + sid + "\", [\"owner_id\", \"admin\"]";
+    }
+
+    /**
+     * Parses the owner identifier from the get_survey_properties response contents.
+     * 
+     * @param contents
+     *            The JSON contents in raw string.
+     * @return The owner identifier, or null if it was not found.
+     */
+    protected String parseOwner(final String contents) {
+        final SurveyAdminOverview overview = GSON.fromJson(contents, SurveyPropertiesResponse.class).getOverview();
+        return overview == null ? null : overview.getOwnerId();
     }
 
     /**
@@ -747,101 +1989,236 @@ public class LimeSurveyConnector implements SurveySystemConnector {
      */
     protected String getContents(final String method, final String params, boolean addSessionKey)
             throws SurveySystemConnectorException {
-        if (addSessionKey && sessionKey == null) {
-            log.debug("Updating session key");
-            updateSessionKey();
+        return getContents(method, params, addSessionKey, new LimeResponseHandler<String>() {
+
+            @Override
+            public String handle(final Reader contents) throws IOException {
+                final String result = IOUtils.toString(contents);
+                log.trace("Got the following response contents from {}: {}", method, result);
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Contacts Limesurvey API with the given method and parameters, and lets the given handler process the
+     * response contents while the response is still open.
+     * 
+     * @param method
+     *            The Limesurvey method.
+     * @param params
+     *            The Limesurvey parameters.
+     * @param addSessionKey
+     *            Whether or not to add the session key to the request.
+     * @param handler
+     *            The handler for the response contents.
+     * @param <T>
+     *            The type of the result.
+     * @return The result from the handler if the status code was 200.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails (response code not 200) or the handler fails.
+     */
+    protected <T> T getContents(final String method, final String params, boolean addSessionKey,
+            final LimeResponseHandler<T> handler) throws SurveySystemConnectorException {
+        final String key = addSessionKey ? getSessionManager().getSessionKey() : null;
+        return postQuery(method, buildQuery(method, params, key, 1), handler);
+    }
+
+    /**
+     * Builds a JSON-RPC request for Limesurvey API.
+     * 
+     * @param method
+     *            The Limesurvey method.
+     * @param params
+     *            The Limesurvey parameters.
+     * @param key
+     *            The session key to be added to the request, null if it's not added.
+     * @param id
+     *            The identifier for the request.
+     * @return The JSON-RPC request.
+     */
+    protected String buildQuery(final String method, final String params, final String key, final int id) {
+        if (key != null) {
+            if (params != null) {
+                return "{\"method\": \"" + method + "\", \"params\": [ \"" + key + "\", " + params
+                        + " ], \"id\": " + id + "}";
+            }
+            return "{\"method\": \"" + method + "\", \"params\": [ \"" + key + "\" ], \"id\": " + id + "}";
         }
-        try (final CloseableHttpClient httpClient = HttpClientBuilder.buildClient()) {
+        return "{\"method\": \"" + method + "\", \"params\": [ " + params + " ], \"id\": " + id + "}";
+    }
+
+    /**
+     * Posts the given JSON-RPC request to Limesurvey API, and lets the given handler process the response contents
+     * while the response is still open.
+     * 
+     * @param method
+     *            The Limesurvey method, used for logging.
+     * @param query
+     *            The JSON-RPC request.
+     * @param handler
+     *            The handler for the response contents.
+     * @param <T>
+     *            The type of the result.
+     * @return The result from the handler if the status code was 200.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails (response code not 200) or the handler fails.
+     */
+    protected <T> T postQuery(final String method, final String query, final LimeResponseHandler<T> handler)
+            throws SurveySystemConnectorException {
+        return getCallGuard().execute(method, progress -> postQuery(method, query, handler, progress));
+    }
+
+    /**
+     * Posts the given JSON-RPC request to Limesurvey API without the call guard, and lets the given handler process
+     * the response contents while the response is still open.
+     * 
+     * @param method
+     *            The Limesurvey method, used for logging.
+     * @param query
+     *            The JSON-RPC request.
+     * @param handler
+     *            The handler for the response contents.
+     * @param progress
+     *            The progress of the call, marked when the response starts before the handler is called.
+     * @param <T>
+     *            The type of the result.
+     * @return The result from the handler if the status code was 200.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails (response code not 200) or the handler fails.
+     */
+    protected <T> T postQuery(final String method, final String query, final LimeResponseHandler<T> handler,
+            final CallProgress progress) throws SurveySystemConnectorException {
+        try {
+            final CloseableHttpClient httpClient = HttpClientBuilder.getSharedClient();
             HttpPost post = new HttpPost(apiEndpoint);
             post.setHeader("Content-type", "application/json");
-            final String query;
-            if (addSessionKey) {
-                if (params != null) {
-                    query = "{\"method\": \"" + method + "\", \"params\": [ \"" + sessionKey + "\", " + params
-                            + " ], \"id\": 1}";
-                } else {
-                    query = "{\"method\": \"" + method + "\", \"params\": [ \"" + sessionKey + "\" ], \"id\": 1}";
-                }
-            } else {
-                query = "{\"method\": \"" + method + "\", \"params\": [ " + params + " ], \"id\": 1}";
-            }
             post.setEntity(new StringEntity(query));
             log.debug("Sending query {}", query);
-            final HttpResponse response = httpClient.execute(post);
-            final int statusCode = response.getStatusLine().getStatusCode();
-            log.debug("Response code {} from {}", statusCode, method);
-            if (statusCode == 200) {
+            try (final CloseableHttpResponse response = httpClient.execute(post)) {
+                final int statusCode = response.getStatusLine().getStatusCode();
+                log.debug("Response code {} from {}", statusCode, method);
                 final HttpEntity entity = response.getEntity();
-                final String contents = EntityUtils.toString(entity);
-                log.trace("Got the following response contents from {}: {}", method, contents);
-                return contents;
+                if (statusCode == 200) {
+                    final ContentType contentType = ContentType.getOrDefault(entity);
+                    final Charset charset = contentType.getCharset() != null ? contentType.getCharset()
+                            : StandardCharsets.UTF_8;
+                    try (final Reader reader = new InputStreamReader(entity.getContent(), charset)) {
+                        progress.markResponseStarted();
+                        return handler.handle(reader);
+                    } finally {
+                        // consume the rest of the contents to release the connection back to the pool
+                        EntityUtils.consumeQuietly(entity);
+                    }
+                }
+                // consume the contents to release the connection back to the pool
+                EntityUtils.consume(entity);
+                throw new UnexpectedStatusCodeException(statusCode);
             }
-            throw new SurveySystemConnectorException("Unexpected status code: " + statusCode);
         } catch (IOException | KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
             throw new SurveySystemConnectorException(e);
         }
     }
 
     /**
-     * Updates the session key, i.e. authenticates to Limesurvey.
+     * Updates the session key, i.e. authenticates to Limesurvey. If another thread is already updating the key, its
+     * result is waited for instead.
      * 
      * @throws SurveySystemConnectorException
      *             If the communication fails.
      */
     protected void updateSessionKey() throws SurveySystemConnectorException {
+        getSessionManager().renewSessionKey();
+    }
+
+    /**
+     * Updates the session key after a request started at the given time was rejected with an invalid session key.
+     * If another thread has already updated the key after that, the key is not updated again.
+     * 
+     * @param requestStarted
+     *            The {@link System#nanoTime()} value when the rejected request was started.
+     * @throws SurveySystemConnectorException
+     *             If the communication fails.
+     */
+    protected void updateSessionKey(final long requestStarted) throws SurveySystemConnectorException {
+        getSessionManager().renewSessionKey(requestStarted);
+    }
+
+    /**
+     * Get the manager for the session key. The manager is built on the first call.
+     * 
+     * @return The manager for the session key.
+     */
+    public synchronized LimeSessionManager getSessionManager() {
+        if (sessionManager == null) {
+            sessionManager = new LimeSessionManager(new SessionKeyProvider() {
+                @Override
+                public String obtainSessionKey() throws SurveySystemConnectorException {
+                    return fetchSessionKey();
+                }
+
+                @Override
+                public void releaseSessionKey(final String key) throws SurveySystemConnectorException {
+                    releaseSession(key);
+                }
+            });
+            sessionManager.setMaxKeyAge(maxSessionKeyAge);
+        }
+        return sessionManager;
+    }
+
+    /**
+     * Authenticates to Limesurvey and returns the new session key.
+     * 
+     * @return The new session key.
+     * @throws SurveySystemConnectorException
+     *             If the communication or the authentication fails.
+     */
+    protected String fetchSessionKey() throws SurveySystemConnectorException {
         final String contents = getContents("get_session_key", "\"" + apiUser + "\", \"" + apiPassword + "\"", false);
         final String newSessionKey = getSessionKey(contents);
-        if (newSessionKey != null) {
-            log.debug("Successfully parsed session key {}", newSessionKey);
-            this.sessionKey = newSessionKey;
-            return;
-        }
-        try {
-            Gson gson = new Gson();
-            final String errorMessage = gson.fromJson(contents, LimeStatusResponse.class).getStatus().getStatus();
-            throw new SurveySystemConnectorException(errorMessage);
-        } catch (JsonSyntaxException e) {
-            log.error("Could not get session_key from Limesurvey", e);
-            throw new SurveySystemConnectorException(e.getMessage(), e);
-        }
+        log.debug("Successfully parsed session key {}", newSessionKey);
+        return newSessionKey;
     }
 
     /**
-     * Parses the session key from the contents.
+     * Releases the given session key in Limesurvey.
      * 
-     * @param contents
-     *            The JSON contents in raw string.
-     * @return The session key.
+     * @param key
+     *            The session key.
      * @throws SurveySystemConnectorException
-     *             If the session key cannot be parsed.
+     *             If the communication fails.
      */
-    protected String getSessionKey(final String contents) throws SurveySystemConnectorException {
-        Gson gson = new Gson();
-        try {
-            return gson.fromJson(contents, StringResultResponse.class).getStringValue();
-        } catch (JsonSyntaxException e) {
-            log.trace("Could not read session key from the contents", e);
-            throw getSessionKeyFailed(contents);
-        }
+    protected void releaseSession(final String key) throws SurveySystemConnectorException {
+        getContents("release_session_key", "\"" + key + "\"", false);
     }
 
     /**
-     * Parses the error message if it's found from the contents.
+     * Parses the session key from the contents.
      * 
      * @param contents
      *            The JSON contents in raw string.
-     * @return The exception containing the parsed error message if it was
-     *         found.
+     * @return The session key.
+     * @throws SurveySystemConnectorException
+     *             If the session key cannot be parsed, containing the status message if it was found.
      */
-    protected SurveySystemConnectorException getSessionKeyFailed(final String contents) {
-        Gson gson = new Gson();
+    protected String getSessionKey(final String contents) throws SurveySystemConnectorException {
+        final StringResultResponse response;
         try {
-            final String errorMessage = gson.fromJson(contents, LimeStatusResponse.class).getStatus().getStatus();
+            response = GSON.fromJson(contents, StringResultResponse.class);
+        } catch (JsonParseException e) {
+            log.error("Could not get session_key from Limesurvey", e);
+            throw new SurveySystemConnectorException(e.getMessage(), e);
+        }
+        if (response == null) {
+            throw new SurveySystemConnectorException("Empty response from Limesurvey");
+        }
+        if (response.getStringValue() == null) {
+            final String errorMessage = response.getStatusMessage() != null ? response.getStatusMessage() 
+                    : response.getErrorMessage();
             log.trace("Successfully parsed error message {}", errorMessage);
-            return new SurveySystemConnectorException(errorMessage);
-        } catch (JsonSyntaxException e) {
-            log.trace("Could not error message from the contents {}", contents, e);
-            return new SurveySystemConnectorException(e);
+            throw new SurveySystemConnectorException(errorMessage);
         }
+        return response.getStringValue();
     }
 }
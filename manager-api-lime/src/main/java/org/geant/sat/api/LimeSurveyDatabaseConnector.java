@@ -0,0 +1,605 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.ListUsersResponse;
+import org.geant.sat.api.dto.QuestionDetails;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.geant.sat.api.dto.SurveyDetails;
+import org.geant.sat.api.dto.SurveyTokenDetails;
+import org.geant.sat.api.lime.SgqaColumnResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * A survey system connector reading the surveys, questions, participants and responses directly from the
+ * Limesurvey database through a {@link DataSource}, instead of the JSON-RPC API. The responses are streamed from the
+ * result set row by row. The users and all the writes are delegated to the configured survey system connector,
+ * typically {@link LimeSurveyConnector}. The data source is only read, and it should use a read-only account.
+ */
+public class LimeSurveyDatabaseConnector implements SurveySystemConnector {
+
+    /** The default prefix for the Limesurvey table names. */
+    public static final String DEFAULT_TABLE_PREFIX = "lime_";
+
+    /** The default amount of rows fetched from the database at a time. */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** The default amount of tokens in one answer query. */
+    public static final int DEFAULT_TOKEN_CHUNK_SIZE = 500;
+
+    /** The format for the timestamps, as in the Limesurvey exports. */
+    public static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /** The response table column for the response identifier. */
+    public static final String COLUMN_ID = "id";
+
+    /** The response table column for the submit date. */
+    public static final String COLUMN_SUBMIT_DATE = "submitdate";
+
+    /** The response table column for the start language. */
+    public static final String COLUMN_START_LANGUAGE = "startlanguage";
+
+    /** The response table column for the token. */
+    public static final String COLUMN_TOKEN = "token";
+
+    /** The response table column for the start date. */
+    public static final String COLUMN_START_DATE = "startdate";
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(LimeSurveyDatabaseConnector.class);
+
+    /** The Spring {@link JdbcTemplate} exploiting the {@link DataSource}. */
+    private JdbcTemplate jdbcTemplate;
+
+    /** The connector for the users and the writes. */
+    private SurveySystemConnector surveySystemConnector;
+
+    /** The prefix for the Limesurvey table names. */
+    private String tablePrefix = DEFAULT_TABLE_PREFIX;
+
+    /** The amount of rows fetched from the database at a time. */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /** The amount of tokens in one answer query. */
+    private int tokenChunkSize = DEFAULT_TOKEN_CHUNK_SIZE;
+
+    /**
+     * Set the {@link DataSource} for the Limesurvey database.
+     * @param dataSource What to set.
+     */
+    public void setDataSource(final DataSource dataSource) {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Set the connector for the users and the writes.
+     * @param connector What to set.
+     */
+    public void setSurveySystemConnector(final SurveySystemConnector connector) {
+        surveySystemConnector = connector;
+    }
+
+    /**
+     * Set the prefix for the Limesurvey table names.
+     * @param prefix What to set.
+     */
+    public void setTablePrefix(final String prefix) {
+        tablePrefix = prefix == null ? "" : prefix;
+    }
+
+    /**
+     * Set the amount of rows fetched from the database at a time. The value is passed to the JDBC driver as is, e.g.
+     * the MySQL driver only streams the rows with {@link Integer#MIN_VALUE}.
+     * @param size What to set.
+     */
+    public void setFetchSize(final int size) {
+        fetchSize = size;
+        if (jdbcTemplate != null) {
+            jdbcTemplate.setFetchSize(size);
+        }
+    }
+
+    /**
+     * Set the amount of tokens in one answer query.
+     * @param chunkSize What to set, must be positive.
+     */
+    public void setTokenChunkSize(final int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The token chunk size must be positive");
+        }
+        tokenChunkSize = chunkSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListAllSurveysResponse listSurveys() {
+        final ListAllSurveysResponse response = new ListAllSurveysResponse();
+        final String query = "SELECT s.sid, s.active, s.expires, l.surveyls_title, u.users_name FROM "
+                + table("surveys") + " s LEFT JOIN " + table("surveys_languagesettings")
+                + " l ON l.surveyls_survey_id = s.sid AND l.surveyls_language = s.language LEFT JOIN "
+                + table("users") + " u ON u.uid = s.owner_id ORDER BY s.sid";
+        final List<SurveyDetails> surveys = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        final RowCallbackHandler handler = rs -> {
+            final SurveyDetails details = new SurveyDetails();
+            details.setSid(rs.getString(1));
+            final Timestamp expires = rs.getTimestamp(3);
+            details.setActive("Y".equalsIgnoreCase(rs.getString(2))
+                    && (expires == null || expires.getTime() > now));
+            details.setTitle(rs.getString(4));
+            details.setOwner(rs.getString(5));
+            surveys.add(details);
+        };
+        try {
+            jdbcTemplate.query(query, handler);
+            response.setSurveys(surveys);
+        } catch (DataAccessException e) {
+            log.error("Could not read the surveys from the Limesurvey database", e);
+            response.setErrorMessage("Could not read the surveys from the database");
+        }
+        return response;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public QuestionsResponse listQuestions(final String sid) {
+        final QuestionsResponse response = new QuestionsResponse();
+        final List<QuestionDetails> questions = new ArrayList<>();
+        final RowCallbackHandler handler = rs -> {
+            final QuestionDetails details = new QuestionDetails();
+            details.setQid(rs.getString("qid"));
+            details.setParentQid(rs.getString("parent_qid"));
+            details.setSid(sid);
+            details.setGid(rs.getString("gid"));
+            details.setType(rs.getString("type"));
+            details.setTitle(rs.getString("title"));
+            details.setQuestion(rs.getString("question"));
+            details.setMandatory("Y".equalsIgnoreCase(rs.getString("mandatory")));
+            details.setQuestionOrder(rs.getString("question_order"));
+            details.setLanguage(rs.getString("language"));
+            questions.add(details);
+        };
+        try {
+            queryQuestions(parseSid(sid), "q.qid, q.parent_qid, q.gid, q.type, q.title, q.question, q.mandatory, "
+                    + "q.question_order, q.language", handler);
+            response.setQuestions(questions);
+        } catch (SurveySystemConnectorException e) {
+            log.error("Could not read the questions from the Limesurvey database", e);
+            response.setErrorMessage(e.getMessage());
+        }
+        return response;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AnswersResponse listAnswers(final String sid) throws SurveySystemConnectorException {
+        final AnswersResponse response = new AnswersResponse();
+        final List<AnswerDetails> answers = new ArrayList<>();
+        exportAnswers(sid, answers::add);
+        response.setAnswers(answers);
+        return response;
+    }
+
+    /**
+     * List the answers for the given tokens. The tokens are queried in chunks of the configured size.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param tokens
+     *            The tokens whose answers are listed, or null for all the answers.
+     * @return The answers for the given tokens.
+     * @throws SurveySystemConnectorException
+     *             If the answers cannot be read.
+     */
+    @Override
+    public AnswersResponse listAnswers(final String sid, final Collection<String> tokens)
+            throws SurveySystemConnectorException {
+        if (tokens == null) {
+            return listAnswers(sid);
+        }
+        final Set<String> wanted = new LinkedHashSet<>(tokens);
+        wanted.remove(null);
+        final List<String> distinct = new ArrayList<>(wanted);
+        final long surveyId = parseSid(sid);
+        final SgqaColumnResolver resolver = buildColumnResolver(surveyId);
+        final List<AnswerDetails> answers = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += tokenChunkSize) {
+            exportAnswers(surveyId, resolver, distinct.subList(i, Math.min(i + tokenChunkSize, distinct.size())),
+                    0, answers::add);
+        }
+        log.debug("Read {} answers for {} tokens in survey {}", answers.size(), distinct.size(), sid);
+        final AnswersResponse response = new AnswersResponse();
+        response.setAnswers(answers);
+        return response;
+    }
+
+    /**
+     * Streams all the answers of the given survey from the response table to the given consumer.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the answers cannot be read.
+     */
+    @Override
+    public void exportAnswers(final String sid, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        final long surveyId = parseSid(sid);
+        exportAnswers(surveyId, buildColumnResolver(surveyId), null, 0, consumer);
+    }
+
+    /**
+     * Streams the answers from the given response identifier on from the response table to the given consumer.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param fromId
+     *            The first response identifier to export, zero or negative for all the answers.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the answers cannot be read.
+     */
+    @Override
+    public void exportAnswers(final String sid, final long fromId, final Consumer<AnswerDetails> consumer)
+            throws SurveySystemConnectorException {
+        final long surveyId = parseSid(sid);
+        exportAnswers(surveyId, buildColumnResolver(surveyId), null, fromId, consumer);
+    }
+
+    /**
+     * Get the revision of the answers in the given survey, built from the amount of all and completed responses
+     * and the largest response identifier.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The answers revision.
+     * @throws SurveySystemConnectorException
+     *             If the response table cannot be read.
+     */
+    @Override
+    public String getAnswersRevision(final String sid) throws SurveySystemConnectorException {
+        final String query = "SELECT COUNT(*), COUNT(" + COLUMN_SUBMIT_DATE + "), MAX(" + COLUMN_ID + ") FROM "
+                + table("survey_" + parseSid(sid));
+        try {
+            return jdbcTemplate.queryForObject(query,
+                    (rs, row) -> rs.getLong(1) + "/" + rs.getLong(2) + "/" + rs.getLong(3));
+        } catch (DataAccessException e) {
+            throw new SurveySystemConnectorException("Could not read the responses for survey " + sid, e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListUsersResponse listUsers() {
+        return surveySystemConnector.listUsers();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateSurveyDetails(final SurveyDetails survey) throws SurveySystemConnectorException {
+        surveySystemConnector.updateSurveyDetails(survey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ListSurveyTokensResponse listSurveyTokens(final String sid) {
+        final ListSurveyTokensResponse response = new ListSurveyTokensResponse();
+        final RowCallbackHandler handler = rs -> {
+            final SurveyTokenDetails details = new SurveyTokenDetails();
+            details.setSurveyId(sid);
+            details.setToken(rs.getString(1));
+            details.setCompleted(rs.getString(2));
+            response.getTokens().add(details);
+        };
+        try {
+            final String query = "SELECT token, completed FROM " + table("tokens_" + parseSid(sid)) + " ORDER BY tid";
+            jdbcTemplate.query(query, handler);
+            log.debug("Read {} tokens for survey {}", response.getTokens().size(), sid);
+        } catch (SurveySystemConnectorException e) {
+            log.error("Could not read the participants from the Limesurvey database", e);
+            response.setErrorMessage(e.getMessage());
+        } catch (DataAccessException e) {
+            log.error("Could not read the participants from the Limesurvey database", e);
+            response.setErrorMessage("Could not read the participants for survey " + sid);
+        }
+        return response;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String generateToken(final String sid) throws SurveySystemConnectorException {
+        return surveySystemConnector.generateToken(sid);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<String> generateTokens(final String sid, final int count) throws SurveySystemConnectorException {
+        return surveySystemConnector.generateTokens(sid, count);
+    }
+
+    /**
+     * Streams the answers of the given survey from the response table to the given consumer, in the order of the
+     * response identifiers.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param resolver
+     *            The resolver for the question codes of the answer columns.
+     * @param tokens
+     *            The tokens whose answers are read, or null for all the answers.
+     * @param fromId
+     *            The first response identifier to read, zero or negative for all the answers.
+     * @param consumer
+     *            The consumer for the answers.
+     * @throws SurveySystemConnectorException
+     *             If the answers cannot be read.
+     */
+    protected void exportAnswers(final long sid, final SgqaColumnResolver resolver, final List<String> tokens,
+            final long fromId, final Consumer<AnswerDetails> consumer) throws SurveySystemConnectorException {
+        final StringBuilder query = new StringBuilder("SELECT * FROM ").append(table("survey_" + sid));
+        final List<Object> params = new ArrayList<>();
+        if (tokens != null) {
+            if (tokens.isEmpty()) {
+                return;
+            }
+            query.append(" WHERE ").append(COLUMN_TOKEN).append(" IN (?");
+            for (int i = 1; i < tokens.size(); i++) {
+                query.append(", ?");
+            }
+            query.append(')');
+            params.addAll(tokens);
+        }
+        if (fromId > 0) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append(COLUMN_ID).append(" >= ?");
+            params.add(fromId);
+        }
+        query.append(" ORDER BY ").append(COLUMN_ID);
+        try {
+            jdbcTemplate.query(query.toString(), params.toArray(), new AnswerRowHandler(resolver, consumer));
+        } catch (DataAccessException e) {
+            throw new SurveySystemConnectorException("Could not read the responses for survey " + sid, e);
+        }
+    }
+
+    /**
+     * Builds the resolver for the question codes of the answer columns in the given survey.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The resolver for the question codes.
+     * @throws SurveySystemConnectorException
+     *             If the questions cannot be read.
+     */
+    protected SgqaColumnResolver buildColumnResolver(final long sid) throws SurveySystemConnectorException {
+        final SgqaColumnResolver resolver = new SgqaColumnResolver(String.valueOf(sid));
+        queryQuestions(sid, "q.qid, q.parent_qid, q.gid, q.title", rs -> {
+            final String parentQid = rs.getString(2);
+            if (parentQid == null || "0".equals(parentQid)) {
+                resolver.addQuestion(rs.getString(1), rs.getString(3), rs.getString(4));
+            } else {
+                resolver.addSubquestion(parentQid, rs.getString(4));
+            }
+        });
+        return resolver;
+    }
+
+    /**
+     * Queries the given columns of the questions in the base language of the given survey.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @param columns
+     *            The columns to be selected, from the questions table aliased as q.
+     * @param handler
+     *            The handler for the rows.
+     * @throws SurveySystemConnectorException
+     *             If the questions cannot be read.
+     */
+    protected void queryQuestions(final long sid, final String columns, final RowCallbackHandler handler)
+            throws SurveySystemConnectorException {
+        final String query = "SELECT " + columns + " FROM " + table("questions") + " q JOIN " + table("surveys")
+                + " s ON s.sid = q.sid AND s.language = q.language WHERE q.sid = ? ORDER BY q.qid";
+        try {
+            jdbcTemplate.query(query, new Object[] { sid }, handler);
+        } catch (DataAccessException e) {
+            throw new SurveySystemConnectorException("Could not read the questions for survey " + sid, e);
+        }
+    }
+
+    /**
+     * Get the full name of the given Limesurvey table.
+     * 
+     * @param name
+     *            The table name without the prefix.
+     * @return The table name with the prefix.
+     */
+    protected String table(final String name) {
+        return tablePrefix + name;
+    }
+
+    /**
+     * Parses the given survey identifier. Only numeric identifiers are accepted, as they are also used in the table
+     * names.
+     * 
+     * @param sid
+     *            The survey identifier.
+     * @return The survey identifier as a number.
+     * @throws SurveySystemConnectorException
+     *             If the identifier is not numeric.
+     */
+    protected static long parseSid(final String sid) throws SurveySystemConnectorException {
+        if (sid == null || !sid.matches("[0-9]{1,18}")) {
+            throw new SurveySystemConnectorException("Invalid survey identifier " + sid);
+        }
+        return Long.parseLong(sid);
+    }
+
+    /**
+     * Formats the given timestamp as in the Limesurvey exports.
+     * 
+     * @param timestamp
+     *            The timestamp, may be null.
+     * @return The formatted timestamp, or null if the timestamp was null.
+     */
+    protected static String formatTimestamp(final Timestamp timestamp) {
+        return timestamp == null ? null : new SimpleDateFormat(TIMESTAMP_FORMAT).format(timestamp);
+    }
+
+    /**
+     * Builds the answer details from the rows of a response table. The columns are indexed on the first row.
+     */
+    protected static class AnswerRowHandler implements RowCallbackHandler {
+
+        /** The resolver for the question codes of the answer columns. */
+        private final SgqaColumnResolver resolver;
+
+        /** The consumer for the answers. */
+        private final Consumer<AnswerDetails> consumer;
+
+        /** The column indexes by lower-cased metadata column name. */
+        private Map<String, Integer> metadata;
+
+        /** The indexes of the answer columns. */
+        private int[] answerColumns;
+
+        /** The question codes of the answer columns. */
+        private String[] answerTitles;
+
+        /**
+         * Constructor.
+         * @param columnResolver The resolver for the question codes of the answer columns.
+         * @param answerConsumer The consumer for the answers.
+         */
+        public AnswerRowHandler(final SgqaColumnResolver columnResolver,
+                final Consumer<AnswerDetails> answerConsumer) {
+            resolver = columnResolver;
+            consumer = answerConsumer;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            if (metadata == null) {
+                indexColumns(rs.getMetaData());
+            }
+            final AnswerDetails details = new AnswerDetails();
+            details.setId(getString(rs, COLUMN_ID));
+            details.setSubmitDate(getTimestamp(rs, COLUMN_SUBMIT_DATE));
+            details.setStartLanguage(getString(rs, COLUMN_START_LANGUAGE));
+            details.setToken(getString(rs, COLUMN_TOKEN));
+            details.setStartDate(getTimestamp(rs, COLUMN_START_DATE));
+            final Map<String, String> answers = new HashMap<>();
+            for (int i = 0; i < answerColumns.length; i++) {
+                answers.put(answerTitles[i], rs.getString(answerColumns[i]));
+            }
+            details.setAnswers(answers);
+            consumer.accept(details);
+        }
+
+        /**
+         * Indexes the metadata and answer columns.
+         * @param metaData The result set metadata.
+         * @throws SQLException If the metadata cannot be read.
+         */
+        protected void indexColumns(final ResultSetMetaData metaData) throws SQLException {
+            final Map<String, Integer> indexes = new HashMap<>();
+            final List<Integer> columns = new ArrayList<>();
+            final List<String> titles = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                final String label = metaData.getColumnLabel(i);
+                final String title = resolver.resolve(label);
+                if (title == null) {
+                    indexes.put(label.toLowerCase(Locale.ROOT), i);
+                } else {
+                    columns.add(i);
+                    titles.add(title);
+                }
+            }
+            answerColumns = new int[columns.size()];
+            for (int i = 0; i < answerColumns.length; i++) {
+                answerColumns[i] = columns.get(i);
+            }
+            answerTitles = titles.toArray(new String[titles.size()]);
+            metadata = Collections.unmodifiableMap(indexes);
+        }
+
+        /**
+         * Get the value of the given metadata column as a string.
+         * @param rs The result set.
+         * @param column The column name.
+         * @return The value, or null if the table does not contain the column.
+         * @throws SQLException If the value cannot be read.
+         */
+        protected String getString(final ResultSet rs, final String column) throws SQLException {
+            final Integer index = metadata.get(column);
+            return index == null ? null : rs.getString(index);
+        }
+
+        /**
+         * Get the value of the given metadata column as a formatted timestamp.
+         * @param rs The result set.
+         * @param column The column name.
+         * @return The formatted value, or null if the table does not contain the column.
+         * @throws SQLException If the value cannot be read.
+         */
+        protected String getTimestamp(final ResultSet rs, final String column) throws SQLException {
+            final Integer index = metadata.get(column);
+            return index == null ? null : formatTimestamp(rs.getTimestamp(index));
+        }
+    }
+}
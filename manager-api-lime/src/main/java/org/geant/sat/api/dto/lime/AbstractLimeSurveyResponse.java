@@ -41,6 +41,9 @@ public abstract class AbstractLimeSurveyResponse {
     @SerializedName("error")
     private String errorMessage;
 
+    /** The status message, if the result was a status object instead of the expected result. */
+    private transient String statusMessage;
+
     /**
      * Get the identifier for the response.
      * @return The identifier for the response.
@@ -72,4 +75,20 @@ public abstract class AbstractLimeSurveyResponse {
     public void setErrorMessage(String newErrorMessage) {
         this.errorMessage = newErrorMessage;
     }
+
+    /**
+     * Get the status message, if the result was a status object instead of the expected result.
+     * @return The status message, or null if the result was not a status object.
+     */
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Set the status message, if the result was a status object instead of the expected result.
+     * @param newStatusMessage What to set.
+     */
+    public void setStatusMessage(String newStatusMessage) {
+        this.statusMessage = newStatusMessage;
+    }
 }
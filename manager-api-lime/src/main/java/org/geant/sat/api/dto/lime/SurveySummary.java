@@ -0,0 +1,96 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto.lime;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Wrapper class for the response counts in the survey summary.
+ */
+public class SurveySummary {
+
+    /** The amount of completed responses. */
+    @SerializedName("completed_responses")
+    private String completedResponses;
+
+    /** The amount of incomplete responses. */
+    @SerializedName("incomplete_responses")
+    private String incompleteResponses;
+
+    /** The amount of all responses. */
+    @SerializedName("full_responses")
+    private String fullResponses;
+
+    /**
+     * Get the amount of completed responses.
+     * @return The amount of completed responses.
+     */
+    public String getCompletedResponses() {
+        return completedResponses;
+    }
+
+    /**
+     * Set the amount of completed responses.
+     * @param newCompletedResponses What to set.
+     */
+    public void setCompletedResponses(String newCompletedResponses) {
+        completedResponses = newCompletedResponses;
+    }
+
+    /**
+     * Get the amount of incomplete responses.
+     * @return The amount of incomplete responses.
+     */
+    public String getIncompleteResponses() {
+        return incompleteResponses;
+    }
+
+    /**
+     * Set the amount of incomplete responses.
+     * @param newIncompleteResponses What to set.
+     */
+    public void setIncompleteResponses(String newIncompleteResponses) {
+        incompleteResponses = newIncompleteResponses;
+    }
+
+    /**
+     * Get the amount of all responses.
+     * @return The amount of all responses.
+     */
+    public String getFullResponses() {
+        return fullResponses;
+    }
+
+    /**
+     * Set the amount of all responses.
+     * @param newFullResponses What to set.
+     */
+    public void setFullResponses(String newFullResponses) {
+        fullResponses = newFullResponses;
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.geant.sat.api.CallPriority;
+
+/**
+ * Limits the amount of concurrent calls to Limesurvey with a limit adapted to the observed latency (AIMD). The
+ * baseline latency is kept per Limesurvey method, as the methods differ in their latencies by orders of magnitude:
+ * it is the lowest latency of the method seen during the current and the previous sample window of the method. A
+ * call slower than the baseline of its method multiplied by the tolerance, or a failed call, decreases the limit
+ * multiplicatively. A fast call completed while the limit was fully used increases the limit by 1/limit, i.e. by
+ * about one per limit-worth of calls. The limit stays between the configured minimum and maximum.
+ * 
+ * <p>The calls over the limit wait in their priority lane until their deadline: a free slot goes to the oldest
+ * waiting {@link CallPriority#INTERACTIVE} call before any {@link CallPriority#BACKGROUND} call.</p>
+ * 
+ * <p>The instances are thread-safe.</p>
+ */
+public class AdaptiveLimiter {
+
+    /** The default minimum limit. */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /** The default initial limit. */
+    public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+    /** The default maximum limit. */
+    public static final int DEFAULT_MAX_LIMIT = 16;
+
+    /** The default multiplier for the baseline latency, after which a call is considered slow. */
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+    /** The default ratio for the multiplicative decrease. */
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /** The default amount of samples in a latency window. */
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    /** The lock guarding the state. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The conditions for the waiting calls, indexed by the priority ordinal. */
+    private final Condition[] lanes = new Condition[CallPriority.values().length];
+
+    /** The amount of waiting calls, indexed by the priority ordinal. */
+    private final int[] waiting = new int[CallPriority.values().length];
+
+    /** The minimum limit. */
+    private int minLimit = DEFAULT_MIN_LIMIT;
+
+    /** The maximum limit. */
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+
+    /** The multiplier for the baseline latency, after which a call is considered slow. */
+    private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+
+    /** The ratio for the multiplicative decrease. */
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+
+    /** The amount of samples in a latency window. */
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    /** The current limit. */
+    private double limit = DEFAULT_INITIAL_LIMIT;
+
+    /** The amount of calls in progress. */
+    private int inFlight;
+
+    /** The latency windows, keyed by method. */
+    private final Map<String, LatencyWindow> windows = new HashMap<>();
+
+    /** The amount of calls that gave up waiting at their deadline. */
+    private long timeoutCount;
+
+    /**
+     * Constructor.
+     */
+    public AdaptiveLimiter() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = lock.newCondition();
+        }
+    }
+
+    /**
+     * Set the minimum limit.
+     * @param min What to set.
+     */
+    public void setMinLimit(final int min) {
+        lock.lock();
+        try {
+            minLimit = Math.max(1, min);
+            maxLimit = Math.max(maxLimit, minLimit);
+            limit = Math.max(limit, minLimit);
+            signalWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set the maximum limit.
+     * @param max What to set.
+     */
+    public void setMaxLimit(final int max) {
+        lock.lock();
+        try {
+            maxLimit = Math.max(1, max);
+            minLimit = Math.min(minLimit, maxLimit);
+            limit = Math.min(limit, maxLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set the initial limit, i.e. the current limit.
+     * @param initial What to set, bounded by the minimum and the maximum limit.
+     */
+    public void setInitialLimit(final int initial) {
+        lock.lock();
+        try {
+            limit = Math.max(minLimit, Math.min(maxLimit, initial));
+            signalWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set the multiplier for the baseline latency, after which a call is considered slow.
+     * @param tolerance What to set.
+     */
+    public void setLatencyTolerance(final double tolerance) {
+        latencyTolerance = tolerance;
+    }
+
+    /**
+     * Set the ratio for the multiplicative decrease.
+     * @param ratio What to set, between 0 and 1.
+     */
+    public void setBackoffRatio(final double ratio) {
+        backoffRatio = ratio;
+    }
+
+    /**
+     * Set the amount of samples in a latency window.
+     * @param size What to set.
+     */
+    public void setWindowSize(final int size) {
+        windowSize = Math.max(1, size);
+    }
+
+    /**
+     * Acquires a slot for a call with the given priority, waiting at most the given time.
+     * @param priority The priority of the call.
+     * @param maxWait The maximum time to wait, in milliseconds.
+     * @return True if the slot was acquired, false if the deadline passed.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public boolean acquire(final CallPriority priority, final long maxWait) throws InterruptedException {
+        final int lane = priority.ordinal();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        lock.lock();
+        try {
+            if (canAcquire(lane)) {
+                inFlight++;
+                return true;
+            }
+            waiting[lane]++;
+            try {
+                while (!canAcquire(lane)) {
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        return false;
+                    }
+                    remaining = lanes[lane].awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting[lane]--;
+                // pass a possibly consumed signal on to the next waiting call
+                signalWaiting();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a completed call and adapts the limit to its latency. The calls released without a
+     * method share one baseline latency.
+     * @param latencyNanos The latency of the call in nanoseconds.
+     * @param failed Whether the call failed.
+     */
+    public void release(final long latencyNanos, final boolean failed) {
+        release("", latencyNanos, failed);
+    }
+
+    /**
+     * Releases the slot of a completed call and adapts the limit to its latency compared to the baseline of the
+     * method.
+     * @param method The Limesurvey method of the call.
+     * @param latencyNanos The latency of the call in nanoseconds.
+     * @param failed Whether the call failed.
+     */
+    public void release(final String method, final long latencyNanos, final boolean failed) {
+        lock.lock();
+        try {
+            final boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            if (failed) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else {
+                final long baseline = addSample(method, latencyNanos);
+                if (latencyNanos > baseline * latencyTolerance) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (saturated) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            signalWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the current limit.
+     * @return The current limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the amount of calls in progress.
+     * @return The amount of calls in progress.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the amount of waiting calls with the given priority.
+     * @param priority The priority.
+     * @return The amount of waiting calls.
+     */
+    public int getWaiting(final CallPriority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the amount of calls that gave up waiting at their deadline.
+     * @return The amount of calls that gave up waiting at their deadline.
+     */
+    public long getTimeoutCount() {
+        lock.lock();
+        try {
+            return timeoutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the baseline latency of the calls released without a method.
+     * @return The baseline latency in nanoseconds, 0 if there are no samples.
+     */
+    public long getBaselineNanos() {
+        return getBaselineNanos("");
+    }
+
+    /**
+     * Get the baseline latency of the given method.
+     * @param method The Limesurvey method.
+     * @return The baseline latency in nanoseconds, 0 if there are no samples.
+     */
+    public long getBaselineNanos(final String method) {
+        lock.lock();
+        try {
+            final LatencyWindow window = windows.get(method);
+            return window == null ? 0 : window.getBaseline();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a call in the given lane can take a slot. Must be called with the lock held.
+     * @param lane The priority ordinal of the call.
+     * @return True if there is a free slot and no waiting call with a higher priority.
+     */
+    protected boolean canAcquire(final int lane) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        for (int i = 0; i < lane; i++) {
+            if (waiting[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Signals the highest-priority waiting call if there is a free slot. Must be called with the lock held.
+     */
+    protected void signalWaiting() {
+        if (inFlight >= (int) limit) {
+            return;
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            if (waiting[i] > 0) {
+                lanes[i].signal();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a latency sample of the given method and returns the baseline latency of the method. Must be called with
+     * the lock held.
+     * @param method The Limesurvey method.
+     * @param latencyNanos The latency in nanoseconds.
+     * @return The baseline latency in nanoseconds.
+     */
+    protected long addSample(final String method, final long latencyNanos) {
+        return windows.computeIfAbsent(method, key -> new LatencyWindow()).add(latencyNanos, windowSize);
+    }
+
+    /**
+     * The latency samples of one method in the current and the previous window.
+     */
+    private static class LatencyWindow {
+
+        /** The lowest latency in the previous window in nanoseconds, 0 if there is no previous window. */
+        private long previousWindowMin;
+
+        /** The lowest latency in the current window in nanoseconds, 0 if there are no samples. */
+        private long windowMin;
+
+        /** The amount of samples in the current window. */
+        private int windowSamples;
+
+        /**
+         * Adds a latency sample and returns the baseline latency.
+         * @param latencyNanos The latency in nanoseconds.
+         * @param windowSize The amount of samples in a window.
+         * @return The baseline latency in nanoseconds.
+         */
+        long add(final long latencyNanos, final int windowSize) {
+            final long sample = Math.max(1, latencyNanos);
+            windowMin = windowMin == 0 ? sample : Math.min(windowMin, sample);
+            if (++windowSamples >= windowSize) {
+                previousWindowMin = windowMin;
+                windowMin = 0;
+                windowSamples = 0;
+            }
+            return getBaseline();
+        }
+
+        /**
+         * Get the baseline latency: the lowest latency in the current and the previous window.
+         * @return The baseline latency in nanoseconds, 0 if there are no samples.
+         */
+        long getBaseline() {
+            if (windowMin == 0) {
+                return previousWindowMin;
+            }
+            return previousWindowMin == 0 ? windowMin : Math.min(windowMin, previousWindowMin);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.geant.sat.api.answers.ColumnarAnswerStore;
+import org.geant.sat.api.dto.AnswerDetails;
+
+/**
+ * Reads the answers from the CSV exported by Limesurvey's export_responses method, one answer at a time. The
+ * header record is read during the construction. The first {@link #METADATA_COLUMNS} columns contain the response
+ * metadata and the rest the answers for the questions.
+ */
+public class AnswerCsvReader implements Iterator<AnswerDetails>, Closeable {
+
+    /** The amount of metadata columns before the question columns. */
+    public static final int METADATA_COLUMNS = 9;
+
+    /** The column index for the response identifier. */
+    public static final int COLUMN_ID = 0;
+
+    /** The column index for the submission date. */
+    public static final int COLUMN_SUBMIT_DATE = 1;
+
+    /** The column index for the language. */
+    public static final int COLUMN_START_LANGUAGE = 3;
+
+    /** The column index for the token. */
+    public static final int COLUMN_TOKEN = 4;
+
+    /** The column index for the start date. */
+    public static final int COLUMN_START_DATE = 5;
+
+    /** The underlying CSV reader. */
+    private final CsvReader csvReader;
+
+    /** The question titles parsed from the header. */
+    private final List<String> questionTitles;
+
+    /** The next record, read ahead for {@link #hasNext()}. */
+    private List<String> nextRecord;
+
+    /** The store for which {@link #storeColumns} have been resolved. */
+    private ColumnarAnswerStore indexedStore;
+
+    /** The column numbers in {@link #indexedStore} for the question titles. */
+    private int[] storeColumns;
+
+    /**
+     * Constructor.
+     * @param reader The reader for the decoded CSV contents.
+     * @throws IOException If the header cannot be read.
+     */
+    public AnswerCsvReader(final Reader reader) throws IOException {
+        csvReader = new CsvReader(reader);
+        final List<String> header = csvReader.readRecord();
+        if (header == null) {
+            questionTitles = Collections.emptyList();
+        } else if (header.size() < METADATA_COLUMNS) {
+            throw new IOException("Unexpected header with " + header.size() + " columns");
+        } else {
+            questionTitles = Collections.unmodifiableList(
+                    new ArrayList<>(header.subList(METADATA_COLUMNS, header.size())));
+            nextRecord = readNonEmptyRecord();
+        }
+    }
+
+    /**
+     * Get the question titles parsed from the header.
+     * @return The question titles parsed from the header.
+     */
+    public List<String> getQuestionTitles() {
+        return questionTitles;
+    }
+
+    /**
+     * Reads the next raw record.
+     * @return The next raw record, or null if there are no more records.
+     * @throws IOException If the contents cannot be read.
+     */
+    public List<String> nextRecord() throws IOException {
+        final List<String> record = nextRecord;
+        if (record != null) {
+            nextRecord = readNonEmptyRecord();
+        }
+        return record;
+    }
+
+    /**
+     * Converts a raw record into answer details.
+     * @param record The raw record.
+     * @return The answer details.
+     */
+    public AnswerDetails toAnswerDetails(final List<String> record) {
+        final AnswerDetails details = new AnswerDetails();
+        details.setId(getColumn(record, COLUMN_ID));
+        details.setSubmitDate(getColumn(record, COLUMN_SUBMIT_DATE));
+        details.setStartLanguage(getColumn(record, COLUMN_START_LANGUAGE));
+        details.setToken(getColumn(record, COLUMN_TOKEN));
+        details.setStartDate(getColumn(record, COLUMN_START_DATE));
+        final Map<String, String> answers = new HashMap<>();
+        for (int i = 0; i < questionTitles.size(); i++) {
+            answers.put(questionTitles.get(i), getColumn(record, i + METADATA_COLUMNS));
+        }
+        details.setAnswers(answers);
+        return details;
+    }
+
+    /**
+     * Adds a raw record into the given columnar store, without building intermediate answer details.
+     * @param store The columnar store.
+     * @param record The raw record.
+     * @return The row index in the store.
+     */
+    public int addRecord(final ColumnarAnswerStore store, final List<String> record) {
+        if (store != indexedStore) {
+            storeColumns = new int[questionTitles.size()];
+            for (int i = 0; i < storeColumns.length; i++) {
+                storeColumns[i] = store.getQuestionColumn(questionTitles.get(i));
+            }
+            indexedStore = store;
+        }
+        final int row = store.addRow(getColumn(record, COLUMN_ID), getColumn(record, COLUMN_SUBMIT_DATE),
+                getColumn(record, COLUMN_START_LANGUAGE), getColumn(record, COLUMN_TOKEN),
+                getColumn(record, COLUMN_START_DATE));
+        for (int i = 0; i < storeColumns.length; i++) {
+            store.setAnswer(row, storeColumns[i], getColumn(record, i + METADATA_COLUMNS));
+        }
+        return row;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AnswerDetails next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return toAnswerDetails(nextRecord());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        csvReader.close();
+    }
+
+    /**
+     * Reads the next record, skipping the empty lines.
+     * @return The next non-empty record, or null if there are no more records.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected List<String> readNonEmptyRecord() throws IOException {
+        List<String> record = csvReader.readRecord();
+        while (record != null && record.size() == 1 && record.get(0).isEmpty()) {
+            record = csvReader.readRecord();
+        }
+        return record;
+    }
+
+    /**
+     * Get the value of the given column from the record.
+     * @param record The record.
+     * @param index The column index.
+     * @return The value, or null if the record does not contain the column.
+     */
+    protected String getColumn(final List<String> record, final int index) {
+        return index < record.size() ? record.get(index) : null;
+    }
+}
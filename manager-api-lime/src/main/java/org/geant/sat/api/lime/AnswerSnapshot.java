@@ -0,0 +1,139 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.geant.sat.api.dto.AnswerDetails;
+
+/**
+ * A locally held set of answers for one survey, used for fetching only the new and the still incomplete responses
+ * from Limesurvey. The answers are ordered by their response identifiers. The responses without a submission date
+ * are tracked as incomplete, as they may still change: the next delta is requested starting from the lowest
+ * incomplete response identifier, or after the highest known one if there are no incomplete responses.
+ * 
+ * <p>The instances are not thread-safe, the callers are expected to synchronize on the snapshot.</p>
+ */
+public class AnswerSnapshot {
+
+    /** The answers keyed by the response identifiers. */
+    private final TreeMap<Long, AnswerDetails> answers = new TreeMap<>();
+
+    /** The identifiers for the responses without a submission date. */
+    private final TreeSet<Long> incomplete = new TreeSet<>();
+
+    /** The time of the latest full synchronization, in milliseconds. Zero if it has never been done. */
+    private long lastFullSync;
+
+    /**
+     * Adds the given answer, or replaces an existing answer with the same response identifier.
+     * @param answer The answer.
+     * @throws NumberFormatException If the response identifier is not numeric.
+     */
+    public void upsert(final AnswerDetails answer) {
+        final long id = Long.parseLong(answer.getId());
+        answers.put(id, answer);
+        if (answer.getSubmitDate() == null || answer.getSubmitDate().isEmpty()) {
+            incomplete.add(id);
+        } else {
+            incomplete.remove(id);
+        }
+    }
+
+    /**
+     * Get the response identifier from which the next delta should be requested.
+     * @return The response identifier from which the next delta should be requested.
+     */
+    public long getNextFromId() {
+        if (!incomplete.isEmpty()) {
+            return incomplete.first();
+        }
+        return answers.isEmpty() ? 1 : answers.lastKey() + 1;
+    }
+
+    /**
+     * Checks whether a full synchronization is needed, i.e. it has never been done or the latest one is older
+     * than the given interval.
+     * @param now The current time in milliseconds.
+     * @param interval The interval between full synchronizations in milliseconds, zero or negative for never.
+     * @return True if a full synchronization is needed, false otherwise.
+     */
+    public boolean isFullSyncNeeded(final long now, final long interval) {
+        return lastFullSync == 0 || (interval > 0 && now - lastFullSync >= interval);
+    }
+
+    /**
+     * Clears the answers, to be called before a full synchronization.
+     */
+    public void clear() {
+        answers.clear();
+        incomplete.clear();
+    }
+
+    /**
+     * Marks the snapshot as fully synchronized at the given time.
+     * @param now The current time in milliseconds.
+     */
+    public void markFullSync(final long now) {
+        lastFullSync = now;
+    }
+
+    /**
+     * Marks the snapshot to be fully synchronized on the next use.
+     */
+    public void invalidate() {
+        lastFullSync = 0;
+    }
+
+    /**
+     * Get the amount of answers.
+     * @return The amount of answers.
+     */
+    public int size() {
+        return answers.size();
+    }
+
+    /**
+     * Get the amount of incomplete answers.
+     * @return The amount of incomplete answers.
+     */
+    public int getIncompleteCount() {
+        return incomplete.size();
+    }
+
+    /**
+     * Get a copy of the answers in the order of the response identifiers.
+     * @return A copy of the answers.
+     */
+    public List<AnswerDetails> getAnswers() {
+        return new ArrayList<>(answers.values());
+    }
+}
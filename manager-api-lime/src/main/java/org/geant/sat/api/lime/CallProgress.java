@@ -0,0 +1,73 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+/**
+ * The progress of one call to Limesurvey API. The call marks the moment its response started, i.e. the response
+ * headers have been received and the contents are about to be handled. The time until then is the latency of the
+ * backend, independent of the size of the contents, and after it the call can no longer be retried safely.
+ */
+public class CallProgress {
+
+    /** The {@link System#nanoTime()} value when the call was started. */
+    private final long startedNanos;
+
+    /** The {@link System#nanoTime()} value when the response started, 0 if it has not started. */
+    private volatile long responseStartedNanos;
+
+    /**
+     * Constructor, marking the call started.
+     */
+    public CallProgress() {
+        startedNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the response started.
+     */
+    public void markResponseStarted() {
+        responseStartedNanos = System.nanoTime();
+    }
+
+    /**
+     * Checks whether the response has started.
+     * @return True if the response has started, false otherwise.
+     */
+    public boolean isResponseStarted() {
+        return responseStartedNanos != 0;
+    }
+
+    /**
+     * Get the latency of the call: the time until the response started, or until now if it has not started.
+     * @return The latency in nanoseconds.
+     */
+    public long getLatencyNanos() {
+        final long end = isResponseStarted() ? responseStartedNanos : System.nanoTime();
+        return end - startedNanos;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+/**
+ * A circuit breaker for the calls of one Limesurvey method. The circuit opens after the configured amount of
+ * consecutive failures, after which the calls are rejected without contacting Limesurvey. Once the open duration has
+ * passed, the circuit is half-open: one trial call is let through, and its result either closes the circuit or opens
+ * it again.
+ * 
+ * <p>The instances are thread-safe.</p>
+ */
+public class CircuitBreaker {
+
+    /** The states of the circuit. */
+    public enum State {
+        /** The calls are let through. */
+        CLOSED,
+        /** The calls are rejected. */
+        OPEN,
+        /** One trial call is let through. */
+        HALF_OPEN
+    }
+
+    /** The amount of consecutive failures after which the circuit opens. */
+    private final int failureThreshold;
+
+    /** The time the circuit stays open before a trial call, in milliseconds. */
+    private final long openDuration;
+
+    /** The current state. */
+    private State state = State.CLOSED;
+
+    /** The amount of consecutive failures. */
+    private int consecutiveFailures;
+
+    /** The time the circuit was opened, in milliseconds. */
+    private long openedAt;
+
+    /** Whether the trial call of the half-open circuit is in progress. */
+    private boolean trialInProgress;
+
+    /** The amount of successful calls. */
+    private long successCount;
+
+    /** The amount of failed calls. */
+    private long failureCount;
+
+    /** The amount of rejected calls. */
+    private long rejectionCount;
+
+    /** The amount of times the circuit has been opened. */
+    private long openCount;
+
+    /**
+     * Constructor.
+     * @param threshold The amount of consecutive failures after which the circuit opens.
+     * @param duration The time the circuit stays open before a trial call, in milliseconds.
+     */
+    public CircuitBreaker(final int threshold, final long duration) {
+        failureThreshold = Math.max(1, threshold);
+        openDuration = duration;
+    }
+
+    /**
+     * Checks whether a call can be made at the given time. A permitted call must be followed by
+     * {@link #onSuccess()}, {@link #onFailure(long)} or {@link #onCancel()}.
+     * @param now The current time in milliseconds.
+     * @return True if the call can be made, false if it is rejected.
+     */
+    public synchronized boolean tryAcquire(final long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openDuration) {
+                rejectionCount++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress) {
+                rejectionCount++;
+                return false;
+            }
+            trialInProgress = true;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful call, closing the circuit.
+     */
+    public synchronized void onSuccess() {
+        successCount++;
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a failed call, opening the circuit if the threshold is reached or the trial call failed.
+     * @param now The current time in milliseconds.
+     */
+    public synchronized void onFailure(final long now) {
+        failureCount++;
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = now;
+            openCount++;
+        }
+    }
+
+    /**
+     * Records a permitted call that was not made after all, releasing the trial slot of the half-open circuit.
+     */
+    public synchronized void onCancel() {
+        trialInProgress = false;
+    }
+
+    /**
+     * Get the current state.
+     * @return The current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Get the amount of successful calls.
+     * @return The amount of successful calls.
+     */
+    public synchronized long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Get the amount of failed calls.
+     * @return The amount of failed calls.
+     */
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Get the amount of rejected calls.
+     * @return The amount of rejected calls.
+     */
+    public synchronized long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * Get the amount of times the circuit has been opened.
+     * @return The amount of times the circuit has been opened.
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized String toString() {
+        return state + " (successes=" + successCount + ", failures=" + failureCount + ", rejections="
+                + rejectionCount + ", opened=" + openCount + ")";
+    }
+}
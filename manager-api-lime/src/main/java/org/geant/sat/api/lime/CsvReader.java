@@ -0,0 +1,165 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal streaming reader for RFC-4180 formatted CSV. Quoted fields may contain separators, escaped quotes ("")
+ * and line breaks. Records may be terminated either by LF or CRLF. Only one record is kept in memory at a time.
+ */
+public class CsvReader implements Closeable {
+
+    /** The default field separator. */
+    public static final char DEFAULT_SEPARATOR = ',';
+
+    /** The quote character. */
+    public static final char QUOTE = '"';
+
+    /** The size of the read buffer. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The underlying reader. */
+    private final Reader in;
+
+    /** The field separator. */
+    private final char separator;
+
+    /** The read buffer. */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** The position of the next character in the buffer. */
+    private int position;
+
+    /** The amount of characters in the buffer. */
+    private int limit;
+
+    /**
+     * Constructor.
+     * @param reader The reader for the CSV contents.
+     */
+    public CsvReader(final Reader reader) {
+        this(reader, DEFAULT_SEPARATOR);
+    }
+
+    /**
+     * Constructor.
+     * @param reader The reader for the CSV contents.
+     * @param fieldSeparator The field separator.
+     */
+    public CsvReader(final Reader reader, final char fieldSeparator) {
+        in = reader;
+        separator = fieldSeparator;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The fields of the next record, or null if there are no more records.
+     * @throws IOException If the contents cannot be read or they are not valid CSV.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        final List<String> record = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        while (true) {
+            if (c == QUOTE && field.length() == 0) {
+                c = readQuoted(field);
+            }
+            if (c == separator) {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                record.add(field.toString());
+                return record;
+            } else if (c == '\r') {
+                final int next = read();
+                if (next != '\n' && next != -1) {
+                    // the character was read from the current buffer, so it can be pushed back
+                    position--;
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Reads a quoted field value, whose opening quote has already been read.
+     * @param field The builder where to append the value.
+     * @return The first character after the closing quote.
+     * @throws IOException If the contents cannot be read or the value is not terminated.
+     */
+    protected int readQuoted(final StringBuilder field) throws IOException {
+        while (true) {
+            final int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field");
+            }
+            if (c == QUOTE) {
+                final int next = read();
+                if (next != QUOTE) {
+                    return next;
+                }
+            }
+            field.append((char) c);
+        }
+    }
+
+    /**
+     * Reads the next character from the buffer, refilling it when needed.
+     * @return The next character, or -1 if the end of the stream was reached.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected int read() throws IOException {
+        if (position == limit) {
+            final int count = in.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                return -1;
+            }
+            position = 0;
+            limit = count;
+        }
+        return buffer[position++];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+/**
+ * A single Limesurvey JSON-RPC call, used for sending several calls in one batch. The session key is added in front
+ * of the parameters when the call is sent.
+ */
+public class JsonRpcCall {
+
+    /** The Limesurvey method. */
+    private final String method;
+
+    /** The Limesurvey parameters after the session key, may be null. */
+    private final String params;
+
+    /**
+     * Constructor.
+     * @param rpcMethod The Limesurvey method.
+     * @param rpcParams The Limesurvey parameters after the session key, may be null.
+     */
+    public JsonRpcCall(final String rpcMethod, final String rpcParams) {
+        method = rpcMethod;
+        params = rpcParams;
+    }
+
+    /**
+     * Get the Limesurvey method.
+     * @return The Limesurvey method.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Get the Limesurvey parameters after the session key.
+     * @return The Limesurvey parameters after the session key, may be null.
+     */
+    public String getParams() {
+        return params;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return method + "(" + params + ")";
+    }
+}
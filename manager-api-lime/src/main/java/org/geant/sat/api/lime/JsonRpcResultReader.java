@@ -0,0 +1,269 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Reads the string value of the result member of a JSON-RPC response as a stream of characters, without buffering
+ * the whole value in memory. This is used for the large base64-encoded results, such as the ones returned by
+ * export_responses. If the result is not a string (e.g. a status object), it is parsed and made available via
+ * {@link #getNonStringResult()}.
+ */
+public class JsonRpcResultReader extends Reader {
+
+    /** The name of the result member. */
+    public static final String RESULT_MEMBER = "result";
+
+    /** The name of the status member inside a non-string result. */
+    public static final String STATUS_MEMBER = "status";
+
+    /** The underlying reader. */
+    private final PushbackReader in;
+
+    /** Whether the reader is positioned inside the result string. */
+    private boolean inString;
+
+    /** The parsed result if it was not a string. */
+    private JsonElement nonStringResult;
+
+    /**
+     * Constructor.
+     * @param contents The JSON-RPC response contents.
+     */
+    public JsonRpcResultReader(final Reader contents) {
+        in = new PushbackReader(contents, 1);
+    }
+
+    /**
+     * Locates the result member from the response and positions this reader to the beginning of its value.
+     * @return True if the result is a string that can be read from this reader, false otherwise.
+     * @throws IOException If the contents cannot be read or it is not a JSON object.
+     */
+    public boolean locateStringResult() throws IOException {
+        if (nextNonWhitespace() != '{') {
+            throw new IOException("The response is not a JSON object");
+        }
+        while (true) {
+            int c = nextNonWhitespace();
+            if (c == ',') {
+                c = nextNonWhitespace();
+            }
+            if (c == '}' || c == -1) {
+                nonStringResult = JsonNull.INSTANCE;
+                return false;
+            }
+            if (c != '"') {
+                throw new IOException("Expected a member name, found " + (char) c);
+            }
+            final String name = readQuoted();
+            if (nextNonWhitespace() != ':') {
+                throw new IOException("Expected a name separator after " + name);
+            }
+            if (RESULT_MEMBER.equals(name)) {
+                c = nextNonWhitespace();
+                if (c == '"') {
+                    inString = true;
+                    return true;
+                }
+                in.unread(c);
+                final JsonReader jsonReader = new JsonReader(in);
+                jsonReader.setLenient(true);
+                try {
+                    nonStringResult = new JsonParser().parse(jsonReader);
+                } catch (JsonParseException e) {
+                    throw new IOException("Could not parse the result", e);
+                }
+                return false;
+            }
+            skipValue();
+        }
+    }
+
+    /**
+     * Get the parsed result if it was not a string.
+     * @return The parsed result if it was not a string, null otherwise.
+     */
+    public JsonElement getNonStringResult() {
+        return nonStringResult;
+    }
+
+    /**
+     * Get the status from the parsed result if it was not a string.
+     * @return The status message, or null if it was not found.
+     */
+    public String getResultStatus() {
+        if (nonStringResult != null && nonStringResult.isJsonObject()) {
+            final JsonElement status = nonStringResult.getAsJsonObject().get(STATUS_MEMBER);
+            if (status != null && status.isJsonPrimitive()) {
+                return status.getAsString();
+            }
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (!inString) {
+            return -1;
+        }
+        int count = 0;
+        while (count < len) {
+            final int c = in.read();
+            if (c == -1) {
+                throw new IOException("Unterminated result string");
+            }
+            if (c == '"') {
+                inString = false;
+                break;
+            }
+            cbuf[off + count++] = c == '\\' ? readEscaped() : (char) c;
+        }
+        return count == 0 && !inString ? -1 : count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next character that is not a whitespace.
+     * @return The next character that is not a whitespace, or -1 if the end of stream was reached.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected int nextNonWhitespace() throws IOException {
+        int c = in.read();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            c = in.read();
+        }
+        return c;
+    }
+
+    /**
+     * Reads a quoted string, whose opening quote has already been read.
+     * @return The unescaped string.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected String readQuoted() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        int c = in.read();
+        while (c != '"') {
+            if (c == -1) {
+                throw new IOException("Unterminated string");
+            }
+            builder.append(c == '\\' ? readEscaped() : (char) c);
+            c = in.read();
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads an escaped character, whose backslash has already been read.
+     * @return The unescaped character.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected char readEscaped() throws IOException {
+        final int c = in.read();
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                final char[] hex = new char[4];
+                for (int i = 0; i < hex.length; i++) {
+                    final int h = in.read();
+                    if (h == -1) {
+                        throw new IOException("Unterminated unicode escape");
+                    }
+                    hex[i] = (char) h;
+                }
+                try {
+                    return (char) Integer.parseInt(new String(hex), 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid unicode escape", e);
+                }
+            case -1:
+                throw new IOException("Unterminated escape sequence");
+            default:
+                // covers \" \\ and \/
+                return (char) c;
+        }
+    }
+
+    /**
+     * Skips the next JSON value.
+     * @throws IOException If the contents cannot be read.
+     */
+    protected void skipValue() throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '"') {
+            readQuoted();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = in.read();
+                if (c == -1) {
+                    throw new IOException("Unterminated value");
+                } else if (c == '"') {
+                    readQuoted();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+            return;
+        }
+        while (c != ',' && c != '}' && c != -1) {
+            c = in.read();
+        }
+        if (c != -1) {
+            in.unread(c);
+        }
+    }
+}
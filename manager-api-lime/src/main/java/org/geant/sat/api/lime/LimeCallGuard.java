@@ -0,0 +1,392 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.geant.sat.api.CallPriority;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Guards the calls to Limesurvey API, so that a slow or failing backend cannot tie up all the request threads. The
+ * guard combines three mechanisms:
+ * <ul>
+ * <li>a circuit breaker per Limesurvey method, rejecting the calls while the method keeps failing,</li>
+ * <li>a bulkhead limiting the amount of concurrent calls with an {@link AdaptiveLimiter}, the callers wait for a
+ * slot in the lane of their {@link CallPriority} at most the configured time,</li>
+ * <li>a retry with exponential backoff and full jitter for the idempotent read methods.</li>
+ * </ul>
+ * The rejected calls fail fast with a {@link CallRejectedException}.
+ */
+public class LimeCallGuard {
+
+    /** The default maximum amount of concurrent calls. */
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = AdaptiveLimiter.DEFAULT_MAX_LIMIT;
+
+    /** The default maximum time for an interactive call to wait for a slot, in milliseconds. */
+    public static final long DEFAULT_MAX_WAIT = 2000;
+
+    /** The default maximum time for a background call to wait for a slot, in milliseconds. */
+    public static final long DEFAULT_BACKGROUND_MAX_WAIT = 30000;
+
+    /** The default maximum amount of retries for the idempotent methods. */
+    public static final int DEFAULT_MAX_RETRIES = 2;
+
+    /** The default base delay for the retries, in milliseconds. */
+    public static final long DEFAULT_RETRY_BASE_DELAY = 200;
+
+    /** The default maximum delay for the retries, in milliseconds. */
+    public static final long DEFAULT_RETRY_MAX_DELAY = 5000;
+
+    /** The default amount of consecutive failures after which the circuit for a method opens. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** The default time a circuit stays open before a trial call, in milliseconds. */
+    public static final long DEFAULT_OPEN_DURATION = 30000;
+
+    /** The default idempotent methods, which are retried after failures. */
+    public static final Set<String> DEFAULT_IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("get_session_key", "list_surveys", "list_users", "list_participants", "list_questions",
+                    "get_summary", "get_survey_properties", "export_responses", "export_responses_by_token")));
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(LimeCallGuard.class);
+
+    /** The circuit breakers, keyed by method. */
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /** The adaptive limiter for the concurrent calls. */
+    private volatile AdaptiveLimiter limiter = new AdaptiveLimiter();
+
+    /** The maximum time for an interactive call to wait for a slot, in milliseconds. */
+    private long maxWait = DEFAULT_MAX_WAIT;
+
+    /** The maximum time for a background call to wait for a slot, in milliseconds. */
+    private long backgroundMaxWait = DEFAULT_BACKGROUND_MAX_WAIT;
+
+    /** The maximum amount of retries for the idempotent methods. */
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+
+    /** The base delay for the retries, in milliseconds. */
+    private long retryBaseDelay = DEFAULT_RETRY_BASE_DELAY;
+
+    /** The maximum delay for the retries, in milliseconds. */
+    private long retryMaxDelay = DEFAULT_RETRY_MAX_DELAY;
+
+    /** The amount of consecutive failures after which the circuit for a method opens. */
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    /** The time a circuit stays open before a trial call, in milliseconds. */
+    private long openDuration = DEFAULT_OPEN_DURATION;
+
+    /** The idempotent methods, which are retried after failures. */
+    private Set<String> idempotentMethods = DEFAULT_IDEMPOTENT_METHODS;
+
+    /** The amount of calls rejected by the bulkhead. */
+    private final AtomicLong bulkheadRejections = new AtomicLong();
+
+    /** The amount of retries. */
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * Set the maximum amount of concurrent calls, i.e. the maximum limit of the adaptive limiter.
+     * @param calls What to set.
+     */
+    public void setMaxConcurrentCalls(final int calls) {
+        limiter.setMaxLimit(calls);
+    }
+
+    /**
+     * Set the adaptive limiter for the concurrent calls.
+     * @param newLimiter What to set.
+     */
+    public void setLimiter(final AdaptiveLimiter newLimiter) {
+        limiter = newLimiter;
+    }
+
+    /**
+     * Get the adaptive limiter for the concurrent calls.
+     * @return The adaptive limiter for the concurrent calls.
+     */
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Set the maximum time for an interactive call to wait for a slot, in milliseconds.
+     * @param wait What to set.
+     */
+    public void setMaxWait(final long wait) {
+        maxWait = wait;
+    }
+
+    /**
+     * Set the maximum time for a background call to wait for a slot, in milliseconds.
+     * @param wait What to set.
+     */
+    public void setBackgroundMaxWait(final long wait) {
+        backgroundMaxWait = wait;
+    }
+
+    /**
+     * Set the maximum amount of retries for the idempotent methods.
+     * @param retries What to set, 0 for no retries.
+     */
+    public void setMaxRetries(final int retries) {
+        maxRetries = Math.max(0, retries);
+    }
+
+    /**
+     * Set the base delay for the retries, in milliseconds. The delay before the nth retry is a random value between
+     * zero and the base delay multiplied by 2^(n-1), capped by the maximum delay.
+     * @param delay What to set.
+     */
+    public void setRetryBaseDelay(final long delay) {
+        retryBaseDelay = delay;
+    }
+
+    /**
+     * Set the maximum delay for the retries, in milliseconds.
+     * @param delay What to set.
+     */
+    public void setRetryMaxDelay(final long delay) {
+        retryMaxDelay = delay;
+    }
+
+    /**
+     * Set the amount of consecutive failures after which the circuit for a method opens. Applies to the circuits
+     * created after the call.
+     * @param threshold What to set.
+     */
+    public void setFailureThreshold(final int threshold) {
+        failureThreshold = threshold;
+        circuitBreakers.clear();
+    }
+
+    /**
+     * Set the time a circuit stays open before a trial call, in milliseconds. Applies to the circuits created after
+     * the call.
+     * @param duration What to set.
+     */
+    public void setOpenDuration(final long duration) {
+        openDuration = duration;
+        circuitBreakers.clear();
+    }
+
+    /**
+     * Set the idempotent methods, which are retried after failures.
+     * @param methods What to set.
+     */
+    public void setIdempotentMethods(final Set<String> methods) {
+        idempotentMethods = new HashSet<>(methods);
+    }
+
+    /**
+     * Get the circuit breakers, keyed by method.
+     * @return The circuit breakers, keyed by method.
+     */
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    /**
+     * Get the amount of calls rejected by the bulkhead.
+     * @return The amount of calls rejected by the bulkhead.
+     */
+    public long getBulkheadRejections() {
+        return bulkheadRejections.get();
+    }
+
+    /**
+     * Get the amount of retries.
+     * @return The amount of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Get the amount of calls currently in progress.
+     * @return The amount of calls currently in progress.
+     */
+    public int getActiveCalls() {
+        return limiter.getInFlight();
+    }
+
+    /**
+     * Executes the given call through the circuit breaker of the method and the limiter, retrying it after failures
+     * if the method is idempotent and the response contents of the failed call were not handled yet. The latency of
+     * each attempt is reported to the limiter, which compares it to the earlier calls of the same method. The circuit
+     * breaker sees the call with its retries as one call: a failure is recorded only when the call finally fails. An
+     * unchecked exception thrown by the call is rethrown without retries, and recorded as a failure only if it was
+     * thrown before the response started, i.e. not by the response handler.
+     * @param method The Limesurvey method.
+     * @param call The call.
+     * @param <T> The type of the result.
+     * @return The result of the call.
+     * @throws SurveySystemConnectorException If the call fails after the retries, or it is rejected.
+     */
+    public <T> T execute(final String method, final GuardedCall<T> call) throws SurveySystemConnectorException {
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(method);
+        if (!circuitBreaker.tryAcquire(currentTimeMillis())) {
+            log.warn("Rejected a call to {}, the circuit is {}", method, circuitBreaker);
+            throw new CallRejectedException("Limesurvey method " + method + " is failing, the call was rejected");
+        }
+        final CallPriority priority = CallPriority.current();
+        boolean succeeded = false;
+        boolean backendFailed = false;
+        try {
+            for (int attempt = 0;; attempt++) {
+                final AdaptiveLimiter slots = limiter;
+                if (!acquire(slots, priority)) {
+                    bulkheadRejections.incrementAndGet();
+                    log.warn("Rejected a {} call to {}, {} calls in progress with limit {}", priority, method,
+                            slots.getInFlight(), slots.getLimit());
+                    throw new CallRejectedException("Too many concurrent calls to Limesurvey, the call was rejected");
+                }
+                final CallProgress progress = new CallProgress();
+                boolean failed = true;
+                try {
+                    final T result = call.call(progress);
+                    failed = false;
+                    succeeded = true;
+                    return result;
+                } catch (SurveySystemConnectorException e) {
+                    backendFailed = true;
+                    if (attempt >= maxRetries || !idempotentMethods.contains(method)
+                            || progress.isResponseStarted()) {
+                        throw e;
+                    }
+                    log.debug("Call to {} failed ({}), retrying", method, e.getMessage());
+                } catch (RuntimeException e) {
+                    // an unchecked exception from the response handler or the consumer is not a backend failure
+                    backendFailed = !progress.isResponseStarted();
+                    failed = backendFailed;
+                    throw e;
+                } finally {
+                    slots.release(method, progress.getLatencyNanos(), failed);
+                }
+                retryCount.incrementAndGet();
+                sleep(getRetryDelay(attempt));
+            }
+        } finally {
+            // any outcome must close the trial of a half-open circuit
+            if (succeeded) {
+                circuitBreaker.onSuccess();
+            } else if (backendFailed) {
+                circuitBreaker.onFailure(currentTimeMillis());
+            } else {
+                circuitBreaker.onCancel();
+            }
+        }
+    }
+
+    /**
+     * Get the circuit breaker for the given method, creating it on the first use.
+     * @param method The Limesurvey method.
+     * @return The circuit breaker.
+     */
+    public CircuitBreaker getCircuitBreaker(final String method) {
+        return circuitBreakers.computeIfAbsent(method, key -> new CircuitBreaker(failureThreshold, openDuration));
+    }
+
+    /**
+     * Get the delay before the retry after the given attempt: a random value between zero and the exponentially
+     * growing cap.
+     * @param attempt The failed attempt, starting from 0.
+     * @return The delay in milliseconds.
+     */
+    protected long getRetryDelay(final int attempt) {
+        final long cap = Math.min(retryMaxDelay, retryBaseDelay << Math.min(attempt, 30));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Acquires a slot from the given limiter, waiting at most the maximum wait time for the priority.
+     * @param slots The limiter.
+     * @param priority The priority of the call.
+     * @return True if the slot was acquired, false otherwise.
+     * @throws SurveySystemConnectorException If the thread was interrupted.
+     */
+    protected boolean acquire(final AdaptiveLimiter slots, final CallPriority priority)
+            throws SurveySystemConnectorException {
+        try {
+            return slots.acquire(priority, priority == CallPriority.BACKGROUND ? backgroundMaxWait : maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SurveySystemConnectorException("Interrupted while waiting for a Limesurvey call", e);
+        }
+    }
+
+    /**
+     * Sleeps the given time before a retry.
+     * @param millis The time in milliseconds.
+     * @throws SurveySystemConnectorException If the thread was interrupted.
+     */
+    protected void sleep(final long millis) throws SurveySystemConnectorException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SurveySystemConnectorException("Interrupted while waiting for a Limesurvey retry", e);
+        }
+    }
+
+    /**
+     * Get the current time in milliseconds, used for the circuit breakers.
+     * @return The current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * A call guarded by {@link LimeCallGuard}.
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface GuardedCall<T> {
+
+        /**
+         * Executes the call.
+         * @param progress The progress of the call, to be marked when the response starts.
+         * @return The result.
+         * @throws SurveySystemConnectorException If the call fails.
+         */
+        T call(CallProgress progress) throws SurveySystemConnectorException;
+    }
+}
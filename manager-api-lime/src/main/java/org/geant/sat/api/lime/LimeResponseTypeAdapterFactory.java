@@ -0,0 +1,254 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+import org.geant.sat.api.dto.lime.AbstractLimeSurveyResponse;
+import org.geant.sat.api.dto.lime.LimeStatusResponse;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Builds type adapters for the {@link AbstractLimeSurveyResponse} classes, which read the JSON-RPC response in one
+ * pass. If the result is a Limesurvey status object (e.g. {"status": "Invalid session key"}) instead of the
+ * expected result, the status is stored to {@link AbstractLimeSurveyResponse#setStatusMessage(String)} and
+ * {@link AbstractLimeSurveyResponse#setErrorMessage(String)}, without the response being parsed a second time.
+ * Array and string results are read directly from the stream, only object results are read into a tree first.
+ */
+public class LimeResponseTypeAdapterFactory implements TypeAdapterFactory {
+
+    /** The name of the result member. */
+    public static final String RESULT_MEMBER = "result";
+
+    /** The name of the status member inside a status object. */
+    public static final String STATUS_MEMBER = "status";
+
+    /**
+     * Builds a new Gson instance with this factory registered.
+     * @return A new Gson instance with this factory registered.
+     */
+    public static Gson buildGson() {
+        return new GsonBuilder().registerTypeAdapterFactory(new LimeResponseTypeAdapterFactory()).create();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        final Class<? super T> rawType = type.getRawType();
+        if (!AbstractLimeSurveyResponse.class.isAssignableFrom(rawType)
+                || LimeStatusResponse.class.isAssignableFrom(rawType)) {
+            return null;
+        }
+        final Field resultField = findResultField(rawType);
+        if (resultField == null) {
+            return null;
+        }
+        resultField.setAccessible(true);
+        return new ResponseAdapter(gson, rawType, gson.getDelegateAdapter(this, type), resultField);
+    }
+
+    /**
+     * Finds the field for the result member from the given class or its superclasses.
+     * @param clazz The class.
+     * @return The field for the result member, or null if it was not found.
+     */
+    protected static Field findResultField(final Class<?> clazz) {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            for (final Field field : current.getDeclaredFields()) {
+                final SerializedName name = field.getAnnotation(SerializedName.class);
+                if (name != null && RESULT_MEMBER.equals(name.value())) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the status from the given object, if it's a status object.
+     * @param object The object.
+     * @return The status, or null if the object is not a status object.
+     */
+    protected static String getStatus(final JsonObject object) {
+        if (object.size() == 1) {
+            final JsonElement status = object.get(STATUS_MEMBER);
+            if (status != null && status.isJsonPrimitive()) {
+                return status.getAsString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The one-pass adapter for a response class.
+     * 
+     * @param <R> The response class.
+     */
+    private static final class ResponseAdapter<R extends AbstractLimeSurveyResponse> extends TypeAdapter<R> {
+
+        /** The response class. */
+        private final Class<R> responseClass;
+
+        /** The delegate used for writing. */
+        private final TypeAdapter<R> delegate;
+
+        /** The field for the result member. */
+        private final Field resultField;
+
+        /** The adapter for the result. */
+        private final TypeAdapter<Object> resultAdapter;
+
+        /** The adapter for the object results. */
+        private final TypeAdapter<JsonElement> elementAdapter;
+
+        /**
+         * Constructor.
+         * @param gson The Gson instance.
+         * @param clazz The response class.
+         * @param writeDelegate The delegate used for writing.
+         * @param field The field for the result member.
+         */
+        @SuppressWarnings("unchecked")
+        private ResponseAdapter(final Gson gson, final Class<R> clazz, final TypeAdapter<R> writeDelegate,
+                final Field field) {
+            responseClass = clazz;
+            delegate = writeDelegate;
+            resultField = field;
+            resultAdapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(field.getGenericType()));
+            elementAdapter = gson.getAdapter(JsonElement.class);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final JsonWriter out, final R value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public R read(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            final R response = newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                final String name = in.nextName();
+                if ("id".equals(name)) {
+                    response.setId(readString(in));
+                } else if ("error".equals(name)) {
+                    final String error = readString(in);
+                    if (error != null) {
+                        response.setErrorMessage(error);
+                    }
+                } else if (RESULT_MEMBER.equals(name)) {
+                    readResult(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        /**
+         * Reads the result member into the response.
+         * @param in The reader positioned at the result value.
+         * @param response The response.
+         * @throws IOException If the result cannot be read.
+         */
+        private void readResult(final JsonReader in, final R response) throws IOException {
+            final Object result;
+            final JsonToken token = in.peek();
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                return;
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                final JsonObject object = elementAdapter.read(in).getAsJsonObject();
+                final String status = getStatus(object);
+                if (status != null) {
+                    response.setStatusMessage(status);
+                    response.setErrorMessage(status);
+                    return;
+                }
+                result = resultAdapter.fromJsonTree(object);
+            } else {
+                result = resultAdapter.read(in);
+            }
+            try {
+                resultField.set(response, result);
+            } catch (IllegalAccessException e) {
+                throw new JsonParseException("Could not set the result for " + responseClass, e);
+            }
+        }
+
+        /**
+         * Reads a string value, or the string presentation of a non-primitive value.
+         * @param in The reader positioned at the value.
+         * @return The string value, or null if the value was null.
+         * @throws IOException If the value cannot be read.
+         */
+        private String readString(final JsonReader in) throws IOException {
+            final JsonToken token = in.peek();
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            } else if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+                return token == JsonToken.BOOLEAN ? String.valueOf(in.nextBoolean()) : in.nextString();
+            }
+            return elementAdapter.read(in).toString();
+        }
+
+        /**
+         * Creates a new instance of the response class.
+         * @return A new instance of the response class.
+         */
+        private R newInstance() {
+            try {
+                return responseClass.newInstance();
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new JsonParseException("Could not instantiate " + responseClass, e);
+            }
+        }
+    }
+}
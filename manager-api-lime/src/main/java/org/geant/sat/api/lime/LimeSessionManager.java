@@ -0,0 +1,333 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the Limesurvey session key shared by all the request threads. The key is refreshed exactly once under
+ * contention: the first caller obtains a new key and the concurrent callers wait for the same result. The key is
+ * renewed proactively once it gets older than the configured maximum age, i.e. before the server-side session
+ * timeout, and it can be released when the connector is shut down.
+ */
+public class LimeSessionManager {
+
+    /** The default maximum age for a session key, before it's proactively renewed (1 hour). */
+    public static final long DEFAULT_MAX_KEY_AGE = TimeUnit.HOURS.toMillis(1);
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(LimeSessionManager.class);
+
+    /** The provider for obtaining and releasing the session keys. */
+    private final SessionKeyProvider provider;
+
+    /** The current session, null if no key has been obtained. */
+    private volatile Session session;
+
+    /** The refresh in progress, null if none. */
+    private final AtomicReference<CompletableFuture<String>> refreshing = new AtomicReference<>();
+
+    /** The maximum age for a session key in nanoseconds. */
+    private volatile long maxKeyAgeNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_KEY_AGE);
+
+    /** The amount of successful refreshes. */
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    /** The amount of failed refreshes. */
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    /** The amount of callers that waited for a refresh started by another caller. */
+    private final AtomicLong joinedRefreshes = new AtomicLong();
+
+    /** The amount of proactive renewals. */
+    private final AtomicLong proactiveRenewals = new AtomicLong();
+
+    /** The total time spent in refreshes in nanoseconds. */
+    private final AtomicLong totalRefreshNanos = new AtomicLong();
+
+    /** The time spent in the latest refresh in nanoseconds. */
+    private volatile long lastRefreshNanos;
+
+    /**
+     * Constructor.
+     * @param keyProvider The provider for obtaining and releasing the session keys.
+     */
+    public LimeSessionManager(final SessionKeyProvider keyProvider) {
+        provider = keyProvider;
+    }
+
+    /**
+     * Set the maximum age for a session key, after which it's proactively renewed. It should be shorter than the
+     * session expiration time configured in Limesurvey.
+     * @param maxKeyAge What to set, in milliseconds. Zero or negative disables the proactive renewal.
+     */
+    public void setMaxKeyAge(final long maxKeyAge) {
+        maxKeyAgeNanos = maxKeyAge > 0 ? TimeUnit.MILLISECONDS.toNanos(maxKeyAge) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get a valid session key, obtaining a new one if there isn't one yet or if it's older than the maximum age.
+     * @return The session key.
+     * @throws SurveySystemConnectorException If a new key cannot be obtained.
+     */
+    public String getSessionKey() throws SurveySystemConnectorException {
+        final Session current = session;
+        if (current == null) {
+            return renewSessionKey(System.nanoTime());
+        }
+        final long now = System.nanoTime();
+        if (now - current.obtained > maxKeyAgeNanos) {
+            log.debug("Proactively renewing the session key after {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(now - current.obtained));
+            proactiveRenewals.incrementAndGet();
+            return renewSessionKey(now);
+        }
+        return current.key;
+    }
+
+    /**
+     * Get the current session key without checking its validity.
+     * @return The current session key, null if there isn't one.
+     */
+    public String peekSessionKey() {
+        final Session current = session;
+        return current == null ? null : current.key;
+    }
+
+    /**
+     * Renews the session key, unconditionally. If a refresh is already in progress, its result is waited for.
+     * @return The new session key.
+     * @throws SurveySystemConnectorException If a new key cannot be obtained.
+     */
+    public String renewSessionKey() throws SurveySystemConnectorException {
+        return renewSessionKey(System.nanoTime());
+    }
+
+    /**
+     * Renews the session key, unless it has already been renewed after the given time. This is to be used when a
+     * request started at the given time was rejected with an invalid session key: if another caller has already
+     * obtained a new key meanwhile, it's returned as such.
+     * @param notBefore The {@link System#nanoTime()} value before which the current key must have been obtained for
+     *            it to be renewed.
+     * @return The renewed session key.
+     * @throws SurveySystemConnectorException If a new key cannot be obtained.
+     */
+    public String renewSessionKey(final long notBefore) throws SurveySystemConnectorException {
+        while (true) {
+            final String renewed = getKeyObtainedAfter(notBefore);
+            if (renewed != null) {
+                return renewed;
+            }
+            final CompletableFuture<String> inProgress = refreshing.get();
+            if (inProgress != null) {
+                joinedRefreshes.incrementAndGet();
+                log.trace("Waiting for the session key refresh in progress");
+                return await(inProgress);
+            }
+            final CompletableFuture<String> refresh = new CompletableFuture<>();
+            if (refreshing.compareAndSet(null, refresh)) {
+                try {
+                    final String key = getKeyObtainedAfter(notBefore);
+                    refresh.complete(key != null ? key : obtainSessionKey());
+                } catch (SurveySystemConnectorException | RuntimeException e) {
+                    refresh.completeExceptionally(e);
+                } finally {
+                    refreshing.compareAndSet(refresh, null);
+                }
+                return await(refresh);
+            }
+        }
+    }
+
+    /**
+     * Releases the current session key in Limesurvey, if there is one.
+     */
+    public void release() {
+        final Session current = session;
+        session = null;
+        if (current != null) {
+            try {
+                provider.releaseSessionKey(current.key);
+                log.debug("Released the session key");
+            } catch (SurveySystemConnectorException e) {
+                log.warn("Could not release the session key", e);
+            }
+        }
+    }
+
+    /**
+     * Get the amount of successful refreshes.
+     * @return The amount of successful refreshes.
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Get the amount of failed refreshes.
+     * @return The amount of failed refreshes.
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * Get the amount of callers that waited for a refresh started by another caller instead of refreshing.
+     * @return The amount of callers that waited for a refresh started by another caller.
+     */
+    public long getJoinedRefreshes() {
+        return joinedRefreshes.get();
+    }
+
+    /**
+     * Get the amount of proactive renewals due to the maximum key age.
+     * @return The amount of proactive renewals.
+     */
+    public long getProactiveRenewals() {
+        return proactiveRenewals.get();
+    }
+
+    /**
+     * Get the time spent in the latest refresh.
+     * @return The time spent in the latest refresh in milliseconds.
+     */
+    public long getLastRefreshMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastRefreshNanos);
+    }
+
+    /**
+     * Get the average time spent in the refreshes, including the failed ones.
+     * @return The average time spent in the refreshes in milliseconds, 0 if there hasn't been any.
+     */
+    public long getAverageRefreshMillis() {
+        final long count = refreshCount.get() + refreshFailures.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRefreshNanos.get() / count);
+    }
+
+    /**
+     * Get the current key if it was obtained after the given time.
+     * @param notBefore The {@link System#nanoTime()} value.
+     * @return The current key if it was obtained after the given time, null otherwise.
+     */
+    protected String getKeyObtainedAfter(final long notBefore) {
+        final Session current = session;
+        return current != null && current.obtained - notBefore > 0 ? current.key : null;
+    }
+
+    /**
+     * Obtains a new session key from the provider and records the metrics.
+     * @return The new session key.
+     * @throws SurveySystemConnectorException If a new key cannot be obtained.
+     */
+    protected String obtainSessionKey() throws SurveySystemConnectorException {
+        final long start = System.nanoTime();
+        try {
+            final String key = provider.obtainSessionKey();
+            session = new Session(key, System.nanoTime());
+            refreshCount.incrementAndGet();
+            return key;
+        } catch (SurveySystemConnectorException | RuntimeException e) {
+            refreshFailures.incrementAndGet();
+            throw e;
+        } finally {
+            lastRefreshNanos = System.nanoTime() - start;
+            totalRefreshNanos.addAndGet(lastRefreshNanos);
+            log.debug("Session key refresh took {} ms", getLastRefreshMillis());
+        }
+    }
+
+    /**
+     * Waits for the given refresh to be completed.
+     * @param refresh The refresh.
+     * @return The session key.
+     * @throws SurveySystemConnectorException If the refresh failed or the thread was interrupted.
+     */
+    protected String await(final CompletableFuture<String> refresh) throws SurveySystemConnectorException {
+        try {
+            return refresh.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SurveySystemConnectorException("Interrupted while waiting for the session key", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SurveySystemConnectorException) {
+                throw (SurveySystemConnectorException) e.getCause();
+            }
+            throw new SurveySystemConnectorException(e);
+        }
+    }
+
+    /**
+     * Obtains and releases the session keys in Limesurvey.
+     */
+    public interface SessionKeyProvider {
+
+        /**
+         * Obtains a new session key.
+         * @return The new session key.
+         * @throws SurveySystemConnectorException If the key cannot be obtained.
+         */
+        public String obtainSessionKey() throws SurveySystemConnectorException;
+
+        /**
+         * Releases the given session key.
+         * @param key The session key.
+         * @throws SurveySystemConnectorException If the key cannot be released.
+         */
+        public void releaseSessionKey(final String key) throws SurveySystemConnectorException;
+    }
+
+    /**
+     * A session key and the time when it was obtained.
+     */
+    private static final class Session {
+
+        /** The session key. */
+        private final String key;
+
+        /** The {@link System#nanoTime()} value when the key was obtained. */
+        private final long obtained;
+
+        /**
+         * Constructor.
+         * @param sessionKey The session key.
+         * @param obtainedNanos The {@link System#nanoTime()} value when the key was obtained.
+         */
+        private Session(final String sessionKey, final long obtainedNanos) {
+            key = sessionKey;
+            obtained = obtainedNanos;
+        }
+    }
+}
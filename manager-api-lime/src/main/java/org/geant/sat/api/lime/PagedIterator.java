@@ -0,0 +1,252 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the results of a paged Limesurvey API method, one page in memory at a time. The pages are fetched
+ * with the given {@link PageFetcher} until a page shorter than the page size is returned. Optionally the following
+ * pages are fetched concurrently ahead of the iteration with the given executor.
+ * 
+ * @param <T> The type of the iterated elements.
+ */
+public class PagedIterator<T> implements Closeable {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(PagedIterator.class);
+
+    /** The fetcher for the pages. */
+    private final PageFetcher<T> fetcher;
+
+    /** The page size. */
+    private final int pageSize;
+
+    /** The amount of pages fetched ahead of the iteration. */
+    private final int prefetchPages;
+
+    /** The executor for fetching the pages ahead, may be null if the pages are not fetched ahead. */
+    private final ExecutorService executor;
+
+    /** The pages being fetched ahead, in page order. */
+    private final Deque<Future<List<T>>> pending = new ArrayDeque<>();
+
+    /** The current page. */
+    private List<T> page = Collections.emptyList();
+
+    /** The index of the next element in the current page. */
+    private int index;
+
+    /** The start offset of the next page to be requested. */
+    private int nextStart;
+
+    /** Whether the last page has been received. */
+    private boolean lastPageReceived;
+
+    /** The amount of fetched pages. */
+    private int pagesFetched;
+
+    /**
+     * Constructor for fetching the pages sequentially.
+     * @param pageFetcher The fetcher for the pages.
+     * @param size The page size.
+     */
+    public PagedIterator(final PageFetcher<T> pageFetcher, final int size) {
+        this(pageFetcher, size, 0, null);
+    }
+
+    /**
+     * Constructor.
+     * @param pageFetcher The fetcher for the pages.
+     * @param size The page size.
+     * @param prefetch The amount of pages fetched ahead of the iteration, 0 for fetching them sequentially.
+     * @param prefetchExecutor The executor for fetching the pages ahead, required if prefetch is positive.
+     */
+    public PagedIterator(final PageFetcher<T> pageFetcher, final int size, final int prefetch,
+            final ExecutorService prefetchExecutor) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        if (prefetch > 0 && prefetchExecutor == null) {
+            throw new IllegalArgumentException("The executor is required for fetching pages ahead");
+        }
+        fetcher = pageFetcher;
+        pageSize = size;
+        prefetchPages = Math.max(0, prefetch);
+        executor = prefetchExecutor;
+    }
+
+    /**
+     * Checks whether there are more elements, fetching the next page if needed.
+     * @return True if there are more elements, false otherwise.
+     * @throws SurveySystemConnectorException If the next page cannot be fetched.
+     */
+    public boolean hasNext() throws SurveySystemConnectorException {
+        while (index >= page.size()) {
+            if (lastPageReceived) {
+                return false;
+            }
+            page = nextPage();
+            index = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Get the next element.
+     * @return The next element.
+     * @throws SurveySystemConnectorException If the next page cannot be fetched.
+     */
+    public T next() throws SurveySystemConnectorException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    /**
+     * Get the amount of pages fetched so far.
+     * @return The amount of pages fetched so far.
+     */
+    public int getPagesFetched() {
+        return pagesFetched;
+    }
+
+    /**
+     * Cancels the pages being fetched ahead.
+     */
+    @Override
+    public void close() {
+        lastPageReceived = true;
+        while (!pending.isEmpty()) {
+            pending.poll().cancel(true);
+        }
+    }
+
+    /**
+     * Fetches the next page, either directly or from the pages fetched ahead.
+     * @return The next page.
+     * @throws SurveySystemConnectorException If the page cannot be fetched.
+     */
+    protected List<T> nextPage() throws SurveySystemConnectorException {
+        final List<T> result;
+        if (prefetchPages == 0) {
+            result = fetch(nextStart);
+            nextStart += pageSize;
+        } else {
+            fillPending();
+            result = waitFor(pending.poll());
+            fillPending();
+        }
+        pagesFetched++;
+        if (result == null || result.size() < pageSize) {
+            log.debug("Received the last page after {} pages", pagesFetched);
+            close();
+        }
+        return result == null ? Collections.<T>emptyList() : result;
+    }
+
+    /**
+     * Submits new pages to be fetched ahead, until the configured amount of pages is pending.
+     */
+    protected void fillPending() {
+        while (!lastPageReceived && pending.size() <= prefetchPages) {
+            final int start = nextStart;
+            pending.add(executor.submit(new Callable<List<T>>() {
+                @Override
+                public List<T> call() throws SurveySystemConnectorException {
+                    return fetch(start);
+                }
+            }));
+            nextStart += pageSize;
+        }
+    }
+
+    /**
+     * Fetches the page starting from the given offset.
+     * @param start The start offset.
+     * @return The page.
+     * @throws SurveySystemConnectorException If the page cannot be fetched.
+     */
+    protected List<T> fetch(final int start) throws SurveySystemConnectorException {
+        log.trace("Fetching page {}..{}", start, start + pageSize);
+        return fetcher.fetchPage(start, pageSize);
+    }
+
+    /**
+     * Waits for the given page to be fetched.
+     * @param future The page being fetched.
+     * @return The page.
+     * @throws SurveySystemConnectorException If the page could not be fetched or the thread was interrupted.
+     */
+    protected List<T> waitFor(final Future<List<T>> future) throws SurveySystemConnectorException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new SurveySystemConnectorException("Interrupted while waiting for a page", e);
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof SurveySystemConnectorException) {
+                throw (SurveySystemConnectorException) e.getCause();
+            }
+            throw new SurveySystemConnectorException(e);
+        }
+    }
+
+    /**
+     * Fetches one page of elements.
+     * 
+     * @param <T> The type of the elements.
+     */
+    public interface PageFetcher<T> {
+
+        /**
+         * Fetches one page of elements.
+         * @param start The offset of the first element.
+         * @param limit The maximum amount of elements.
+         * @return The elements in the page, an empty list if there are no elements after the offset.
+         * @throws SurveySystemConnectorException If the page cannot be fetched.
+         */
+        public List<T> fetchPage(final int start, final int limit) throws SurveySystemConnectorException;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the question codes for the columns of a Limesurvey response table. The answer columns are named in the
+ * SGQA format: survey identifier, group identifier and question identifier separated by X, followed by the
+ * subquestion code for the subquestions. The resolved codes are the same as in the exports with the question code
+ * headings, e.g. Q1 for a question and Q1[SQ001] for its subquestion.
+ */
+public class SgqaColumnResolver {
+
+    /** The prefix for all the answer columns in the survey. */
+    private final String prefix;
+
+    /** The question codes by question identifier, for the questions without a parent. */
+    private final Map<String, String> titles = new HashMap<>();
+
+    /** The column name prefixes by question identifier, for the questions without a parent. */
+    private final Map<String, String> bases = new HashMap<>();
+
+    /** The parent question identifiers and the codes of the subquestions. */
+    private final List<String[]> subquestions = new ArrayList<>();
+
+    /** The question codes by lower-cased column name, built on the first resolution. */
+    private Map<String, String> columns;
+
+    /**
+     * Constructor.
+     * @param sid The survey identifier.
+     */
+    public SgqaColumnResolver(final String sid) {
+        prefix = (sid + "X").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds a question without a parent.
+     * @param qid The question identifier.
+     * @param gid The group identifier.
+     * @param title The question code.
+     */
+    public void addQuestion(final String qid, final String gid, final String title) {
+        titles.put(qid, title);
+        bases.put(qid, prefix + gid.toLowerCase(Locale.ROOT) + "x" + qid.toLowerCase(Locale.ROOT));
+        columns = null;
+    }
+
+    /**
+     * Adds a subquestion.
+     * @param parentQid The identifier of the parent question.
+     * @param title The subquestion code.
+     */
+    public void addSubquestion(final String parentQid, final String title) {
+        subquestions.add(new String[] { parentQid, title });
+        columns = null;
+    }
+
+    /**
+     * Resolves the question code for the given column. The columns matching a question prefix but none of its
+     * subquestions, e.g. the other and comment fields, are resolved as question code followed by the suffix in
+     * brackets. The columns matching no question are resolved as is.
+     * @param column The column name.
+     * @return The question code, or null if the column is not an answer column.
+     */
+    public String resolve(final String column) {
+        final String name = column.toLowerCase(Locale.ROOT);
+        if (!name.startsWith(prefix)) {
+            return null;
+        }
+        final String title = getColumns().get(name);
+        if (title != null) {
+            return title;
+        }
+        String qid = null;
+        for (final Map.Entry<String, String> entry : bases.entrySet()) {
+            if (name.startsWith(entry.getValue())
+                    && (qid == null || entry.getValue().length() > bases.get(qid).length())) {
+                qid = entry.getKey();
+            }
+        }
+        if (qid == null) {
+            return column;
+        }
+        return titles.get(qid) + "[" + column.substring(bases.get(qid).length()) + "]";
+    }
+
+    /**
+     * Get the question codes by lower-cased column name, building them if needed.
+     * @return The question codes by lower-cased column name.
+     */
+    protected Map<String, String> getColumns() {
+        if (columns == null) {
+            columns = new HashMap<>();
+            for (final Map.Entry<String, String> entry : titles.entrySet()) {
+                columns.put(bases.get(entry.getKey()), entry.getValue());
+            }
+            for (final String[] subquestion : subquestions) {
+                final String base = bases.get(subquestion[0]);
+                if (base != null) {
+                    columns.put(base + subquestion[1].toLowerCase(Locale.ROOT),
+                            titles.get(subquestion[0]) + "[" + subquestion[1] + "]");
+                }
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.geant.sat.api.lime.JsonRpcCall;
+import org.geant.sat.api.lime.LimeStandInServer;
+import org.geant.sat.api.lime.SyntheticSurveyData;
+import org.geant.sat.api.lime.UnexpectedStatusCodeException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the JSON-RPC batch requests in {@link LimeSurveyConnector}, against a local stand-in server.
+ */
+public class LimeSurveyConnectorBatchTest {
+
+    private SyntheticSurveyData data;
+
+    private LimeStandInServer server;
+
+    private LimeSurveyConnector connector;
+
+    @BeforeMethod
+    public void initServer() throws Exception {
+        data = new SyntheticSurveyData(1);
+        data.setSurveyCount(5);
+        server = new LimeStandInServer(data).start();
+        server.setRecordRequests(true);
+        connector = new LimeSurveyConnector();
+        connector.setApiEndpoint(server.getEndpoint());
+        connector.setApiUser("user");
+        connector.setApiPassword("password");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        connector.destroy();
+        server.close();
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        List<String> results = connector.getBatchContents(ownerCalls(1, 2, 3));
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertEquals(connector.parseOwner(results.get(0)), owner(1));
+        Assert.assertEquals(connector.parseOwner(results.get(1)), owner(2));
+        Assert.assertEquals(connector.parseOwner(results.get(2)), owner(3));
+        Assert.assertFalse(connector.isBatchRejected());
+        // get_session_key + one batch
+        Assert.assertEquals(server.getRequests().size(), 2);
+    }
+
+    @Test
+    public void testBatchRejected() throws Exception {
+        server.setAcceptBatches(false);
+        List<String> results = connector.getBatchContents(ownerCalls(1, 2, 3));
+        Assert.assertEquals(connector.parseOwner(results.get(0)), owner(1));
+        Assert.assertEquals(connector.parseOwner(results.get(2)), owner(3));
+        Assert.assertTrue(connector.isBatchRejected());
+        // get_session_key + rejected batch + three individual requests
+        Assert.assertEquals(server.getRequests().size(), 5);
+        results = connector.getBatchContents(ownerCalls(4, 5));
+        Assert.assertEquals(connector.parseOwner(results.get(1)), owner(5));
+        // the batch is not tried again
+        Assert.assertEquals(server.getRequests().size(), 7);
+    }
+
+    @Test
+    public void testBatchServerErrorNotRejected() throws Exception {
+        connector.getBatchContents(ownerCalls(1, 2));
+        server.setErrorStatus(503);
+        server.setErrorRate(1.0);
+        try {
+            connector.getBatchContents(ownerCalls(3, 4));
+            Assert.fail("The batch should have failed");
+        } catch (UnexpectedStatusCodeException e) {
+            Assert.assertEquals(e.getStatusCode(), 503);
+        }
+        Assert.assertFalse(connector.isBatchRejected());
+        server.setErrorRate(0);
+        int requests = server.getRequests().size();
+        List<String> results = connector.getBatchContents(ownerCalls(3, 4));
+        Assert.assertEquals(connector.parseOwner(results.get(1)), owner(4));
+        Assert.assertEquals(server.getRequests().size(), requests + 1);
+    }
+
+    @Test
+    public void testBatchClientErrorRejected() throws Exception {
+        connector.getBatchContents(ownerCalls(1, 2));
+        server.setErrorStatus(400);
+        server.setErrorRate(1.0);
+        try {
+            connector.getBatchContents(ownerCalls(3, 4));
+            Assert.fail("The individual calls should have failed too");
+        } catch (SurveySystemConnectorException e) {
+            Assert.assertTrue(connector.isBatchRejected());
+        }
+    }
+
+    @Test
+    public void testBatchExpiredSessionKey() throws Exception {
+        connector.getBatchContents(ownerCalls(1, 2));
+        server.expireSessions();
+        List<String> results = connector.getBatchContents(ownerCalls(3, 4));
+        Assert.assertEquals(connector.parseOwner(results.get(0)), owner(3));
+        Assert.assertEquals(connector.parseOwner(results.get(1)), owner(4));
+        Assert.assertEquals(server.getCallCount("get_session_key"), 2);
+    }
+
+    @Test
+    public void testResolveOwners() throws Exception {
+        Map<String, String> owners = connector.resolveOwners(Arrays.asList(sid(1), sid(2), sid(1)));
+        Assert.assertEquals(owners.size(), 2);
+        Assert.assertEquals(owners.get(sid(2)), owner(2));
+        int requests = server.getRequests().size();
+        Assert.assertEquals(connector.resolveOwners(Arrays.asList(sid(1), sid(2))).get(sid(1)), owner(1));
+        Assert.assertEquals(server.getRequests().size(), requests);
+    }
+
+    @Test
+    public void testReleaseOnDestroy() throws Exception {
+        connector.getBatchContents(ownerCalls(1, 2));
+        connector.destroy();
+        Assert.assertTrue(server.getRequests().get(server.getRequests().size() - 1).contains("release_session_key"));
+        Assert.assertNull(connector.getSessionManager().peekSessionKey());
+        Assert.assertEquals(connector.getSessionManager().getRefreshCount(), 1);
+    }
+
+    protected List<JsonRpcCall> ownerCalls(int... surveys) {
+        List<JsonRpcCall> calls = new ArrayList<>();
+        for (int survey : surveys) {
+            calls.add(new JsonRpcCall("get_survey_properties", connector.getOwnerParams(sid(survey))));
+        }
+        return calls;
+    }
+
+    protected String sid(int survey) {
+        return String.valueOf(SyntheticSurveyData.FIRST_SID + survey - 1);
+    }
+
+    protected String owner(int survey) {
+        return String.valueOf(data.getSurvey(sid(survey)).getOwnerUid());
+    }
+}
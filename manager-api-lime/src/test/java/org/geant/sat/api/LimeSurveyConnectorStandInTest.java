@@ -0,0 +1,166 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.SurveyTokenDetails;
+import org.geant.sat.api.lime.LimeCallGuard;
+import org.geant.sat.api.lime.LimeStandInServer;
+import org.geant.sat.api.lime.SyntheticSurveyData;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LimeSurveyConnector} over HTTP, against the {@link LimeStandInServer} with synthetic data.
+ */
+public class LimeSurveyConnectorStandInTest {
+
+    private static final String SID = String.valueOf(SyntheticSurveyData.FIRST_SID);
+
+    private SyntheticSurveyData data;
+
+    private LimeStandInServer server;
+
+    private LimeSurveyConnector connector;
+
+    @BeforeMethod
+    public void initServer() throws Exception {
+        data = new SyntheticSurveyData(2);
+        data.setParticipantCount(250);
+        data.setAnswerLength(200);
+        server = new LimeStandInServer(data).start();
+        connector = new LimeSurveyConnector();
+        connector.setApiEndpoint(server.getEndpoint());
+        connector.setApiUser("user");
+        connector.setApiPassword("password");
+        connector.setParticipantPageSize(100);
+        final LimeCallGuard guard = new LimeCallGuard();
+        guard.setRetryBaseDelay(1);
+        connector.setCallGuard(guard);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        connector.destroy();
+        server.close();
+    }
+
+    @Test
+    public void testSurveys() throws Exception {
+        final ListAllSurveysResponse response = connector.listSurveys();
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getSurveys().size(), SyntheticSurveyData.DEFAULT_SURVEYS);
+        Assert.assertEquals(response.getSurveys().get(1).getOwner(), data.getUsername(2));
+        Assert.assertTrue(response.getSurveys().get(1).getActive());
+        Assert.assertEquals(connector.listUsers().getUsers().size(), SyntheticSurveyData.DEFAULT_USERS);
+        Assert.assertEquals(connector.listQuestions(SID).getQuestions().size(), data.getQuestionCount());
+    }
+
+    @Test
+    public void testParticipantsPaged() throws Exception {
+        final ListSurveyTokensResponse response = connector.listSurveyTokens(SID);
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getTokens().size(), 250);
+        int completed = 0;
+        for (final SurveyTokenDetails token : response.getTokens()) {
+            completed += "N".equals(token.getCompleted()) ? 0 : 1;
+        }
+        Assert.assertEquals(completed, data.getSurvey(SID).getCompletedResponses());
+        // two full pages and a partial one
+        Assert.assertEquals(server.getCallCount("list_participants"), 3);
+    }
+
+    @Test
+    public void testGenerateTokens() throws Exception {
+        connector.setTokenChunkSize(2);
+        final List<String> tokens = connector.generateTokens(SID, 5);
+        Assert.assertEquals(tokens.size(), 5);
+        Assert.assertEquals(server.getCallCount("add_participants"), 3);
+        Assert.assertEquals(connector.listSurveyTokens(SID).getTokens().size(), 255);
+    }
+
+    @Test
+    public void testAnswers() throws Exception {
+        final List<AnswerDetails> answers = connector.listAnswers(SID).getAnswers();
+        Assert.assertEquals(answers.size(), 200);
+        Assert.assertEquals(answers.get(0).getAnswers().size(), data.getQuestionCount());
+        Assert.assertEquals(answers.get(0).getAnswers().get("Q1").length(), 200);
+        final String token = answers.get(10).getToken();
+        final List<AnswerDetails> filtered = connector.listAnswers(SID, Arrays.asList(token, "unknown"))
+                .getAnswers();
+        Assert.assertEquals(filtered.size(), 1);
+        Assert.assertEquals(filtered.get(0).getAnswers(), answers.get(10).getAnswers());
+    }
+
+    @Test
+    public void testAnswerRangesWithIdGap() throws Exception {
+        // a gap of 131 deleted responses, wider than the ten empty ranges of five identifiers
+        data.deleteResponses(data.getSurvey(SID), 20, 150);
+        connector.setAnswerRangeSize(5);
+        final List<AnswerDetails> answers = connector.listAnswers(SID).getAnswers();
+        Assert.assertEquals(answers.size(), 69);
+        Assert.assertEquals(answers.get(18).getId(), "19");
+        Assert.assertEquals(answers.get(19).getId(), "151");
+        Assert.assertEquals(answers.get(68).getId(), "200");
+    }
+
+    @Test
+    public void testIncrementalAnswers() throws Exception {
+        connector.setIncrementalAnswers(true);
+        Assert.assertEquals(connector.listAnswers(SID).getAnswers().size(), 200);
+        data.addResponse(data.getSurvey(SID));
+        Assert.assertEquals(connector.listAnswers(SID).getAnswers().size(), 201);
+    }
+
+    @Test
+    public void testExpiredSession() throws Exception {
+        Assert.assertNull(connector.listSurveys().getErrorMessage());
+        server.expireSessions();
+        Assert.assertNull(connector.listSurveys().getErrorMessage());
+        Assert.assertEquals(server.getCallCount("get_session_key"), 2);
+    }
+
+    @Test
+    public void testInjectedErrors() throws Exception {
+        Assert.assertNull(connector.listSurveys().getErrorMessage());
+        server.setErrorRate(1.0);
+        final long requests = server.getRequestCount();
+        Assert.assertNotNull(connector.listQuestions(SID).getErrorMessage());
+        // the idempotent call is retried twice
+        Assert.assertEquals(server.getRequestCount() - requests, 3);
+        server.setErrorRate(0);
+        Assert.assertNull(connector.listQuestions(SID).getErrorMessage());
+    }
+}
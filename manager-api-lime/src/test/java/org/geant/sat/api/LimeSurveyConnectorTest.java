@@ -29,14 +29,24 @@
 package org.geant.sat.api;
 
 import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.AnswersResponse;
 import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
 import org.geant.sat.api.dto.SurveyDetails;
+import org.geant.sat.api.lime.LimeResponseHandler;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -67,6 +77,33 @@ public class LimeSurveyConnectorTest {
         Assert.assertEquals(connector.generateToken("mock"), "6aU3S5D3SQwKU41");
     }
 
+    @Test
+    public void testGenerateTokensInChunks() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setTokenChunkSize(2);
+        final AtomicInteger counter = new AtomicInteger();
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                String params = invocation.getArgument(1);
+                StringBuilder result = new StringBuilder("{\"id\":1,\"result\":[");
+                for (int i = params.indexOf("firstname"); i >= 0; i = params.indexOf("firstname", i + 1)) {
+                    result.append(result.charAt(result.length() - 1) == '[' ? "" : ",");
+                    result.append("{\"tid\":\"" + counter.incrementAndGet() + "\",\"token\":\"token" 
+                            + counter.get() + "\"}");
+                }
+                result.append("],\"error\":null}");
+                LimeResponseHandler<?> handler = invocation.getArgument(3);
+                return handler.handle(new StringReader(result.toString()));
+            }
+        }).when(connector).getContents(Mockito.matches("add_participants"), Mockito.anyString(), 
+                Mockito.anyBoolean(), Mockito.any());
+        List<String> tokens = connector.generateTokens("mock", 5);
+        Assert.assertEquals(tokens, Arrays.asList("token1", "token2", "token3", "token4", "token5"));
+        Mockito.verify(connector, Mockito.times(3)).getContents(Mockito.matches("add_participants"), 
+                Mockito.anyString(), Mockito.anyBoolean(), Mockito.any());
+    }
+
     @Test(expectedExceptions = SurveySystemConnectorException.class)
     public void testGenerateTokenInvalidKey() throws Exception {
         LimeSurveyConnector connector = initializeMockConnector(JSON_FILE_DIRECTORY + "invalidSessionKey.json");
@@ -92,6 +129,20 @@ public class LimeSurveyConnectorTest {
         Assert.assertEquals(details.getTitle(), "API PoC");
     }
 
+    @Test
+    public void testListSurveysCachesOwners() throws Exception {
+        Map<String, String> matchers = new HashMap<>();
+        matchers.put("list_surveys", JSON_FILE_DIRECTORY + "listSurveys.json");
+        matchers.put("list_users", JSON_FILE_DIRECTORY + "listUsers.json");
+        matchers.put("get_survey_properties", JSON_FILE_DIRECTORY + "surveyProperties.json");
+        LimeSurveyConnector connector = initializeMockConnector(matchers);
+        Assert.assertEquals(connector.listSurveys().getSurveys().get(0).getOwner(), "teppo@yliopisto.fi");
+        Assert.assertEquals(connector.listSurveys().getSurveys().get(0).getOwner(), "teppo@yliopisto.fi");
+        Mockito.verify(connector, Mockito.times(1)).getContents(Mockito.matches("get_survey_properties"), 
+                Mockito.anyString(), Mockito.anyBoolean());
+        connector.destroy();
+    }
+
     @Test
     public void testListSurveysInvalidKey() throws Exception {
         LimeSurveyConnector connector = initializeMockConnector(JSON_FILE_DIRECTORY + "invalidSessionKey.json");
@@ -99,6 +150,227 @@ public class LimeSurveyConnectorTest {
         
     }
     
+    @Test
+    public void testListAnswers() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "exportResponses.json");
+        AnswersResponse response = connector.listAnswers("mock");
+        List<AnswerDetails> answers = response.getAnswers();
+        Assert.assertEquals(answers.size(), 2);
+        Assert.assertEquals(answers.get(0).getId(), "1");
+        Assert.assertEquals(answers.get(0).getSubmitDate(), "2017-05-02 10:00:00");
+        Assert.assertEquals(answers.get(0).getStartLanguage(), "en");
+        Assert.assertEquals(answers.get(0).getToken(), "tokenA");
+        Assert.assertEquals(answers.get(0).getStartDate(), "2017-05-02 09:50:00");
+        Assert.assertEquals(answers.get(0).getAnswers().get("Q1"), "A1");
+        Assert.assertEquals(answers.get(0).getAnswers().get("Q2"), "Line one\r\nline two, with \"quotes\"");
+        Assert.assertEquals(answers.get(1).getSubmitDate(), "");
+        Assert.assertEquals(answers.get(1).getAnswers().get("Q2"), "\u00c4\u00e4kk\u00f6set ja ??? >>>");
+    }
+
+    @Test
+    public void testExportAnswersStreams() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "exportResponses.json");
+        final List<String> tokens = new ArrayList<>();
+        connector.exportAnswers("mock", answer -> tokens.add(answer.getToken()));
+        Assert.assertEquals(tokens.size(), 2);
+        Assert.assertEquals(tokens.get(1), "tokenB");
+    }
+
+    @Test
+    public void testListAnswersIncremental() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setIncrementalAnswers(true);
+        stubExport(connector, "\"mock\", \"csv\"", JSON_FILE_DIRECTORY + "exportResponses.json");
+        stubExport(connector, "\"mock\", \"csv\", null, \"all\", \"code\", \"short\", 2", 
+                JSON_FILE_DIRECTORY + "exportResponsesDelta.json");
+        stubExport(connector, "\"mock\", \"csv\", null, \"all\", \"code\", \"short\", 3", 
+                JSON_FILE_DIRECTORY + "noResponses.json");
+        Assert.assertEquals(connector.listAnswers("mock").getAnswers().size(), 2);
+        List<AnswerDetails> answers = connector.listAnswers("mock").getAnswers();
+        Assert.assertEquals(answers.size(), 3);
+        Assert.assertEquals(answers.get(0).getAnswers().get("Q1"), "A1");
+        Assert.assertEquals(answers.get(1).getSubmitDate(), "2017-05-03 10:05:00");
+        Assert.assertEquals(answers.get(2).getToken(), "tokenC");
+        Assert.assertEquals(connector.listAnswers("mock").getAnswers().size(), 3);
+        Mockito.verify(connector, Mockito.times(1)).getContents(Mockito.matches("export_responses"), 
+                Mockito.eq("\"mock\", \"csv\""), Mockito.anyBoolean(), Mockito.any());
+        connector.invalidateAnswers("mock");
+        Assert.assertEquals(connector.listAnswers("mock").getAnswers().size(), 2);
+        Mockito.verify(connector, Mockito.times(2)).getContents(Mockito.matches("export_responses"), 
+                Mockito.eq("\"mock\", \"csv\""), Mockito.anyBoolean(), Mockito.any());
+    }
+
+    @Test
+    public void testListAnswersInRanges() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setAnswerRangeSize(2);
+        stubStreamedContents(connector, "get_summary", JSON_FILE_DIRECTORY + "getSummary.json");
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "noResponses.json");
+        stubExport(connector, "\"mock\", \"csv\", null, \"all\", \"code\", \"short\", 1, 2", 
+                JSON_FILE_DIRECTORY + "exportResponses.json");
+        stubExport(connector, "\"mock\", \"csv\", null, \"all\", \"code\", \"short\", 5, 6", 
+                JSON_FILE_DIRECTORY + "exportResponsesRange.json");
+        List<AnswerDetails> answers = connector.listAnswers("mock").getAnswers();
+        Assert.assertEquals(answers.size(), 3);
+        Assert.assertEquals(answers.get(0).getId(), "1");
+        Assert.assertEquals(answers.get(1).getId(), "2");
+        Assert.assertEquals(answers.get(2).getId(), "5");
+        Assert.assertEquals(answers.get(2).getToken(), "tokenE");
+        connector.destroy();
+    }
+
+    @Test
+    public void testListAnswersInRangesStopsAfterEmptyRanges() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setAnswerRangeSize(2);
+        connector.setMaxEmptyAnswerRanges(3);
+        stubStreamedContents(connector, "get_summary", JSON_FILE_DIRECTORY + "getSummary.json");
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "noResponses.json");
+        stubExport(connector, "\"mock\", \"csv\", null, \"all\", \"code\", \"short\", 1, 2", 
+                JSON_FILE_DIRECTORY + "exportResponses.json");
+        Assert.assertEquals(connector.listAnswers("mock").getAnswers().size(), 2);
+        connector.destroy();
+    }
+
+    @Test
+    public void testListAnswersByToken() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setTokenLookupRatio(1.0);
+        stubStreamedContents(connector, "get_summary", JSON_FILE_DIRECTORY + "getSummary.json");
+        stubStreamedContents(connector, "export_responses_by_token", JSON_FILE_DIRECTORY + "exportResponsesRange.json");
+        List<AnswerDetails> answers = connector.listAnswers("mock", Arrays.asList("tokenE")).getAnswers();
+        Assert.assertEquals(answers.size(), 1);
+        Assert.assertEquals(answers.get(0).getToken(), "tokenE");
+        Mockito.verify(connector).getContents(Mockito.matches("export_responses_by_token"), 
+                Mockito.eq("\"mock\", \"csv\", \"tokenE\""), Mockito.anyBoolean(), Mockito.any());
+        Mockito.verify(connector, Mockito.never()).getContents(Mockito.matches("export_responses"), 
+                Mockito.any(), Mockito.anyBoolean(), Mockito.any());
+    }
+
+    @Test
+    public void testListAnswersByTokenReusesResponseCount() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        connector.setTokenLookupRatio(1.0);
+        stubStreamedContents(connector, "get_summary", JSON_FILE_DIRECTORY + "getSummary.json");
+        stubStreamedContents(connector, "export_responses_by_token", JSON_FILE_DIRECTORY + "exportResponsesRange.json");
+        connector.listAnswers("mock", Arrays.asList("tokenE"));
+        connector.listAnswers("mock", Arrays.asList("tokenE"));
+        Mockito.verify(connector, Mockito.times(1)).fetchResponseCount("mock");
+        connector.setResponseCountTtl(0);
+        connector.listAnswers("mock", Arrays.asList("tokenE"));
+        Mockito.verify(connector, Mockito.times(2)).fetchResponseCount("mock");
+    }
+
+    @Test
+    public void testListAnswersByTokenFiltersFullExport() throws Exception {
+        LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
+        stubStreamedContents(connector, "get_summary", JSON_FILE_DIRECTORY + "getSummary.json");
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "exportResponses.json");
+        List<AnswerDetails> answers = connector.listAnswers("mock", Arrays.asList("tokenB")).getAnswers();
+        Assert.assertEquals(answers.size(), 1);
+        Assert.assertEquals(answers.get(0).getId(), "2");
+        Mockito.verify(connector, Mockito.never()).getContents(Mockito.matches("export_responses_by_token"), 
+                Mockito.any(), Mockito.anyBoolean(), Mockito.any());
+    }
+
+    @Test(expectedExceptions = SurveySystemConnectorException.class)
+    public void testListAnswersInvalidKey() throws Exception {
+        LimeSurveyConnector connector = initializeMockConnector(JSON_FILE_DIRECTORY + "invalidSessionKey.json");
+        stubStreamedContents(connector, "export_responses", JSON_FILE_DIRECTORY + "invalidSessionKey.json");
+        connector.listAnswers("mock");
+    }
+
+    @Test
+    public void testListSurveyTokensPaged() throws Exception {
+        LimeSurveyConnector connector = initializeParticipantPages("listParticipantsPage2.json");
+        connector.setParticipantPageSize(2);
+        ListSurveyTokensResponse response = connector.listSurveyTokens("mock");
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getTokens().size(), 3);
+        Assert.assertEquals(response.getTokens().get(0).getToken(), "token1");
+        Assert.assertEquals(response.getTokens().get(1).getCompleted(), "2017-05-02 10:00");
+        Assert.assertEquals(response.getTokens().get(2).getToken(), "token3");
+        Mockito.verify(connector, Mockito.never()).getContents(Mockito.matches("list_participants"), 
+                Mockito.startsWith("mock, 4,"), Mockito.anyBoolean());
+    }
+
+    @Test
+    public void testListSurveyTokensPagedUntilNoParticipants() throws Exception {
+        LimeSurveyConnector connector = initializeParticipantPages("noParticipants.json");
+        connector.setParticipantPageSize(2);
+        ListSurveyTokensResponse response = connector.listSurveyTokens("mock");
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getTokens().size(), 2);
+    }
+
+    @Test
+    public void testListSurveyTokensPrefetched() throws Exception {
+        LimeSurveyConnector connector = initializeParticipantPages("listParticipantsPage2.json");
+        connector.setParticipantPageSize(2);
+        connector.setParticipantPrefetchPages(2);
+        ListSurveyTokensResponse response = connector.listSurveyTokens("mock");
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getTokens().size(), 3);
+        Assert.assertEquals(response.getTokens().get(2).getToken(), "token3");
+        connector.destroy();
+    }
+
+    @Test
+    public void testListSurveyTokensInvalidKey() throws Exception {
+        LimeSurveyConnector connector = initializeMockConnector(JSON_FILE_DIRECTORY + "invalidSessionKey.json");
+        Assert.assertNotNull(connector.listSurveyTokens("mock").getErrorMessage());
+    }
+
+    protected LimeSurveyConnector initializeParticipantPages(final String secondPageJson) throws Exception {
+        LimeSurveyConnector connector = initializeMockConnector(JSON_FILE_DIRECTORY + "noParticipants.json");
+        stubParticipantPage(connector, "mock, 0,", JSON_FILE_DIRECTORY + "listParticipantsPage1.json");
+        stubParticipantPage(connector, "mock, 2,", JSON_FILE_DIRECTORY + secondPageJson);
+        return connector;
+    }
+
+    protected void stubParticipantPage(final LimeSurveyConnector connector, final String paramsPrefix, 
+            final String resultJson) throws Exception {
+        final String result = FileUtils.readFileToString(new File(resultJson), JSON_FILE_CHARSET);
+        Mockito.doReturn(result).when(connector).getContents(Mockito.matches("list_participants"), 
+                Mockito.startsWith(paramsPrefix), Mockito.anyBoolean());
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                LimeResponseHandler<?> handler = invocation.getArgument(3);
+                return handler.handle(new StringReader(result));
+            }
+        }).when(connector).getContents(Mockito.matches("list_participants"), Mockito.startsWith(paramsPrefix), 
+                Mockito.anyBoolean(), Mockito.any());
+    }
+
+    protected void stubExport(final LimeSurveyConnector connector, final String params, 
+            final String resultJson) throws Exception {
+        final String result = FileUtils.readFileToString(new File(resultJson), JSON_FILE_CHARSET);
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                LimeResponseHandler<?> handler = invocation.getArgument(3);
+                return handler.handle(new StringReader(result));
+            }
+        }).when(connector).getContents(Mockito.matches("export_responses"), Mockito.eq(params), 
+                Mockito.anyBoolean(), Mockito.any());
+    }
+
+    protected void stubStreamedContents(final LimeSurveyConnector connector, final String method, 
+            final String resultJson) throws Exception {
+        final String result = FileUtils.readFileToString(new File(resultJson), JSON_FILE_CHARSET);
+        Mockito.doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                LimeResponseHandler<?> handler = invocation.getArgument(3);
+                return handler.handle(new StringReader(result));
+            }
+        }).when(connector).getContents(Mockito.matches(method), Mockito.any(), Mockito.anyBoolean(), 
+                Mockito.any());
+    }
+
     protected LimeSurveyConnector initializeMockConnector(final String resultJson) throws Exception {
         LimeSurveyConnector connector = Mockito.spy(new LimeSurveyConnector());
         String result = FileUtils.readFileToString(new File(resultJson), JSON_FILE_CHARSET);
@@ -106,6 +378,7 @@ public class LimeSurveyConnectorTest {
                 Mockito.anyBoolean());
         Mockito.doReturn(result).when(connector).getContents(Mockito.anyString(), Mockito.isNull(), 
                 Mockito.anyBoolean());
+        stubStreamedContents(connector, ".*", resultJson);
         return connector;
     }
     
@@ -117,6 +390,7 @@ public class LimeSurveyConnectorTest {
                     Mockito.anyBoolean());
             Mockito.doReturn(result).when(connector).getContents(Mockito.matches(key), Mockito.isNull(), 
                     Mockito.anyBoolean());
+            stubStreamedContents(connector, key, matchers.get(key));
         }
         return connector;
         
@@ -0,0 +1,155 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.geant.sat.api.dto.ListAllSurveysResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.QuestionsResponse;
+import org.mockito.Mockito;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LimeSurveyDatabaseConnector}, against an embedded database with Limesurvey tables.
+ */
+public class LimeSurveyDatabaseConnectorTest {
+
+    /** The embedded database. */
+    private EmbeddedDatabase database;
+
+    /** The connector for the writes. */
+    private SurveySystemConnector writeConnector;
+
+    /** The connector to be tested. */
+    private LimeSurveyDatabaseConnector connector;
+
+    @BeforeClass
+    public void initDatabase() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("limesurvey")
+                .addScript("org/geant/sat/api/limeSchema.sql").build();
+        writeConnector = Mockito.mock(SurveySystemConnector.class);
+        connector = new LimeSurveyDatabaseConnector();
+        connector.setDataSource(database);
+        connector.setSurveySystemConnector(writeConnector);
+        connector.setTokenChunkSize(1);
+    }
+
+    @AfterClass
+    public void shutdownDatabase() {
+        database.shutdown();
+    }
+
+    @Test
+    public void testSurveys() {
+        final ListAllSurveysResponse response = connector.listSurveys();
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getSurveys().size(), 2);
+        Assert.assertEquals(response.getSurveys().get(0).getTitle(), "Self-assessment");
+        Assert.assertEquals(response.getSurveys().get(0).getOwner(), "admin");
+        Assert.assertTrue(response.getSurveys().get(0).getActive());
+        Assert.assertFalse(response.getSurveys().get(1).getActive());
+        Assert.assertNull(response.getSurveys().get(1).getOwner());
+    }
+
+    @Test
+    public void testQuestions() {
+        final QuestionsResponse response = connector.listQuestions("123456");
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getQuestions().size(), 4);
+        Assert.assertEquals(response.getQuestions().get(0).getQuestion(), "First question");
+        Assert.assertTrue(response.getQuestions().get(0).getMandatory());
+        Assert.assertEquals(response.getQuestions().get(2).getParentQid(), "2");
+        Assert.assertNotNull(connector.listQuestions("1; DROP TABLE lime_users").getErrorMessage());
+    }
+
+    @Test
+    public void testTokens() {
+        final ListSurveyTokensResponse response = connector.listSurveyTokens("123456");
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getTokens().size(), 3);
+        Assert.assertEquals(response.getTokens().get(1).getToken(), "token2");
+        Assert.assertEquals(response.getTokens().get(1).getCompleted(), "N");
+        Assert.assertNotNull(connector.listSurveyTokens("654321").getErrorMessage());
+    }
+
+    @Test
+    public void testAnswers() throws Exception {
+        final List<AnswerDetails> answers = connector.listAnswers("123456").getAnswers();
+        Assert.assertEquals(answers.size(), 2);
+        final AnswerDetails answer = answers.get(0);
+        Assert.assertEquals(answer.getId(), "1");
+        Assert.assertEquals(answer.getToken(), "token1");
+        Assert.assertEquals(answer.getSubmitDate(), "2017-05-02 10:00:00");
+        Assert.assertEquals(answer.getStartLanguage(), "en");
+        Assert.assertEquals(answer.getAnswers().size(), 4);
+        Assert.assertEquals(answer.getAnswers().get("Q1"), "A1");
+        Assert.assertEquals(answer.getAnswers().get("Q2[SQ001]"), "A2");
+        Assert.assertEquals(answer.getAnswers().get("Q2[SQ002]"), "A3");
+        Assert.assertEquals(answer.getAnswers().get("Q2[other]"), "free text");
+        Assert.assertNull(answers.get(1).getSubmitDate());
+        Assert.assertEquals(connector.getAnswersRevision("123456"), "2/1/2");
+        final List<AnswerDetails> delta = new ArrayList<>();
+        connector.exportAnswers("123456", 2, delta::add);
+        Assert.assertEquals(delta.size(), 1);
+        Assert.assertEquals(delta.get(0).getId(), "2");
+    }
+
+    @Test
+    public void testAnswersForTokens() throws Exception {
+        final List<AnswerDetails> answers = connector.listAnswers("123456",
+                Arrays.asList("token2", "token3", "token1", "token2")).getAnswers();
+        Assert.assertEquals(answers.size(), 2);
+        Assert.assertEquals(answers.get(0).getToken(), "token2");
+        Assert.assertEquals(answers.get(1).getToken(), "token1");
+        Assert.assertTrue(connector.listAnswers("123456", Collections.emptyList()).getAnswers().isEmpty());
+    }
+
+    @Test(expectedExceptions = SurveySystemConnectorException.class)
+    public void testAnswersInactive() throws Exception {
+        connector.listAnswers("654321");
+    }
+
+    @Test
+    public void testWritesDelegated() throws Exception {
+        Mockito.when(writeConnector.generateTokens("123456", 2)).thenReturn(Arrays.asList("a", "b"));
+        Assert.assertEquals(connector.generateTokens("123456", 2), Arrays.asList("a", "b"));
+        connector.listUsers();
+        Mockito.verify(writeConnector).listUsers();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.CallPriority;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link AdaptiveLimiter}.
+ */
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void testIncreaseWhenSaturated() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter();
+        limiter.setInitialLimit(1);
+        limiter.setMaxLimit(2);
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        Assert.assertFalse(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        Assert.assertEquals(limiter.getLimit(), 2);
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        Assert.assertFalse(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        Assert.assertEquals(limiter.getLimit(), 2);
+        Assert.assertEquals(limiter.getTimeoutCount(), 2);
+        Assert.assertEquals(limiter.getInFlight(), 0);
+    }
+
+    @Test
+    public void testDecreaseWhenSlowOrFailed() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter();
+        limiter.setInitialLimit(10);
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        Assert.assertEquals(limiter.getLimit(), 10);
+        Assert.assertEquals(limiter.getBaselineNanos(), TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+        Assert.assertEquals(limiter.getLimit(), 9);
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        Assert.assertEquals(limiter.getLimit(), 8);
+    }
+
+    @Test
+    public void testBaselinePerMethod() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter();
+        limiter.setInitialLimit(10);
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+            limiter.release("get_session_key", TimeUnit.MILLISECONDS.toNanos(10), false);
+            Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+            limiter.release("export_responses", TimeUnit.MILLISECONDS.toNanos(500), false);
+        }
+        Assert.assertEquals(limiter.getLimit(), 10);
+        Assert.assertEquals(limiter.getBaselineNanos("get_session_key"), TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertEquals(limiter.getBaselineNanos("export_responses"), TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        limiter.release("export_responses", TimeUnit.MILLISECONDS.toNanos(1500), false);
+        Assert.assertEquals(limiter.getLimit(), 9);
+    }
+
+    @Test
+    public void testInteractiveOvertakesBackground() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter();
+        limiter.setInitialLimit(1);
+        limiter.setMaxLimit(1);
+        Assert.assertTrue(limiter.acquire(CallPriority.INTERACTIVE, 0));
+        final List<CallPriority> order = new CopyOnWriteArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> background = executor.submit(() -> acquireAndRelease(limiter, CallPriority.BACKGROUND,
+                    order));
+            waitForWaiting(limiter, CallPriority.BACKGROUND);
+            final Future<?> interactive = executor.submit(() -> acquireAndRelease(limiter, CallPriority.INTERACTIVE,
+                    order));
+            waitForWaiting(limiter, CallPriority.INTERACTIVE);
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+            background.get(5, TimeUnit.SECONDS);
+            interactive.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(order.get(0), CallPriority.INTERACTIVE);
+        Assert.assertEquals(order.get(1), CallPriority.BACKGROUND);
+    }
+
+    /**
+     * Acquires a slot, records the priority and releases the slot.
+     * @param limiter The limiter.
+     * @param priority The priority.
+     * @param order The list for the recorded priorities.
+     * @return True if the slot was acquired.
+     * @throws InterruptedException If interrupted.
+     */
+    protected static boolean acquireAndRelease(final AdaptiveLimiter limiter, final CallPriority priority,
+            final List<CallPriority> order) throws InterruptedException {
+        if (!limiter.acquire(priority, 5000)) {
+            return false;
+        }
+        order.add(priority);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        return true;
+    }
+
+    /**
+     * Waits until a call with the given priority is waiting for a slot.
+     * @param limiter The limiter.
+     * @param priority The priority.
+     * @throws InterruptedException If interrupted.
+     */
+    protected static void waitForWaiting(final AdaptiveLimiter limiter, final CallPriority priority)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (limiter.getWaiting(priority) == 0) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "No waiting " + priority + " call");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.geant.sat.api.CallPriority;
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LimeCallGuard} and {@link CircuitBreaker}.
+ */
+public class LimeCallGuardTest {
+
+    /** The current time for the guard to be tested. */
+    private AtomicLong now;
+
+    /** The guard to be tested. */
+    private LimeCallGuard guard;
+
+    @BeforeMethod
+    public void initTests() {
+        now = new AtomicLong(1000000L);
+        guard = new LimeCallGuard() {
+            @Override
+            protected long currentTimeMillis() {
+                return now.get();
+            }
+
+            @Override
+            protected void sleep(final long millis) {
+                // no delays in the tests
+            }
+        };
+        guard.setFailureThreshold(3);
+        guard.setOpenDuration(1000);
+    }
+
+    @Test
+    public void testRetryIdempotent() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final String result = guard.execute("list_surveys", progress -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new SurveySystemConnectorException("mock");
+            }
+            return "ok";
+        });
+        Assert.assertEquals(result, "ok");
+        Assert.assertEquals(calls.get(), 3);
+        Assert.assertEquals(guard.getRetryCount(), 2);
+        Assert.assertEquals(guard.getCircuitBreaker("list_surveys").getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testNoRetry() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        assertFails("add_participants", calls, false);
+        Assert.assertEquals(calls.get(), 1);
+        assertFails("export_responses", calls, true);
+        Assert.assertEquals(calls.get(), 2);
+        Assert.assertEquals(guard.getRetryCount(), 0);
+    }
+
+    @Test
+    public void testCircuitOpensAndRecovers() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        guard.setMaxRetries(0);
+        for (int i = 0; i < 3; i++) {
+            assertFails("list_users", calls, false);
+        }
+        final CircuitBreaker circuitBreaker = guard.getCircuitBreaker("list_users");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        try {
+            guard.execute("list_users", progress -> "ok");
+            Assert.fail("The call should have been rejected");
+        } catch (CallRejectedException e) {
+            Assert.assertEquals(circuitBreaker.getRejectionCount(), 1);
+        }
+        Assert.assertEquals(guard.execute("list_surveys", progress -> "other"), "other");
+        now.addAndGet(1000);
+        assertFails("list_users", calls, false);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertEquals(circuitBreaker.getOpenCount(), 2);
+        now.addAndGet(1000);
+        Assert.assertEquals(guard.execute("list_users", progress -> "ok"), "ok");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testUncheckedFailureInHalfOpenTrial() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        guard.setMaxRetries(0);
+        for (int i = 0; i < 3; i++) {
+            assertFails("export_responses", calls, false);
+        }
+        final CircuitBreaker circuitBreaker = guard.getCircuitBreaker("export_responses");
+        now.addAndGet(1000);
+        try {
+            guard.execute("export_responses", progress -> {
+                throw new IllegalStateException("mock");
+            });
+            Assert.fail("The exception should have been thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "mock");
+        }
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertEquals(circuitBreaker.getFailureCount(), 4);
+        Assert.assertEquals(guard.getActiveCalls(), 0);
+        now.addAndGet(1000);
+        Assert.assertEquals(guard.execute("export_responses", progress -> "ok"), "ok");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testRetriesCountedAsOneFailure() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        assertFails("list_users", calls, false);
+        Assert.assertEquals(calls.get(), 3);
+        final CircuitBreaker circuitBreaker = guard.getCircuitBreaker("list_users");
+        Assert.assertEquals(circuitBreaker.getFailureCount(), 1);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertFails("list_users", calls, false);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertFails("list_users", calls, false);
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertEquals(calls.get(), 9);
+    }
+
+    @Test
+    public void testUncheckedFailureInHandler() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            try {
+                guard.execute("export_responses", progress -> {
+                    progress.markResponseStarted();
+                    throw new NumberFormatException("mock");
+                });
+                Assert.fail("The exception should have been thrown");
+            } catch (NumberFormatException e) {
+                Assert.assertEquals(e.getMessage(), "mock");
+            }
+        }
+        final CircuitBreaker circuitBreaker = guard.getCircuitBreaker("export_responses");
+        Assert.assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        Assert.assertEquals(circuitBreaker.getFailureCount(), 0);
+        Assert.assertEquals(guard.getActiveCalls(), 0);
+        Assert.assertEquals(guard.getRetryCount(), 0);
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        guard.setMaxConcurrentCalls(1);
+        guard.setMaxWait(0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> slow = executor.submit(() -> guard.execute("list_surveys", progress -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(guard.getActiveCalls(), 1);
+            try {
+                guard.execute("list_questions", progress -> "fast");
+                Assert.fail("The call should have been rejected");
+            } catch (CallRejectedException e) {
+                Assert.assertEquals(guard.getBulkheadRejections(), 1);
+            }
+            release.countDown();
+            Assert.assertEquals(slow.get(5, TimeUnit.SECONDS), "slow");
+            Assert.assertEquals(guard.execute("list_questions", progress -> "fast"), "fast");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackgroundCallOvertaken() throws Exception {
+        guard.setMaxConcurrentCalls(1);
+        guard.getLimiter().setInitialLimit(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Future<String> slow = executor.submit(() -> guard.execute("list_surveys", progress -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            final Future<String> background = executor.submit(() -> {
+                final CallPriority previous = CallPriority.enter(CallPriority.BACKGROUND);
+                try {
+                    return guard.execute("export_responses", progress -> {
+                        order.add("background");
+                        return "background";
+                    });
+                } finally {
+                    CallPriority.restore(previous);
+                }
+            });
+            AdaptiveLimiterTest.waitForWaiting(guard.getLimiter(), CallPriority.BACKGROUND);
+            final Future<String> interactive = executor.submit(() -> guard.execute("list_questions", progress -> {
+                order.add("interactive");
+                return "interactive";
+            }));
+            AdaptiveLimiterTest.waitForWaiting(guard.getLimiter(), CallPriority.INTERACTIVE);
+            release.countDown();
+            Assert.assertEquals(slow.get(5, TimeUnit.SECONDS), "slow");
+            Assert.assertEquals(interactive.get(5, TimeUnit.SECONDS), "interactive");
+            Assert.assertEquals(background.get(5, TimeUnit.SECONDS), "background");
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(order, Arrays.asList("interactive", "background"));
+        Assert.assertEquals(CallPriority.current(), CallPriority.INTERACTIVE);
+    }
+
+    /**
+     * Executes a failing call and checks that it fails.
+     * @param method The Limesurvey method.
+     * @param calls The counter for the calls.
+     * @param responseStarted Whether the call fails after its response has started.
+     */
+    protected void assertFails(final String method, final AtomicInteger calls, final boolean responseStarted) {
+        try {
+            guard.execute(method, progress -> {
+                calls.incrementAndGet();
+                if (responseStarted) {
+                    progress.markResponseStarted();
+                }
+                throw new SurveySystemConnectorException("mock");
+            });
+            Assert.fail("The call should have failed");
+        } catch (SurveySystemConnectorException e) {
+            Assert.assertFalse(e instanceof CallRejectedException);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.File;
+import java.io.StringReader;
+
+import org.apache.commons.io.FileUtils;
+import org.geant.sat.api.dto.lime.ListParticipantsResponse;
+import org.geant.sat.api.dto.lime.ListSurveysResponse;
+import org.geant.sat.api.dto.lime.StringResultResponse;
+import org.geant.sat.api.dto.lime.SurveyPropertiesResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Unit tests for {@link LimeResponseTypeAdapterFactory}.
+ */
+public class LimeResponseTypeAdapterFactoryTest {
+
+    public static final String JSON_FILE_DIRECTORY = "src/test/resources/org/geant/sat/api/";
+
+    private final Gson gson = LimeResponseTypeAdapterFactory.buildGson();
+
+    @Test
+    public void testArrayResult() throws Exception {
+        ListSurveysResponse response = gson.fromJson(readFile("listSurveys.json"), ListSurveysResponse.class);
+        Assert.assertNull(response.getStatusMessage());
+        Assert.assertNull(response.getErrorMessage());
+        Assert.assertEquals(response.getSurveys().length, 1);
+        Assert.assertEquals(response.getSurveys()[0].getSid(), "245629");
+    }
+
+    @Test
+    public void testObjectResult() throws Exception {
+        SurveyPropertiesResponse response = gson.fromJson(readFile("surveyProperties.json"), 
+                SurveyPropertiesResponse.class);
+        Assert.assertNull(response.getStatusMessage());
+        Assert.assertNotNull(response.getOverview().getOwnerId());
+    }
+
+    @Test
+    public void testStringResult() throws Exception {
+        StringResultResponse response = gson.fromJson("{\"id\":1,\"result\":\"key\",\"error\":null}", 
+                StringResultResponse.class);
+        Assert.assertEquals(response.getStringValue(), "key");
+        Assert.assertEquals(response.getId(), "1");
+    }
+
+    @Test
+    public void testStatusResult() throws Exception {
+        ListParticipantsResponse response = gson.fromJson(new StringReader(readFile("noParticipants.json")), 
+                ListParticipantsResponse.class);
+        Assert.assertEquals(response.getStatusMessage(), "No survey participants found.");
+        Assert.assertEquals(response.getErrorMessage(), "No survey participants found.");
+        Assert.assertTrue(response.getParticipants().isEmpty());
+        StringResultResponse stringResponse = gson.fromJson(readFile("invalidSessionKey.json"), 
+                StringResultResponse.class);
+        Assert.assertEquals(stringResponse.getStatusMessage(), "Invalid session key");
+        Assert.assertNull(stringResponse.getStringValue());
+    }
+
+    @Test
+    public void testErrorObject() throws Exception {
+        StringResultResponse response = gson.fromJson(
+                "{\"id\":1,\"result\":null,\"error\":{\"code\":-32600,\"message\":\"Invalid request\"}}", 
+                StringResultResponse.class);
+        Assert.assertNull(response.getStringValue());
+        Assert.assertTrue(response.getErrorMessage().contains("Invalid request"));
+    }
+
+    protected String readFile(String name) throws Exception {
+        return FileUtils.readFileToString(new File(JSON_FILE_DIRECTORY + name), "UTF-8");
+    }
+}
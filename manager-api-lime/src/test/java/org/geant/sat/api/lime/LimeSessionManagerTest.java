@@ -0,0 +1,174 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.lime.LimeSessionManager.SessionKeyProvider;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link LimeSessionManager}.
+ */
+public class LimeSessionManagerTest {
+
+    @Test
+    public void testObtainOnce() throws Exception {
+        CountingProvider provider = new CountingProvider(0);
+        LimeSessionManager manager = new LimeSessionManager(provider);
+        Assert.assertNull(manager.peekSessionKey());
+        Assert.assertEquals(manager.getSessionKey(), "key1");
+        Assert.assertEquals(manager.getSessionKey(), "key1");
+        Assert.assertEquals(provider.obtained.get(), 1);
+        Assert.assertEquals(manager.getRefreshCount(), 1);
+    }
+
+    @Test
+    public void testConcurrentRenewal() throws Exception {
+        CountingProvider provider = new CountingProvider(200);
+        final LimeSessionManager manager = new LimeSessionManager(provider);
+        Assert.assertEquals(manager.getSessionKey(), "key1");
+        final long rejectedAt = System.nanoTime();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    start.await();
+                    return manager.renewSessionKey(rejectedAt);
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            Assert.assertEquals(future.get(), "key2");
+        }
+        executor.shutdown();
+        Assert.assertEquals(provider.obtained.get(), 2);
+        Assert.assertEquals(manager.getRefreshCount(), 2);
+        Assert.assertTrue(manager.getLastRefreshMillis() >= 200);
+    }
+
+    @Test
+    public void testRenewalAfterRequestStarted() throws Exception {
+        CountingProvider provider = new CountingProvider(0);
+        LimeSessionManager manager = new LimeSessionManager(provider);
+        long requestStarted = System.nanoTime();
+        Assert.assertEquals(manager.getSessionKey(), "key1");
+        // the key was obtained after the rejected request started, so it's not renewed
+        Assert.assertEquals(manager.renewSessionKey(requestStarted), "key1");
+        Assert.assertEquals(manager.renewSessionKey(), "key2");
+    }
+
+    @Test
+    public void testProactiveRenewal() throws Exception {
+        CountingProvider provider = new CountingProvider(0);
+        LimeSessionManager manager = new LimeSessionManager(provider);
+        manager.setMaxKeyAge(1);
+        Assert.assertEquals(manager.getSessionKey(), "key1");
+        Thread.sleep(5);
+        Assert.assertEquals(manager.getSessionKey(), "key2");
+        Assert.assertEquals(manager.getProactiveRenewals(), 1);
+    }
+
+    @Test
+    public void testFailedRefresh() throws Exception {
+        CountingProvider provider = new CountingProvider(0);
+        provider.fail = true;
+        LimeSessionManager manager = new LimeSessionManager(provider);
+        try {
+            manager.getSessionKey();
+            Assert.fail("Expected an exception");
+        } catch (SurveySystemConnectorException e) {
+            Assert.assertEquals(e.getMessage(), "Invalid user name or password");
+        }
+        Assert.assertEquals(manager.getRefreshFailures(), 1);
+        provider.fail = false;
+        Assert.assertEquals(manager.getSessionKey(), "key2");
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        CountingProvider provider = new CountingProvider(0);
+        LimeSessionManager manager = new LimeSessionManager(provider);
+        manager.release();
+        Assert.assertNull(provider.released);
+        manager.getSessionKey();
+        manager.release();
+        Assert.assertEquals(provider.released, "key1");
+        Assert.assertNull(manager.peekSessionKey());
+    }
+
+    /**
+     * Provider returning numbered keys after the given delay.
+     */
+    static class CountingProvider implements SessionKeyProvider {
+
+        final AtomicInteger obtained = new AtomicInteger();
+
+        final long delay;
+
+        volatile boolean fail;
+
+        volatile String released;
+
+        CountingProvider(long delayMillis) {
+            delay = delayMillis;
+        }
+
+        @Override
+        public String obtainSessionKey() throws SurveySystemConnectorException {
+            int count = obtained.incrementAndGet();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw new SurveySystemConnectorException(e);
+            }
+            if (fail) {
+                throw new SurveySystemConnectorException("Invalid user name or password");
+            }
+            return "key" + count;
+        }
+
+        @Override
+        public void releaseSessionKey(String key) {
+            released = key;
+        }
+    }
+}
@@ -0,0 +1,632 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.geant.sat.api.lime.SyntheticSurveyData.Participant;
+import org.geant.sat.api.lime.SyntheticSurveyData.Survey;
+import org.simpleframework.http.Request;
+import org.simpleframework.http.Response;
+import org.simpleframework.http.Status;
+import org.simpleframework.http.core.Container;
+import org.simpleframework.http.core.ContainerSocketProcessor;
+import org.simpleframework.transport.connect.Connection;
+import org.simpleframework.transport.connect.SocketConnection;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * An in-process stand-in for the Limesurvey RemoteControl JSON-RPC API, serving {@link SyntheticSurveyData} over
+ * HTTP. It supports the session key methods, list_surveys, list_users, get_survey_properties, list_questions,
+ * list_participants, add_participants, get_summary, export_responses, export_responses_by_token, activate_survey,
+ * set_survey_properties and JSON-RPC batches. The latency, session key lifetime and error injection can be changed
+ * while the server is running, so it can be used by the connector tests as well as load and latency tests.
+ */
+public class LimeStandInServer implements Container, AutoCloseable {
+
+    /** The path of the RemoteControl endpoint. */
+    public static final String PATH = "/index.php/admin/remotecontrol";
+
+    /** The default amount of threads serving the requests. */
+    public static final int DEFAULT_THREADS = 16;
+
+    /** The status for an invalid session key. */
+    public static final String STATUS_INVALID_SESSION_KEY = "Invalid session key";
+
+    /** The error message for the injected JSON-RPC errors. */
+    public static final String INJECTED_ERROR = "Injected error";
+
+    /** The data served by the stand-in. */
+    private final SyntheticSurveyData data;
+
+    /** The valid session keys and their issue times. */
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+    /** The amount of calls per method. */
+    private final Map<String, AtomicLong> callCounts = new ConcurrentHashMap<>();
+
+    /** The recorded request contents. */
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    /** The amount of HTTP requests. */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /** The amount of injected errors. */
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /** The amount of threads serving the requests. */
+    private int threads = DEFAULT_THREADS;
+
+    /** The socket connection, when started. */
+    private Connection connection;
+
+    /** The local port, when started. */
+    private int port;
+
+    /** The fixed latency added to each HTTP request, in milliseconds. */
+    private volatile long latency;
+
+    /** The maximum random latency added on top of the fixed latency, in milliseconds. */
+    private volatile long latencyJitter;
+
+    /** The share of the HTTP requests failed on purpose. */
+    private volatile double errorRate;
+
+    /** The HTTP status for the injected errors, or 200 for JSON-RPC errors. */
+    private volatile int errorStatus = Status.SERVICE_UNAVAILABLE.getCode();
+
+    /** The lifetime of the session keys in milliseconds, zero or negative for no expiration. */
+    private volatile long sessionKeyLifetime;
+
+    /** Whether the JSON-RPC batches are accepted. */
+    private volatile boolean acceptBatches = true;
+
+    /** Whether the request contents are recorded. */
+    private volatile boolean recordRequests;
+
+    /**
+     * Constructor.
+     * @param surveyData The data served by the stand-in.
+     */
+    public LimeStandInServer(final SyntheticSurveyData surveyData) {
+        data = surveyData;
+    }
+
+    /**
+     * Set the amount of threads serving the requests. Applied when the server is started.
+     * @param count What to set.
+     */
+    public void setThreads(final int count) {
+        threads = count;
+    }
+
+    /**
+     * Set the fixed latency added to each HTTP request.
+     * @param millis What to set, in milliseconds.
+     */
+    public void setLatency(final long millis) {
+        latency = millis;
+    }
+
+    /**
+     * Set the maximum random latency added on top of the fixed latency.
+     * @param millis What to set, in milliseconds.
+     */
+    public void setLatencyJitter(final long millis) {
+        latencyJitter = millis;
+    }
+
+    /**
+     * Set the share of the HTTP requests failed on purpose.
+     * @param rate What to set, between 0 and 1.
+     */
+    public void setErrorRate(final double rate) {
+        errorRate = rate;
+    }
+
+    /**
+     * Set the HTTP status for the injected errors. With 200, the injected errors are JSON-RPC errors.
+     * @param status What to set.
+     */
+    public void setErrorStatus(final int status) {
+        errorStatus = status;
+    }
+
+    /**
+     * Set the lifetime of the session keys.
+     * @param millis What to set, in milliseconds, zero or negative for no expiration.
+     */
+    public void setSessionKeyLifetime(final long millis) {
+        sessionKeyLifetime = millis;
+    }
+
+    /**
+     * Set whether the JSON-RPC batches are accepted.
+     * @param accept What to set.
+     */
+    public void setAcceptBatches(final boolean accept) {
+        acceptBatches = accept;
+    }
+
+    /**
+     * Set whether the request contents are recorded.
+     * @param record What to set.
+     */
+    public void setRecordRequests(final boolean record) {
+        recordRequests = record;
+    }
+
+    /**
+     * Get the data served by the stand-in.
+     * @return The data served by the stand-in.
+     */
+    public SyntheticSurveyData getData() {
+        return data;
+    }
+
+    /**
+     * Get the recorded request contents.
+     * @return The recorded request contents.
+     */
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get the amount of HTTP requests.
+     * @return The amount of HTTP requests.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Get the amount of calls to the given method, including the calls in batches.
+     * @param method The method.
+     * @return The amount of calls.
+     */
+    public long getCallCount(final String method) {
+        final AtomicLong count = callCounts.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Get the amount of injected errors.
+     * @return The amount of injected errors.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * Invalidates all the issued session keys.
+     */
+    public void expireSessions() {
+        sessions.clear();
+    }
+
+    /**
+     * Starts the server on a free local port.
+     * @return This server.
+     * @throws IOException If the server cannot be started.
+     */
+    public synchronized LimeStandInServer start() throws IOException {
+        connection = new SocketConnection(new ContainerSocketProcessor(this, threads));
+        port = ((InetSocketAddress) connection.connect(new InetSocketAddress("localhost", 0))).getPort();
+        return this;
+    }
+
+    /**
+     * Get the RemoteControl endpoint URL.
+     * @return The endpoint URL.
+     */
+    public synchronized String getEndpoint() {
+        return "http://localhost:" + port + PATH;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void close() throws IOException {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(final Request request, final Response response) {
+        try (final OutputStream body = response.getOutputStream()) {
+            final String content = request.getContent();
+            requestCount.incrementAndGet();
+            if (recordRequests) {
+                requests.add(content);
+            }
+            delay();
+            final JsonElement element = new JsonParser().parse(content);
+            final boolean fail = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+            if (fail && errorStatus != Status.OK.getCode()) {
+                errorCount.incrementAndGet();
+                response.setStatus(Status.getStatus(errorStatus));
+                return;
+            }
+            response.setValue("Content-Type", "application/json");
+            response.setStatus(Status.OK);
+            final Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            if (fail) {
+                errorCount.incrementAndGet();
+                writeError(out, element.isJsonObject() ? element.getAsJsonObject().get("id") : null, INJECTED_ERROR);
+            } else if (element.isJsonArray()) {
+                if (acceptBatches) {
+                    // respond in reverse order, the client must demultiplex by the identifiers
+                    out.write('[');
+                    for (int i = element.getAsJsonArray().size() - 1; i >= 0; i--) {
+                        respond(element.getAsJsonArray().get(i).getAsJsonObject(), out);
+                        out.write(i > 0 ? "," : "");
+                    }
+                    out.write(']');
+                } else {
+                    writeError(out, null, "Request error");
+                }
+            } else {
+                respond(element.getAsJsonObject(), out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits for the configured latency.
+     */
+    protected void delay() {
+        final long jitter = latencyJitter;
+        final long millis = latency + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes the response for one JSON-RPC call.
+     * @param call The call.
+     * @param out Where to write.
+     * @throws IOException If the response cannot be written.
+     */
+    protected void respond(final JsonObject call, final Writer out) throws IOException {
+        final JsonElement id = call.get("id");
+        final String method = call.get("method").getAsString();
+        final JsonArray params = call.getAsJsonArray("params");
+        callCounts.computeIfAbsent(method, key -> new AtomicLong()).incrementAndGet();
+        if ("get_session_key".equals(method)) {
+            final String key = UUID.randomUUID().toString().replace("-", "");
+            sessions.put(key, System.currentTimeMillis());
+            writeResult(out, id, new JsonParser().parse("\"" + key + "\""));
+            return;
+        }
+        if ("release_session_key".equals(method)) {
+            sessions.remove(params.get(0).getAsString());
+            writeResult(out, id, new JsonParser().parse("\"OK\""));
+            return;
+        }
+        if (!isValidSession(params.get(0).getAsString())) {
+            writeResult(out, id, status(STATUS_INVALID_SESSION_KEY));
+            return;
+        }
+        if ("list_surveys".equals(method)) {
+            writeResult(out, id, listSurveys());
+        } else if ("list_users".equals(method)) {
+            writeResult(out, id, listUsers());
+        } else if ("export_responses".equals(method) || "export_responses_by_token".equals(method)) {
+            exportResponses(method, params, id, out);
+        } else {
+            final Survey survey = params.size() > 1 ? data.getSurvey(params.get(1).getAsString()) : null;
+            if (survey == null) {
+                writeResult(out, id, status("Error: Invalid survey ID"));
+            } else {
+                writeResult(out, id, respond(method, survey, params));
+            }
+        }
+    }
+
+    /**
+     * Builds the result for a survey-specific call.
+     * @param method The method.
+     * @param survey The survey.
+     * @param params The call parameters.
+     * @return The result.
+     */
+    protected JsonElement respond(final String method, final Survey survey, final JsonArray params) {
+        switch (method) {
+            case "get_survey_properties":
+                final JsonObject properties = new JsonObject();
+                properties.addProperty("owner_id", String.valueOf(survey.getOwnerUid()));
+                properties.addProperty("admin", data.getUsername(survey.getOwnerUid()));
+                return properties;
+            case "list_questions":
+                return listQuestions(survey);
+            case "list_participants":
+                return listParticipants(survey, params.get(2).getAsInt(), params.get(3).getAsInt());
+            case "add_participants":
+                return addParticipants(survey, params.get(2).getAsJsonArray().size());
+            case "get_summary":
+                final JsonObject summary = new JsonObject();
+                summary.addProperty("completed_responses", String.valueOf(survey.getCompletedResponses()));
+                summary.addProperty("incomplete_responses",
+                        String.valueOf(survey.getResponses() - survey.getCompletedResponses()));
+                summary.addProperty("full_responses", String.valueOf(survey.getResponses()));
+                return summary;
+            case "activate_survey":
+                survey.setActive(true);
+                return status("OK");
+            case "set_survey_properties":
+                final JsonElement expires = params.get(2).getAsJsonObject().get("expires");
+                survey.setActive(expires == null || expires.isJsonNull());
+                return status("OK");
+            default:
+                return status("Error: Unsupported method " + method);
+        }
+    }
+
+    /**
+     * Checks whether the given session key is valid.
+     * @param key The session key.
+     * @return True if valid, false otherwise.
+     */
+    protected boolean isValidSession(final String key) {
+        final Long issued = sessions.get(key);
+        if (issued == null) {
+            return false;
+        }
+        final long lifetime = sessionKeyLifetime;
+        if (lifetime > 0 && System.currentTimeMillis() - issued > lifetime) {
+            sessions.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds the list_surveys result.
+     * @return The result.
+     */
+    protected JsonElement listSurveys() {
+        final JsonArray result = new JsonArray();
+        for (final Survey survey : data.getSurveys()) {
+            final JsonObject overview = new JsonObject();
+            overview.addProperty("sid", survey.getSid());
+            overview.addProperty("surveyls_title", survey.getTitle());
+            overview.add("startdate", JsonNull.INSTANCE);
+            overview.addProperty("expires", survey.isActive() ? null : "2017-01-01 00:00:00");
+            overview.addProperty("active", "Y");
+            result.add(overview);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the list_users result. The first user is a superadmin.
+     * @return The result.
+     */
+    protected JsonElement listUsers() {
+        final JsonArray result = new JsonArray();
+        for (int uid = 1; uid <= data.getUserCount(); uid++) {
+            final JsonObject user = new JsonObject();
+            user.addProperty("uid", String.valueOf(uid));
+            user.addProperty("users_name", data.getUsername(uid));
+            user.addProperty("full_name", "User " + uid);
+            user.addProperty("email", data.getUsername(uid));
+            user.addProperty("lang", "auto");
+            final JsonArray permissions = new JsonArray();
+            if (uid == 1) {
+                final JsonObject permission = new JsonObject();
+                permission.addProperty("entity", "global");
+                permission.addProperty("entity_id", "0");
+                permission.addProperty("uid", "1");
+                permission.addProperty("permission", "superadmin");
+                permission.addProperty("read_p", "1");
+                permissions.add(permission);
+            }
+            user.add("permissions", permissions);
+            result.add(user);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the list_questions result.
+     * @param survey The survey.
+     * @return The result.
+     */
+    protected JsonElement listQuestions(final Survey survey) {
+        final JsonArray result = new JsonArray();
+        for (int q = 1; q <= data.getQuestionCount(); q++) {
+            final JsonObject question = new JsonObject();
+            question.addProperty("qid", String.valueOf(q));
+            question.addProperty("parent_qid", "0");
+            question.addProperty("sid", survey.getSid());
+            question.addProperty("gid", "1");
+            question.addProperty("type", "T");
+            question.addProperty("title", "Q" + q);
+            question.addProperty("question", "Question " + q);
+            question.addProperty("mandatory", q == 1 ? "Y" : "N");
+            question.addProperty("question_order", String.valueOf(q));
+            question.addProperty("language", "en");
+            result.add(question);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the list_participants result for one page.
+     * @param survey The survey.
+     * @param start The index of the first participant.
+     * @param limit The maximum amount of participants.
+     * @return The result.
+     */
+    protected JsonElement listParticipants(final Survey survey, final int start, final int limit) {
+        final List<Participant> participants = survey.getParticipants();
+        if (start >= participants.size()) {
+            return status("No survey participants found.");
+        }
+        final JsonArray result = new JsonArray();
+        for (int i = start; i < Math.min(participants.size(), start + limit); i++) {
+            final JsonObject overview = new JsonObject();
+            overview.addProperty("tid", String.valueOf(i + 1));
+            overview.addProperty("token", participants.get(i).getToken());
+            overview.addProperty("completed", participants.get(i).isCompleted() ? "2017-05-02 10:00" : "N");
+            final JsonObject info = new JsonObject();
+            info.addProperty("firstname", "Managed by SAT");
+            info.addProperty("lastname", "Managed by SAT");
+            info.addProperty("email", "noreply@invalid.org");
+            overview.add("participant_info", info);
+            result.add(overview);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the add_participants result, adding the participants to the data.
+     * @param survey The survey.
+     * @param count The amount of participants.
+     * @return The result.
+     */
+    protected JsonElement addParticipants(final Survey survey, final int count) {
+        final JsonArray result = new JsonArray();
+        for (final Participant participant : data.addParticipants(survey, count)) {
+            final JsonObject details = new JsonObject();
+            details.addProperty("token", participant.getToken());
+            details.addProperty("completed", "N");
+            details.addProperty("emailstatus", "OK");
+            result.add(details);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the export_responses or export_responses_by_token response. The CSV is generated and base64-encoded
+     * while it is written.
+     * @param method The method.
+     * @param params The call parameters.
+     * @param id The call identifier.
+     * @param out Where to write.
+     * @throws IOException If the response cannot be written.
+     */
+    protected void exportResponses(final String method, final JsonArray params, final JsonElement id,
+            final Writer out) throws IOException {
+        final Survey survey = data.getSurvey(params.get(1).getAsString());
+        if (survey == null) {
+            writeResult(out, id, status("Error: Invalid survey ID"));
+            return;
+        }
+        final String token = "export_responses_by_token".equals(method) ? params.get(3).getAsString() : null;
+        final long fromId = token == null && params.size() > 7 ? params.get(7).getAsLong() : 1;
+        final long toId = token == null && params.size() > 8 ? params.get(8).getAsLong() : Long.MAX_VALUE;
+        // an empty export is answered with a status instead of an empty file
+        if (data.countResponses(survey, fromId, toId, token) == 0) {
+            writeResult(out, id, status("No Response found"));
+            return;
+        }
+        out.write("{\"id\":" + id + ",\"result\":\"");
+        out.flush();
+        final Writer csv = new OutputStreamWriter(new Base64OutputStream(
+                new CloseShieldOutputStream(new WriterOutputStream(out, StandardCharsets.US_ASCII)), true, -1,
+                null), StandardCharsets.UTF_8);
+        data.writeResponses(survey, fromId, toId, token, csv);
+        csv.close();
+        out.write("\",\"error\":null}");
+    }
+
+    /**
+     * Writes a successful JSON-RPC response.
+     * @param out Where to write.
+     * @param id The call identifier.
+     * @param result The result.
+     * @throws IOException If the response cannot be written.
+     */
+    protected void writeResult(final Writer out, final JsonElement id, final JsonElement result)
+            throws IOException {
+        final JsonObject response = new JsonObject();
+        response.add("id", id == null ? JsonNull.INSTANCE : id);
+        response.add("result", result);
+        response.add("error", JsonNull.INSTANCE);
+        out.write(response.toString());
+    }
+
+    /**
+     * Writes a failed JSON-RPC response.
+     * @param out Where to write.
+     * @param id The call identifier, may be null.
+     * @param error The error message.
+     * @throws IOException If the response cannot be written.
+     */
+    protected void writeError(final Writer out, final JsonElement id, final String error) throws IOException {
+        final JsonObject response = new JsonObject();
+        response.add("id", id == null ? JsonNull.INSTANCE : id);
+        response.add("result", JsonNull.INSTANCE);
+        response.addProperty("error", error);
+        out.write(response.toString());
+    }
+
+    /**
+     * Builds a status result.
+     * @param status The status.
+     * @return The result.
+     */
+    protected static JsonElement status(final String status) {
+        final JsonObject result = new JsonObject();
+        result.addProperty("status", status);
+        return result;
+    }
+}
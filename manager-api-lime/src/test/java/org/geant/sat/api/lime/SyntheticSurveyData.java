@@ -0,0 +1,537 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A deterministic synthetic data set for the Limesurvey stand-in: users, surveys, questions, participants and
+ * responses. The responses are generated on demand while they are written, so that large payloads do not need to be
+ * held in memory. The sizes are configured before the first access to the data.
+ */
+public class SyntheticSurveyData {
+
+    /** The identifier of the first survey, the rest are numbered consecutively. */
+    public static final int FIRST_SID = 100001;
+
+    /** The default amount of users. */
+    public static final int DEFAULT_USERS = 3;
+
+    /** The default amount of surveys. */
+    public static final int DEFAULT_SURVEYS = 3;
+
+    /** The default amount of questions per survey. */
+    public static final int DEFAULT_QUESTIONS = 10;
+
+    /** The default amount of participants per survey. */
+    public static final int DEFAULT_PARTICIPANTS = 100;
+
+    /** The default length of the answers, in characters. */
+    public static final int DEFAULT_ANSWER_LENGTH = 16;
+
+    /** The default share of the participants who have responded. */
+    public static final double DEFAULT_RESPONSE_RATIO = 0.8;
+
+    /** The default share of the responses which have been completed. */
+    public static final double DEFAULT_COMPLETED_RATIO = 0.75;
+
+    /** The header columns before the answer columns in the exports. */
+    public static final String EXPORT_METADATA = "\"id\",\"submitdate\",\"lastpage\",\"startlanguage\",\"token\","
+            + "\"startdate\",\"datestamp\",\"ipaddr\",\"refurl\"";
+
+    /** The characters for the generated answers. */
+    private static final String ANSWER_CHARACTERS = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ,\"";
+
+    /** The seed for the generated values. */
+    private final long seed;
+
+    /** The amount of users. */
+    private int userCount = DEFAULT_USERS;
+
+    /** The amount of surveys. */
+    private int surveyCount = DEFAULT_SURVEYS;
+
+    /** The amount of questions per survey. */
+    private int questionCount = DEFAULT_QUESTIONS;
+
+    /** The amount of participants per survey. */
+    private int participantCount = DEFAULT_PARTICIPANTS;
+
+    /** The length of the answers, in characters. */
+    private int answerLength = DEFAULT_ANSWER_LENGTH;
+
+    /** The share of the participants who have responded. */
+    private double responseRatio = DEFAULT_RESPONSE_RATIO;
+
+    /** The share of the responses which have been completed. */
+    private double completedRatio = DEFAULT_COMPLETED_RATIO;
+
+    /** The surveys by survey identifier, built on the first access. */
+    private Map<String, Survey> surveys;
+
+    /** The counter for the generated tokens. */
+    private final AtomicInteger tokenCounter = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * @param randomSeed The seed for the generated values.
+     */
+    public SyntheticSurveyData(final long randomSeed) {
+        seed = randomSeed;
+    }
+
+    /**
+     * Set the amount of users.
+     * @param count What to set.
+     */
+    public void setUserCount(final int count) {
+        userCount = count;
+    }
+
+    /**
+     * Set the amount of surveys.
+     * @param count What to set.
+     */
+    public void setSurveyCount(final int count) {
+        surveyCount = count;
+    }
+
+    /**
+     * Set the amount of questions per survey.
+     * @param count What to set.
+     */
+    public void setQuestionCount(final int count) {
+        questionCount = count;
+    }
+
+    /**
+     * Set the amount of participants per survey.
+     * @param count What to set.
+     */
+    public void setParticipantCount(final int count) {
+        participantCount = count;
+    }
+
+    /**
+     * Set the length of the answers, in characters.
+     * @param length What to set.
+     */
+    public void setAnswerLength(final int length) {
+        answerLength = length;
+    }
+
+    /**
+     * Set the share of the participants who have responded.
+     * @param ratio What to set.
+     */
+    public void setResponseRatio(final double ratio) {
+        responseRatio = ratio;
+    }
+
+    /**
+     * Set the share of the responses which have been completed.
+     * @param ratio What to set.
+     */
+    public void setCompletedRatio(final double ratio) {
+        completedRatio = ratio;
+    }
+
+    /**
+     * Get the amount of users.
+     * @return The amount of users.
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+
+    /**
+     * Get the amount of questions per survey.
+     * @return The amount of questions per survey.
+     */
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    /**
+     * Get the username of the given user.
+     * @param uid The user identifier, starting from 1.
+     * @return The username.
+     */
+    public String getUsername(final int uid) {
+        return "user" + uid + "@example.org";
+    }
+
+    /**
+     * Get all the surveys.
+     * @return The surveys in the order of their identifiers.
+     */
+    public synchronized List<Survey> getSurveys() {
+        return new ArrayList<>(getSurveyMap().values());
+    }
+
+    /**
+     * Get the given survey.
+     * @param sid The survey identifier.
+     * @return The survey, or null if it does not exist.
+     */
+    public synchronized Survey getSurvey(final String sid) {
+        return getSurveyMap().get(sid);
+    }
+
+    /**
+     * Get the surveys by survey identifier, building them if needed.
+     * @return The surveys by survey identifier.
+     */
+    protected Map<String, Survey> getSurveyMap() {
+        if (surveys == null) {
+            surveys = new LinkedHashMap<>();
+            for (int i = 0; i < surveyCount; i++) {
+                final Survey survey = new Survey(String.valueOf(FIRST_SID + i), "Survey " + (i + 1),
+                        1 + i % Math.max(1, userCount));
+                final int responses = (int) Math.round(participantCount * responseRatio);
+                final int completed = (int) Math.round(responses * completedRatio);
+                for (int p = 0; p < participantCount; p++) {
+                    survey.participants.add(new Participant(nextToken(), p < completed));
+                }
+                survey.responses = responses;
+                surveys.put(survey.getSid(), survey);
+            }
+        }
+        return surveys;
+    }
+
+    /**
+     * Adds new participants to the given survey.
+     * @param survey The survey.
+     * @param count The amount of participants.
+     * @return The added participants.
+     */
+    public List<Participant> addParticipants(final Survey survey, final int count) {
+        final List<Participant> added = new ArrayList<>(count);
+        synchronized (survey) {
+            for (int i = 0; i < count; i++) {
+                final Participant participant = new Participant(nextToken(), false);
+                survey.participants.add(participant);
+                added.add(participant);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds a new response to the given survey, for the first participant without a response.
+     * @param survey The survey.
+     * @return The identifier of the new response, or -1 if all the participants have already responded.
+     */
+    public int addResponse(final Survey survey) {
+        synchronized (survey) {
+            if (survey.responses >= survey.participants.size()) {
+                return -1;
+            }
+            return ++survey.responses;
+        }
+    }
+
+    /**
+     * Deletes the responses of the given survey in the given response identifier range, leaving a gap in the
+     * identifiers.
+     * @param survey The survey.
+     * @param fromId The smallest response identifier to be deleted, inclusive.
+     * @param toId The largest response identifier to be deleted, inclusive.
+     */
+    public void deleteResponses(final Survey survey, final int fromId, final int toId) {
+        synchronized (survey) {
+            for (int id = Math.max(1, fromId); id <= Math.min(survey.responses, toId); id++) {
+                survey.deleted.add(id);
+            }
+        }
+    }
+
+    /**
+     * Counts the responses of the given survey.
+     * @param survey The survey.
+     * @param fromId The smallest response identifier to be counted, inclusive.
+     * @param toId The largest response identifier to be counted, inclusive.
+     * @param token The token whose responses are counted, or null for all the tokens.
+     * @return The amount of responses.
+     */
+    public int countResponses(final Survey survey, final long fromId, final long toId, final String token) {
+        synchronized (survey) {
+            int count = 0;
+            for (int id = (int) Math.max(1, fromId); id <= Math.min(survey.responses, toId); id++) {
+                if (!survey.deleted.contains(id)
+                        && (token == null || token.equals(survey.participants.get(id - 1).getToken()))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Writes the responses of the given survey as Limesurvey CSV export with question code headings.
+     * @param survey The survey.
+     * @param fromId The smallest response identifier to be written, inclusive.
+     * @param toId The largest response identifier to be written, inclusive.
+     * @param token The token whose responses are written, or null for all the tokens.
+     * @param out Where to write.
+     * @return The amount of written responses.
+     * @throws IOException If the responses cannot be written.
+     */
+    public int writeResponses(final Survey survey, final long fromId, final long toId, final String token,
+            final Writer out) throws IOException {
+        final int responses;
+        final List<Participant> participants;
+        final Set<Integer> deleted;
+        synchronized (survey) {
+            responses = survey.responses;
+            participants = new ArrayList<>(survey.participants.subList(0, responses));
+            deleted = new HashSet<>(survey.deleted);
+        }
+        int written = 0;
+        for (int id = (int) Math.max(1, fromId); id <= Math.min(responses, toId); id++) {
+            final Participant participant = participants.get(id - 1);
+            if (deleted.contains(id) || (token != null && !token.equals(participant.getToken()))) {
+                continue;
+            }
+            if (written == 0) {
+                writeHeader(out);
+            }
+            writeResponse(survey, id, participant, out);
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the CSV header.
+     * @param out Where to write.
+     * @throws IOException If the header cannot be written.
+     */
+    protected void writeHeader(final Writer out) throws IOException {
+        out.write(EXPORT_METADATA);
+        for (int q = 1; q <= questionCount; q++) {
+            out.write(",\"Q" + q + "\"");
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Writes one CSV response row with generated answers.
+     * @param survey The survey.
+     * @param id The response identifier.
+     * @param participant The responding participant.
+     * @param out Where to write.
+     * @throws IOException If the row cannot be written.
+     */
+    protected void writeResponse(final Survey survey, final int id, final Participant participant,
+            final Writer out) throws IOException {
+        out.write("\"" + id + "\",\"" + (participant.isCompleted() ? "2017-05-02 10:00:00" : "") + "\",\"1\",\"en\",\""
+                + participant.getToken() + "\",\"2017-05-02 09:50:00\",\"2017-05-02 10:00:00\",\"\",\"\"");
+        final Random random = new Random(seed * 31 + Long.parseLong(survey.getSid()) * 1000003 + id);
+        final StringBuilder answer = new StringBuilder(answerLength * 2 + 3);
+        for (int q = 1; q <= questionCount; q++) {
+            answer.setLength(0);
+            answer.append(",\"");
+            for (int c = 0; c < answerLength; c++) {
+                final char character = ANSWER_CHARACTERS.charAt(random.nextInt(ANSWER_CHARACTERS.length()));
+                answer.append(character);
+                if (character == '"') {
+                    answer.append('"');
+                }
+            }
+            out.write(answer.append('"').toString());
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Generates the next token.
+     * @return The token.
+     */
+    protected String nextToken() {
+        return "tok" + seed + "x" + tokenCounter.incrementAndGet();
+    }
+
+    /**
+     * A synthetic survey.
+     */
+    public static class Survey {
+
+        /** The survey identifier. */
+        private final String sid;
+
+        /** The survey title. */
+        private final String title;
+
+        /** The owner user identifier. */
+        private final int ownerUid;
+
+        /** Whether the survey is active. */
+        private volatile boolean active = true;
+
+        /** The participants, in the order of their token identifiers. */
+        private final List<Participant> participants = new ArrayList<>();
+
+        /** The amount of response identifiers, from the first participants. */
+        private int responses;
+
+        /** The identifiers of the deleted responses. */
+        private final Set<Integer> deleted = new HashSet<>();
+
+        /**
+         * Constructor.
+         * @param surveyId The survey identifier.
+         * @param surveyTitle The survey title.
+         * @param owner The owner user identifier.
+         */
+        public Survey(final String surveyId, final String surveyTitle, final int owner) {
+            sid = surveyId;
+            title = surveyTitle;
+            ownerUid = owner;
+        }
+
+        /**
+         * Get the survey identifier.
+         * @return The survey identifier.
+         */
+        public String getSid() {
+            return sid;
+        }
+
+        /**
+         * Get the survey title.
+         * @return The survey title.
+         */
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * Get the owner user identifier.
+         * @return The owner user identifier.
+         */
+        public int getOwnerUid() {
+            return ownerUid;
+        }
+
+        /**
+         * Whether the survey is active.
+         * @return True if active, false otherwise.
+         */
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * Set whether the survey is active.
+         * @param newActive What to set.
+         */
+        public void setActive(final boolean newActive) {
+            active = newActive;
+        }
+
+        /**
+         * Get a snapshot of the participants.
+         * @return The participants, in the order of their token identifiers.
+         */
+        public synchronized List<Participant> getParticipants() {
+            return Collections.unmodifiableList(new ArrayList<>(participants));
+        }
+
+        /**
+         * Get the amount of responses.
+         * @return The amount of responses.
+         */
+        public synchronized int getResponses() {
+            return responses - deleted.size();
+        }
+
+        /**
+         * Get the amount of completed responses.
+         * @return The amount of completed responses.
+         */
+        public synchronized int getCompletedResponses() {
+            int completed = 0;
+            for (int i = 0; i < responses; i++) {
+                if (!deleted.contains(i + 1) && participants.get(i).isCompleted()) {
+                    completed++;
+                }
+            }
+            return completed;
+        }
+    }
+
+    /**
+     * A synthetic survey participant.
+     */
+    public static class Participant {
+
+        /** The token. */
+        private final String token;
+
+        /** Whether the participant has completed the survey. */
+        private final boolean completed;
+
+        /**
+         * Constructor.
+         * @param participantToken The token.
+         * @param isCompleted Whether the participant has completed the survey.
+         */
+        public Participant(final String participantToken, final boolean isCompleted) {
+            token = participantToken;
+            completed = isCompleted;
+        }
+
+        /**
+         * Get the token.
+         * @return The token.
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Whether the participant has completed the survey.
+         * @return True if completed, false otherwise.
+         */
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+CREATE TABLE lime_users (uid INT PRIMARY KEY, users_name VARCHAR(64));
+CREATE TABLE lime_surveys (sid INT PRIMARY KEY, owner_id INT, active VARCHAR(1), expires TIMESTAMP,
+    language VARCHAR(50));
+CREATE TABLE lime_surveys_languagesettings (surveyls_survey_id INT, surveyls_language VARCHAR(45),
+    surveyls_title VARCHAR(200));
+CREATE TABLE lime_questions (qid INT, parent_qid INT, sid INT, gid INT, type VARCHAR(1), title VARCHAR(20),
+    question VARCHAR(1000), mandatory VARCHAR(1), question_order INT, language VARCHAR(20),
+    PRIMARY KEY (qid, language));
+CREATE TABLE lime_tokens_123456 (tid INT PRIMARY KEY, token VARCHAR(35), completed VARCHAR(17));
+CREATE TABLE lime_survey_123456 (id INT PRIMARY KEY, token VARCHAR(35), submitdate TIMESTAMP, lastpage INT,
+    startlanguage VARCHAR(20), startdate TIMESTAMP, datestamp TIMESTAMP, "123456X1X1" VARCHAR(5),
+    "123456X1X2SQ001" VARCHAR(5), "123456X1X2SQ002" VARCHAR(5), "123456X1X2other" VARCHAR(1000));
+
+INSERT INTO lime_users VALUES (1, 'admin');
+INSERT INTO lime_surveys VALUES (123456, 1, 'Y', NULL, 'en');
+INSERT INTO lime_surveys VALUES (654321, 2, 'Y', '2017-01-01 00:00:00', 'en');
+INSERT INTO lime_surveys_languagesettings VALUES (123456, 'en', 'Self-assessment');
+INSERT INTO lime_surveys_languagesettings VALUES (123456, 'fi', 'Itsearviointi');
+INSERT INTO lime_surveys_languagesettings VALUES (654321, 'en', 'Expired');
+INSERT INTO lime_questions VALUES (1, 0, 123456, 1, 'L', 'Q1', 'First question', 'Y', 1, 'en');
+INSERT INTO lime_questions VALUES (1, 0, 123456, 1, 'L', 'Q1', 'Ensimmainen kysymys', 'Y', 1, 'fi');
+INSERT INTO lime_questions VALUES (2, 0, 123456, 1, 'F', 'Q2', 'Second question', 'N', 2, 'en');
+INSERT INTO lime_questions VALUES (3, 2, 123456, 1, 'T', 'SQ001', 'First subquestion', 'N', 1, 'en');
+INSERT INTO lime_questions VALUES (4, 2, 123456, 1, 'T', 'SQ002', 'Second subquestion', 'N', 2, 'en');
+INSERT INTO lime_tokens_123456 VALUES (1, 'token1', '2017-05-02 10:00');
+INSERT INTO lime_tokens_123456 VALUES (2, 'token2', 'N');
+INSERT INTO lime_tokens_123456 VALUES (3, 'token3', 'N');
+INSERT INTO lime_survey_123456 VALUES (1, 'token1', '2017-05-02 10:00:00', 2, 'en', '2017-05-02 09:00:00',
+    '2017-05-02 10:00:00', 'A1', 'A2', 'A3', 'free text');
+INSERT INTO lime_survey_123456 VALUES (2, 'token2', NULL, 1, 'en', '2017-05-03 09:00:00',
+    '2017-05-03 09:10:00', 'A2', NULL, NULL, NULL);
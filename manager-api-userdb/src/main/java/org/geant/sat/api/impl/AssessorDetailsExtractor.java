@@ -30,6 +30,8 @@ package org.geant.sat.api.impl;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.geant.sat.api.dto.AssessorDetails;
 import org.geant.sat.api.dto.ListAssessorsResponse;
@@ -50,13 +52,14 @@ public class AssessorDetailsExtractor implements ResultSetExtractor<ListAssessor
     @Override
     public ListAssessorsResponse extractData(final ResultSet rs) throws SQLException, DataAccessException {
         final ListAssessorsResponse response = new ListAssessorsResponse();
+        final Map<String, AssessorDetails> index = new HashMap<>();
         while (rs.next()) {
             final String id = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_ID);
             log.debug("Found an assessor {} from the result set.", id);
             final String value = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE);
             final String description = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_DESCRIPTION);
             final String type = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_TYPE);
-            final AssessorDetails details = getExistingOrCreateNew(response, id);
+            final AssessorDetails details = getExistingOrCreateNew(response, index, id);
             details.setValue(value);
             details.setDescription(description);
             details.setType(type);
@@ -68,19 +71,21 @@ public class AssessorDetailsExtractor implements ResultSetExtractor<ListAssessor
      * Get the existing assessor details from the response if it was found with the same name, or creates a new one
      * if it wasn't.
      * @param response The response to be searched from.
+     * @param index The details already in the response, keyed by their identifiers.
      * @param id The entity name to be searched.
      * @return The existing or new assessor details.
      */
-    protected AssessorDetails getExistingOrCreateNew(final ListAssessorsResponse response, final String id) {
-        for (final AssessorDetails details : response.getAssessors()) {
-            if (id.equals(details.getId())) {
-                log.debug("Found existing details for {} from the response", id);
-                return details;
-            }
+    protected AssessorDetails getExistingOrCreateNew(final ListAssessorsResponse response,
+            final Map<String, AssessorDetails> index, final String id) {
+        final AssessorDetails existing = index.get(id);
+        if (existing != null) {
+            log.debug("Found existing details for {} from the response", id);
+            return existing;
         }
         final AssessorDetails details = new AssessorDetails();
         details.setId(id);
         response.getAssessors().add(details);
+        index.put(id, details);
         return details;
     }
 }
@@ -265,7 +265,9 @@ public final class DataModelUtil {
      * Builds an SQL query clause for fetching entity details from the database.
      * @param id The entity id whose details are to be fetched.
      * @return The SQL query clause.
+     * @deprecated The id is concatenated to the query, use {@link UserDatabaseQuery#ENTITY_DETAILS}.
      */
+    @Deprecated
     public static String buildEntitiesViaIdQuery(final String id) {
         return buildEntitiesQuery() + " AND " + TABLE_NAME_ENTITY + "." + COLUMN_NAME_ENTITY_ID + "=" + id;
     }
@@ -291,8 +293,19 @@ public final class DataModelUtil {
      * Builds an SQL query clause for fetching all tokens for a given survey from the database.
      * @param sid The survey identifier.
      * @return The SQL query clause.
+     * @deprecated The survey identifier is concatenated to the query, use {@link UserDatabaseQuery#SURVEY_TOKENS}.
      */
+    @Deprecated
     public static String buildSurveyTokensQuery(final String sid) {
+        return buildSurveyTokensQuery() + " AND " + TABLE_NAME_ASSESSOR_TOKEN + "."
+                + COLUMN_NAME_ASSESSOR_SURVEY_SURVEY_ID + "='" + sid + "'";
+    }
+
+    /**
+     * Builds an SQL query clause for fetching all valid tokens from the database.
+     * @return The SQL query clause.
+     */
+    public static String buildSurveyTokensQuery() {
         final StringBuilder sb = new StringBuilder("SELECT ");
         sb.append(TABLE_NAME_ASSESSOR_TOKEN + ".id, ");
         sb.append(TABLE_NAME_ASSESSOR_TOKEN + "." + COLUMN_NAME_ASSESSOR_SURVEY_ENTITY_ID + ", ");
@@ -304,7 +317,6 @@ public final class DataModelUtil {
         sb.append(" ON " + TABLE_NAME_ASSESSOR_TOKEN + "." + COLUMN_NAME_ASSESSOR_SURVEY_USER_ID + " = " + TABLE_NAME_USER + ".id");
         sb.append(" AND " + TABLE_NAME_USER + "." + COLUMN_NAME_END + " IS NULL");
         sb.append(" WHERE " + TABLE_NAME_ASSESSOR_TOKEN + "." + COLUMN_NAME_END + " IS NULL");
-        sb.append(" AND " + TABLE_NAME_ASSESSOR_TOKEN + "." + COLUMN_NAME_ASSESSOR_SURVEY_SURVEY_ID + "='" + sid + "'");
         return sb.toString();
     }
 
@@ -312,7 +324,9 @@ public final class DataModelUtil {
      * Builds an SQL query clause for fetching assessor details from the database.
      * @param id The assessor id whose details are to be fetched.
      * @return The SQL query clause.
+     * @deprecated The id is concatenated to the query, use {@link UserDatabaseQuery#ASSESSOR_DETAILS}.
      */
+    @Deprecated
     public static String buildAssessorsViaIdQuery(final String id) {
         return buildEntitiesQuery() + " AND " + TABLE_NAME_ASSESSOR + ".id=" + id;
     }
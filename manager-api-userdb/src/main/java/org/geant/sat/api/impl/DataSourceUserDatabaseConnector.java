@@ -27,17 +27,25 @@
  */
 package org.geant.sat.api.impl;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
-import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
 
@@ -55,21 +63,69 @@ import org.geant.sat.api.dto.UserDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 /**
  * The user database connector implementation exploiting {@link DataSource}.
+ * 
+ * <p>The write operations run in database transactions. Operations on the same user, entity, assessor, attribute or
+ * role are serialized with striped locks held until the transaction has completed, while unrelated writes proceed in
+ * parallel. A thread may hold locks of several kinds only in the order entity, assessor, user, attribute, role, event
+ * identifier. The attribute and role names, the user principals and the assessor type and value pairs are expected
+ * to be unique in the database, so that concurrent writers in other processes fail instead of creating duplicates.
+ * </p>
  */
 public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
 
+    /** The default amount of locks for each kind of key. */
+    public static final int DEFAULT_LOCK_STRIPES = 64;
+
+    /** The type of the assessors created by {@link #storeEntities(List)}. */
+    public static final String IMPORTED_ASSESSOR_TYPE = "email";
+
+    /** The default amount of rows in a single batch of the bulk inserts and updates. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(DataSourceUserDatabaseConnector.class);
 
     /** The Spring ${link JdbcTemplate} exploiting the {@link DataSource}. */
     private JdbcTemplate jdbcTemplate;
 
+    /** The Spring {@link TransactionTemplate} for the transactions on the {@link DataSource}. */
+    private TransactionTemplate transactionTemplate;
+
+    /** The transaction isolation level, one of the {@link TransactionDefinition} isolation constants. */
+    private int isolationLevel = TransactionDefinition.ISOLATION_READ_COMMITTED;
+
+    /** The locks for the entities, keyed by the creator and name, or by the identifier. */
+    private StripedLocks entityLocks = new StripedLocks(DEFAULT_LOCK_STRIPES);
+
+    /** The locks for the assessors, keyed by the type and value, or by the identifier. */
+    private StripedLocks assessorLocks = new StripedLocks(DEFAULT_LOCK_STRIPES);
+
+    /** The locks for the users, keyed by the principal identifier. */
+    private StripedLocks userLocks = new StripedLocks(DEFAULT_LOCK_STRIPES);
+
+    /** The locks for the attributes, keyed by the name. */
+    private StripedLocks attributeLocks = new StripedLocks(DEFAULT_LOCK_STRIPES);
+
+    /** The locks for the roles, keyed by the name. */
+    private StripedLocks roleLocks = new StripedLocks(DEFAULT_LOCK_STRIPES);
+
+    /** The amount of rows in a single batch of the bulk inserts and updates. */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** The lock for allocating new event identifiers. */
+    private final Lock eventIdLock = new ReentrantLock();
+
     /**
      * Set the {@link DataSource} for this connector.
      * 
@@ -78,50 +134,96 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      */
     public void setDataSource(final DataSource dataSource) {
         jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setIsolationLevel(isolationLevel);
+    }
+
+    /**
+     * Set the transaction isolation level, one of the {@link TransactionDefinition} isolation constants. The default
+     * is {@link TransactionDefinition#ISOLATION_READ_COMMITTED}.
+     * 
+     * @param level
+     *            What to set.
+     */
+    public void setIsolationLevel(final int level) {
+        isolationLevel = level;
+        if (transactionTemplate != null) {
+            transactionTemplate.setIsolationLevel(level);
+        }
+    }
+
+    /**
+     * Set the amount of locks for each kind of key. The default is {@link #DEFAULT_LOCK_STRIPES}. This must not be
+     * changed while the connector is in use.
+     * 
+     * @param stripes
+     *            What to set.
+     */
+    public void setLockStripes(final int stripes) {
+        entityLocks = new StripedLocks(stripes);
+        assessorLocks = new StripedLocks(stripes);
+        userLocks = new StripedLocks(stripes);
+        attributeLocks = new StripedLocks(stripes);
+        roleLocks = new StripedLocks(stripes);
+    }
+
+    /**
+     * Set the amount of rows in a single batch of the bulk inserts and updates. The default is
+     * {@link #DEFAULT_BATCH_SIZE}. All the batches of a bulk operation are run in the same transaction.
+     * 
+     * @param size What to set, values below one are treated as one.
+     */
+    public void setBatchSize(final int size) {
+        batchSize = Math.max(1, size);
     }
 
     /** {@inheritDoc} */
     @Override
     public ListUsersResponse listUsers() {
         log.debug("Fetching all users from the database");
-        final String query = DataModelUtil.buildListUsersQuery() + ";";
-        log.trace("Built query {}", query);
-        final ListUsersResponse response = jdbcTemplate.query(query, new UserDetailsExtractor());
-        return response;
+        return query(UserDatabaseQuery.LIST_USERS, new UserDetailsExtractor());
     }
 
     /** {@inheritDoc} */
     @Override
     public ListRolesResponse listRoles() {
         log.debug("Fetching all roles from the database");
-        final String query = DataModelUtil.buildListRolesQuery() + ";";
-        log.trace("Built query {}", query);
-        return jdbcTemplate.query(query, new RoleDetailsExtractor());
+        return query(UserDatabaseQuery.LIST_ROLES, new RoleDetailsExtractor());
     }
     
     /** {@inheritDoc} */
     @Override
     public ListEntitiesResponse listEntities() {
         log.debug("Fetching all entities from the database");
-        final String query = DataModelUtil.buildEntitiesQuery() + ";";
-        log.trace("Built query {}", query);
-        return jdbcTemplate.query(query, new EntityDetailsExtractor());
+        return query(UserDatabaseQuery.LIST_ENTITIES, new EntityDetailsExtractor());
     }
     
     /** {@inheritDoc} */
     @Override
     public ListAssessorsResponse listAssessors() {
         log.debug("Fetching all assessors from the database");
-        final String query = DataModelUtil.buildAssessorsQuery() + ";";
-        log.trace("Built query {}", query);
-        return jdbcTemplate.query(query, new AssessorDetailsExtractor());
+        return query(UserDatabaseQuery.LIST_ASSESSORS, new AssessorDetailsExtractor());
     }    
     
     /** {@inheritDoc} */
     @Override
-    public synchronized EntityDetails createNewEntity(final String name, final String description, 
+    public EntityDetails createNewEntity(final String name, final String description, 
             final String creator) throws SurveySystemConnectorException {
         log.debug("Creating a new entity with name {}", name);
+        return execute(Collections.singletonList(entityLocks.get(creator + "/" + name)),
+            () -> storeNewEntity(name, description, creator));
+    }
+
+    /**
+     * Stores a new entity, to be run in a transaction holding the lock for the creator and name.
+     * @param name The entity name.
+     * @param description The entity description.
+     * @param creator The principal identifier of the creator.
+     * @return The stored entity.
+     * @throws SurveySystemConnectorException If the entity already exists or the operation fails.
+     */
+    protected EntityDetails storeNewEntity(final String name, final String description, final String creator)
+            throws SurveySystemConnectorException {
         final Long userId = getUserId(creator);
         log.debug("Found userId {} for {}", userId, creator);
         final Long id = getEntityId(name, userId);
@@ -129,29 +231,34 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             log.error("The entity {} already exists with id {}", name, id);
             throw new SurveySystemConnectorException("The entity already exists for the same user");
         }
-        final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY + " ("
-                + DataModelUtil.COLUMN_NAME_ENTITY_NAME + ", "
-                + DataModelUtil.COLUMN_NAME_ENTITY_DESCRIPTION + ", "
-                + DataModelUtil.COLUMN_NAME_ENTITY_USER_ID + ") VALUES (?, ?, ?);";
-        final Object[] params = new Object[] { name, description, userId };
-        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR, Types.BIGINT };
-        int rowId = jdbcTemplate.update(update, params, types);
+        int rowId = update(UserDatabaseQuery.INSERT_ENTITY, name, description, userId);
         if (rowId < 0) {
             log.error("Obtained rowId {} after the SQL operation", rowId);
             throw new SurveySystemConnectorException("Unexpected response from the database");
         }
-        final String query = DataModelUtil.buildEntitiesQuery() + " AND " + DataModelUtil.TABLE_NAME_ENTITY + "." 
-                + DataModelUtil.COLUMN_NAME_ENTITY_ID + "=" + getEntityId(name, userId);
-        log.trace("Built query {}", query);
-        final ListEntitiesResponse response = jdbcTemplate.query(query, new EntityDetailsExtractor());
+        final ListEntitiesResponse response = query(UserDatabaseQuery.ENTITY_DETAILS, new EntityDetailsExtractor(),
+                getEntityId(name, userId));
         return response.getEntities().get(0);
     }
     
     /** {@inheritDoc} */
     @Override
-    public synchronized void updateEntityDetails(final EntityDetails entity) throws SurveySystemConnectorException {
+    public void updateEntityDetails(final EntityDetails entity) throws SurveySystemConnectorException {
         final String id = entity.getId();
         log.debug("Updating an existing entity with id {}", id);
+        execute(Collections.singletonList(entityLocks.get("#" + id)), () -> {
+            storeEntityDetails(entity);
+            return null;
+        });
+    }
+
+    /**
+     * Stores the details of an existing entity, to be run in a transaction holding the lock for its identifier.
+     * @param entity The entity details.
+     * @throws SurveySystemConnectorException If the entity does not exist or the operation fails.
+     */
+    protected void storeEntityDetails(final EntityDetails entity) throws SurveySystemConnectorException {
+        final String id = entity.getId();
         final EntityDetails storedDetails = getStoredEntityDetails(id);
         if (storedDetails == null) {
             throw new SurveySystemConnectorException("Could not find existing entity with id " + id);
@@ -159,15 +266,9 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         if (!entity.getName().equals(storedDetails.getName())
                 || !entity.getDescription().equals(storedDetails.getDescription())) {
             log.debug("Updating the entity table");
-            final String update = "UPDATE " + DataModelUtil.TABLE_NAME_ENTITY + " SET "
-                    + DataModelUtil.COLUMN_NAME_ENTITY_NAME + "=?, " 
-                    + DataModelUtil.COLUMN_NAME_ENTITY_DESCRIPTION + "=? WHERE " 
-                    + DataModelUtil.COLUMN_NAME_ENTITY_ID + "=?";
-            final Object[] params = new Object[] { entity.getName(), entity.getDescription(), id };
-            int[] types = new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR };
-            int rowId = jdbcTemplate.update(update, params, types);
+            int rowId = update(UserDatabaseQuery.UPDATE_ENTITY, entity.getName(), entity.getDescription(), id);
             if (rowId < 1) {
-                log.error("Could not update entity details for {} with clause {}", id, update);
+                log.error("Could not update entity details for {}", id);
                 throw new SurveySystemConnectorException("Could not update entity details for " + id);
             }
         }
@@ -189,16 +290,10 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         for (final AssessorDetails storedDetails : storedAssessors) {
             if (!DataModelUtil.assessorListContains(assessors, storedDetails.getId())) {
                 log.debug("Invalidating assessor ID {} for entity {}", storedDetails.getId(), id);
-                final String update = "UPDATE " + DataModelUtil.TABLE_NAME_ENTITY_ASSESSOR + " SET "
-                        + DataModelUtil.COLUMN_NAME_END + "=? WHERE " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ENTITY_ID + "=? AND " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ASSESSOR_ID + "=?";
-                final Object[] params = new Object[] { new Timestamp(System.currentTimeMillis()), id, 
-                        storedDetails.getId() };
-                int[] types = new int[] { Types.TIMESTAMP, Types.BIGINT, Types.BIGINT };
-                int rowId = jdbcTemplate.update(update, params, types);
+                int rowId = update(UserDatabaseQuery.END_ENTITY_ASSESSOR, new Timestamp(System.currentTimeMillis()), id,
+                        storedDetails.getId());
                 if (rowId < 1) {
-                    log.error("Could not update entity assessor details for {} with clause {}", id, update);
+                    log.error("Could not update entity assessor details for {}", id);
                     throw new SurveySystemConnectorException("Could not update entity assessor details for " + id);
                 }             
             }
@@ -206,14 +301,9 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         for (final AssessorDetails details : assessors) {
             if (details.getId() != null && !DataModelUtil.assessorListContains(storedAssessors, details.getId())) {
                 log.debug("Adding assessor ID {} for entity {}", details.getId(), id);
-                final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY_ASSESSOR + " ("
-                        + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ENTITY_ID + ", " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ASSESSOR_ID + ") VALUES (?,?)";
-                final Object[] params = new Object[] { id, details.getId() };
-                int[] types = new int[] { Types.BIGINT, Types.VARCHAR };
-                int rowId = jdbcTemplate.update(update, params, types);
+                int rowId = update(UserDatabaseQuery.INSERT_ENTITY_ASSESSOR, id, details.getId());
                 if (rowId < 1) {
-                    log.error("Could not add entity assessor details for {} with clause {}", id, update);
+                    log.error("Could not add entity assessor details for {}", id);
                     throw new SurveySystemConnectorException("Could not add entity assessor details for " + id);
                 }                             
             }
@@ -232,15 +322,10 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         for (final String sid : storedSids) {
             if (!sids.contains(sid)) {
                 log.debug("Invalidating survey ID {} for entity {}", sid, id);
-                final String update = "UPDATE " + DataModelUtil.TABLE_NAME_ENTITY_SURVEY + " SET "
-                        + DataModelUtil.COLUMN_NAME_END + "=? WHERE " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_ENTITY_ID + "=? AND " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID + "=?";
-                final Object[] params = new Object[] { new Timestamp(System.currentTimeMillis()), id, sid };
-                int[] types = new int[] { Types.TIMESTAMP, Types.BIGINT, Types.BIGINT };
-                int rowId = jdbcTemplate.update(update, params, types);
+                int rowId = update(UserDatabaseQuery.END_ENTITY_SURVEY, new Timestamp(System.currentTimeMillis()), id,
+                        sid);
                 if (rowId < 1) {
-                    log.error("Could not update entity survey details for {} with clause {}", id, update);
+                    log.error("Could not update entity survey details for {}", id);
                     throw new SurveySystemConnectorException("Could not update entity survey details for " + id);
                 }             
             }
@@ -248,14 +333,9 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         for (final String sid : sids) {
             if (!storedSids.contains(sid)) {
                 log.debug("Adding survey ID {} for entity {}", sid, id);
-                final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY_SURVEY + " ("
-                        + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_ENTITY_ID + ", " 
-                        + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID + ") VALUES (?,?)";
-                final Object[] params = new Object[] { id, sid };
-                int[] types = new int[] { Types.BIGINT, Types.VARCHAR };
-                int rowId = jdbcTemplate.update(update, params, types);
+                int rowId = update(UserDatabaseQuery.INSERT_ENTITY_SURVEY, id, sid);
                 if (rowId < 1) {
-                    log.error("Could not add entity survey details for {} with clause {}", id, update);
+                    log.error("Could not add entity survey details for {}", id);
                     throw new SurveySystemConnectorException("Could not add entity survey details for " + id);
                 }             
             }
@@ -265,25 +345,32 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     
     /** {@inheritDoc} */
     @Override
-    public synchronized void updateAssessorDetails(final AssessorDetails assessor) 
+    public void updateAssessorDetails(final AssessorDetails assessor) 
             throws SurveySystemConnectorException {
         final String id = assessor.getId();
         log.debug("Updating an existing assessor with id {}", id);
+        execute(Collections.singletonList(assessorLocks.get("#" + id)), () -> {
+            storeAssessorDetails(assessor);
+            return null;
+        });
+    }
+
+    /**
+     * Stores the details of an existing assessor, to be run in a transaction holding the lock for its identifier.
+     * @param assessor The assessor details.
+     * @throws SurveySystemConnectorException If the assessor does not exist or the operation fails.
+     */
+    protected void storeAssessorDetails(final AssessorDetails assessor) throws SurveySystemConnectorException {
+        final String id = assessor.getId();
         final AssessorDetails storedDetails = getStoredAssessorDetails(id);
         if (storedDetails == null) {
             throw new SurveySystemConnectorException("Could not find existing assessor with id " + id);
         }
         if (!assessor.getValue().equals(storedDetails.getValue()) 
                 || !assessor.getDescription().equals(storedDetails.getDescription())) {
-            final String update = "UPDATE " + DataModelUtil.TABLE_NAME_ASSESSOR + " SET "
-                    + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE + "=?, " 
-                    + DataModelUtil.COLUMN_NAME_ASSESSOR_DESCRIPTION + "=? WHERE " 
-                    + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + "=?";
-            final Object[] params = new Object[] { assessor.getValue(), assessor.getDescription(), id };
-            int[] types = new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR };
-            int rowId = jdbcTemplate.update(update, params, types);
+            int rowId = update(UserDatabaseQuery.UPDATE_ASSESSOR, assessor.getValue(), assessor.getDescription(), id);
             if (rowId < 1) {
-                log.error("Could not update assessor details for {} with clause {}", id, update);
+                log.error("Could not update assessor details for {}", id);
                 throw new SurveySystemConnectorException("Could not update assessor details for " + id);
             }
         }
@@ -294,6 +381,20 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     public AssessorDetails createNewAssessor(final String type, final String value, final String description)
             throws SurveySystemConnectorException {
         log.debug("Creating a new assessor type {} with value {}", type, value);
+        return execute(Collections.singletonList(assessorLocks.get(type + "/" + value)),
+            () -> storeNewAssessor(type, value, description));
+    }
+
+    /**
+     * Stores a new assessor, to be run in a transaction holding the lock for the type and value.
+     * @param type The assessor type.
+     * @param value The assessor value.
+     * @param description The assessor description.
+     * @return The stored assessor.
+     * @throws SurveySystemConnectorException If the assessor already exists or the operation fails.
+     */
+    protected AssessorDetails storeNewAssessor(final String type, final String value, final String description)
+            throws SurveySystemConnectorException {
         final Long typeId = getAssessorTypeId(type);
         if (typeId == null) {
             log.error("The assessor type {} does not exist in the database!", type);
@@ -304,21 +405,13 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             log.error("The assessor with type {} and value {} already exists!", type, value);
             throw new SurveySystemConnectorException("The assessor with the same type and value already exists");
         }
-        final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_ASSESSOR + " ("
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPEID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_DESCRIPTION + ") VALUES (?, ?, ?)";
-        final Object[] params = new Object[] { typeId, value, description };
-        int[] types = new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR };
-        int rowId = jdbcTemplate.update(update, params, types);
+        int rowId = update(UserDatabaseQuery.INSERT_ASSESSOR, typeId, value, description);
         if (rowId < 0) {
             log.error("Obtained rowId {} after the SQL operation", rowId);
             throw new SurveySystemConnectorException("Unexpected response from the database");
         }
-        final String query = DataModelUtil.buildAssessorsQuery() + " AND " + DataModelUtil.TABLE_NAME_ASSESSOR + "." 
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + "=" + getAssessorId(value, typeId);
-        log.trace("Built query {}", query);
-        final ListAssessorsResponse response = jdbcTemplate.query(query, new AssessorDetailsExtractor());
+        final ListAssessorsResponse response = query(UserDatabaseQuery.ASSESSOR_DETAILS,
+                new AssessorDetailsExtractor(), getAssessorId(value, typeId));
         return response.getAssessors().get(0);
     }
 
@@ -326,10 +419,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     @Override
     public UserDetails getUserDetails(final String principalId) {
         log.debug("Fetching user details for {}", principalId);
-        final String query = DataModelUtil.buildListUsersQuery() + " WHERE "
-                + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID + "='" + principalId + "';";
-        log.trace("Built query {}", query);
-        final ListUsersResponse response = jdbcTemplate.query(query, new UserDetailsExtractor());
+        final ListUsersResponse response = query(UserDatabaseQuery.USER_DETAILS, new UserDetailsExtractor(),
+                principalId);
         final List<UserDetails> users = response.getUsers();
         if (users != null && !users.isEmpty()) {
             return users.get(0);
@@ -341,10 +432,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     @Override
     public RoleDetails getRoleDetails(final String name) {
         log.debug("Fetching role details for {}", name);
-        final String query = DataModelUtil.buildListRolesQuery() + " WHERE " + DataModelUtil.COLUMN_NAME_ROLE_NAME
-                + "='" + name + "';";
-        log.trace("Built query {}", query);
-        final ListRolesResponse response = jdbcTemplate.query(query, new RoleDetailsExtractor());
+        final ListRolesResponse response = query(UserDatabaseQuery.ROLE_DETAILS, new RoleDetailsExtractor(), name);
         final List<RoleDetails> roles = response.getRoles();
         if (roles != null && !roles.isEmpty()) {
             return roles.get(0);
@@ -356,9 +444,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     @Override
     public EntityDetails getEntityDetails(final String entityId) {
         log.debug("Fetching entity details for {}", entityId);
-        final String query = DataModelUtil.buildEntitiesViaIdQuery(entityId);
-        log.trace("Built query {}", query);
-        final ListEntitiesResponse response = jdbcTemplate.query(query, new EntityDetailsExtractor());
+        final ListEntitiesResponse response = query(UserDatabaseQuery.ENTITY_DETAILS, new EntityDetailsExtractor(),
+                entityId);
         final List<EntityDetails> entities = response.getEntities();
         if (entities != null && !entities.isEmpty()) {
             return entities.get(0);
@@ -370,9 +457,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     @Override
     public AssessorDetails getAssessorDetails(final String assessorId) {
         log.debug("Fetching assessor details for {}", assessorId);
-        final String query = DataModelUtil.buildAssessorsViaIdQuery(assessorId);
-        log.trace("Built query {}", query);
-        final ListAssessorsResponse response = jdbcTemplate.query(query, new AssessorDetailsExtractor());
+        final ListAssessorsResponse response = query(UserDatabaseQuery.ASSESSOR_DETAILS,
+                new AssessorDetailsExtractor(), assessorId);
         final List<AssessorDetails> assessors = response.getAssessors();
         if (assessors != null && !assessors.isEmpty()) {
             return assessors.get(0);
@@ -382,8 +468,32 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized int addSurveyToken(final String token, final String entityId, final String assessorId, 
+    public int addSurveyToken(final String token, final String entityId, final String assessorId, 
             final String principalId, final String sid, int eventId) throws SurveySystemConnectorException {
+        // a new event identifier is the current maximum plus one, the lock keeps concurrent new events apart
+        final List<Lock> locks;
+        if (eventId == 0) {
+            locks = Collections.singletonList(eventIdLock);
+        } else {
+            locks = Collections.emptyList();
+        }
+        return execute(locks, () -> storeSurveyToken(token, entityId, assessorId, principalId, sid, eventId));
+    }
+
+    /**
+     * Stores a survey token, to be run in a transaction holding the event identifier lock if a new event identifier
+     * is allocated.
+     * @param token The token.
+     * @param entityId The entity identifier.
+     * @param assessorId The assessor identifier.
+     * @param principalId The principal identifier of the user who created the token.
+     * @param sid The survey identifier.
+     * @param eventId The event identifier, or 0 to allocate a new one.
+     * @return The event identifier.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected int storeSurveyToken(final String token, final String entityId, final String assessorId,
+            final String principalId, final String sid, final int eventId) throws SurveySystemConnectorException {
         int id;
         if (eventId == 0) {
             final Long currentMax = getCurrentMaxEventId();
@@ -397,19 +507,10 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
         } else {
             id = eventId;
         }
-        final String insert = "INSERT INTO " + DataModelUtil.TABLE_NAME_ASSESSOR_TOKEN + "("
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_ASSESSOR_ID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_ENTITY_ID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_USER_ID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_SURVEY_ID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID + ", "
-                + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_TOKEN + ") VALUES (?,?,?,?,?,?)";
-        final Object[] params = new Object[] { assessorId, entityId, getUserId(principalId), sid, id, token };
-        int[] types = new int[] { Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.BIGINT, 
-                Types.VARCHAR };
-        int rowId = jdbcTemplate.update(insert, params, types);
+        int rowId = update(UserDatabaseQuery.INSERT_SURVEY_TOKEN, assessorId, entityId, getUserId(principalId), sid,
+                id, token);
         if (rowId < 1) {
-            log.error("Could not add token details for survey {} with clause {}", sid, insert);
+            log.error("Could not add token details for survey {}", sid);
             throw new SurveySystemConnectorException("Could not add token details for " + sid);
         }  
         return id;
@@ -419,72 +520,227 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
     @Override
     public ListTokensResponse listSurveyTokens(final String sid) throws SurveySystemConnectorException {
         log.debug("Fetching all tokens from the database for survey {}", sid);
-        final String query = DataModelUtil.buildSurveyTokensQuery(sid);
-        log.trace("Built query {}", query);
-        return jdbcTemplate.query(query, new TokenDetailsExtractor());
+        return query(UserDatabaseQuery.SURVEY_TOKENS, new TokenDetailsExtractor(), sid);
     }
     
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>A read-only pass first matches the entities and assessors to the existing ones, and only the keys of the
+     * ones to be created, and of the existing entities whose assessors change, are locked for the import. The
+     * matching is repeated in the transaction: if the rows written meanwhile by others require more locks, the
+     * transaction is left without writes and the import is run again holding them too.</p>
+     */
     @Override
-    public synchronized List<EntityDetails> storeEntities(final List<EntityDetails> entities) 
+    public List<EntityDetails> storeEntities(final List<EntityDetails> entities) 
             throws SurveySystemConnectorException {
         log.debug("Starting to store {} entities", entities.size());
-        final List<AssessorDetails> existingAssessors = listAssessors().getAssessors();
-        final List<EntityDetails> existingEntities = listEntities().getEntities();
+        final Set<String> entityKeys = new HashSet<>();
+        final Set<String> assessorKeys = new HashSet<>();
+        matchEntities(entities).addLockKeys(entityKeys, assessorKeys);
+        for (;;) {
+            final List<Lock> locks = new ArrayList<>(entityLocks.getAll(entityKeys));
+            locks.addAll(assessorLocks.getAll(assessorKeys));
+            final List<EntityDetails> stored = execute(locks, () -> {
+                final EntityImport entityImport = matchEntities(entities);
+                if (entityImport.addLockKeys(entityKeys, assessorKeys)) {
+                    return null;
+                }
+                return importEntities(entities, entityImport);
+            });
+            if (stored != null) {
+                return stored;
+            }
+            log.debug("The existing entities or assessors changed, importing again with {} entity and {} assessor keys",
+                    entityKeys.size(), assessorKeys.size());
+        }
+    }
+
+    /**
+     * Matches the given entities and their assessors to the existing ones without modifying anything. The existing
+     * ones are matched ignoring the case via hash indexes.
+     * @param entities The entities to be stored.
+     * @return The matched and the new entities and assessors.
+     */
+    protected EntityImport matchEntities(final List<EntityDetails> entities) {
+        // the existing ones are matched ignoring the case, so the indexes are keyed by the lower-cased values
+        final Map<List<String>, AssessorDetails> assessorIndex = new HashMap<>();
+        for (final AssessorDetails existing : listAssessors().getAssessors()) {
+            assessorIndex.putIfAbsent(toIndexKey(existing.getType(), existing.getValue()), existing);
+        }
+        final EntityImport entityImport = new EntityImport();
+        for (final EntityDetails existing : listEntities().getEntities()) {
+            //TODO: comparison only with creator name + entity name
+            entityImport.existingEntities.putIfAbsent(toIndexKey(existing.getCreator(), existing.getName()), existing);
+        }
         for (final EntityDetails entity : entities) {
             log.debug("Analyzing entity {} with name {}", entity.getId(), entity.getName());
-            for (int i = 0; i < entity.getAssessors().size(); i++) {
-                final AssessorDetails assessor = entity.getAssessors().get(i);
-                AssessorDetails existing = null;
-                final Iterator<AssessorDetails> iterator = existingAssessors.iterator();
-                while (iterator.hasNext() && existing == null) {
-                    final AssessorDetails candidate = iterator.next();
-                    if (candidate.getType().equalsIgnoreCase(assessor.getType()) 
-                            && candidate.getValue().equalsIgnoreCase(assessor.getValue())) {
-                        existing = candidate;
-                        log.debug("Existing assessor with id {} matched", existing.getId());
-                    } else {
-                        log.trace("Existing assessor {} did not match with {}", candidate.getValue(), 
-                                assessor.getValue());
-                    }
-                }
+            final List<AssessorDetails> matched = new ArrayList<>(entity.getAssessors().size());
+            for (final AssessorDetails assessor : entity.getAssessors()) {
+                AssessorDetails existing = assessorIndex.get(toIndexKey(assessor.getType(), assessor.getValue()));
                 if (existing == null) {
                     //TODO: hardcoded to the email type
-                    final AssessorDetails created = createNewAssessor("email", assessor.getValue(), 
-                            assessor.getDescription());
-                    entity.getAssessors().set(i, created);
-                    log.debug("New assessor with id={} stored", created.getId());
-                    existingAssessors.add(created);
+                    existing = new AssessorDetails();
+                    existing.setType(IMPORTED_ASSESSOR_TYPE);
+                    existing.setValue(assessor.getValue());
+                    existing.setDescription(assessor.getDescription());
+                    assessorIndex.put(toIndexKey(existing.getType(), existing.getValue()), existing);
+                    entityImport.newAssessors.add(existing);
                 } else {
-                    entity.getAssessors().set(i, existing);
+                    log.trace("Existing assessor with id {} matched", existing.getId());
                 }
+                matched.add(existing);
             }
-            String existingId = null;
-            final Iterator<EntityDetails> iterator = existingEntities.iterator();
-            while (iterator.hasNext() && existingId == null) {
-                final EntityDetails existing = iterator.next();
-                //TODO: comparison only with creator name + entity name
-                if (existing.getCreator().equalsIgnoreCase(entity.getCreator()) 
-                        && existing.getName().equalsIgnoreCase(entity.getName())) {
-                    existingId = existing.getId();
-                    log.debug("Existing entity with id {} matched", existingId);
-                    entity.setSids(existing.getSids());
-                    updateEntityAssessors(existingId, entity.getAssessors(), existing.getAssessors());
-                } else {
-                    log.trace("Existing entity {} did not match with {}", existing.getName(), entity.getName());
+            entityImport.matchedAssessors.add(matched);
+            final List<String> key = toIndexKey(entity.getCreator(), entity.getName());
+            if (!entityImport.existingEntities.containsKey(key) && !entityImport.newEntities.containsKey(key)) {
+                final EntityDetails created = new EntityDetails();
+                created.setName(entity.getName());
+                created.setDescription(entity.getDescription());
+                created.setCreator(entity.getCreator());
+                entityImport.newEntities.put(key, created);
+            }
+            // the last occurrence of the same entity defines its assessors
+            entityImport.targetAssessors.put(key, matched);
+        }
+        return entityImport;
+    }
+
+    /**
+     * Stores the entities and their assessors as matched, reusing the existing ones. To be run in a transaction
+     * holding the locks for the keys of the given import. The new rows are inserted in batches.
+     * @param entities The entities to be stored.
+     * @param entityImport The entities and assessors matched in the transaction.
+     * @return The stored entities.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected List<EntityDetails> importEntities(final List<EntityDetails> entities, final EntityImport entityImport)
+            throws SurveySystemConnectorException {
+        for (int i = 0; i < entities.size(); i++) {
+            final List<AssessorDetails> assessors = entities.get(i).getAssessors();
+            final List<AssessorDetails> matched = entityImport.matchedAssessors.get(i);
+            for (int j = 0; j < assessors.size(); j++) {
+                assessors.set(j, matched.get(j));
+            }
+        }
+        final Map<List<String>, EntityDetails> newEntities = entityImport.newEntities;
+        final Map<List<String>, EntityDetails> entityIndex = entityImport.existingEntities;
+        storeNewAssessors(IMPORTED_ASSESSOR_TYPE, entityImport.newAssessors);
+        storeNewEntities(newEntities.values());
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final List<Object[]> endedLinks = new ArrayList<>();
+        final List<Object[]> newLinks = new ArrayList<>();
+        for (final Map.Entry<List<String>, List<AssessorDetails>> target : entityImport.targetAssessors.entrySet()) {
+            final EntityDetails stored;
+            if (newEntities.containsKey(target.getKey())) {
+                stored = newEntities.get(target.getKey());
+            } else {
+                stored = entityIndex.get(target.getKey());
+                log.debug("Existing entity with id {} matched", stored.getId());
+            }
+            for (final AssessorDetails storedDetails : stored.getAssessors()) {
+                if (!DataModelUtil.assessorListContains(target.getValue(), storedDetails.getId())) {
+                    endedLinks.add(new Object[] { now, stored.getId(), storedDetails.getId() });
+                }
+            }
+            for (final AssessorDetails details : target.getValue()) {
+                if (!DataModelUtil.assessorListContains(stored.getAssessors(), details.getId())) {
+                    newLinks.add(new Object[] { stored.getId(), details.getId() });
                 }
             }
-            if (existingId == null) {
-                final EntityDetails created = createNewEntity(entity.getName(), entity.getDescription(), 
-                        entity.getCreator());
-                entity.setId(created.getId());
-                updateEntityAssessors(created.getId(), entity.getAssessors(), new ArrayList<>());
-                log.debug("New entity with id={} stored", created.getId()); 
-                existingEntities.add(created);
+        }
+        log.debug("Invalidating {} and adding {} entity assessors", endedLinks.size(), newLinks.size());
+        batchUpdate(UserDatabaseQuery.END_ENTITY_ASSESSOR, endedLinks);
+        batchUpdate(UserDatabaseQuery.INSERT_ENTITY_ASSESSOR, newLinks);
+
+        for (final EntityDetails entity : entities) {
+            final List<String> key = toIndexKey(entity.getCreator(), entity.getName());
+            if (newEntities.containsKey(key)) {
+                entity.setId(newEntities.get(key).getId());
+            } else {
+                entity.setSids(entityIndex.get(key).getSids());
             }
         }
         return entities;
     }
+
+    /**
+     * Stores new assessors of the given type in batches, to be run in a transaction holding the locks for their
+     * types and values. The identifiers of the stored assessors are set to the given objects.
+     * @param type The assessor type.
+     * @param assessors The assessors to be stored.
+     * @throws SurveySystemConnectorException If the assessor type does not exist or the operation fails.
+     */
+    protected void storeNewAssessors(final String type, final List<AssessorDetails> assessors)
+            throws SurveySystemConnectorException {
+        if (assessors.isEmpty()) {
+            return;
+        }
+        final Long typeId = getAssessorTypeId(type);
+        if (typeId == null) {
+            log.error("The assessor type {} does not exist in the database!", type);
+            throw new SurveySystemConnectorException("The assessor type " + type + " does not exist in the database");
+        }
+        final List<Object[]> rows = new ArrayList<>(assessors.size());
+        for (final AssessorDetails assessor : assessors) {
+            rows.add(new Object[] { typeId, assessor.getValue(), assessor.getDescription() });
+        }
+        final List<String> ids = batchInsert(UserDatabaseQuery.INSERT_ASSESSOR, DataModelUtil.COLUMN_NAME_ASSESSOR_ID,
+                rows);
+        for (int i = 0; i < assessors.size(); i++) {
+            final AssessorDetails assessor = assessors.get(i);
+            if (ids.get(i) == null) {
+                assessor.setId(String.valueOf(getAssessorId(assessor.getValue(), typeId)));
+            } else {
+                assessor.setId(ids.get(i));
+            }
+        }
+        log.debug("Stored {} new assessors", assessors.size());
+    }
+
+    /**
+     * Stores new entities in batches, to be run in a transaction holding the locks for their creators and names.
+     * The identifiers of the stored entities are set to the given objects.
+     * @param entities The entities to be stored.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected void storeNewEntities(final Collection<EntityDetails> entities) throws SurveySystemConnectorException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        final Map<String, Long> userIds = new HashMap<>();
+        final List<Object[]> rows = new ArrayList<>(entities.size());
+        for (final EntityDetails entity : entities) {
+            if (!userIds.containsKey(entity.getCreator())) {
+                userIds.put(entity.getCreator(), getUserId(entity.getCreator()));
+            }
+            rows.add(new Object[] { entity.getName(), entity.getDescription(), userIds.get(entity.getCreator()) });
+        }
+        final List<String> ids = batchInsert(UserDatabaseQuery.INSERT_ENTITY, DataModelUtil.COLUMN_NAME_ENTITY_ID,
+                rows);
+        int i = 0;
+        for (final EntityDetails entity : entities) {
+            if (ids.get(i) == null) {
+                entity.setId(String.valueOf(getEntityId(entity.getName(), userIds.get(entity.getCreator()))));
+            } else {
+                entity.setId(ids.get(i));
+            }
+            i++;
+        }
+        log.debug("Stored {} new entities", entities.size());
+    }
+
+    /**
+     * Builds the key for matching the values ignoring their case.
+     * @param first The first value.
+     * @param second The second value.
+     * @return The key for the values.
+     */
+    protected static List<String> toIndexKey(final String first, final String second) {
+        return Arrays.asList(first == null ? null : first.toLowerCase(Locale.ROOT),
+                second == null ? null : second.toLowerCase(Locale.ROOT));
+    }
     
     /**
      * Solves the current biggest event identifier value in the assessor survey token table.
@@ -492,9 +748,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      */
     protected Long getCurrentMaxEventId() {
         log.debug("Solving the current maximum event ID");
-        final String query = "SELECT max(" + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID + ") from " 
-                + DataModelUtil.TABLE_NAME_ASSESSOR_TOKEN;
-        return jdbcTemplate.query(query, new IdExtractor("max(eventId)"));
+        return query(UserDatabaseQuery.MAX_EVENT_ID,
+                new IdExtractor(DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID));
     }
 
     /**
@@ -503,7 +758,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param details The user details to be updated/created.
      * @throws SurveySystemConnectorException If the operation fails.
      */
-    public synchronized void updateUserDetails(final UserDetails details) 
+    public void updateUserDetails(final UserDetails details) 
             throws SurveySystemConnectorException {
         final String principalId = details.getPrincipalId();
         log.debug("Updating user details for principal {}", principalId);
@@ -511,6 +766,32 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             log.warn("principalId was missing from the input for updateUserDetails");
             throw new SurveySystemConnectorException("Missing principalId");
         }
+        // the attributes and roles are shared by all users, so they are created and committed on their own
+        final Map<String, String> attributes = details.getAttributes();
+        final Map<Long, String> mapped = new HashMap<>();
+        if (attributes != null) {
+            for (final String key : attributes.keySet()) {
+                mapped.put(getAttributeId(key), attributes.get(key));
+            }
+        }
+        for (final String role : details.getRoles()) {
+            getRoleId(role);
+        }
+        execute(Collections.singletonList(userLocks.get(principalId)), () -> {
+            storeUserDetails(details, mapped);
+            return null;
+        });
+    }
+
+    /**
+     * Stores the user details in the database. A new one is created if no existing user exists.
+     * @param details The user details to be stored.
+     * @param mapped The attribute values mapped by the attribute database IDs.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected void storeUserDetails(final UserDetails details, final Map<Long, String> mapped)
+            throws SurveySystemConnectorException {
+        final String principalId = details.getPrincipalId();
         if (getUserId(principalId) == null) {
             log.debug("The user {} doesn't exist, creating a new one", principalId);
             int row = createNewUser(details);
@@ -520,25 +801,12 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             }
         }
         final Long userId = getUserId(principalId);
-        final Map<String, String> attributes = details.getAttributes();
-        if (attributes != null) {
-            final Map<Long, String> mapped = new HashMap<>();
-            for (final String key : attributes.keySet()) {
-                mapped.put(getAttributeId(key), attributes.get(key));
-            }
-            for (final Long key : mapped.keySet()) {
-                String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_USER_ATTRIBUTE + " ("
-                        + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_USER_ID + ", "
-                        + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_ATTRIBUTE_ID + ", "
-                        + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_VALUE + ") VALUES (?, ?, ?);";
-                Object[] params = new Object[] { userId, key, mapped.get(key) };
-                int[] types = new int[] { Types.BIGINT, Types.BIGINT, Types.VARCHAR };
-                // TODO: should update, not always insert
-                int rowId = jdbcTemplate.update(update, params, types);
-                if (rowId < 0) {
-                    log.error("Obtained rowId {} after the SQL operation", rowId);
-                    throw new SurveySystemConnectorException("Unexpected response from the database");
-                }
+        for (final Long key : mapped.keySet()) {
+            // TODO: should update, not always insert
+            int rowId = update(UserDatabaseQuery.INSERT_USER_ATTRIBUTE, userId, key, mapped.get(key));
+            if (rowId < 0) {
+                log.error("Obtained rowId {} after the SQL operation", rowId);
+                throw new SurveySystemConnectorException("Unexpected response from the database");
             }
         }
         final Set<String> roles = details.getRoles();
@@ -552,7 +820,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param roles The set of roles to be stored.
      * @param storedRoles The set of roles already stored.
      */
-    protected synchronized void updateRoles(final Long userId, final Set<String> roles, final Set<String> storedRoles) {
+    protected void updateRoles(final Long userId, final Set<String> roles, final Set<String> storedRoles) {
         final Set<Long> toBeAdded = new HashSet<>();
         final Set<Long> toBeRemoved = new HashSet<>();
         for (final String role : storedRoles) {
@@ -566,25 +834,16 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             }
         }
         for (final Long roleId : toBeAdded) {
-            final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_USER_ROLE + " ("
-                    + DataModelUtil.COLUMN_NAME_USER_ROLE_USER_ID + ", " + DataModelUtil.COLUMN_NAME_USER_ROLE_ROLE_ID
-                    + ") VALUES (?, ?);";
-            final Object[] params = new Object[] { userId, roleId };
-            int[] types = new int[] { Types.BIGINT, Types.BIGINT };
-            int rowId = jdbcTemplate.update(update, params, types);
+            int rowId = update(UserDatabaseQuery.INSERT_USER_ROLE, userId, roleId);
             if (rowId < 1) {
-                log.error("Could not store the role for user {} with clause {}", userId, update);
+                log.error("Could not store the role {} for user {}", roleId, userId);
             }
         }
         for (final Long roleId : toBeRemoved) {
-            final String update = "UPDATE " + DataModelUtil.TABLE_NAME_USER_ROLE + " SET "
-                    + DataModelUtil.COLUMN_NAME_END + "=? WHERE " + DataModelUtil.COLUMN_NAME_USER_ROLE_ROLE_ID
-                    + "=? AND " + DataModelUtil.COLUMN_NAME_USER_ROLE_USER_ID + "=?;";
-            final Object[] params = new Object[] { new Timestamp(System.currentTimeMillis()), roleId, userId };
-            int[] types = new int[] { Types.TIMESTAMP, Types.BIGINT, Types.BIGINT };
-            int rowId = jdbcTemplate.update(update, params, types);
+            int rowId = update(UserDatabaseQuery.END_USER_ROLE, new Timestamp(System.currentTimeMillis()), roleId,
+                    userId);
             if (rowId < 1) {
-                log.error("Could not invalidate the role for user {} with clause {}", userId, update);
+                log.error("Could not invalidate the role {} for user {}", roleId, userId);
             }
         }
     }
@@ -594,7 +853,19 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param details The details for the role.
      * @throws SurveySystemConnectorException If the operation fails.
      */
-    public synchronized void updateRoleDetails(final RoleDetails details) throws SurveySystemConnectorException {
+    public void updateRoleDetails(final RoleDetails details) throws SurveySystemConnectorException {
+        execute(Collections.singletonList(roleLocks.get(details.getName())), () -> {
+            storeRoleDetails(details);
+            return null;
+        });
+    }
+
+    /**
+     * Stores the role details, to be run in a transaction holding the lock for the role name.
+     * @param details The details for the role.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected void storeRoleDetails(final RoleDetails details) throws SurveySystemConnectorException {
         final String name = details.getName();
         final String description = details.getDescription();
         final Long roleId = getExistingRoleId(name);
@@ -605,17 +876,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
             }
         } else {
             // update existing one
-            final String update = "UPDATE " + DataModelUtil.TABLE_NAME_ROLE + " SET "
-                    + DataModelUtil.COLUMN_NAME_ROLE_DESCRIPTION + "=? WHERE " + DataModelUtil.COLUMN_NAME_ROLE_ID
-                    + "=?;";
-            final Object[] params;
-            if (description == null) {
-                params = new Object[] { "", roleId };
-            } else {
-                params = new Object[] { description, roleId };
-            }
-            int[] types = new int[] { Types.VARCHAR, Types.BIGINT };
-            int rowId = jdbcTemplate.update(update, params, types);
+            int rowId = update(UserDatabaseQuery.UPDATE_ROLE, description == null ? "" : description, roleId);
             if (rowId < 1) {
                 throw new SurveySystemConnectorException("Could not update the role " + name);
             }
@@ -628,10 +889,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The user's database ID.
      */
     protected Long getUserId(final String principalId) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_USER_ID + " FROM user WHERE "
-                + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID + "='" + principalId + "'";
-        log.trace("Created a query {}", query);
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_USER_ID));
+        return query(UserDatabaseQuery.USER_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_USER_ID), principalId);
     }
     
     /**
@@ -640,11 +898,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The assessor type's database ID.
      */
     protected Long getAssessorTypeId(final String assessorType) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_ID + " FROM "
-                + DataModelUtil.TABLE_NAME_ASSESSOR_TYPE + " WHERE " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_TYPE
-                + "='" + assessorType + "'";
-        log.trace("Created a query {}", query);
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_ID));
+        return query(UserDatabaseQuery.ASSESSOR_TYPE_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_ID),
+                assessorType);
     }
     
     /**
@@ -654,11 +909,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The assessor's database ID.
      */
     protected Long getAssessorId(final String value, final Long assessorTypeId) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + " FROM "
-                + DataModelUtil.TABLE_NAME_ASSESSOR + " WHERE " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPEID
-                + "=" + assessorTypeId + " AND " + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE + "='" + value + "'";
-        log.trace("Created a query {}", query);
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_ASSESSOR_ID));
+        return query(UserDatabaseQuery.ASSESSOR_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_ASSESSOR_ID),
+                assessorTypeId, value);
     }
     
     /**
@@ -668,12 +920,7 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The entity's database ID.
      */
     protected Long getEntityId(final String name, final Long userId) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_ENTITY_ID + " FROM "
-                + DataModelUtil.TABLE_NAME_ENTITY + " WHERE " + DataModelUtil.COLUMN_NAME_ENTITY_NAME + "='"
-                + name + "' AND " + DataModelUtil.COLUMN_NAME_ENTITY_USER_ID + "=" + userId + " AND "
-                + DataModelUtil.COLUMN_NAME_END + " IS NULL";
-        log.trace("Created a query {}", query);
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_ENTITY_ID));
+        return query(UserDatabaseQuery.ENTITY_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_ENTITY_ID), name, userId);
     }
 
     /**
@@ -682,11 +929,9 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The entity details, or null if it couldn't be fetched.
      */
     protected EntityDetails getStoredEntityDetails(final String id) {
-        final String query = DataModelUtil.buildEntitiesViaIdQuery(id);
-        log.trace("Created a query {}", query);
-        final ListEntitiesResponse response = jdbcTemplate.query(query, new EntityDetailsExtractor());
+        final ListEntitiesResponse response = query(UserDatabaseQuery.ENTITY_DETAILS, new EntityDetailsExtractor(), id);
         if (response.getErrorMessage() != null || response.getEntities().isEmpty()) {
-            log.error("Unexpected response or the entity query {}", query);
+            log.error("Unexpected response for the entity {}", id);
             return null;
         }
         return response.getEntities().get(0);
@@ -698,11 +943,10 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The entity details, or null if it couldn't be fetched.
      */
     protected AssessorDetails getStoredAssessorDetails(final String id) {
-        final String query = DataModelUtil.buildAssessorsViaIdQuery(id);
-        log.trace("Created a query {}", query);
-        final ListAssessorsResponse response = jdbcTemplate.query(query, new AssessorDetailsExtractor());
+        final ListAssessorsResponse response = query(UserDatabaseQuery.ASSESSOR_DETAILS,
+                new AssessorDetailsExtractor(), id);
         if (response.getErrorMessage() != null || response.getAssessors().isEmpty()) {
-            log.error("Unexpected response or the assessor query {}", query);
+            log.error("Unexpected response for the assessor {}", id);
             return null;
         }
         return response.getAssessors().get(0);
@@ -713,12 +957,18 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param attribute The attribute name.
      * @return The attribute's database ID.
      */
-    protected synchronized Long getAttributeId(final String attribute) {
-        final Long existing = getExistingAttributeId(attribute);
-        if (existing == null) {
-            return createNewAttribute(attribute, null);
+    protected Long getAttributeId(final String attribute) {
+        final Lock lock = attributeLocks.get(attribute);
+        lock.lock();
+        try {
+            final Long existing = getExistingAttributeId(attribute);
+            if (existing == null) {
+                return createNewAttribute(attribute, null);
+            }
+            return existing;
+        } finally {
+            lock.unlock();
         }
-        return existing;
     }
 
     /**
@@ -727,20 +977,14 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param description The attribute description.
      * @return The attribute's database ID.
      */
-    protected synchronized Long createNewAttribute(final String attribute, final String description) {
-        final String update = "INSERT INTO " + DataModelUtil.TABLE_NAME_ATTRIBUTE + " ("
-                + DataModelUtil.COLUMN_NAME_ATTRIBUTE_NAME + ", " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_DESCRIPTION
-                + ") VALUES (?,?)";
-        final Object[] params;
-        if (description == null) {
-            params = new Object[] { attribute, "" };
-        } else {
-            params = new Object[] { attribute, description };
-        }
-        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR };
-        int rowId = jdbcTemplate.update(update, params, types);
-        if (rowId < 1) {
-            return null;
+    protected Long createNewAttribute(final String attribute, final String description) {
+        try {
+            int rowId = update(UserDatabaseQuery.INSERT_ATTRIBUTE, attribute, description == null ? "" : description);
+            if (rowId < 1) {
+                return null;
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("The attribute {} was created concurrently", attribute);
         }
         return getExistingAttributeId(attribute);
     }
@@ -751,10 +995,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The attribute's database ID.
      */
     protected Long getExistingAttributeId(final String attribute) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_ID + " FROM "
-                + DataModelUtil.TABLE_NAME_ATTRIBUTE + " WHERE " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_NAME + "='"
-                + attribute + "';";
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_ATTRIBUTE_ID));
+        return query(UserDatabaseQuery.ATTRIBUTE_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_ATTRIBUTE_ID),
+                attribute);
     }
 
     /**
@@ -763,13 +1005,8 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The row ID for the created user.
      */
     protected int createNewUser(final UserDetails details) {
-        final String template = "INSERT INTO " + DataModelUtil.TABLE_NAME_USER + " ("
-                + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID + ", " + DataModelUtil.COLUMN_NAME_USER_SURVEY_USER_ID
-                + ") VALUES (?,?);";
-        Object[] params = new Object[] { details.getPrincipalId(), "" };
         // survey principal id is left empty
-        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR };
-        return jdbcTemplate.update(template, params, types);
+        return update(UserDatabaseQuery.INSERT_USER, details.getPrincipalId(), "");
     }
 
     /**
@@ -777,12 +1014,18 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param role The role name.
      * @return The database ID corresponding to the given role.
      */
-    protected synchronized Long getRoleId(final String role) {
-        final Long existing = getExistingRoleId(role);
-        if (existing == null) {
-            return createNewRole(role, null);
+    protected Long getRoleId(final String role) {
+        final Lock lock = roleLocks.get(role);
+        lock.lock();
+        try {
+            final Long existing = getExistingRoleId(role);
+            if (existing == null) {
+                return createNewRole(role, null);
+            }
+            return existing;
+        } finally {
+            lock.unlock();
         }
-        return existing;
     }
 
     /**
@@ -791,20 +1034,14 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @param description The role description.
      * @return The role's database ID.
      */
-    protected synchronized Long createNewRole(final String role, final String description) {
-        final String template = "INSERT INTO " + DataModelUtil.TABLE_NAME_ROLE + " ("
-                + DataModelUtil.COLUMN_NAME_ROLE_NAME + ", " + DataModelUtil.COLUMN_NAME_ROLE_DESCRIPTION
-                + ") VALUES (?,?)";
-        final Object[] params;
-        if (description == null) {
-            params = new Object[] { role, "" };
-        } else {
-            params = new Object[] { role, description };
-        }
-        int[] types = new int[] { Types.VARCHAR, Types.VARCHAR };
-        int rowId = jdbcTemplate.update(template, params, types);
-        if (rowId < 1) {
-            return null;
+    protected Long createNewRole(final String role, final String description) {
+        try {
+            int rowId = update(UserDatabaseQuery.INSERT_ROLE, role, description == null ? "" : description);
+            if (rowId < 1) {
+                return null;
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("The role {} was created concurrently", role);
         }
         return getExistingRoleId(role);
     }
@@ -815,10 +1052,239 @@ public class DataSourceUserDatabaseConnector implements UserDatabaseConnector {
      * @return The database ID corresponding to the role.
      */
     protected Long getExistingRoleId(final String role) {
-        final String query = "SELECT " + DataModelUtil.COLUMN_NAME_ROLE_ID + " FROM " + DataModelUtil.TABLE_NAME_ROLE
-                + " WHERE " + DataModelUtil.COLUMN_NAME_ROLE_NAME + "='" + role + "' AND "
-                + DataModelUtil.COLUMN_NAME_END + " IS NULL;";
-        return jdbcTemplate.query(query, new IdExtractor(DataModelUtil.COLUMN_NAME_ROLE_ID));
+        return query(UserDatabaseQuery.ROLE_ID, new IdExtractor(DataModelUtil.COLUMN_NAME_ROLE_ID), role);
+    }
+
+    /**
+     * Runs the given catalogue query with the bind parameters.
+     * @param query The query.
+     * @param extractor The extractor for the results.
+     * @param params The values of the bind parameters.
+     * @param <T> The type of the result.
+     * @return The result.
+     */
+    protected <T> T query(final UserDatabaseQuery query, final ResultSetExtractor<T> extractor,
+            final Object... params) {
+        log.trace("Running the query {}", query);
+        return jdbcTemplate.query(query.getSql(), params, query.getTypes(), extractor);
+    }
+
+    /**
+     * Runs the given catalogue update with the bind parameters.
+     * @param update The update.
+     * @param params The values of the bind parameters.
+     * @return The amount of affected rows.
+     */
+    protected int update(final UserDatabaseQuery update, final Object... params) {
+        log.trace("Running the update {}", update);
+        return jdbcTemplate.update(update.getSql(), params, update.getTypes());
+    }
+
+    /**
+     * Runs the given catalogue update for each of the rows of bind parameters, in batches of the configured size.
+     * @param update The update.
+     * @param rows The values of the bind parameters for each row.
+     * @throws SurveySystemConnectorException If any of the rows was not updated.
+     */
+    protected void batchUpdate(final UserDatabaseQuery update, final List<Object[]> rows)
+            throws SurveySystemConnectorException {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            final List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            log.trace("Running the update {} for {} rows", update, batch.size());
+            verifyBatch(update, jdbcTemplate.batchUpdate(update.getSql(), batch, update.getTypes()));
+        }
+    }
+
+    /**
+     * Runs the given catalogue insert for each of the rows of bind parameters, in batches of the configured size,
+     * and returns the generated keys. The keys of a batch are null if the driver does not return them all.
+     * @param insert The insert.
+     * @param keyColumn The name of the generated key column.
+     * @param rows The values of the bind parameters for each row.
+     * @return The generated keys in the order of the rows.
+     * @throws SurveySystemConnectorException If any of the rows was not inserted.
+     */
+    protected List<String> batchInsert(final UserDatabaseQuery insert, final String keyColumn,
+            final List<Object[]> rows) throws SurveySystemConnectorException {
+        final List<String> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            final List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            log.trace("Running the insert {} for {} rows", insert, batch.size());
+            final List<String> keys = new ArrayList<>(batch.size());
+            final int[] counts = jdbcTemplate.execute(
+                (Connection connection) -> connection.prepareStatement(insert.getSql(), new String[] { keyColumn }),
+                (PreparedStatement statement) -> {
+                    for (final Object[] row : batch) {
+                        for (int i = 0; i < row.length; i++) {
+                            StatementCreatorUtils.setParameterValue(statement, i + 1, insert.getTypes()[i], row[i]);
+                        }
+                        statement.addBatch();
+                    }
+                    final int[] result = statement.executeBatch();
+                    try (ResultSet generated = statement.getGeneratedKeys()) {
+                        while (generated != null && generated.next()) {
+                            keys.add(generated.getString(1));
+                        }
+                    }
+                    return result;
+                });
+            verifyBatch(insert, counts);
+            if (keys.size() == batch.size()) {
+                ids.addAll(keys);
+            } else {
+                log.debug("Obtained {} generated keys for {} rows, the identifiers are queried", keys.size(),
+                        batch.size());
+                ids.addAll(Collections.nCopies(batch.size(), null));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Verifies that each row of a batch was affected.
+     * @param update The update or insert run in the batch.
+     * @param counts The update counts of the batch.
+     * @throws SurveySystemConnectorException If any of the rows was not affected.
+     */
+    protected void verifyBatch(final UserDatabaseQuery update, final int[] counts)
+            throws SurveySystemConnectorException {
+        for (final int count : counts) {
+            // the drivers may not report the amount of affected rows in a batch
+            if (count < 1 && count != Statement.SUCCESS_NO_INFO) {
+                log.error("Obtained the update count {} for a row of {}", count, update);
+                throw new SurveySystemConnectorException("Unexpected response from the database");
+            }
+        }
+    }
+
+    /**
+     * Runs the operation in a database transaction while holding the given locks. The locks are acquired in the
+     * given order before the transaction begins and released after it has completed, so that the next holder sees
+     * the committed changes. The transaction is rolled back if the operation throws an exception.
+     * @param locks The locks to hold.
+     * @param operation The operation.
+     * @param <T> The type of the operation result.
+     * @return The operation result.
+     * @throws SurveySystemConnectorException If the operation fails.
+     */
+    protected <T> T execute(final List<Lock> locks, final TransactionalOperation<T> operation)
+            throws SurveySystemConnectorException {
+        int acquired = 0;
+        try {
+            for (final Lock lock : locks) {
+                lock.lock();
+                acquired++;
+            }
+            return transactionTemplate.execute(status -> {
+                try {
+                    return operation.execute();
+                } catch (SurveySystemConnectorException e) {
+                    throw new OperationFailedException(e);
+                }
+            });
+        } catch (OperationFailedException e) {
+            throw (SurveySystemConnectorException) e.getCause();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * An operation run in a database transaction.
+     * @param <T> The type of the operation result.
+     */
+    protected interface TransactionalOperation<T> {
+
+        /**
+         * Runs the operation.
+         * @return The operation result.
+         * @throws SurveySystemConnectorException If the operation fails.
+         */
+        T execute() throws SurveySystemConnectorException;
+    }
+
+    /**
+     * Carries the failure of a {@link TransactionalOperation} through the transaction, rolling it back.
+     */
+    @SuppressWarnings("serial")
+    private static class OperationFailedException extends RuntimeException {
+
+        /**
+         * Constructor.
+         * @param cause The failure of the operation.
+         */
+        OperationFailedException(final SurveySystemConnectorException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * The entities and assessors of an import matched to the existing ones.
+     */
+    protected static class EntityImport {
+
+        /** The existing entities, keyed by the lower-cased creator and name. */
+        private final Map<List<String>, EntityDetails> existingEntities = new HashMap<>();
+
+        /** The entities to be created, keyed by the lower-cased creator and name. */
+        private final Map<List<String>, EntityDetails> newEntities = new LinkedHashMap<>();
+
+        /** The assessors to be created. */
+        private final List<AssessorDetails> newAssessors = new ArrayList<>();
+
+        /** The matched assessors of each imported entity, in the order of the entities. */
+        private final List<List<AssessorDetails>> matchedAssessors = new ArrayList<>();
+
+        /** The assessors to be linked to each entity, keyed by the lower-cased creator and name. */
+        private final Map<List<String>, List<AssessorDetails>> targetAssessors = new LinkedHashMap<>();
+
+        /**
+         * Adds the lock keys for the rows written by the import: the creators and names of the new entities, the
+         * identifiers of the existing entities whose assessors change, and the types and values of the new
+         * assessors.
+         * @param entityKeys The entity lock keys to be added to.
+         * @param assessorKeys The assessor lock keys to be added to.
+         * @return True if some of the keys were not yet included, false otherwise.
+         */
+        protected boolean addLockKeys(final Set<String> entityKeys, final Set<String> assessorKeys) {
+            boolean added = false;
+            for (final EntityDetails created : newEntities.values()) {
+                added |= entityKeys.add(created.getCreator() + "/" + created.getName());
+            }
+            for (final Map.Entry<List<String>, List<AssessorDetails>> target : targetAssessors.entrySet()) {
+                final EntityDetails existing = existingEntities.get(target.getKey());
+                if (existing != null && assessorsChange(existing.getAssessors(), target.getValue())) {
+                    added |= entityKeys.add("#" + existing.getId());
+                }
+            }
+            for (final AssessorDetails created : newAssessors) {
+                added |= assessorKeys.add(created.getType() + "/" + created.getValue());
+            }
+            return added;
+        }
+
+        /**
+         * Checks whether the import changes the assessors linked to an existing entity.
+         * @param stored The assessors currently linked to the entity.
+         * @param target The assessors to be linked to the entity, the new ones without an identifier.
+         * @return True if the links change, false otherwise.
+         */
+        protected static boolean assessorsChange(final List<AssessorDetails> stored,
+                final List<AssessorDetails> target) {
+            for (final AssessorDetails details : target) {
+                if (!DataModelUtil.assessorListContains(stored, details.getId())) {
+                    return true;
+                }
+            }
+            for (final AssessorDetails details : stored) {
+                if (!DataModelUtil.assessorListContains(target, details.getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     /**
@@ -30,6 +30,8 @@ package org.geant.sat.api.impl;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.geant.sat.api.dto.AssessorDetails;
 import org.geant.sat.api.dto.EntityDetails;
@@ -51,6 +53,7 @@ public class EntityDetailsExtractor implements ResultSetExtractor<ListEntitiesRe
     @Override
     public ListEntitiesResponse extractData(final ResultSet rs) throws SQLException, DataAccessException {
         final ListEntitiesResponse response = new ListEntitiesResponse();
+        final Map<String, EntityDetails> index = new HashMap<>();
         while (rs.next()) {
             final String id = rs.getString(DataModelUtil.COLUMN_NAME_ENTITY_ID);
             log.debug("Found an entity {} from the result set.", id);
@@ -61,7 +64,7 @@ public class EntityDetailsExtractor implements ResultSetExtractor<ListEntitiesRe
             final String assessorValue = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE);
             final String assessorType = rs.getString(DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_TYPE);
             final String surveyId = rs.getString(DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID);
-            final EntityDetails details = getExistingOrCreateNew(response, id);
+            final EntityDetails details = getExistingOrCreateNew(response, index, id);
             details.setName(name);
             details.setDescription(description);
             details.setCreator(creator);
@@ -88,19 +91,21 @@ public class EntityDetailsExtractor implements ResultSetExtractor<ListEntitiesRe
      * Get the existing entity details from the response if it was found with the same name, or creates a new one
      * if it wasn't.
      * @param response The response to be searched from.
+     * @param index The details already in the response, keyed by their identifiers.
      * @param id The entity name to be searched.
      * @return The existing or new entity details.
      */
-    protected EntityDetails getExistingOrCreateNew(final ListEntitiesResponse response, final String id) {
-        for (final EntityDetails details : response.getEntities()) {
-            if (id.equals(details.getId())) {
-                log.debug("Found existing details for {} from the response", id);
-                return details;
-            }
+    protected EntityDetails getExistingOrCreateNew(final ListEntitiesResponse response,
+            final Map<String, EntityDetails> index, final String id) {
+        final EntityDetails existing = index.get(id);
+        if (existing != null) {
+            log.debug("Found existing details for {} from the response", id);
+            return existing;
         }
         final EntityDetails details = new EntityDetails();
         details.setId(id);
         response.getEntities().add(details);
+        index.put(id, details);
         return details;
     }
 }
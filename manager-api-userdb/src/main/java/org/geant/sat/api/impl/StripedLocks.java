@@ -0,0 +1,104 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of reentrant locks shared by an unbounded set of keys. Each key is mapped to one of the locks by its
+ * hash code, so operations on different keys usually proceed in parallel, while operations on the same key are
+ * always serialized. Keys are compared case-insensitively, as the user database matches names that way.
+ * 
+ * <p>To avoid deadlocks, a thread holding locks from several instances must acquire them in the same instance order
+ * as every other thread, and several locks of one instance must be acquired via {@link #getAll(Collection)}.</p>
+ */
+public class StripedLocks {
+
+    /** The locks. */
+    private final Lock[] locks;
+
+    /**
+     * Constructor.
+     * @param stripes The amount of locks, at least one.
+     */
+    public StripedLocks(final int stripes) {
+        locks = new Lock[Math.max(1, stripes)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the lock for the given key.
+     * @param key The key.
+     * @return The lock for the key.
+     */
+    public Lock get(final String key) {
+        return locks[indexOf(key)];
+    }
+
+    /**
+     * Get the distinct locks for the given keys, in the order they must be acquired.
+     * @param keys The keys.
+     * @return The locks for the keys.
+     */
+    public List<Lock> getAll(final Collection<String> keys) {
+        final TreeSet<Integer> indexes = new TreeSet<>();
+        for (final String key : keys) {
+            indexes.add(indexOf(key));
+        }
+        final List<Lock> result = new ArrayList<>(indexes.size());
+        for (final Integer index : indexes) {
+            result.add(locks[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the amount of locks.
+     * @return The amount of locks.
+     */
+    public int getStripes() {
+        return locks.length;
+    }
+
+    /**
+     * Get the lock index for the given key.
+     * @param key The key.
+     * @return The lock index.
+     */
+    protected int indexOf(final String key) {
+        final int hash = key == null ? 0 : key.toLowerCase().hashCode();
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % locks.length;
+    }
+}
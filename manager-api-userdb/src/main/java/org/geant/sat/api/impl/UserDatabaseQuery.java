@@ -0,0 +1,220 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.sql.Types;
+
+/**
+ * The catalogue of the SQL statements run by {@link DataSourceUserDatabaseConnector}. The statements are built once
+ * and all the values are bind parameters, so that the statement text is the same for every call and the prepared
+ * statements and query plans can be cached by the driver, the connection pool and the database.
+ */
+public enum UserDatabaseQuery {
+
+    /** All users with their attributes and roles. */
+    LIST_USERS(DataModelUtil.buildListUsersQuery()),
+
+    /** All roles. */
+    LIST_ROLES(DataModelUtil.buildListRolesQuery()),
+
+    /** All entities with their assessors and surveys. */
+    LIST_ENTITIES(DataModelUtil.buildEntitiesQuery()),
+
+    /** All assessors. */
+    LIST_ASSESSORS(DataModelUtil.buildAssessorsQuery()),
+
+    /** The user with the given principal identifier, with the attributes and roles. */
+    USER_DETAILS(DataModelUtil.buildListUsersQuery() + " WHERE " + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID
+            + "=?", Types.VARCHAR),
+
+    /** The role with the given name. */
+    ROLE_DETAILS(DataModelUtil.buildListRolesQuery() + " WHERE " + DataModelUtil.COLUMN_NAME_ROLE_NAME + "=?",
+            Types.VARCHAR),
+
+    /** The entity with the given identifier, with the assessors and surveys. */
+    ENTITY_DETAILS(DataModelUtil.buildEntitiesQuery() + " AND " + DataModelUtil.TABLE_NAME_ENTITY + "."
+            + DataModelUtil.COLUMN_NAME_ENTITY_ID + "=?", Types.BIGINT),
+
+    /** The assessor with the given identifier. */
+    ASSESSOR_DETAILS(DataModelUtil.buildAssessorsQuery() + " AND " + DataModelUtil.TABLE_NAME_ASSESSOR + "."
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + "=?", Types.BIGINT),
+
+    /** The tokens of the given survey. */
+    SURVEY_TOKENS(DataModelUtil.buildSurveyTokensQuery() + " AND " + DataModelUtil.TABLE_NAME_ASSESSOR_TOKEN + "."
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_SURVEY_ID + "=?", Types.VARCHAR),
+
+    /** The biggest event identifier of the survey tokens. */
+    MAX_EVENT_ID("SELECT max(" + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID + ") AS "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID + " FROM " + DataModelUtil.TABLE_NAME_ASSESSOR_TOKEN),
+
+    /** The identifier of the user with the given principal identifier. */
+    USER_ID("SELECT " + DataModelUtil.COLUMN_NAME_USER_ID + " FROM " + DataModelUtil.TABLE_NAME_USER + " WHERE "
+            + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID + "=?", Types.VARCHAR),
+
+    /** The identifier of the assessor type with the given name. */
+    ASSESSOR_TYPE_ID("SELECT " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_ID + " FROM "
+            + DataModelUtil.TABLE_NAME_ASSESSOR_TYPE + " WHERE " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_TYPE + "=?",
+            Types.VARCHAR),
+
+    /** The identifier of the assessor with the given type identifier and value. */
+    ASSESSOR_ID("SELECT " + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + " FROM " + DataModelUtil.TABLE_NAME_ASSESSOR
+            + " WHERE " + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPEID + "=? AND "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE + "=?", Types.BIGINT, Types.VARCHAR),
+
+    /** The identifier of the valid entity with the given name and creator identifier. */
+    ENTITY_ID("SELECT " + DataModelUtil.COLUMN_NAME_ENTITY_ID + " FROM " + DataModelUtil.TABLE_NAME_ENTITY + " WHERE "
+            + DataModelUtil.COLUMN_NAME_ENTITY_NAME + "=? AND " + DataModelUtil.COLUMN_NAME_ENTITY_USER_ID + "=? AND "
+            + DataModelUtil.COLUMN_NAME_END + " IS NULL", Types.VARCHAR, Types.BIGINT),
+
+    /** The identifier of the attribute with the given name. */
+    ATTRIBUTE_ID("SELECT " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_ID + " FROM " + DataModelUtil.TABLE_NAME_ATTRIBUTE
+            + " WHERE " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_NAME + "=?", Types.VARCHAR),
+
+    /** The identifier of the valid role with the given name. */
+    ROLE_ID("SELECT " + DataModelUtil.COLUMN_NAME_ROLE_ID + " FROM " + DataModelUtil.TABLE_NAME_ROLE + " WHERE "
+            + DataModelUtil.COLUMN_NAME_ROLE_NAME + "=? AND " + DataModelUtil.COLUMN_NAME_END + " IS NULL",
+            Types.VARCHAR),
+
+    /** Inserts a user with the principal identifier and survey principal identifier. */
+    INSERT_USER("INSERT INTO " + DataModelUtil.TABLE_NAME_USER + " (" + DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID
+            + ", " + DataModelUtil.COLUMN_NAME_USER_SURVEY_USER_ID + ") VALUES (?, ?)", Types.VARCHAR, Types.VARCHAR),
+
+    /** Inserts an attribute with the name and description. */
+    INSERT_ATTRIBUTE("INSERT INTO " + DataModelUtil.TABLE_NAME_ATTRIBUTE + " ("
+            + DataModelUtil.COLUMN_NAME_ATTRIBUTE_NAME + ", " + DataModelUtil.COLUMN_NAME_ATTRIBUTE_DESCRIPTION
+            + ") VALUES (?, ?)", Types.VARCHAR, Types.VARCHAR),
+
+    /** Inserts an attribute value with the user identifier, attribute identifier and value. */
+    INSERT_USER_ATTRIBUTE("INSERT INTO " + DataModelUtil.TABLE_NAME_USER_ATTRIBUTE + " ("
+            + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_USER_ID + ", "
+            + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_ATTRIBUTE_ID + ", "
+            + DataModelUtil.COLUMN_NAME_USER_ATTRIBUTE_VALUE + ") VALUES (?, ?, ?)",
+            Types.BIGINT, Types.BIGINT, Types.VARCHAR),
+
+    /** Inserts a role with the name and description. */
+    INSERT_ROLE("INSERT INTO " + DataModelUtil.TABLE_NAME_ROLE + " (" + DataModelUtil.COLUMN_NAME_ROLE_NAME + ", "
+            + DataModelUtil.COLUMN_NAME_ROLE_DESCRIPTION + ") VALUES (?, ?)", Types.VARCHAR, Types.VARCHAR),
+
+    /** Updates the description of the role with the given identifier. */
+    UPDATE_ROLE("UPDATE " + DataModelUtil.TABLE_NAME_ROLE + " SET " + DataModelUtil.COLUMN_NAME_ROLE_DESCRIPTION
+            + "=? WHERE " + DataModelUtil.COLUMN_NAME_ROLE_ID + "=?", Types.VARCHAR, Types.BIGINT),
+
+    /** Inserts a role of a user with the user identifier and role identifier. */
+    INSERT_USER_ROLE("INSERT INTO " + DataModelUtil.TABLE_NAME_USER_ROLE + " ("
+            + DataModelUtil.COLUMN_NAME_USER_ROLE_USER_ID + ", " + DataModelUtil.COLUMN_NAME_USER_ROLE_ROLE_ID
+            + ") VALUES (?, ?)", Types.BIGINT, Types.BIGINT),
+
+    /** Ends a role of a user with the end time, role identifier and user identifier. */
+    END_USER_ROLE("UPDATE " + DataModelUtil.TABLE_NAME_USER_ROLE + " SET " + DataModelUtil.COLUMN_NAME_END
+            + "=? WHERE " + DataModelUtil.COLUMN_NAME_USER_ROLE_ROLE_ID + "=? AND "
+            + DataModelUtil.COLUMN_NAME_USER_ROLE_USER_ID + "=?", Types.TIMESTAMP, Types.BIGINT, Types.BIGINT),
+
+    /** Inserts an entity with the name, description and creator identifier. */
+    INSERT_ENTITY("INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY + " (" + DataModelUtil.COLUMN_NAME_ENTITY_NAME
+            + ", " + DataModelUtil.COLUMN_NAME_ENTITY_DESCRIPTION + ", " + DataModelUtil.COLUMN_NAME_ENTITY_USER_ID
+            + ") VALUES (?, ?, ?)", Types.VARCHAR, Types.VARCHAR, Types.BIGINT),
+
+    /** Updates the name and description of the entity with the given identifier. */
+    UPDATE_ENTITY("UPDATE " + DataModelUtil.TABLE_NAME_ENTITY + " SET " + DataModelUtil.COLUMN_NAME_ENTITY_NAME
+            + "=?, " + DataModelUtil.COLUMN_NAME_ENTITY_DESCRIPTION + "=? WHERE " + DataModelUtil.COLUMN_NAME_ENTITY_ID
+            + "=?", Types.VARCHAR, Types.VARCHAR, Types.BIGINT),
+
+    /** Inserts an assessor of an entity with the entity identifier and assessor identifier. */
+    INSERT_ENTITY_ASSESSOR("INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY_ASSESSOR + " ("
+            + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ENTITY_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ASSESSOR_ID + ") VALUES (?, ?)", Types.BIGINT, Types.BIGINT),
+
+    /** Ends an assessor of an entity with the end time, entity identifier and assessor identifier. */
+    END_ENTITY_ASSESSOR("UPDATE " + DataModelUtil.TABLE_NAME_ENTITY_ASSESSOR + " SET " + DataModelUtil.COLUMN_NAME_END
+            + "=? WHERE " + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ENTITY_ID + "=? AND "
+            + DataModelUtil.COLUMN_NAME_ENTITY_ASSESSOR_ASSESSOR_ID + "=?", Types.TIMESTAMP, Types.BIGINT,
+            Types.BIGINT),
+
+    /** Inserts a survey of an entity with the entity identifier and survey identifier. */
+    INSERT_ENTITY_SURVEY("INSERT INTO " + DataModelUtil.TABLE_NAME_ENTITY_SURVEY + " ("
+            + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_ENTITY_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID + ") VALUES (?, ?)", Types.BIGINT, Types.VARCHAR),
+
+    /** Ends a survey of an entity with the end time, entity identifier and survey identifier. */
+    END_ENTITY_SURVEY("UPDATE " + DataModelUtil.TABLE_NAME_ENTITY_SURVEY + " SET " + DataModelUtil.COLUMN_NAME_END
+            + "=? WHERE " + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_ENTITY_ID + "=? AND "
+            + DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID + "=?", Types.TIMESTAMP, Types.BIGINT, Types.VARCHAR),
+
+    /** Inserts an assessor with the type identifier, value and description. */
+    INSERT_ASSESSOR("INSERT INTO " + DataModelUtil.TABLE_NAME_ASSESSOR + " ("
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_TYPEID + ", " + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_DESCRIPTION + ") VALUES (?, ?, ?)",
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR),
+
+    /** Updates the value and description of the assessor with the given identifier. */
+    UPDATE_ASSESSOR("UPDATE " + DataModelUtil.TABLE_NAME_ASSESSOR + " SET " + DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE
+            + "=?, " + DataModelUtil.COLUMN_NAME_ASSESSOR_DESCRIPTION + "=? WHERE "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_ID + "=?", Types.VARCHAR, Types.VARCHAR, Types.BIGINT),
+
+    /** Inserts a survey token with the assessor, entity, user, survey and event identifiers and the token. */
+    INSERT_SURVEY_TOKEN("INSERT INTO " + DataModelUtil.TABLE_NAME_ASSESSOR_TOKEN + " ("
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_ASSESSOR_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_ENTITY_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_USER_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_SURVEY_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_EVENT_ID + ", "
+            + DataModelUtil.COLUMN_NAME_ASSESSOR_SURVEY_TOKEN + ") VALUES (?, ?, ?, ?, ?, ?)",
+            Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.VARCHAR);
+
+    /** The SQL statement. */
+    private final String sql;
+
+    /** The SQL types of the bind parameters. */
+    private final int[] types;
+
+    /**
+     * Constructor.
+     * @param statement The SQL statement.
+     * @param parameterTypes The SQL types of the bind parameters, from {@link Types}.
+     */
+    UserDatabaseQuery(final String statement, final int... parameterTypes) {
+        sql = statement;
+        types = parameterTypes;
+    }
+
+    /**
+     * Get the SQL statement.
+     * @return The SQL statement.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Get the SQL types of the bind parameters. The returned array is shared and must not be modified.
+     * @return The SQL types of the bind parameters, from {@link Types}.
+     */
+    public int[] getTypes() {
+        return types;
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.AssessorDetails;
+import org.geant.sat.api.dto.EntityDetails;
+import org.geant.sat.api.dto.UserDetails;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link DataSourceUserDatabaseConnector}, against an embedded database with the user database tables.
+ */
+public class DataSourceUserDatabaseConnectorTest {
+
+    /** The amount of concurrent threads. */
+    private static final int THREADS = 8;
+
+    /** The amount of operations per thread. */
+    private static final int OPERATIONS = 25;
+
+    /** The embedded database. */
+    private EmbeddedDatabase database;
+
+    /** The executor for the concurrent operations. */
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void initDatabase() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("userdb")
+                .addScript("org/geant/sat/api/userDbSchema.sql").build();
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterMethod
+    public void shutdownDatabase() {
+        executor.shutdownNow();
+        database.shutdown();
+    }
+
+    @Test
+    public void testUserDetails() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        connector.updateUserDetails(initUser("user@example.org", "admin"));
+        final UserDetails user = connector.getUserDetails("user@example.org");
+        Assert.assertNotNull(user);
+        Assert.assertEquals(user.getAttributes().get("mail"), "user@example.org");
+        Assert.assertTrue(user.getRoles().contains("admin"));
+        Assert.assertEquals(connector.getRoleDetails("admin").getName(), "admin");
+    }
+
+    @Test
+    public void testQuotedValues() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        connector.updateUserDetails(initUser("o'brien@example.org", "it's admin"));
+        Assert.assertTrue(connector.getUserDetails("o'brien@example.org").getRoles().contains("it's admin"));
+        Assert.assertNotNull(connector.getRoleDetails("it's admin"));
+        Assert.assertNull(connector.getUserDetails("' OR '1'='1"));
+    }
+
+    @Test
+    public void testEntityAndAssessorDetails() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        connector.updateUserDetails(initUser("creator@example.org", "admin"));
+        final AssessorDetails assessor = connector.createNewAssessor("email", "assessor@example.org", "Assessor");
+        final EntityDetails entity = connector.createNewEntity("Entity", "Description", "creator@example.org");
+        entity.getAssessors().add(assessor);
+        entity.getSids().add("123456");
+        connector.updateEntityDetails(entity);
+        final EntityDetails stored = connector.getEntityDetails(entity.getId());
+        Assert.assertEquals(stored.getName(), "Entity");
+        Assert.assertEquals(stored.getCreator(), "creator@example.org");
+        Assert.assertEquals(stored.getAssessors().get(0).getValue(), "assessor@example.org");
+        Assert.assertTrue(stored.getSids().contains("123456"));
+        final AssessorDetails storedAssessor = connector.getAssessorDetails(assessor.getId());
+        Assert.assertEquals(storedAssessor.getId(), assessor.getId());
+        Assert.assertEquals(storedAssessor.getDescription(), "Assessor");
+        Assert.assertEquals(storedAssessor.getType(), "email");
+        Assert.assertNull(connector.getEntityDetails("0"));
+    }
+
+    @Test
+    public void testConcurrentUsers() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                connector.updateUserDetails(initUser("user" + thread + "-" + i + "@example.org", "role" + i % 2));
+            }
+        });
+        Assert.assertEquals(connector.listUsers().getUsers().size(), THREADS * OPERATIONS);
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        Assert.assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attribute", Integer.class).intValue(),
+                1);
+        Assert.assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM role", Integer.class).intValue(), 2);
+        Assert.assertEquals(connector.getUserDetails("user3-4@example.org").getRoles().iterator().next(), "role0");
+    }
+
+    @Test
+    public void testConcurrentEvents() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        connector.updateUserDetails(initUser("user@example.org", "admin"));
+        final List<Integer> eventIds = new ArrayList<>();
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                final int eventId = connector.addSurveyToken("token" + thread + "-" + i, "1", "1",
+                        "user@example.org", "123456", 0);
+                connector.addSurveyToken("token" + thread + "-" + i + "b", "1", "2", "user@example.org", "123456",
+                        eventId);
+                synchronized (eventIds) {
+                    eventIds.add(eventId);
+                }
+            }
+        });
+        Assert.assertEquals(new HashSet<>(eventIds).size(), THREADS * OPERATIONS);
+        Assert.assertEquals(connector.listSurveyTokens("123456").getTokens().size(), 2 * THREADS * OPERATIONS);
+    }
+
+    @Test
+    public void testImportDoesNotBlockOtherWrites() throws Exception {
+        final CountDownLatch importStarted = new CountDownLatch(1);
+        final CountDownLatch importReleased = new CountDownLatch(1);
+        final DataSourceUserDatabaseConnector connector = new DataSourceUserDatabaseConnector() {
+            @Override
+            protected void storeNewEntities(final Collection<EntityDetails> entities)
+                    throws SurveySystemConnectorException {
+                importStarted.countDown();
+                try {
+                    importReleased.await();
+                } catch (InterruptedException e) {
+                    throw new SurveySystemConnectorException(e);
+                }
+                super.storeNewEntities(entities);
+            }
+        };
+        connector.setDataSource(database);
+        connector.updateUserDetails(initUser("creator@example.org", "admin"));
+        final List<EntityDetails> entities = new ArrayList<>();
+        entities.add(initEntity("Entity", "creator@example.org", "assessor@example.org"));
+        final Future<List<EntityDetails>> imported = executor.submit(() -> connector.storeEntities(entities));
+        Assert.assertTrue(importStarted.await(10, TimeUnit.SECONDS));
+
+        // the import holds the locks of its entity and assessor, but not the ones of the users and tokens
+        executor.submit(() -> {
+            connector.updateUserDetails(initUser("user@example.org", "admin"));
+            return connector.addSurveyToken("token", "1", "1", "user@example.org", "123456", 0);
+        }).get(10, TimeUnit.SECONDS);
+        final Future<AssessorDetails> sameAssessor = executor.submit(
+            () -> connector.createNewAssessor("email", "assessor@example.org", "duplicate"));
+        try {
+            sameAssessor.get(200, TimeUnit.MILLISECONDS);
+            Assert.fail("The creation of the imported assessor should wait for the import");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        importReleased.countDown();
+        Assert.assertEquals(imported.get(10, TimeUnit.SECONDS).get(0).getName(), "Entity");
+        try {
+            sameAssessor.get(10, TimeUnit.SECONDS);
+            Assert.fail("The imported assessor should already exist");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SurveySystemConnectorException);
+        }
+        Assert.assertEquals(connector.listEntities().getEntities().size(), 1);
+        Assert.assertEquals(connector.listAssessors().getAssessors().size(), 1);
+    }
+
+    @Test
+    public void testImportLocksOnlyWrittenKeys() throws Exception {
+        final CountDownLatch importStarted = new CountDownLatch(1);
+        final CountDownLatch importReleased = new CountDownLatch(1);
+        final DataSourceUserDatabaseConnector connector = new DataSourceUserDatabaseConnector() {
+            @Override
+            protected List<EntityDetails> importEntities(final List<EntityDetails> entities,
+                    final EntityImport entityImport) throws SurveySystemConnectorException {
+                importStarted.countDown();
+                try {
+                    importReleased.await();
+                } catch (InterruptedException e) {
+                    throw new SurveySystemConnectorException(e);
+                }
+                return super.importEntities(entities, entityImport);
+            }
+        };
+        connector.setDataSource(database);
+        // with one stripe, any lock held by the import would block all the entity and assessor writes
+        connector.setLockStripes(1);
+        connector.updateUserDetails(initUser("creator@example.org", "admin"));
+        final AssessorDetails assessor = connector.createNewAssessor("email", "assessor@example.org", "Assessor");
+        final EntityDetails entity = connector.createNewEntity("Entity", "Description", "creator@example.org");
+        entity.getAssessors().add(assessor);
+        connector.updateEntityDetails(entity);
+
+        final List<EntityDetails> entities = new ArrayList<>();
+        entities.add(initEntity("entity", "creator@example.org", "Assessor@example.org"));
+        final Future<List<EntityDetails>> imported = executor.submit(() -> connector.storeEntities(entities));
+        Assert.assertTrue(importStarted.await(10, TimeUnit.SECONDS));
+        // the import of an unchanged entity writes nothing and holds no locks
+        executor.submit(() -> {
+            connector.createNewAssessor("email", "other@example.org", "Other");
+            return connector.createNewEntity("Other", "Description", "creator@example.org");
+        }).get(10, TimeUnit.SECONDS);
+        importReleased.countDown();
+        Assert.assertEquals(imported.get(10, TimeUnit.SECONDS).get(0).getAssessors().get(0).getId(),
+                assessor.getId());
+        Assert.assertEquals(connector.listEntities().getEntities().size(), 2);
+        Assert.assertEquals(connector.listAssessors().getAssessors().size(), 2);
+    }
+
+    @Test
+    public void testBulkImport() throws Exception {
+        final DataSourceUserDatabaseConnector connector = initConnector();
+        connector.setBatchSize(7);
+        connector.updateUserDetails(initUser("creator@example.org", "admin"));
+        final EntityDetails existing = connector.createNewEntity("Entity0", "Description", "creator@example.org");
+        final List<EntityDetails> entities = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            entities.add(initEntity("Entity" + i, "creator@example.org", "assessor" + i % 20 + "@example.org"));
+        }
+        entities.add(initEntity("ENTITY1", "Creator@Example.org", "Assessor1@Example.org"));
+        final List<EntityDetails> imported = connector.storeEntities(entities);
+        Assert.assertEquals(connector.listEntities().getEntities().size(), 50);
+        Assert.assertEquals(connector.listAssessors().getAssessors().size(), 20);
+        Assert.assertNull(imported.get(0).getId());
+        Assert.assertEquals(imported.get(1).getId(), imported.get(50).getId());
+        Assert.assertEquals(imported.get(1).getAssessors().get(0).getId(),
+                imported.get(21).getAssessors().get(0).getId());
+        Assert.assertEquals(connector.getEntityDetails(existing.getId()).getAssessors().size(), 1);
+        final EntityDetails stored = connector.getEntityDetails(imported.get(30).getId());
+        Assert.assertEquals(stored.getName(), "Entity30");
+        Assert.assertEquals(stored.getAssessors().get(0).getValue(), "assessor10@example.org");
+
+        // the re-import replaces the assessor of the matched entity and adds nothing else
+        final List<EntityDetails> reimported = new ArrayList<>();
+        reimported.add(initEntity("entity30", "creator@example.org", "assessor11@example.org"));
+        connector.storeEntities(reimported);
+        Assert.assertEquals(connector.listEntities().getEntities().size(), 50);
+        Assert.assertEquals(connector.listAssessors().getAssessors().size(), 20);
+        final List<AssessorDetails> assessors = connector.getEntityDetails(stored.getId()).getAssessors();
+        Assert.assertEquals(assessors.size(), 1);
+        Assert.assertEquals(assessors.get(0).getValue(), "assessor11@example.org");
+    }
+
+    @Test
+    public void testFailedOperationRollsBack() throws Exception {
+        final DataSourceUserDatabaseConnector connector = new DataSourceUserDatabaseConnector() {
+            @Override
+            protected int storeSurveyToken(final String token, final String entityId, final String assessorId,
+                    final String principalId, final String sid, final int eventId)
+                    throws SurveySystemConnectorException {
+                super.storeSurveyToken(token, entityId, assessorId, principalId, sid, eventId);
+                throw new SurveySystemConnectorException("Failure after the insert");
+            }
+        };
+        connector.setDataSource(database);
+        try {
+            connector.addSurveyToken("token", "1", "1", "user@example.org", "123456", 0);
+            Assert.fail("The failure should be thrown");
+        } catch (SurveySystemConnectorException e) {
+            Assert.assertEquals(e.getMessage(), "Failure after the insert");
+        }
+        Assert.assertTrue(connector.listSurveyTokens("123456").getTokens().isEmpty());
+    }
+
+    /**
+     * Initializes a connector for the embedded database.
+     * @return The connector.
+     */
+    protected DataSourceUserDatabaseConnector initConnector() {
+        final DataSourceUserDatabaseConnector connector = new DataSourceUserDatabaseConnector();
+        connector.setDataSource(database);
+        return connector;
+    }
+
+    /**
+     * Initializes user details with a mail attribute and a role.
+     * @param principalId The principal identifier.
+     * @param role The role.
+     * @return The user details.
+     */
+    protected UserDetails initUser(final String principalId, final String role) {
+        final UserDetails user = new UserDetails();
+        user.setPrincipalId(principalId);
+        user.getAttributes().put("mail", principalId);
+        user.getRoles().add(role);
+        return user;
+    }
+
+    /**
+     * Initializes entity details with one assessor.
+     * @param name The entity name.
+     * @param creator The principal identifier of the creator.
+     * @param assessorValue The value of the email assessor.
+     * @return The entity details.
+     */
+    protected EntityDetails initEntity(final String name, final String creator, final String assessorValue) {
+        final EntityDetails entity = new EntityDetails();
+        entity.setName(name);
+        entity.setDescription("Description");
+        entity.setCreator(creator);
+        final AssessorDetails assessor = new AssessorDetails();
+        assessor.setType("email");
+        assessor.setValue(assessorValue);
+        entity.getAssessors().add(assessor);
+        return entity;
+    }
+
+    /**
+     * Runs the task in {@link #THREADS} concurrent threads and waits for all of them to finish.
+     * @param task The task, receiving the thread number.
+     * @throws Exception If any of the threads fail.
+     */
+    protected void runConcurrently(final ThreadTask task) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (final Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A task run in one of the concurrent threads.
+     */
+    protected interface ThreadTask {
+
+        /**
+         * Runs the task.
+         * @param thread The thread number.
+         * @throws Exception If the task fails.
+         */
+        void run(int thread) throws Exception;
+    }
+}
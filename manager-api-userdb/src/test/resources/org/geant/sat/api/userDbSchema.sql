@@ -0,0 +1,105 @@
+-- The Survey Manager user database tables used by DataSourceUserDatabaseConnector, with the unique constraints
+-- the connector relies on and the indexes of the joined link table columns.
+
+CREATE TABLE user (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    applicationPrincipal VARCHAR(255) NOT NULL UNIQUE,
+    surveyApplicationPrincipal VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE attribute (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE userAttribute (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    userId BIGINT NOT NULL,
+    attributeId BIGINT NOT NULL,
+    value VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE role (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE userRole (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    userId BIGINT NOT NULL,
+    roleId BIGINT NOT NULL,
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE entity (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1024),
+    userId BIGINT,
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE assessorType (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(255) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE assessor (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    assessorTypeId BIGINT NOT NULL,
+    value VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP,
+    UNIQUE (assessorTypeId, value)
+);
+
+CREATE TABLE entityAssessor (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entityId BIGINT NOT NULL,
+    assessorId BIGINT NOT NULL,
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE entitySurvey (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entityId BIGINT NOT NULL,
+    surveyId VARCHAR(255) NOT NULL,
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE TABLE assessorSurveyToken (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    assessorId BIGINT,
+    entityId BIGINT,
+    userId BIGINT,
+    surveyId VARCHAR(255) NOT NULL,
+    eventId BIGINT NOT NULL,
+    token VARCHAR(255) NOT NULL UNIQUE,
+    start TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    end TIMESTAMP
+);
+
+CREATE INDEX userAttributeUserId ON userAttribute (userId);
+CREATE INDEX userRoleUserId ON userRole (userId);
+CREATE INDEX entityAssessorEntityId ON entityAssessor (entityId);
+CREATE INDEX entitySurveyEntityId ON entitySurvey (entityId);
+
+INSERT INTO assessorType (type, description) VALUES ('email', 'Email address');
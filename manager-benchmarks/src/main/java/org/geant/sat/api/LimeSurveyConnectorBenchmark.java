@@ -0,0 +1,141 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.dto.AnswersResponse;
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.lime.LimeStandInServer;
+import org.geant.sat.api.lime.SyntheticSurveyData;
+import org.geant.sat.api.lime.SyntheticSurveyData.Participant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link LimeSurveyConnector} over HTTP against the local {@link LimeStandInServer}, without
+ * latency, so the results reflect the client-side cost of the calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimeSurveyConnectorBenchmark {
+
+    /** The amount of participants in the survey. */
+    @Param({ "100", "2000" })
+    private int participants;
+
+    /** The stand-in server. */
+    private LimeStandInServer server;
+
+    /** The connector. */
+    private LimeSurveyConnector connector;
+
+    /** The survey identifier. */
+    private String sid;
+
+    /** Every tenth token of the survey. */
+    private List<String> tokens;
+
+    /**
+     * Starts the stand-in server and configures the connector.
+     * @throws IOException If the server cannot be started.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final SyntheticSurveyData data = new SyntheticSurveyData(1);
+        data.setSurveyCount(1);
+        data.setParticipantCount(participants);
+        server = new LimeStandInServer(data).start();
+        connector = new LimeSurveyConnector();
+        connector.setApiEndpoint(server.getEndpoint());
+        connector.setApiUser("user");
+        connector.setApiPassword("password");
+        sid = data.getSurveys().get(0).getSid();
+        tokens = new ArrayList<>();
+        final List<Participant> all = data.getSurveys().get(0).getParticipants();
+        for (int i = 0; i < all.size(); i += 10) {
+            tokens.add(all.get(i).getToken());
+        }
+    }
+
+    /**
+     * Stops the connector and the stand-in server.
+     * @throws IOException If the server cannot be stopped.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        connector.destroy();
+        server.close();
+    }
+
+    /**
+     * Lists all the answers.
+     * @return The answers.
+     * @throws SurveySystemConnectorException If the answers cannot be listed.
+     */
+    @Benchmark
+    public AnswersResponse listAnswers() throws SurveySystemConnectorException {
+        return connector.listAnswers(sid);
+    }
+
+    /**
+     * Lists the answers for every tenth token.
+     * @return The answers.
+     * @throws SurveySystemConnectorException If the answers cannot be listed.
+     */
+    @Benchmark
+    public AnswersResponse listAnswersForTokens() throws SurveySystemConnectorException {
+        return connector.listAnswers(sid, tokens);
+    }
+
+    /**
+     * Lists all the participant tokens.
+     * @return The tokens.
+     */
+    @Benchmark
+    public ListSurveyTokensResponse listSurveyTokens() {
+        return connector.listSurveyTokens(sid);
+    }
+}
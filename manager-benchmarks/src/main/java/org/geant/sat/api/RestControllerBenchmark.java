@@ -0,0 +1,158 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.dto.ListSurveyTokensResponse;
+import org.geant.sat.api.dto.ListTokensResponse;
+import org.geant.sat.api.dto.SurveyTokenDetails;
+import org.geant.sat.api.dto.TokenDetails;
+import org.geant.sat.api.dto.UserDetails;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for the merging done in {@link RestController}: combining the Survey Manager users with the survey
+ * system users, and merging the survey system token states into the tokens on /tokens. The connectors are stubs
+ * returning prebuilt responses, so only the merging is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestControllerBenchmark {
+
+    /** The survey identifier. */
+    private static final String SID = "100001";
+
+    /** The amount of users and tokens. */
+    @Param({ "100", "1000" })
+    private int size;
+
+    /** The controller. */
+    private RestController controller;
+
+    /** The Survey Manager users, every other one also in the survey system. */
+    private List<UserDetails> smUsers;
+
+    /** The survey system users. */
+    private List<UserDetails> surveyUsers;
+
+    /**
+     * Builds the users, the tokens and the controller.
+     * @throws SurveySystemConnectorException Never, declared by the stubbed connectors.
+     */
+    @Setup
+    public void setUp() throws SurveySystemConnectorException {
+        smUsers = new ArrayList<>();
+        surveyUsers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final UserDetails smUser = new UserDetails();
+            smUser.setPrincipalId("user" + i + "@example.org");
+            smUser.getAttributes().put("attribute", "value" + i);
+            smUsers.add(smUser);
+            final UserDetails surveyUser = new UserDetails();
+            surveyUser.setSurveyPrincipalId("user" + (i * 2) + "@example.org");
+            surveyUser.getAttributes().put("surveyAttribute", "value" + i);
+            surveyUser.getRoles().add("admin");
+            surveyUsers.add(surveyUser);
+        }
+        final ListTokensResponse tokens = new ListTokensResponse();
+        final ListSurveyTokensResponse surveyTokens = new ListSurveyTokensResponse();
+        for (int i = 0; i < size; i++) {
+            final TokenDetails token = new TokenDetails();
+            token.setToken("token" + i);
+            token.setEntityId(String.valueOf(i % 10));
+            tokens.getTokens().add(token);
+            final SurveyTokenDetails surveyToken = new SurveyTokenDetails();
+            surveyToken.setSurveyId(SID);
+            surveyToken.setToken("token" + i);
+            surveyToken.setCompleted(i % 3 == 0 ? "2017-05-02 10:00" : "N");
+            surveyTokens.getTokens().add(surveyToken);
+        }
+        Collections.shuffle(surveyTokens.getTokens(), new Random(1));
+        final UserDatabaseConnector userDbConnector = Mockito.mock(UserDatabaseConnector.class);
+        Mockito.when(userDbConnector.listSurveyTokens(SID)).thenReturn(tokens);
+        final SurveySystemConnector surveyConnector = Mockito.mock(SurveySystemConnector.class);
+        Mockito.when(surveyConnector.listSurveyTokens(SID)).thenReturn(surveyTokens);
+        controller = new RestController();
+        setField(controller, "userDbConnector", userDbConnector);
+        setField(controller, "surveyConnector", surveyConnector);
+    }
+
+    /**
+     * Combines the Survey Manager and survey system users. The merge writes into the Survey Manager users, but
+     * repeating it gives the same result, so the same lists are reused across invocations.
+     * @return The combined users.
+     */
+    @Benchmark
+    public List<UserDetails> combineDetails() {
+        return controller.combineDetails(smUsers, surveyUsers);
+    }
+
+    /**
+     * Lists the tokens, merging the survey system token states into them.
+     * @return The tokens.
+     */
+    @Benchmark
+    public ResponseEntity<ListTokensResponse> listTokens() {
+        return controller.listTokens(SID, null, null);
+    }
+
+    /**
+     * Sets the given injected field.
+     * @param target The target object.
+     * @param name The field name.
+     * @param value The value.
+     */
+    private static void setField(final Object target, final String name, final Object value) {
+        final Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.answers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.dto.AnswerDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks comparing the answers held as {@link AnswerDetails} with a {@link HashMap} per response against
+ * {@link ColumnarAnswerStore}, for building the answers and for reading every answer by the question title. The
+ * values are built as separate string instances per response, the way a parser produces them. Most of the questions
+ * are multiple-choice questions with a few distinct values, the rest are free-text questions. The allocations of the
+ * representations are reported with the GC profiler, i.e. <code>-prof gc</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class AnswerStoreBenchmark {
+
+    /** Every nth question is a free-text question. */
+    public static final int FREE_TEXT_INTERVAL = 10;
+
+    /** The amount of distinct values in the multiple-choice questions. */
+    public static final int CHOICES = 5;
+
+    /** The amount of responses. */
+    @Param({ "1000", "20000" })
+    private int responses;
+
+    /** The amount of questions. */
+    @Param({ "20", "200" })
+    private int questions;
+
+    /** The question titles. */
+    private String[] titles;
+
+    /** The answers with a hash map per response. */
+    private List<AnswerDetails> hashMapAnswers;
+
+    /** The views to the answers in a columnar store. */
+    private List<AnswerDetails> columnarAnswers;
+
+    /**
+     * Builds the answers in both representations for the scans.
+     */
+    @Setup
+    public void setUp() {
+        titles = new String[questions];
+        for (int q = 0; q < questions; q++) {
+            titles[q] = "Q" + q;
+        }
+        hashMapAnswers = buildHashMaps();
+        columnarAnswers = buildColumnar();
+    }
+
+    /**
+     * Builds the answers with a hash map per response.
+     * @return The answers.
+     */
+    @Benchmark
+    public List<AnswerDetails> buildHashMaps() {
+        final List<AnswerDetails> answers = new ArrayList<>();
+        for (int i = 0; i < responses; i++) {
+            final AnswerDetails details = new AnswerDetails();
+            details.setId(String.valueOf(i + 1));
+            details.setSubmitDate(newString("2017-05-02 10:00:00"));
+            details.setStartLanguage(newString("en"));
+            details.setToken("token" + i);
+            details.setStartDate(newString("2017-05-02 09:50:00"));
+            final Map<String, String> values = new HashMap<>();
+            for (int q = 0; q < questions; q++) {
+                values.put(titles[q], value(i, q));
+            }
+            details.setAnswers(values);
+            answers.add(details);
+        }
+        return answers;
+    }
+
+    /**
+     * Builds the answers into a columnar store.
+     * @return The views to the answers.
+     */
+    @Benchmark
+    public List<AnswerDetails> buildColumnar() {
+        final ColumnarAnswerStore store = new ColumnarAnswerStore();
+        final int[] columns = new int[questions];
+        for (int q = 0; q < questions; q++) {
+            columns[q] = store.getQuestionColumn(titles[q]);
+        }
+        for (int i = 0; i < responses; i++) {
+            final int row = store.addRow(String.valueOf(i + 1), newString("2017-05-02 10:00:00"), newString("en"),
+                    "token" + i, newString("2017-05-02 09:50:00"));
+            for (int q = 0; q < questions; q++) {
+                store.setAnswer(row, columns[q], value(i, q));
+            }
+        }
+        return store.asList();
+    }
+
+    /**
+     * Reads every answer with a hash map per response by the question title.
+     * @return The total length of the answers.
+     */
+    @Benchmark
+    public long scanHashMaps() {
+        return scan(hashMapAnswers);
+    }
+
+    /**
+     * Reads every answer in the columnar store by the question title.
+     * @return The total length of the answers.
+     */
+    @Benchmark
+    public long scanColumnar() {
+        return scan(columnarAnswers);
+    }
+
+    /**
+     * Reads every answer by the question title, the way the existing callers do.
+     * @param answers The answers.
+     * @return The total length of the answers.
+     */
+    protected long scan(final List<AnswerDetails> answers) {
+        long checksum = 0;
+        for (final AnswerDetails details : answers) {
+            final Map<String, String> values = details.getAnswers();
+            for (final String title : titles) {
+                checksum += values.get(title).length();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Builds the answer value for the given response and question as a new string instance.
+     * @param response The response index.
+     * @param question The question index.
+     * @return The answer value.
+     */
+    protected static String value(final int response, final int question) {
+        if (question % FREE_TEXT_INTERVAL == 0) {
+            return "Free text answer " + question + " for response " + response;
+        }
+        return "A" + ((response + question) % CHOICES + 1);
+    }
+
+    /**
+     * Builds a new string instance with the given contents.
+     * @param value The contents.
+     * @return The new string instance.
+     */
+    protected static String newString(final String value) {
+        return new String(value.toCharArray());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.dto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * Benchmarks for the Gson serialization and deserialization of the largest responses: users, entities and answers.
+ * The default Gson configuration is used, as in the controller message converter and in the API client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    /** The amount of questions in the answers. */
+    public static final int QUESTIONS = 20;
+
+    /** The amount of users, entities and answers. */
+    @Param({ "100", "1000" })
+    private int size;
+
+    /** The Gson instance. */
+    private final Gson gson = new Gson();
+
+    /** The users response. */
+    private ListUsersResponse users;
+
+    /** The entities response. */
+    private ListEntitiesResponse entities;
+
+    /** The answers response. */
+    private AnswersResponse answers;
+
+    /** The serialized users response. */
+    private String usersJson;
+
+    /** The serialized entities response. */
+    private String entitiesJson;
+
+    /** The serialized answers response. */
+    private String answersJson;
+
+    /**
+     * Builds the responses and their serialized forms.
+     */
+    @Setup
+    public void setUp() {
+        users = new ListUsersResponse();
+        final List<UserDetails> userList = new ArrayList<>();
+        entities = new ListEntitiesResponse();
+        answers = new AnswersResponse();
+        final List<AnswerDetails> answerList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final UserDetails user = new UserDetails();
+            user.setPrincipalId("user" + i + "@example.org");
+            user.setSurveyPrincipalId("user" + i);
+            user.getAttributes().put("fullName", "User " + i);
+            user.getAttributes().put("email", "user" + i + "@example.org");
+            user.getRoles().add("admin");
+            userList.add(user);
+            final EntityDetails entity = new EntityDetails();
+            entity.setId(String.valueOf(i));
+            entity.setName("Entity " + i);
+            entity.setDescription("Description of entity " + i);
+            entity.setCreator("user" + i + "@example.org");
+            final AssessorDetails assessor = new AssessorDetails();
+            assessor.setId(String.valueOf(i));
+            assessor.setType("email");
+            assessor.setValue("assessor" + i + "@example.org");
+            entity.getAssessors().add(assessor);
+            entity.getSids().add("100001");
+            entities.getEntities().add(entity);
+            final AnswerDetails answer = new AnswerDetails();
+            answer.setId(String.valueOf(i + 1));
+            answer.setToken("token" + i);
+            answer.setSubmitDate("2017-05-02 10:00:00");
+            answer.setStartDate("2017-05-02 09:50:00");
+            answer.setStartLanguage("en");
+            final Map<String, String> values = new HashMap<>();
+            for (int q = 1; q <= QUESTIONS; q++) {
+                values.put("Q" + q, "Answer " + q + " of response " + i);
+            }
+            answer.setAnswers(values);
+            answerList.add(answer);
+        }
+        users.setUsers(userList);
+        answers.setAnswers(answerList);
+        usersJson = gson.toJson(users);
+        entitiesJson = gson.toJson(entities);
+        answersJson = gson.toJson(answers);
+    }
+
+    /**
+     * Serializes the users response.
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeUsers() {
+        return gson.toJson(users);
+    }
+
+    /**
+     * Deserializes the users response.
+     * @return The response.
+     */
+    @Benchmark
+    public ListUsersResponse deserializeUsers() {
+        return gson.fromJson(usersJson, ListUsersResponse.class);
+    }
+
+    /**
+     * Serializes the entities response.
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeEntities() {
+        return gson.toJson(entities);
+    }
+
+    /**
+     * Deserializes the entities response.
+     * @return The response.
+     */
+    @Benchmark
+    public ListEntitiesResponse deserializeEntities() {
+        return gson.fromJson(entitiesJson, ListEntitiesResponse.class);
+    }
+
+    /**
+     * Serializes the answers response.
+     * @return The JSON.
+     */
+    @Benchmark
+    public String serializeAnswers() {
+        return gson.toJson(answers);
+    }
+
+    /**
+     * Deserializes the answers response.
+     * @return The response.
+     */
+    @Benchmark
+    public AnswersResponse deserializeAnswers() {
+        return gson.fromJson(answersJson, AnswersResponse.class);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.SurveySystemConnectorException;
+import org.geant.sat.api.dto.AssessorDetails;
+import org.geant.sat.api.dto.EntityDetails;
+import org.geant.sat.api.dto.UserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for the bulk import of {@link DataSourceUserDatabaseConnector#storeEntities(List)} against an embedded
+ * database: a federation of entities, each with two assessors shared with other entities, is imported either into an
+ * empty database or over an earlier import of the same entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntityImportBenchmark {
+
+    /** The principal identifier of the creator of the entities. */
+    public static final String CREATOR = "creator@example.org";
+
+    /** The amount of imported entities. */
+    @Param({ "10000" })
+    private int entities;
+
+    /** The amount of rows in a single batch. */
+    @Param({ "1", "100", "500" })
+    private int batchSize;
+
+    /** Whether the same entities have already been imported. */
+    @Param({ "false", "true" })
+    private boolean reimport;
+
+    /** The embedded database. */
+    private EmbeddedDatabase database;
+
+    /** The connector. */
+    private DataSourceUserDatabaseConnector connector;
+
+    /** The entities to be imported. */
+    private List<EntityDetails> federation;
+
+    /**
+     * Builds the database with the creator and the earlier import, if any, and the entities to be imported.
+     * @throws SurveySystemConnectorException If the earlier import fails.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() throws SurveySystemConnectorException {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("entityimport")
+                .addScript("org/geant/sat/api/userDbSchema.sql").build();
+        connector = new DataSourceUserDatabaseConnector();
+        connector.setDataSource(database);
+        connector.setBatchSize(batchSize);
+        final UserDetails creator = new UserDetails();
+        creator.setPrincipalId(CREATOR);
+        connector.updateUserDetails(creator);
+        if (reimport) {
+            connector.storeEntities(buildFederation());
+        }
+        federation = buildFederation();
+    }
+
+    /**
+     * Shuts down the database.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    /**
+     * Imports the entities.
+     * @return The imported entities.
+     * @throws SurveySystemConnectorException If the import fails.
+     */
+    @Benchmark
+    public List<EntityDetails> storeEntities() throws SurveySystemConnectorException {
+        return connector.storeEntities(federation);
+    }
+
+    /**
+     * Builds the entities, the import replaces their assessors with the stored ones.
+     * @return The entities.
+     */
+    protected List<EntityDetails> buildFederation() {
+        final List<EntityDetails> result = new ArrayList<>(entities);
+        for (int i = 0; i < entities; i++) {
+            final EntityDetails entity = new EntityDetails();
+            entity.setName("https://idp" + i + ".example.org/idp/shibboleth");
+            entity.setDescription("Identity Provider " + i);
+            entity.setCreator(CREATOR);
+            entity.getAssessors().add(buildAssessor("security" + i / 2 + "@example.org"));
+            entity.getAssessors().add(buildAssessor("support" + i % (entities / 4) + "@example.org"));
+            result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * Builds an email assessor.
+     * @param value The email address.
+     * @return The assessor.
+     */
+    protected AssessorDetails buildAssessor(final String value) {
+        final AssessorDetails assessor = new AssessorDetails();
+        assessor.setType("email");
+        assessor.setValue(value);
+        assessor.setDescription("Contact " + value);
+        return assessor;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.geant.sat.api.dto.ListEntitiesResponse;
+import org.geant.sat.api.dto.ListUsersResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link EntityDetailsExtractor} and {@link UserDetailsExtractor} over synthetic result sets shaped
+ * like the joined queries of {@link DataSourceUserDatabaseConnector}: every entity has two assessors and two surveys,
+ * and every user has three attributes and two roles, producing four and six rows respectively.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractorBenchmark {
+
+    /** The column labels of the entity query. */
+    private static final String[] ENTITY_COLUMNS = { DataModelUtil.COLUMN_NAME_ENTITY_ID,
+        DataModelUtil.COLUMN_NAME_ENTITY_NAME, DataModelUtil.COLUMN_NAME_ENTITY_DESCRIPTION,
+        DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID, DataModelUtil.INT_COLUMN_NAME_ASSESSOR_ID,
+        DataModelUtil.COLUMN_NAME_ASSESSOR_VALUE, DataModelUtil.COLUMN_NAME_ASSESSOR_TYPE_TYPE,
+        DataModelUtil.COLUMN_NAME_ENTITY_SURVEY_SURVEY_ID };
+
+    /** The column labels of the user query. */
+    private static final String[] USER_COLUMNS = { DataModelUtil.COLUMN_NAME_USER_PRINCIPAL_ID,
+        DataModelUtil.INT_COLUMN_NAME_ATTRIBUTE_NAME, DataModelUtil.INT_COLUMN_NAME_ATTRIBUTE_VALUE,
+        DataModelUtil.INT_COLUMN_NAME_ROLE_NAME };
+
+    /** The amount of entities and users. */
+    @Param({ "100", "1000" })
+    private int size;
+
+    /** The rows of the entity query. */
+    private Object[][] entityRows;
+
+    /** The rows of the user query. */
+    private Object[][] userRows;
+
+    /**
+     * Builds the rows.
+     */
+    @Setup
+    public void setUp() {
+        entityRows = new Object[size * 4][];
+        userRows = new Object[size * 6][];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < 4; j++) {
+                final int assessor = j / 2;
+                entityRows[i * 4 + j] = new Object[] { String.valueOf(i), "Entity " + i, "Description " + i,
+                    "creator" + (i % 10), String.valueOf(i * 2 + assessor), "assessor" + assessor + "@example.org",
+                    "email", String.valueOf(100001 + j % 2) };
+            }
+            for (int j = 0; j < 6; j++) {
+                userRows[i * 6 + j] = new Object[] { "user" + i + "@example.org", "attribute" + j / 2,
+                    "value" + i + "-" + j / 2, j % 2 == 0 ? "admin" : "user" };
+            }
+        }
+    }
+
+    /**
+     * Extracts the entities.
+     * @return The entities.
+     * @throws SQLException If the extraction fails.
+     */
+    @Benchmark
+    public ListEntitiesResponse extractEntities() throws SQLException {
+        return new EntityDetailsExtractor().extractData(SyntheticResultSet.create(ENTITY_COLUMNS, entityRows));
+    }
+
+    /**
+     * Extracts the users.
+     * @return The users.
+     * @throws SQLException If the extraction fails.
+     */
+    @Benchmark
+    public ListUsersResponse extractUsers() throws SQLException {
+        return new UserDetailsExtractor().extractData(SyntheticResultSet.create(USER_COLUMNS, userRows));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A forward-only {@link ResultSet} over in-memory rows, for measuring the result set extractors without the cost
+ * of a JDBC driver. Only the navigation and the getters used by the extractors are supported.
+ */
+public final class SyntheticResultSet implements InvocationHandler {
+
+    /** The column indexes by column label, starting from zero. */
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    /** The rows. */
+    private final Object[][] rows;
+
+    /** The index of the current row. */
+    private int cursor = -1;
+
+    /** Whether the last read value was null. */
+    private boolean lastNull;
+
+    /**
+     * Constructor.
+     * @param labels The column labels.
+     * @param values The rows.
+     */
+    private SyntheticResultSet(final String[] labels, final Object[][] values) {
+        for (int i = 0; i < labels.length; i++) {
+            columns.put(labels[i], i);
+        }
+        rows = values;
+    }
+
+    /**
+     * Creates a new result set over the given rows.
+     * @param labels The column labels.
+     * @param values The rows, each containing a value for every column.
+     * @return The result set positioned before the first row.
+     */
+    public static ResultSet create(final String[] labels, final Object[][] values) {
+        return (ResultSet) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, new SyntheticResultSet(labels, values));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+            case "next":
+                return ++cursor < rows.length;
+            case "getString":
+                final Object value = getValue(args[0]);
+                return value == null ? null : value.toString();
+            case "getInt":
+                return getValue(args[0]) == null ? 0 : ((Number) getValue(args[0])).intValue();
+            case "getLong":
+                return getValue(args[0]) == null ? 0L : ((Number) getValue(args[0])).longValue();
+            case "getObject":
+                return getValue(args[0]);
+            case "wasNull":
+                return lastNull;
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    /**
+     * Get the value of the given column on the current row.
+     * @param column The column label or the index starting from one.
+     * @return The value.
+     */
+    private Object getValue(final Object column) {
+        final Integer index = column instanceof Integer ? (Integer) column - 1 : columns.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column " + column);
+        }
+        final Object value = rows[cursor][index];
+        lastNull = value == null;
+        return value;
+    }
+}
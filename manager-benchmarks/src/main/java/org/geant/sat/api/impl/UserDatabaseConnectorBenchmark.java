@@ -0,0 +1,141 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.geant.sat.api.dto.UserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for the concurrent writes of {@link DataSourceUserDatabaseConnector} against an embedded database: a
+ * batch of user logins, each storing the user details with shared attributes and roles, is spread over the given
+ * amount of threads. The logins per millisecond increase with the threads as long as the writes do not wait for each
+ * other. With one lock stripe every login waits for the previous one, like with the former connector-wide lock, which
+ * is the baseline for the default amount of stripes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDatabaseConnectorBenchmark {
+
+    /** The amount of logins per invocation. */
+    public static final int LOGINS = 64;
+
+    /** The amount of threads running the logins. */
+    @Param({ "1", "4", "8" })
+    private int threads;
+
+    /** The amount of locks for each kind of key, one for serializing all the logins. */
+    @Param({ "1", "64" })
+    private int lockStripes;
+
+    /** The embedded database. */
+    private EmbeddedDatabase database;
+
+    /** The connector. */
+    private DataSourceUserDatabaseConnector connector;
+
+    /** The executor running the logins. */
+    private ExecutorService executor;
+
+    /** The counter for the unique principal identifiers. */
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Builds the database, the connector and the executor.
+     */
+    @Setup
+    public void setUp() {
+        // without the multi-threaded mode H2 runs the statements of all connections one at a time
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("userdb;MULTI_THREADED=1")
+                .addScript("org/geant/sat/api/userDbSchema.sql").build();
+        connector = new DataSourceUserDatabaseConnector();
+        connector.setDataSource(database);
+        connector.setLockStripes(lockStripes);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Shuts down the executor and the database.
+     */
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        database.shutdown();
+    }
+
+    /**
+     * Stores the details of new users concurrently.
+     * @throws Exception If any of the logins fail.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOGINS)
+    public void logins() throws Exception {
+        final List<Future<Void>> futures = new ArrayList<>(LOGINS);
+        for (int i = 0; i < LOGINS; i++) {
+            final long id = counter.incrementAndGet();
+            futures.add(executor.submit(() -> {
+                final UserDetails user = new UserDetails();
+                user.setPrincipalId("user" + id + "@example.org");
+                user.getAttributes().put("mail", "user" + id + "@example.org");
+                user.getAttributes().put("displayName", "User " + id);
+                user.getRoles().add(id % 2 == 0 ? "admin" : "user");
+                connector.updateUserDetails(user);
+                return null;
+            }));
+        }
+        for (final Future<Void> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * GÉANT BSD Software License
+ *
+ * Copyright (c) 2017 - 2020, GÉANT
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the GÉANT nor the names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * Disclaimer:
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.geant.sat.api.lime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for parsing an export_responses response the way the connector does: the JSON-RPC result is located,
+ * base64-decoded and parsed as CSV on the fly with {@link AnswerCsvReader}. The former line-based parser no longer
+ * exists, the streaming parser replaced it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerParsingBenchmark {
+
+    /** The amount of responses in the export. */
+    @Param({ "100", "10000" })
+    private int responses;
+
+    /** The length of the answers, in characters. */
+    @Param({ "16", "256" })
+    private int answerLength;
+
+    /** The export_responses response. */
+    private byte[] export;
+
+    /**
+     * Builds the export_responses response.
+     * @throws IOException If the export cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final SyntheticSurveyData data = new SyntheticSurveyData(1);
+        data.setSurveyCount(1);
+        data.setParticipantCount(responses);
+        data.setResponseRatio(1.0);
+        data.setQuestionCount(20);
+        data.setAnswerLength(answerLength);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.US_ASCII)) {
+            writer.write("{\"id\":1,\"result\":\"");
+            writer.flush();
+            final Writer csv = new OutputStreamWriter(new Base64OutputStream(new CloseShieldOutputStream(bytes),
+                    true, -1, null), StandardCharsets.UTF_8);
+            data.writeResponses(data.getSurveys().get(0), 1, Long.MAX_VALUE, null, csv);
+            csv.close();
+            writer.write("\",\"error\":null}");
+        }
+        export = bytes.toByteArray();
+    }
+
+    /**
+     * Parses the export into answer details.
+     * @param blackhole The sink for the answer details.
+     * @throws IOException If the export cannot be parsed.
+     */
+    @Benchmark
+    public void parseAnswers(final Blackhole blackhole) throws IOException {
+        try (final Reader reader = new InputStreamReader(new ByteArrayInputStream(export), StandardCharsets.UTF_8)) {
+            final JsonRpcResultReader resultReader = new JsonRpcResultReader(reader);
+            if (!resultReader.locateStringResult()) {
+                throw new IOException("No result found");
+            }
+            final Reader decoded = new InputStreamReader(new Base64InputStream(
+                    new ReaderInputStream(resultReader, StandardCharsets.US_ASCII)), StandardCharsets.UTF_8);
+            try (final AnswerCsvReader answerReader = new AnswerCsvReader(decoded)) {
+                while (answerReader.hasNext()) {
+                    blackhole.consume(answerReader.next());
+                }
+            }
+        }
+    }
+}